@@ -2,6 +2,7 @@ package org.highmed.dsf.fhir.organization;
 
 import static org.highmed.dsf.bpe.ConstantsBase.NAMINGSYSTEM_HIGHMED_ENDPOINT_IDENTIFIER;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
@@ -40,6 +41,19 @@ public interface EndpointProvider
 		return getFirstDefaultEndpoint(organizationIdentifierValue).map(Endpoint::getAddress);
 	}
 
+	/**
+	 * @param organizationIdentifierValues
+	 *            not <code>null</code>
+	 * @return first active {@link Endpoint} of each given organization, by organization identifier value; identifier
+	 *         values without matching organization or active endpoint are not contained
+	 */
+	default Map<String, Endpoint> getFirstDefaultEndpoints(Collection<String> organizationIdentifierValues)
+	{
+		return organizationIdentifierValues.stream().distinct()
+				.flatMap(value -> getFirstDefaultEndpoint(value).map(e -> Map.entry(value, e)).stream())
+				.collect(Collectors.toMap(Entry::getKey, Entry::getValue));
+	}
+
 	Map<String, Endpoint> getConsortiumEndpointsByOrganizationIdentifier(String consortiumIdentifierValue);
 
 	default Map<String, String> getConsortiumEndpointAdressesByOrganizationIdentifier(String consortiumIdentifierValue)
@@ -74,4 +88,17 @@ public interface EndpointProvider
 	{
 		return getEndpoint(endpointIdentifierValue).map(Endpoint::getAddress);
 	}
+
+	/**
+	 * @param endpointIdentifierValues
+	 *            not <code>null</code>
+	 * @return active {@link Endpoint}s with one of the given identifier values, by identifier value; identifier values
+	 *         without matching active endpoint are not contained
+	 */
+	default Map<String, Endpoint> getEndpoints(Collection<String> endpointIdentifierValues)
+	{
+		return endpointIdentifierValues.stream().distinct()
+				.flatMap(value -> getEndpoint(value).map(e -> Map.entry(value, e)).stream())
+				.collect(Collectors.toMap(Entry::getKey, Entry::getValue));
+	}
 }
@@ -1,8 +1,11 @@
 package org.highmed.dsf.fhir.organization;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.hl7.fhir.r4.model.IdType;
@@ -32,6 +35,19 @@ public interface OrganizationProvider
 
 	Optional<Organization> getOrganization(String system, String identifier);
 
+	/**
+	 * @param identifierValues
+	 *            not <code>null</code>
+	 * @return active {@link Organization}s with {@link #getDefaultIdentifierSystem()} and one of the given identifier
+	 *         values, by identifier value; identifier values without matching {@link Organization} are not contained
+	 */
+	default Map<String, Organization> getOrganizations(Collection<String> identifierValues)
+	{
+		return identifierValues.stream().distinct()
+				.flatMap(value -> getOrganization(value).map(o -> Map.entry(value, o)).stream())
+				.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+	}
+
 	/**
 	 * @return the active local organization
 	 * @throws NoSuchElementException
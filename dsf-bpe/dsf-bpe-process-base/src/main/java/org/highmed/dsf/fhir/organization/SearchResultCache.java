@@ -0,0 +1,159 @@
+package org.highmed.dsf.fhir.organization;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.highmed.fhir.client.FhirWebserviceClient;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
+import org.hl7.fhir.r4.model.Bundle.SearchEntryMode;
+import org.hl7.fhir.r4.model.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Time based cache for search results of the local DSF FHIR server, used by the {@link OrganizationProvider} and
+ * {@link EndpointProvider} implementations. Entries are keyed by resource type and search parameters and expire after
+ * the configured time to live. The whole cache is invalidated via {@link #invalidate()} if an Organization,
+ * OrganizationAffiliation or Endpoint resource is created or updated, since cached search results may contain included
+ * resources of all three types. Cached bundles are copied before being handed out, since resources are mutable.
+ */
+public class SearchResultCache
+{
+	private static final Logger logger = LoggerFactory.getLogger(SearchResultCache.class);
+
+	private static final String PARAM_COUNT = "_count";
+	private static final String PARAM_PAGE = "_page";
+	private static final int PAGE_COUNT = 200;
+
+	private static final class Entry
+	{
+		final Bundle bundle;
+		final long expiresAt;
+
+		Entry(Bundle bundle, long expiresAt)
+		{
+			this.bundle = bundle;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	private final long timeToLiveMillis;
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	private final AtomicLong generation = new AtomicLong();
+
+	/**
+	 * @param timeToLiveMillis
+	 *            milliseconds until a cached search result expires, <code>0</code> or negative to disable caching
+	 */
+	public SearchResultCache(long timeToLiveMillis)
+	{
+		this.timeToLiveMillis = timeToLiveMillis;
+	}
+
+	public boolean isEnabled()
+	{
+		return timeToLiveMillis > 0;
+	}
+
+	/**
+	 * @param client
+	 *            not <code>null</code>
+	 * @param resourceType
+	 *            not <code>null</code>
+	 * @param parameters
+	 *            not <code>null</code>
+	 * @return search result from the cache or executed with the given client
+	 * @see FhirWebserviceClient#searchWithStrictHandling(Class, Map)
+	 */
+	public Bundle search(FhirWebserviceClient client, Class<? extends Resource> resourceType,
+			Map<String, List<String>> parameters)
+	{
+		Objects.requireNonNull(client, "client");
+		Objects.requireNonNull(resourceType, "resourceType");
+		Objects.requireNonNull(parameters, "parameters");
+
+		if (!isEnabled())
+			return client.searchWithStrictHandling(resourceType, parameters);
+
+		String key = resourceType.getSimpleName() + new TreeMap<>(parameters);
+
+		Entry entry = entries.get(key);
+		if (entry != null && entry.expiresAt > System.currentTimeMillis())
+			return entry.bundle.copy();
+
+		long generationBeforeSearch = generation.get();
+
+		logger.debug("Searching {} with parameters {} on local FHIR server", resourceType.getSimpleName(), parameters);
+		Bundle bundle = client.searchWithStrictHandling(resourceType, parameters);
+
+		// do not cache results of searches running concurrently to an invalidation
+		if (generationBeforeSearch == generation.get())
+			entries.put(key, new Entry(bundle.copy(), System.currentTimeMillis() + timeToLiveMillis));
+
+		return bundle;
+	}
+
+	/**
+	 * Executes the search page by page until all matching resources are loaded, resources included via
+	 * <code>_include</code> are returned as well.
+	 *
+	 * @param client
+	 *            not <code>null</code>
+	 * @param resourceType
+	 *            not <code>null</code>
+	 * @param parameters
+	 *            not <code>null</code>, must not contain <code>_count</code> or <code>_page</code>
+	 * @return resources of all result pages
+	 * @see #search(FhirWebserviceClient, Class, Map)
+	 */
+	public List<Resource> searchAll(FhirWebserviceClient client, Class<? extends Resource> resourceType,
+			Map<String, List<String>> parameters)
+	{
+		List<Resource> resources = new ArrayList<>();
+
+		int matches = 0;
+		for (int page = 1; true; page++)
+		{
+			Map<String, List<String>> pageParameters = new HashMap<>(parameters);
+			pageParameters.put(PARAM_COUNT, Collections.singletonList(String.valueOf(PAGE_COUNT)));
+			pageParameters.put(PARAM_PAGE, Collections.singletonList(String.valueOf(page)));
+
+			Bundle bundle = search(client, resourceType, pageParameters);
+
+			int pageMatches = 0;
+			for (BundleEntryComponent entry : bundle.getEntry())
+			{
+				if (!entry.hasResource())
+					continue;
+
+				resources.add(entry.getResource());
+
+				if (!entry.hasSearch() || !SearchEntryMode.INCLUDE.equals(entry.getSearch().getMode()))
+					pageMatches++;
+			}
+
+			matches += pageMatches;
+			if (pageMatches == 0 || matches >= bundle.getTotal())
+				return resources;
+		}
+	}
+
+	/**
+	 * Removes all cached search results.
+	 */
+	public void invalidate()
+	{
+		generation.incrementAndGet();
+		entries.clear();
+
+		logger.debug("Search result cache invalidated");
+	}
+}
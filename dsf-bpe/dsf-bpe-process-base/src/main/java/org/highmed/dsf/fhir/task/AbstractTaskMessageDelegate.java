@@ -0,0 +1,193 @@
+package org.highmed.dsf.fhir.task;
+
+import static org.highmed.dsf.bpe.ConstantsBase.BPMN_EXECUTION_VARIABLE_TARGETS;
+import static org.highmed.dsf.bpe.ConstantsBase.CODESYSTEM_HIGHMED_BPMN;
+import static org.highmed.dsf.bpe.ConstantsBase.CODESYSTEM_HIGHMED_BPMN_VALUE_BUSINESS_KEY;
+import static org.highmed.dsf.bpe.ConstantsBase.CODESYSTEM_HIGHMED_BPMN_VALUE_CORRELATION_KEY;
+import static org.highmed.dsf.bpe.ConstantsBase.CODESYSTEM_HIGHMED_BPMN_VALUE_ERROR;
+import static org.highmed.dsf.bpe.ConstantsBase.CODESYSTEM_HIGHMED_BPMN_VALUE_MESSAGE_NAME;
+import static org.highmed.dsf.bpe.ConstantsBase.NAMINGSYSTEM_HIGHMED_ORGANIZATION_IDENTIFIER;
+
+import java.util.Date;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.highmed.dsf.bpe.ConstantsBase;
+import org.highmed.dsf.bpe.delegate.AbstractServiceDelegate;
+import org.highmed.dsf.fhir.authorization.read.ReadAccessHelper;
+import org.highmed.dsf.fhir.client.FhirWebserviceClientProvider;
+import org.highmed.dsf.fhir.organization.OrganizationProvider;
+import org.highmed.dsf.fhir.variables.Target;
+import org.highmed.dsf.fhir.variables.Targets;
+import org.highmed.dsf.fhir.variables.TargetsValues;
+import org.hl7.fhir.r4.model.CodeableConcept;
+import org.hl7.fhir.r4.model.Coding;
+import org.hl7.fhir.r4.model.Identifier;
+import org.hl7.fhir.r4.model.Meta;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.ParameterComponent;
+import org.hl7.fhir.r4.model.Task.TaskIntent;
+import org.hl7.fhir.r4.model.Task.TaskStatus;
+import org.springframework.beans.factory.InitializingBean;
+
+import ca.uhn.fhir.context.FhirContext;
+
+/**
+ * Base class for service delegates sending {@link Task} messages, creates the {@link Task} resources for
+ * {@link Target}s and provides access to the {@link Targets} variable.
+ *
+ * @see AbstractTaskMessageSend
+ * @see AbstractTaskMessageFanOutSend
+ */
+public abstract class AbstractTaskMessageDelegate extends AbstractServiceDelegate implements InitializingBean
+{
+	private final OrganizationProvider organizationProvider;
+	private final FhirContext fhirContext;
+
+	public AbstractTaskMessageDelegate(FhirWebserviceClientProvider clientProvider, TaskHelper taskHelper,
+			ReadAccessHelper readAccessHelper, OrganizationProvider organizationProvider, FhirContext fhirContext)
+	{
+		super(clientProvider, taskHelper, readAccessHelper);
+
+		this.organizationProvider = organizationProvider;
+		this.fhirContext = fhirContext;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		super.afterPropertiesSet();
+
+		Objects.requireNonNull(organizationProvider, "organizationProvider");
+		Objects.requireNonNull(fhirContext, "fhirContext");
+	}
+
+	protected void addErrorMessage(Task task, String errorMessage)
+	{
+		task.addOutput(getTaskHelper().createOutput(CODESYSTEM_HIGHMED_BPMN, CODESYSTEM_HIGHMED_BPMN_VALUE_ERROR,
+				errorMessage));
+	}
+
+	/**
+	 * <i>Override this method if the {@link Targets} variable is stored in a different process engine variable other
+	 * then {@link ConstantsBase#BPMN_EXECUTION_VARIABLE_TARGETS}.</i>
+	 *
+	 * @param execution
+	 *            not <code>null</code>
+	 * @return {@link Targets} that should receive the message
+	 */
+	protected Targets getTargets(DelegateExecution execution)
+	{
+		return (Targets) execution.getVariable(BPMN_EXECUTION_VARIABLE_TARGETS);
+	}
+
+	/**
+	 * <i>Override this method if the {@link Targets} variable should stored in a different process engine variable
+	 * other then {@link ConstantsBase#BPMN_EXECUTION_VARIABLE_TARGETS}.</i>
+	 *
+	 * @param execution
+	 *            not <code>null</code>
+	 * @param targets
+	 *            the targets to save in process engine variable {@link ConstantsBase#BPMN_EXECUTION_VARIABLE_TARGETS}
+	 */
+	protected void updateTargets(DelegateExecution execution, Targets targets)
+	{
+		execution.setVariable(BPMN_EXECUTION_VARIABLE_TARGETS, TargetsValues.create(targets));
+	}
+
+	/**
+	 * <i>Override this method to add additional input parameters to the task resource being send.</i>
+	 *
+	 * @param execution
+	 *            the delegate execution of this process instance
+	 * @return {@link Stream} of {@link ParameterComponent}s to be added as input parameters
+	 */
+	protected Stream<ParameterComponent> getAdditionalInputParameters(DelegateExecution execution)
+	{
+		return Stream.empty();
+	}
+
+	/**
+	 * @param target
+	 *            not <code>null</code>
+	 * @param instantiatesUri
+	 *            not <code>null</code>, not empty
+	 * @param messageName
+	 *            not <code>null</code>, not empty
+	 * @param businessKey
+	 *            not <code>null</code>
+	 * @param profile
+	 *            not <code>null</code>
+	 * @param additionalInputParameters
+	 *            not <code>null</code>
+	 * @return new {@link Task} with status {@link TaskStatus#REQUESTED} addressed to the given target
+	 */
+	protected Task createTask(Target target, String instantiatesUri, String messageName, String businessKey,
+			String profile, Stream<ParameterComponent> additionalInputParameters)
+	{
+		if (messageName.isEmpty() || instantiatesUri.isEmpty())
+			throw new IllegalStateException("Next process-id or message-name not definied");
+
+		Task task = new Task();
+		task.setMeta(new Meta().addProfile(profile));
+		task.setStatus(TaskStatus.REQUESTED);
+		task.setIntent(TaskIntent.ORDER);
+		task.setAuthoredOn(new Date());
+		task.setRequester(getRequester());
+		task.getRestriction().addRecipient(getRecipient(target));
+		task.setInstantiatesUri(instantiatesUri);
+
+		ParameterComponent messageNameInput = new ParameterComponent(
+				new CodeableConcept(
+						new Coding(CODESYSTEM_HIGHMED_BPMN, CODESYSTEM_HIGHMED_BPMN_VALUE_MESSAGE_NAME, null)),
+				new StringType(messageName));
+		task.getInput().add(messageNameInput);
+
+		ParameterComponent businessKeyInput = new ParameterComponent(
+				new CodeableConcept(
+						new Coding(CODESYSTEM_HIGHMED_BPMN, CODESYSTEM_HIGHMED_BPMN_VALUE_BUSINESS_KEY, null)),
+				new StringType(businessKey));
+		task.getInput().add(businessKeyInput);
+
+		String correlationKey = target.getCorrelationKey();
+		if (correlationKey != null)
+		{
+			ParameterComponent correlationKeyInput = new ParameterComponent(
+					new CodeableConcept(
+							new Coding(CODESYSTEM_HIGHMED_BPMN, CODESYSTEM_HIGHMED_BPMN_VALUE_CORRELATION_KEY, null)),
+					new StringType(correlationKey));
+			task.getInput().add(correlationKeyInput);
+		}
+
+		additionalInputParameters.forEach(task.getInput()::add);
+
+		return task;
+	}
+
+	protected Reference getRecipient(Target target)
+	{
+		return new Reference().setType("Organization")
+				.setIdentifier(new Identifier().setSystem(NAMINGSYSTEM_HIGHMED_ORGANIZATION_IDENTIFIER)
+						.setValue(target.getOrganizationIdentifierValue()));
+	}
+
+	protected Reference getRequester()
+	{
+		return new Reference().setType("Organization")
+				.setIdentifier(new Identifier().setSystem(NAMINGSYSTEM_HIGHMED_ORGANIZATION_IDENTIFIER)
+						.setValue(getOrganizationProvider().getLocalIdentifierValue()));
+	}
+
+	protected final OrganizationProvider getOrganizationProvider()
+	{
+		return organizationProvider;
+	}
+
+	protected final FhirContext getFhirContext()
+	{
+		return fhirContext;
+	}
+}
@@ -0,0 +1,313 @@
+package org.highmed.dsf.fhir.task;
+
+import static org.highmed.dsf.bpe.ConstantsBase.BPMN_EXECUTION_VARIABLE_INSTANTIATES_URI;
+import static org.highmed.dsf.bpe.ConstantsBase.BPMN_EXECUTION_VARIABLE_MESSAGE_NAME;
+import static org.highmed.dsf.bpe.ConstantsBase.BPMN_EXECUTION_VARIABLE_PROFILE;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.highmed.dsf.fhir.authorization.read.ReadAccessHelper;
+import org.highmed.dsf.fhir.client.FhirWebserviceClientProvider;
+import org.highmed.dsf.fhir.organization.OrganizationProvider;
+import org.highmed.dsf.fhir.variables.Target;
+import org.highmed.dsf.fhir.variables.Targets;
+import org.highmed.fhir.client.FhirWebserviceClient;
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.ParameterComponent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ca.uhn.fhir.context.FhirContext;
+
+/**
+ * Sends a {@link Task} to every {@link Target} of the {@link Targets} variable from a single send task or intermediate
+ * message throw event, replacing a multi instance loop over {@link AbstractTaskMessageSend}. Tasks are send
+ * concurrently using at most {@link #getMaxParallelism()} threads, sending to a single target is retried
+ * {@link #getMaxRetries()} times on connection errors and server side errors and abandoned after
+ * {@link #getTimeoutMillis()} ms.
+ * <p>
+ * Targets that could not be reached are removed from the {@link Targets} variable and an error output is added to the
+ * leading task, as done by {@link AbstractTaskMessageSend} for multi instance send tasks. If no target could be
+ * reached, the process fails.
+ */
+public class AbstractTaskMessageFanOutSend extends AbstractTaskMessageDelegate
+{
+	private static final Logger logger = LoggerFactory.getLogger(AbstractTaskMessageFanOutSend.class);
+
+	private static final long POLL_INTERVAL_MILLIS = 100;
+
+	public static final int DEFAULT_MAX_PARALLELISM = 10;
+	public static final int DEFAULT_MAX_RETRIES = 1;
+	public static final long DEFAULT_RETRY_DELAY_MILLIS = 5_000L;
+	public static final long DEFAULT_TIMEOUT_MILLIS = 120_000L;
+
+	private static final class Send
+	{
+		final Target target;
+		final Task task;
+		final FhirWebserviceClient client;
+		final AtomicLong started = new AtomicLong();
+
+		Send(Target target, Task task, FhirWebserviceClient client)
+		{
+			this.target = target;
+			this.task = task;
+			this.client = client;
+		}
+	}
+
+	public AbstractTaskMessageFanOutSend(FhirWebserviceClientProvider clientProvider, TaskHelper taskHelper,
+			ReadAccessHelper readAccessHelper, OrganizationProvider organizationProvider, FhirContext fhirContext)
+	{
+		super(clientProvider, taskHelper, readAccessHelper, organizationProvider, fhirContext);
+	}
+
+	@Override
+	public void doExecute(DelegateExecution execution) throws Exception
+	{
+		String instantiatesUri = (String) execution.getVariable(BPMN_EXECUTION_VARIABLE_INSTANTIATES_URI);
+		String messageName = (String) execution.getVariable(BPMN_EXECUTION_VARIABLE_MESSAGE_NAME);
+		String profile = (String) execution.getVariable(BPMN_EXECUTION_VARIABLE_PROFILE);
+		String businessKey = execution.getBusinessKey();
+
+		Targets targets = getTargets(execution);
+		if (targets == null || targets.isEmpty())
+		{
+			logger.warn("No targets to send Task (process: {}, message-name: {}, business-key: {}) to", instantiatesUri,
+					messageName, businessKey);
+			return;
+		}
+
+		// tasks and clients created by the calling thread, DelegateExecution not thread safe
+		List<Send> sends = targets.getEntries().stream()
+				.map(target -> new Send(target,
+						createTask(target, instantiatesUri, messageName, businessKey, profile,
+								getAdditionalInputParameters(execution, target)),
+						getFhirWebserviceClientProvider().getWebserviceClient(target.getEndpointUrl())))
+				.collect(Collectors.toList());
+
+		logger.info("Sending task {} to {} targets [message: {}, businessKey: {}]", instantiatesUri, sends.size(),
+				messageName, businessKey);
+
+		List<SendTaskResult> results = sendTasks(sends);
+
+		handleResults(execution, instantiatesUri, messageName, businessKey, results);
+	}
+
+	/**
+	 * <i>Override this method to add target specific input parameters to the task resources being send. Delegates to
+	 * {@link #getAdditionalInputParameters(DelegateExecution)} by default.</i>
+	 *
+	 * @param execution
+	 *            the delegate execution of this process instance
+	 * @param target
+	 *            not <code>null</code>
+	 * @return {@link Stream} of {@link ParameterComponent}s to be added as input parameters
+	 */
+	protected Stream<ParameterComponent> getAdditionalInputParameters(DelegateExecution execution, Target target)
+	{
+		return getAdditionalInputParameters(execution);
+	}
+
+	/**
+	 * <i>Override this method to change the maximum number of tasks send concurrently.</i>
+	 *
+	 * @return maximum number of concurrent requests, default {@value #DEFAULT_MAX_PARALLELISM}
+	 */
+	protected int getMaxParallelism()
+	{
+		return DEFAULT_MAX_PARALLELISM;
+	}
+
+	/**
+	 * <i>Override this method to change the number of retries per target.</i>
+	 *
+	 * @return number of retries per target, default {@value #DEFAULT_MAX_RETRIES}
+	 */
+	protected int getMaxRetries()
+	{
+		return DEFAULT_MAX_RETRIES;
+	}
+
+	/**
+	 * <i>Override this method to change the delay between retries.</i>
+	 *
+	 * @return delay between retries in milliseconds, default {@value #DEFAULT_RETRY_DELAY_MILLIS}
+	 */
+	protected long getRetryDelayMillis()
+	{
+		return DEFAULT_RETRY_DELAY_MILLIS;
+	}
+
+	/**
+	 * <i>Override this method to change the time after which sending to a single target, including retries, is
+	 * abandoned. The target may still receive the task after the timeout, if the request was already sent.</i>
+	 *
+	 * @return timeout per target in milliseconds, default {@value #DEFAULT_TIMEOUT_MILLIS}
+	 */
+	protected long getTimeoutMillis()
+	{
+		return DEFAULT_TIMEOUT_MILLIS;
+	}
+
+	/**
+	 * <i>Override this method to modify the remote task create behavior, called concurrently for different targets.
+	 * Implementations must not access the {@link DelegateExecution}.</i>
+	 *
+	 * @param client
+	 *            not <code>null</code>
+	 * @param task
+	 *            not <code>null</code>
+	 * @param maxRetries
+	 *            {@code >= 0}
+	 * @param retryDelayMillis
+	 *            {@code >= 0}
+	 */
+	protected void doSend(FhirWebserviceClient client, Task task, int maxRetries, long retryDelayMillis)
+	{
+		client.withMinimalReturn().withRetry(maxRetries, retryDelayMillis).create(task);
+	}
+
+	private List<SendTaskResult> sendTasks(List<Send> sends) throws InterruptedException
+	{
+		int maxRetries = Math.max(0, getMaxRetries());
+		long retryDelayMillis = Math.max(0, getRetryDelayMillis());
+		long timeoutMillis = getTimeoutMillis();
+
+		ExecutorService executor = Executors
+				.newFixedThreadPool(Math.max(1, Math.min(getMaxParallelism(), sends.size())));
+		try
+		{
+			List<Future<?>> futures = sends.stream().map(send -> executor.submit(() ->
+			{
+				send.started.set(System.currentTimeMillis());
+
+				logger.debug("Sending task {} to {}/{} [endpoint: {}]", send.task.getInstantiatesUri(),
+						send.target.getOrganizationIdentifierValue(), send.target.getEndpointIdentifierValue(),
+						send.client.getBaseUrl());
+				if (logger.isTraceEnabled())
+					logger.trace("Task resource to send: {}",
+							getFhirContext().newJsonParser().encodeResourceToString(send.task));
+
+				doSend(send.client, send.task, maxRetries, retryDelayMillis);
+			})).collect(Collectors.toList());
+
+			List<SendTaskResult> results = new ArrayList<>(sends.size());
+			for (int i = 0; i < sends.size(); i++)
+				results.add(await(sends.get(i), futures.get(i), timeoutMillis));
+
+			return results;
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	private SendTaskResult await(Send send, Future<?> future, long timeoutMillis) throws InterruptedException
+	{
+		while (true)
+		{
+			try
+			{
+				future.get(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+				return new SendTaskResult(send.target, send.task, null, duration(send));
+			}
+			catch (ExecutionException e)
+			{
+				Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+				return new SendTaskResult(send.target, send.task, cause, duration(send));
+			}
+			catch (TimeoutException e)
+			{
+				long started = send.started.get();
+				if (started > 0 && System.currentTimeMillis() - started > timeoutMillis)
+				{
+					future.cancel(true);
+					return new SendTaskResult(send.target, send.task,
+							new TimeoutException("No response within " + timeoutMillis + " ms"), duration(send));
+				}
+			}
+		}
+	}
+
+	private long duration(Send send)
+	{
+		long started = send.started.get();
+		return started > 0 ? System.currentTimeMillis() - started : 0;
+	}
+
+	/**
+	 * Removes unreachable targets from the {@link Targets} variable and adds error outputs to the leading task. Fails
+	 * the process if no target could be reached.<br>
+	 * <br>
+	 * <i>Override this method to implement a different error handling.</i>
+	 *
+	 * @param execution
+	 *            not <code>null</code>
+	 * @param instantiatesUri
+	 *            not <code>null</code>
+	 * @param messageName
+	 *            not <code>null</code>
+	 * @param businessKey
+	 *            not <code>null</code>
+	 * @param results
+	 *            not <code>null</code>, one result per target, same order as the {@link Targets} variable
+	 * @see #updateTargets(DelegateExecution, Targets)
+	 */
+	protected void handleResults(DelegateExecution execution, String instantiatesUri, String messageName,
+			String businessKey, List<SendTaskResult> results)
+	{
+		List<SendTaskResult> errors = results.stream().filter(r -> !r.isSuccess()).collect(Collectors.toList());
+
+		results.stream().filter(SendTaskResult::isSuccess)
+				.forEach(r -> logger.info("Task {} send to {}/{} in {} ms", instantiatesUri,
+						r.getTarget().getOrganizationIdentifierValue(), r.getTarget().getEndpointIdentifierValue(),
+						r.getDurationMillis()));
+
+		if (errors.isEmpty())
+			return;
+
+		Task leadingTask = getLeadingTaskFromExecutionVariables(execution);
+		Targets targets = getTargets(execution);
+
+		for (SendTaskResult error : errors)
+		{
+			Target target = error.getTarget();
+			String errorMessage = "Error while sending Task (process: " + instantiatesUri + ", message-name: "
+					+ messageName + ", business-key: " + businessKey + ", correlation-key: "
+					+ target.getCorrelationKey() + ") to organization with identifier "
+					+ target.getOrganizationIdentifierValue() + ", endpoint with identifier "
+					+ target.getEndpointIdentifierValue() + ": " + error.getError().getMessage();
+			logger.warn(errorMessage);
+			logger.debug("Error while sending Task", error.getError());
+
+			if (leadingTask != null)
+				addErrorMessage(leadingTask, errorMessage);
+
+			targets = targets.removeByEndpointIdentifierValue(target);
+		}
+
+		if (leadingTask != null)
+			updateLeadingTaskInExecutionVariables(execution, leadingTask);
+
+		updateTargets(execution, targets);
+		logger.debug("{} of {} targets with errors removed from target list", errors.size(), results.size());
+
+		if (targets.isEmpty())
+			throw new RuntimeException("Unable to send Task (process: " + instantiatesUri + ", message-name: "
+					+ messageName + ", business-key: " + businessKey + ") to any of " + results.size()
+					+ " targets, last reason: " + errors.get(errors.size() - 1).getError().getMessage());
+	}
+}
@@ -0,0 +1,59 @@
+package org.highmed.dsf.fhir.task;
+
+import java.util.Objects;
+
+import org.highmed.dsf.fhir.variables.Target;
+import org.hl7.fhir.r4.model.Task;
+
+/**
+ * Outcome of sending a {@link Task} to a single {@link Target}, see {@link AbstractTaskMessageFanOutSend}
+ */
+public class SendTaskResult
+{
+	private final Target target;
+	private final Task task;
+	private final Exception error;
+	private final long durationMillis;
+
+	public SendTaskResult(Target target, Task task, Exception error, long durationMillis)
+	{
+		this.target = Objects.requireNonNull(target, "target");
+		this.task = Objects.requireNonNull(task, "task");
+		this.error = error;
+		this.durationMillis = durationMillis;
+	}
+
+	public Target getTarget()
+	{
+		return target;
+	}
+
+	/**
+	 * @return the task send to the target
+	 */
+	public Task getTask()
+	{
+		return task;
+	}
+
+	public boolean isSuccess()
+	{
+		return error == null;
+	}
+
+	/**
+	 * @return <code>null</code> if {@link #isSuccess()}
+	 */
+	public Exception getError()
+	{
+		return error;
+	}
+
+	/**
+	 * @return time in milliseconds spend sending the task, including retries
+	 */
+	public long getDurationMillis()
+	{
+		return durationMillis;
+	}
+}
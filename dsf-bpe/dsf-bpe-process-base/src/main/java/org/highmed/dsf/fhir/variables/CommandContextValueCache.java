@@ -0,0 +1,170 @@
+package org.highmed.dsf.fhir.variables;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.interceptor.CommandContextListener;
+
+/**
+ * Cache for values computed from serialized variable bytes, scoped to the current camunda {@link CommandContext}
+ * (transaction). Entries are discarded when the command context closes or fails. Without an active command context
+ * values are computed but not cached.
+ *
+ * @param <V>
+ *            cached value type
+ */
+class CommandContextValueCache<V>
+{
+	private static final class BytesKey
+	{
+		final byte[] bytes;
+		final int hash;
+
+		BytesKey(byte[] bytes)
+		{
+			this.bytes = bytes;
+			this.hash = Arrays.hashCode(bytes);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			return obj instanceof BytesKey && hash == ((BytesKey) obj).hash
+					&& Arrays.equals(bytes, ((BytesKey) obj).bytes);
+		}
+	}
+
+	private static final class Holder<V>
+	{
+		V value;
+	}
+
+	private final class Entries implements CommandContextListener
+	{
+		final CommandContext commandContext;
+		final Map<BytesKey, Holder<V>> values = new HashMap<>();
+
+		Entries(CommandContext commandContext)
+		{
+			this.commandContext = commandContext;
+		}
+
+		@Override
+		public void onCommandContextClose(CommandContext commandContext)
+		{
+			clear();
+		}
+
+		@Override
+		public void onCommandFailed(CommandContext commandContext, Throwable t)
+		{
+			clear();
+		}
+
+		private void clear()
+		{
+			if (entries.get() == this)
+				entries.remove();
+		}
+	}
+
+	private final ThreadLocal<Entries> entries = new ThreadLocal<>();
+
+	/**
+	 * For immutable values.
+	 *
+	 * @param bytes
+	 *            not <code>null</code>, must not be modified after calling this method
+	 * @param compute
+	 *            not <code>null</code>
+	 * @return cached value for the given bytes or newly computed value
+	 */
+	public V get(byte[] bytes, Function<byte[], V> compute)
+	{
+		Map<BytesKey, Holder<V>> values = getValues();
+		if (values == null)
+			return compute.apply(bytes);
+
+		Holder<V> holder = values.computeIfAbsent(new BytesKey(bytes), k -> new Holder<>());
+		if (holder.value == null)
+			holder.value = compute.apply(bytes);
+
+		return holder.value;
+	}
+
+	/**
+	 * For mutable values. A copy of the computed value is cached, all further requests for the same bytes return copies
+	 * of the cached value. Values handed out are never shared, modifications by the caller do not affect the cache.
+	 *
+	 * @param bytes
+	 *            not <code>null</code>, must not be modified after calling this method
+	 * @param compute
+	 *            not <code>null</code>
+	 * @param copy
+	 *            not <code>null</code>
+	 * @return copy of the cached value for the given bytes or newly computed value
+	 */
+	public V getCopy(byte[] bytes, Function<byte[], V> compute, UnaryOperator<V> copy)
+	{
+		Map<BytesKey, Holder<V>> values = getValues();
+		if (values == null)
+			return compute.apply(bytes);
+
+		Holder<V> holder = values.computeIfAbsent(new BytesKey(bytes), k -> new Holder<>());
+		if (holder.value == null)
+		{
+			V value = compute.apply(bytes);
+			holder.value = copy.apply(value);
+			return value;
+		}
+		else
+			return copy.apply(holder.value);
+	}
+
+	/**
+	 * @param bytes
+	 *            may be <code>null</code>
+	 * @return value cached for the given bytes in the current command context, <code>null</code> if not cached, the
+	 *         returned value must not be modified
+	 */
+	public V getCached(byte[] bytes)
+	{
+		if (bytes == null)
+			return null;
+
+		Map<BytesKey, Holder<V>> values = getValues();
+		if (values == null)
+			return null;
+
+		Holder<V> holder = values.get(new BytesKey(bytes));
+		return holder == null ? null : holder.value;
+	}
+
+	private Map<BytesKey, Holder<V>> getValues()
+	{
+		CommandContext commandContext = Context.getCommandContext();
+		if (commandContext == null)
+			return null;
+
+		Entries e = entries.get();
+		if (e == null || e.commandContext != commandContext)
+		{
+			e = new Entries(commandContext);
+			entries.set(e);
+			commandContext.registerCommandContextListener(e);
+		}
+
+		return e.values;
+	}
+}
@@ -0,0 +1,158 @@
+package org.highmed.dsf.fhir.variables;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.camunda.bpm.engine.impl.variable.serializer.PrimitiveValueSerializer;
+import org.camunda.bpm.engine.impl.variable.serializer.ValueFields;
+import org.camunda.bpm.engine.variable.impl.value.UntypedValueImpl;
+import org.highmed.dsf.fhir.variables.FhirResourceValues.FhirResourceValue;
+import org.hl7.fhir.r4.model.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.DataFormatException;
+import ca.uhn.fhir.parser.IParser;
+
+/**
+ * Alternative to {@link FhirResourceSerializer} storing resources as compact JSON, optionally compressed. Parsed values
+ * and compressed bytes are cached for the current transaction, identical variable values are not parsed or compressed
+ * twice. Values equal to the value read from the stored bytes in the current transaction are not encoded and not
+ * written to the database again.
+ * <p>
+ * Values written by {@link FhirResourceSerializer} can be read by this serializer. Values written by this serializer
+ * can only be read by {@link FhirResourceSerializer} if compression is {@link VariableCompression#NONE}.
+ */
+public class CompactFhirResourceSerializer extends PrimitiveValueSerializer<FhirResourceValue>
+		implements InitializingBean
+{
+	private static final Logger logger = LoggerFactory.getLogger(CompactFhirResourceSerializer.class);
+
+	private final CommandContextValueCache<Resource> parsedValues = new CommandContextValueCache<>();
+	private final CommandContextValueCache<byte[]> compressedValues = new CommandContextValueCache<>();
+
+	private final FhirContext fhirContext;
+	private final VariableCompression compression;
+	private final int compressionThreshold;
+
+	/**
+	 * @param fhirContext
+	 *            not <code>null</code>
+	 * @param compression
+	 *            not <code>null</code>
+	 * @param compressionThreshold
+	 *            values smaller than the given number of bytes are not compressed
+	 */
+	public CompactFhirResourceSerializer(FhirContext fhirContext, VariableCompression compression,
+			int compressionThreshold)
+	{
+		super(FhirResourceValues.VALUE_TYPE);
+
+		this.fhirContext = fhirContext;
+		this.compression = compression;
+		this.compressionThreshold = compressionThreshold;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		Objects.requireNonNull(fhirContext, "fhirContext");
+		Objects.requireNonNull(compression, "compression");
+	}
+
+	@Override
+	public void writeValue(FhirResourceValue value, ValueFields valueFields)
+	{
+		Resource resource = value.getValue();
+		try
+		{
+			if (resource != null && !isUnchanged(resource, valueFields))
+			{
+				byte[] json = newJsonParser().encodeResourceToString(resource).getBytes(StandardCharsets.UTF_8);
+				byte[] stored = VariableCompression.NONE.equals(compression) ? json
+						: compressedValues.get(json, this::compress);
+
+				valueFields.setTextValue(resource.getClass().getName());
+
+				if (!Arrays.equals(stored, valueFields.getByteArrayValue()))
+					valueFields.setByteArrayValue(stored);
+			}
+		}
+		catch (DataFormatException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	private boolean isUnchanged(Resource resource, ValueFields valueFields)
+	{
+		if (!resource.getClass().getName().equals(valueFields.getTextValue()))
+			return false;
+
+		Resource read = parsedValues.getCached(valueFields.getByteArrayValue());
+		return read != null && read.equalsDeep(resource);
+	}
+
+	private byte[] compress(byte[] json)
+	{
+		try
+		{
+			return compression.compress(json, compressionThreshold);
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	private IParser newJsonParser()
+	{
+		IParser p = fhirContext.newJsonParser();
+		p.setPrettyPrint(false);
+		p.setStripVersionsFromReferences(false);
+		p.setOverrideResourceIdWithBundleEntryFullUrl(false);
+		return p;
+	}
+
+	@Override
+	public FhirResourceValue convertToTypedValue(UntypedValueImpl untypedValue)
+	{
+		return FhirResourceValues.create((Resource) untypedValue.getValue());
+	}
+
+	@Override
+	public FhirResourceValue readValue(ValueFields valueFields, boolean asTransientValue)
+	{
+		String className = valueFields.getTextValue();
+		byte[] bytes = valueFields.getByteArrayValue();
+
+		return FhirResourceValues.create(parsedValues.getCopy(bytes, b -> parse(className, b), Resource::copy));
+	}
+
+	private Resource parse(String className, byte[] bytes)
+	{
+		try (InputStream in = VariableCompression.decompress(bytes))
+		{
+			if (className != null)
+			{
+				@SuppressWarnings("unchecked")
+				Class<Resource> clazz = (Class<Resource>) Class.forName(className);
+				return newJsonParser().parseResource(clazz, in);
+			}
+			else
+			{
+				logger.warn("ClassName from DB null, trying to parse FHIR resource without type information");
+				return (Resource) newJsonParser().parseResource(in);
+			}
+		}
+		catch (ClassNotFoundException | IOException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package org.highmed.dsf.fhir.variables;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.camunda.bpm.engine.impl.variable.serializer.PrimitiveValueSerializer;
+import org.camunda.bpm.engine.impl.variable.serializer.ValueFields;
+import org.camunda.bpm.engine.variable.impl.value.UntypedValueImpl;
+import org.highmed.dsf.fhir.variables.FhirResourcesListValues.FhirResourcesListValue;
+import org.hl7.fhir.r4.model.Resource;
+import org.springframework.beans.factory.InitializingBean;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Alternative to {@link FhirResourcesListSerializer} storing resource lists as compact JSON, optionally compressed.
+ * Parsed values and compressed bytes are cached for the current transaction, identical variable values are not parsed
+ * or compressed twice. Values equal to the value read from the stored bytes in the current transaction are not encoded
+ * and not written to the database again.
+ * <p>
+ * Values written by {@link FhirResourcesListSerializer} can be read by this serializer. Values written by this
+ * serializer can only be read by {@link FhirResourcesListSerializer} if compression is
+ * {@link VariableCompression#NONE}.
+ */
+public class CompactFhirResourcesListSerializer extends PrimitiveValueSerializer<FhirResourcesListValue>
+		implements InitializingBean
+{
+	private final CommandContextValueCache<FhirResourcesList> parsedValues = new CommandContextValueCache<>();
+	private final CommandContextValueCache<byte[]> compressedValues = new CommandContextValueCache<>();
+
+	private final ObjectMapper objectMapper;
+	private final VariableCompression compression;
+	private final int compressionThreshold;
+
+	/**
+	 * @param objectMapper
+	 *            not <code>null</code>
+	 * @param compression
+	 *            not <code>null</code>
+	 * @param compressionThreshold
+	 *            values smaller than the given number of bytes are not compressed
+	 */
+	public CompactFhirResourcesListSerializer(ObjectMapper objectMapper, VariableCompression compression,
+			int compressionThreshold)
+	{
+		super(FhirResourcesListValues.VALUE_TYPE);
+
+		this.objectMapper = objectMapper;
+		this.compression = compression;
+		this.compressionThreshold = compressionThreshold;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		Objects.requireNonNull(objectMapper, "objectMapper");
+		Objects.requireNonNull(compression, "compression");
+	}
+
+	@Override
+	public void writeValue(FhirResourcesListValue value, ValueFields valueFields)
+	{
+		FhirResourcesList resource = value.getValue();
+		try
+		{
+			if (resource != null && !isUnchanged(resource, valueFields))
+			{
+				byte[] json = objectMapper.writeValueAsBytes(resource);
+				byte[] stored = VariableCompression.NONE.equals(compression) ? json
+						: compressedValues.get(json, this::compress);
+
+				valueFields.setTextValue(resource.getClass().getName());
+
+				if (!Arrays.equals(stored, valueFields.getByteArrayValue()))
+					valueFields.setByteArrayValue(stored);
+			}
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	private boolean isUnchanged(FhirResourcesList list, ValueFields valueFields)
+	{
+		if (!list.getClass().getName().equals(valueFields.getTextValue()))
+			return false;
+
+		FhirResourcesList read = parsedValues.getCached(valueFields.getByteArrayValue());
+		if (read == null || read.getResources().size() != list.getResources().size())
+			return false;
+
+		for (int i = 0; i < list.getResources().size(); i++)
+			if (!read.getResources().get(i).equalsDeep(list.getResources().get(i)))
+				return false;
+
+		return true;
+	}
+
+	private byte[] compress(byte[] json)
+	{
+		try
+		{
+			return compression.compress(json, compressionThreshold);
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public FhirResourcesListValue convertToTypedValue(UntypedValueImpl untypedValue)
+	{
+		return FhirResourcesListValues.create((FhirResourcesList) untypedValue.getValue());
+	}
+
+	@Override
+	public FhirResourcesListValue readValue(ValueFields valueFields, boolean asTransientValue)
+	{
+		String className = valueFields.getTextValue();
+		byte[] bytes = valueFields.getByteArrayValue();
+
+		return FhirResourcesListValues.create(parsedValues.getCopy(bytes, b -> parse(className, b), this::copy));
+	}
+
+	private FhirResourcesList parse(String className, byte[] bytes)
+	{
+		try (InputStream in = VariableCompression.decompress(bytes))
+		{
+			@SuppressWarnings("unchecked")
+			Class<FhirResourcesList> clazz = (Class<FhirResourcesList>) Class.forName(className);
+			return objectMapper.readValue(in, clazz);
+		}
+		catch (ClassNotFoundException | IOException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	private FhirResourcesList copy(FhirResourcesList list)
+	{
+		return new FhirResourcesList(list.getResources().stream().map(Resource::copy).collect(Collectors.toList()));
+	}
+}
@@ -0,0 +1,124 @@
+package org.highmed.dsf.fhir.variables;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Resource;
+
+/**
+ * Versioned reference to a resource stored on the local DSF FHIR server. Only the reference is stored as process
+ * variable, the resource is read from the local DSF FHIR server on first access.
+ */
+public class FhirResourceReference
+{
+	private final IdType id;
+	private final Function<IdType, Resource> resolver;
+
+	private Resource resource;
+
+	private FhirResourceReference(IdType id, Resource resource, Function<IdType, Resource> resolver)
+	{
+		this.id = id;
+		this.resource = resource;
+		this.resolver = resolver;
+	}
+
+	/**
+	 * @param resource
+	 *            not <code>null</code>, resource read from or created on the local DSF FHIR server, id element must
+	 *            contain resource type, id and version
+	 * @return reference to the given resource
+	 * @throws IllegalArgumentException
+	 *             if the given resource has no versioned id
+	 */
+	public static FhirResourceReference of(Resource resource)
+	{
+		Objects.requireNonNull(resource, "resource");
+
+		IdType id = toId(resource.getIdElement().getResourceType() != null ? resource.getIdElement()
+				: new IdType(resource.getResourceType().name(), resource.getIdElement().getIdPart(),
+						resource.getIdElement().getVersionIdPart()));
+
+		return new FhirResourceReference(id, resource, null);
+	}
+
+	/**
+	 * @param reference
+	 *            not <code>null</code>, format <code>ResourceType/id/_history/version</code>
+	 * @param resolver
+	 *            not <code>null</code>, used to read the resource on first access
+	 * @return reference to the resource, resolved on first access
+	 * @throws IllegalArgumentException
+	 *             if the given reference does not contain resource type, id and version
+	 */
+	public static FhirResourceReference of(String reference, Function<IdType, Resource> resolver)
+	{
+		Objects.requireNonNull(reference, "reference");
+		Objects.requireNonNull(resolver, "resolver");
+
+		return new FhirResourceReference(toId(new IdType(reference)), null, resolver);
+	}
+
+	private static IdType toId(IdType id)
+	{
+		if (!id.hasResourceType() || !id.hasIdPart() || !id.hasVersionIdPart())
+			throw new IllegalArgumentException(
+					"Resource id with resource type, id and version expected, not '" + id.getValue() + "'");
+
+		return new IdType(id.getResourceType(), id.getIdPart(), id.getVersionIdPart());
+	}
+
+	/**
+	 * @return reference in the form <code>ResourceType/id/_history/version</code>
+	 */
+	public String getReference()
+	{
+		return id.getValue();
+	}
+
+	public String getResourceType()
+	{
+		return id.getResourceType();
+	}
+
+	public String getId()
+	{
+		return id.getIdPart();
+	}
+
+	public String getVersion()
+	{
+		return id.getVersionIdPart();
+	}
+
+	/**
+	 * @return <code>true</code> if the resource has already been read or the reference was created from a resource
+	 */
+	public boolean isResolved()
+	{
+		return resource != null;
+	}
+
+	/**
+	 * Reads the referenced resource from the local DSF FHIR server on first access.
+	 *
+	 * @param <R>
+	 *            resource type
+	 * @return the referenced resource, not <code>null</code>
+	 */
+	@SuppressWarnings("unchecked")
+	public <R extends Resource> R getResource()
+	{
+		if (resource == null)
+			resource = resolver.apply(id);
+
+		return (R) resource;
+	}
+
+	@Override
+	public String toString()
+	{
+		return getReference();
+	}
+}
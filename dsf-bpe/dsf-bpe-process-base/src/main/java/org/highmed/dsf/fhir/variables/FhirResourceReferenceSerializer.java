@@ -0,0 +1,96 @@
+package org.highmed.dsf.fhir.variables;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.camunda.bpm.engine.impl.variable.serializer.PrimitiveValueSerializer;
+import org.camunda.bpm.engine.impl.variable.serializer.ValueFields;
+import org.camunda.bpm.engine.variable.impl.value.UntypedValueImpl;
+import org.highmed.dsf.fhir.client.FhirWebserviceClientProvider;
+import org.highmed.dsf.fhir.variables.FhirResourceReferenceValues.FhirResourceReferenceValue;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * Stores only the versioned reference <code>ResourceType/id/_history/version</code> of a {@link FhirResourceReference}
+ * in the text field of a process variable. Referenced resources are read from the local DSF FHIR server on first access
+ * and kept in a least recently used cache. Cached resources are copied before being handed out, since resources are
+ * mutable.
+ */
+public class FhirResourceReferenceSerializer extends PrimitiveValueSerializer<FhirResourceReferenceValue>
+		implements InitializingBean
+{
+	private static final Logger logger = LoggerFactory.getLogger(FhirResourceReferenceSerializer.class);
+
+	private final FhirWebserviceClientProvider clientProvider;
+	private final Map<String, Resource> cache;
+
+	/**
+	 * @param clientProvider
+	 *            not <code>null</code>
+	 * @param cacheSize
+	 *            maximum number of resources to cache, <code>0</code> to disable caching
+	 */
+	public FhirResourceReferenceSerializer(FhirWebserviceClientProvider clientProvider, int cacheSize)
+	{
+		super(FhirResourceReferenceValues.VALUE_TYPE);
+
+		this.clientProvider = clientProvider;
+		this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Resource> eldest)
+			{
+				return size() > cacheSize;
+			}
+		});
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		Objects.requireNonNull(clientProvider, "clientProvider");
+	}
+
+	@Override
+	public void writeValue(FhirResourceReferenceValue value, ValueFields valueFields)
+	{
+		FhirResourceReference reference = value.getValue();
+		valueFields.setTextValue(reference == null ? null : reference.getReference());
+	}
+
+	@Override
+	public FhirResourceReferenceValue convertToTypedValue(UntypedValueImpl untypedValue)
+	{
+		return FhirResourceReferenceValues.create((FhirResourceReference) untypedValue.getValue());
+	}
+
+	@Override
+	public FhirResourceReferenceValue readValue(ValueFields valueFields, boolean asTransientValue)
+	{
+		String reference = valueFields.getTextValue();
+		return FhirResourceReferenceValues
+				.create(reference == null ? null : FhirResourceReference.of(reference, this::resolve));
+	}
+
+	private Resource resolve(IdType id)
+	{
+		Resource cached = cache.get(id.getValue());
+		if (cached != null)
+			return cached.copy();
+
+		logger.debug("Reading {} from local FHIR server", id.getValue());
+		Resource resource = clientProvider.getLocalWebserviceClient().read(id.getResourceType(), id.getIdPart(),
+				id.getVersionIdPart());
+
+		cache.put(id.getValue(), resource.copy());
+		return resource;
+	}
+}
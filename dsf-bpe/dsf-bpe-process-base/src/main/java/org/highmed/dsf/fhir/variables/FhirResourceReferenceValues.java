@@ -0,0 +1,77 @@
+package org.highmed.dsf.fhir.variables;
+
+import java.util.Map;
+
+import org.camunda.bpm.engine.variable.impl.type.PrimitiveValueTypeImpl;
+import org.camunda.bpm.engine.variable.impl.value.PrimitiveTypeValueImpl;
+import org.camunda.bpm.engine.variable.type.PrimitiveValueType;
+import org.camunda.bpm.engine.variable.value.PrimitiveValue;
+import org.camunda.bpm.engine.variable.value.TypedValue;
+import org.hl7.fhir.r4.model.Resource;
+
+public final class FhirResourceReferenceValues
+{
+	public static interface FhirResourceReferenceValue extends PrimitiveValue<FhirResourceReference>
+	{
+		/**
+		 * @param <R>
+		 *            resource type
+		 * @return the referenced resource, <code>null</code> if the value is <code>null</code>
+		 */
+		default <R extends Resource> R getFhirResource()
+		{
+			return getValue() == null ? null : getValue().getResource();
+		}
+	}
+
+	private static class FhirResourceReferenceValueImpl extends PrimitiveTypeValueImpl<FhirResourceReference>
+			implements FhirResourceReferenceValue
+	{
+		private static final long serialVersionUID = 1L;
+
+		public FhirResourceReferenceValueImpl(FhirResourceReference value, PrimitiveValueType type)
+		{
+			super(value, type);
+		}
+	}
+
+	public static class FhirResourceReferenceTypeImpl extends PrimitiveValueTypeImpl
+	{
+		private static final long serialVersionUID = 1L;
+
+		private FhirResourceReferenceTypeImpl()
+		{
+			super(FhirResourceReference.class);
+		}
+
+		@Override
+		public TypedValue createValue(Object value, Map<String, Object> valueInfo)
+		{
+			return new FhirResourceReferenceValueImpl((FhirResourceReference) value, VALUE_TYPE);
+		}
+	}
+
+	public static final PrimitiveValueType VALUE_TYPE = new FhirResourceReferenceTypeImpl();
+
+	private FhirResourceReferenceValues()
+	{
+	}
+
+	/**
+	 * @param resource
+	 *            not <code>null</code>, resource read from or created on the local DSF FHIR server, id element must
+	 *            contain resource type, id and version
+	 * @return value storing a versioned reference to the given resource
+	 * @throws IllegalArgumentException
+	 *             if the given resource has no versioned id
+	 */
+	public static FhirResourceReferenceValue create(Resource resource)
+	{
+		return new FhirResourceReferenceValueImpl(FhirResourceReference.of(resource), VALUE_TYPE);
+	}
+
+	public static FhirResourceReferenceValue create(FhirResourceReference reference)
+	{
+		return new FhirResourceReferenceValueImpl(reference, VALUE_TYPE);
+	}
+}
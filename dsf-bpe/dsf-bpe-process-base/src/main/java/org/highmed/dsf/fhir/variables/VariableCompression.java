@@ -0,0 +1,126 @@
+package org.highmed.dsf.fhir.variables;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
+
+/**
+ * Compression applied to serialized process variables. Compressed values are identified by the magic bytes of the
+ * respective format, values without a known magic number are read as uncompressed JSON.
+ */
+public enum VariableCompression
+{
+	NONE
+	{
+		@Override
+		protected OutputStream wrap(OutputStream out) throws IOException
+		{
+			return out;
+		}
+
+		@Override
+		protected boolean matches(byte[] bytes)
+		{
+			return false;
+		}
+
+		@Override
+		protected InputStream unwrap(InputStream in) throws IOException
+		{
+			return in;
+		}
+	},
+	GZIP
+	{
+		@Override
+		protected OutputStream wrap(OutputStream out) throws IOException
+		{
+			return new GZIPOutputStream(out);
+		}
+
+		@Override
+		protected boolean matches(byte[] bytes)
+		{
+			return bytes.length >= 2 && (bytes[0] & 0xff) == 0x1f && (bytes[1] & 0xff) == 0x8b;
+		}
+
+		@Override
+		protected InputStream unwrap(InputStream in) throws IOException
+		{
+			return new GZIPInputStream(in);
+		}
+	},
+	LZ4
+	{
+		@Override
+		protected OutputStream wrap(OutputStream out) throws IOException
+		{
+			return new FramedLZ4CompressorOutputStream(out);
+		}
+
+		@Override
+		protected boolean matches(byte[] bytes)
+		{
+			return FramedLZ4CompressorInputStream.matches(bytes, bytes.length);
+		}
+
+		@Override
+		protected InputStream unwrap(InputStream in) throws IOException
+		{
+			return new FramedLZ4CompressorInputStream(in);
+		}
+	};
+
+	protected abstract OutputStream wrap(OutputStream out) throws IOException;
+
+	protected abstract boolean matches(byte[] bytes);
+
+	protected abstract InputStream unwrap(InputStream in) throws IOException;
+
+	/**
+	 * @param uncompressed
+	 *            not <code>null</code>
+	 * @param threshold
+	 *            values smaller than the given number of bytes are not compressed
+	 * @return compressed bytes, or the given bytes if compression is {@link #NONE} or the value is smaller than the
+	 *         threshold
+	 * @throws IOException
+	 */
+	public byte[] compress(byte[] uncompressed, int threshold) throws IOException
+	{
+		if (NONE.equals(this) || uncompressed.length < threshold)
+			return uncompressed;
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(32, uncompressed.length / 4));
+		try (OutputStream compressing = wrap(out))
+		{
+			compressing.write(uncompressed);
+		}
+
+		return out.toByteArray();
+	}
+
+	/**
+	 * @param stored
+	 *            not <code>null</code>
+	 * @return stream of uncompressed bytes, detects the compression format based on magic bytes
+	 * @throws IOException
+	 */
+	public static InputStream decompress(byte[] stored) throws IOException
+	{
+		for (VariableCompression c : values())
+		{
+			if (c.matches(stored))
+				return c.unwrap(new ByteArrayInputStream(stored));
+		}
+
+		return new ByteArrayInputStream(stored);
+	}
+}
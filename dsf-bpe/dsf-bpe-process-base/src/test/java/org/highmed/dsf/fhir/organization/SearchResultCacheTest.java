@@ -0,0 +1,121 @@
+package org.highmed.dsf.fhir.organization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.highmed.fhir.client.FhirWebserviceClient;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.SearchEntryMode;
+import org.hl7.fhir.r4.model.Endpoint;
+import org.hl7.fhir.r4.model.Organization;
+import org.hl7.fhir.r4.model.Resource;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SearchResultCacheTest
+{
+	private static final Map<String, List<String>> PARAMETERS = Map.of("active", Collections.singletonList("true"));
+
+	private FhirWebserviceClient client;
+
+	@Before
+	public void before() throws Exception
+	{
+		client = mock(FhirWebserviceClient.class);
+		when(client.searchWithStrictHandling(eq(Organization.class), anyMap())).thenAnswer(i -> createBundle());
+	}
+
+	private Bundle createBundle()
+	{
+		Bundle bundle = new Bundle().setTotal(1);
+		bundle.addEntry().setResource(new Organization().setName("Test")).getSearch().setMode(SearchEntryMode.MATCH);
+		return bundle;
+	}
+
+	@Test
+	public void testSearchCached() throws Exception
+	{
+		SearchResultCache cache = new SearchResultCache(60_000);
+
+		Bundle first = cache.search(client, Organization.class, PARAMETERS);
+		((Organization) first.getEntryFirstRep().getResource()).setName("Modified");
+
+		Bundle second = cache.search(client, Organization.class, PARAMETERS);
+
+		verify(client, times(1)).searchWithStrictHandling(Organization.class, PARAMETERS);
+		assertNotSame(first, second);
+		assertEquals("Test", ((Organization) second.getEntryFirstRep().getResource()).getName());
+	}
+
+	@Test
+	public void testSearchExpired() throws Exception
+	{
+		SearchResultCache cache = new SearchResultCache(50);
+
+		cache.search(client, Organization.class, PARAMETERS);
+		Thread.sleep(100);
+		cache.search(client, Organization.class, PARAMETERS);
+
+		verify(client, times(2)).searchWithStrictHandling(Organization.class, PARAMETERS);
+	}
+
+	@Test
+	public void testSearchInvalidated() throws Exception
+	{
+		SearchResultCache cache = new SearchResultCache(60_000);
+
+		cache.search(client, Organization.class, PARAMETERS);
+		cache.invalidate();
+		cache.search(client, Organization.class, PARAMETERS);
+
+		verify(client, times(2)).searchWithStrictHandling(Organization.class, PARAMETERS);
+	}
+
+	@Test
+	public void testSearchDisabled() throws Exception
+	{
+		SearchResultCache cache = new SearchResultCache(0);
+
+		cache.search(client, Organization.class, PARAMETERS);
+		cache.search(client, Organization.class, PARAMETERS);
+
+		verify(client, times(2)).searchWithStrictHandling(Organization.class, PARAMETERS);
+	}
+
+	@Test
+	public void testSearchAll() throws Exception
+	{
+		when(client.searchWithStrictHandling(eq(Organization.class), anyMap())).thenAnswer(i ->
+		{
+			Map<String, List<String>> parameters = i.getArgument(1);
+			int page = Integer.parseInt(parameters.get("_page").get(0));
+
+			Bundle bundle = new Bundle().setTotal(3);
+			if (page <= 3)
+			{
+				bundle.addEntry().setResource(new Organization().setName("Test " + page)).getSearch()
+						.setMode(SearchEntryMode.MATCH);
+				bundle.addEntry().setResource(new Endpoint().setName("Test " + page)).getSearch()
+						.setMode(SearchEntryMode.INCLUDE);
+			}
+			return bundle;
+		});
+
+		SearchResultCache cache = new SearchResultCache(60_000);
+		List<Resource> resources = cache.searchAll(client, Organization.class, PARAMETERS);
+
+		assertEquals(6, resources.size());
+		verify(client, times(3)).searchWithStrictHandling(eq(Organization.class), any());
+	}
+}
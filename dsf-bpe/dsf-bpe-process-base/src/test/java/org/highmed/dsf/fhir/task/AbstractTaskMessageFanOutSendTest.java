@@ -0,0 +1,154 @@
+package org.highmed.dsf.fhir.task;
+
+import static org.highmed.dsf.bpe.ConstantsBase.BPMN_EXECUTION_VARIABLE_INSTANTIATES_URI;
+import static org.highmed.dsf.bpe.ConstantsBase.BPMN_EXECUTION_VARIABLE_MESSAGE_NAME;
+import static org.highmed.dsf.bpe.ConstantsBase.BPMN_EXECUTION_VARIABLE_PROFILE;
+import static org.highmed.dsf.bpe.ConstantsBase.BPMN_EXECUTION_VARIABLE_TARGETS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.highmed.dsf.fhir.authorization.read.ReadAccessHelper;
+import org.highmed.dsf.fhir.client.FhirWebserviceClientProvider;
+import org.highmed.dsf.fhir.organization.OrganizationProvider;
+import org.highmed.dsf.fhir.variables.Target;
+import org.highmed.dsf.fhir.variables.Targets;
+import org.highmed.dsf.fhir.variables.TargetsValues.TargetsValue;
+import org.highmed.fhir.client.FhirWebserviceClient;
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.TaskOutputComponent;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import ca.uhn.fhir.context.FhirContext;
+
+public class AbstractTaskMessageFanOutSendTest
+{
+	private static final long SEND_DURATION_MILLIS = 300;
+
+	private final Set<String> sendTo = ConcurrentHashMap.newKeySet();
+	private final Task leadingTask = new Task();
+
+	private FhirWebserviceClientProvider clientProvider;
+	private TaskHelper taskHelper;
+	private DelegateExecution execution;
+
+	private class TestSend extends AbstractTaskMessageFanOutSend
+	{
+		private final Set<String> failingEndpoints;
+
+		TestSend(String... failingEndpoints)
+		{
+			super(clientProvider, taskHelper, mock(ReadAccessHelper.class), mock(OrganizationProvider.class),
+					FhirContext.forR4());
+
+			this.failingEndpoints = Set.of(failingEndpoints);
+		}
+
+		@Override
+		protected void doSend(FhirWebserviceClient client, Task task, int maxRetries, long retryDelayMillis)
+		{
+			try
+			{
+				Thread.sleep(SEND_DURATION_MILLIS);
+			}
+			catch (InterruptedException e)
+			{
+				throw new RuntimeException(e);
+			}
+
+			if (failingEndpoints.contains(client.getBaseUrl()))
+				throw new RuntimeException("test error " + client.getBaseUrl());
+
+			sendTo.add(client.getBaseUrl());
+		}
+	}
+
+	@Before
+	public void before() throws Exception
+	{
+		clientProvider = mock(FhirWebserviceClientProvider.class);
+		when(clientProvider.getWebserviceClient(anyString())).thenAnswer(i ->
+		{
+			FhirWebserviceClient client = mock(FhirWebserviceClient.class);
+			when(client.getBaseUrl()).thenReturn(i.getArgument(0));
+			return client;
+		});
+
+		taskHelper = mock(TaskHelper.class);
+		when(taskHelper.getLeadingTaskFromExecutionVariables(any())).thenReturn(leadingTask);
+		when(taskHelper.createOutput(anyString(), anyString(), anyString())).thenAnswer(i -> new TaskOutputComponent());
+
+		execution = mock(DelegateExecution.class);
+		when(execution.getVariable(BPMN_EXECUTION_VARIABLE_INSTANTIATES_URI))
+				.thenReturn("http://highmed.org/bpe/Process/test|0.1.0");
+		when(execution.getVariable(BPMN_EXECUTION_VARIABLE_MESSAGE_NAME)).thenReturn("testMessage");
+		when(execution.getVariable(BPMN_EXECUTION_VARIABLE_PROFILE))
+				.thenReturn("http://highmed.org/fhir/StructureDefinition/task-test");
+		when(execution.getBusinessKey()).thenReturn("businessKey");
+
+		List<Target> targets = Arrays
+				.asList("a", "b", "c", "d").stream().map(id -> Target.createBiDirectionalTarget("org-" + id,
+						"endpoint-" + id, "https://" + id + "/fhir", "correlationKey-" + id))
+				.collect(Collectors.toList());
+		when(execution.getVariable(BPMN_EXECUTION_VARIABLE_TARGETS)).thenReturn(new Targets(targets));
+	}
+
+	@Test
+	public void testSendConcurrently() throws Exception
+	{
+		TestSend send = new TestSend();
+
+		long start = System.currentTimeMillis();
+		send.doExecute(execution);
+		long duration = System.currentTimeMillis() - start;
+
+		assertEquals(Set.of("https://a/fhir", "https://b/fhir", "https://c/fhir", "https://d/fhir"), sendTo);
+		assertTrue("Expected concurrent send, took " + duration + " ms", duration < 3 * SEND_DURATION_MILLIS);
+		assertTrue(leadingTask.getOutput().isEmpty());
+	}
+
+	@Test
+	public void testSendWithErrorRemovesTarget() throws Exception
+	{
+		new TestSend("https://b/fhir").doExecute(execution);
+
+		assertEquals(Set.of("https://a/fhir", "https://c/fhir", "https://d/fhir"), sendTo);
+		assertEquals(1, leadingTask.getOutput().size());
+
+		ArgumentCaptor<TargetsValue> targets = ArgumentCaptor.forClass(TargetsValue.class);
+		verify(execution).setVariable(eq(BPMN_EXECUTION_VARIABLE_TARGETS), targets.capture());
+		assertEquals(Arrays.asList("endpoint-a", "endpoint-c", "endpoint-d"), targets.getValue().getValue().getEntries()
+				.stream().map(Target::getEndpointIdentifierValue).collect(Collectors.toList()));
+	}
+
+	@Test
+	public void testSendWithAllErrors() throws Exception
+	{
+		try
+		{
+			new TestSend("https://a/fhir", "https://b/fhir", "https://c/fhir", "https://d/fhir").doExecute(execution);
+			fail("RuntimeException expected");
+		}
+		catch (RuntimeException e)
+		{
+			assertEquals(Collections.emptySet(), sendTo);
+			assertEquals(4, leadingTask.getOutput().size());
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package org.highmed.dsf.fhir.variables;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.interceptor.CommandContextListener;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class CommandContextValueCacheTest
+{
+	private static final byte[] BYTES = { 1, 2, 3 };
+
+	private final CommandContextValueCache<StringBuilder> cache = new CommandContextValueCache<>();
+	private final AtomicInteger computeCount = new AtomicInteger();
+	private final Function<byte[], StringBuilder> compute = b ->
+	{
+		computeCount.incrementAndGet();
+		return new StringBuilder("value");
+	};
+
+	@After
+	public void after() throws Exception
+	{
+		while (Context.getCommandContext() != null)
+			Context.removeCommandContext();
+	}
+
+	private static CommandContext openCommandContext()
+	{
+		CommandContext commandContext = mock(CommandContext.class);
+		Context.setCommandContext(commandContext);
+		return commandContext;
+	}
+
+	private static CommandContextListener getListener(CommandContext commandContext)
+	{
+		ArgumentCaptor<CommandContextListener> listener = ArgumentCaptor.forClass(CommandContextListener.class);
+		verify(commandContext, times(1)).registerCommandContextListener(listener.capture());
+		return listener.getValue();
+	}
+
+	@Test
+	public void testNotCachedWithoutCommandContext() throws Exception
+	{
+		cache.get(BYTES, compute);
+		cache.get(BYTES, compute);
+		cache.getCopy(BYTES, compute, StringBuilder::new);
+
+		assertEquals(3, computeCount.get());
+		assertNull(cache.getCached(BYTES));
+	}
+
+	@Test
+	public void testCachedWithinCommandContext() throws Exception
+	{
+		openCommandContext();
+
+		StringBuilder value1 = cache.get(BYTES, compute);
+		StringBuilder value2 = cache.get(new byte[] { 1, 2, 3 }, compute);
+		cache.get(new byte[] { 4 }, compute);
+
+		assertSame(value1, value2);
+		assertSame(value1, cache.getCached(BYTES));
+		assertEquals(2, computeCount.get());
+	}
+
+	@Test
+	public void testGetCopyReturnsDefensiveCopies() throws Exception
+	{
+		openCommandContext();
+
+		StringBuilder value1 = cache.getCopy(BYTES, compute, StringBuilder::new);
+		value1.append(" modified");
+
+		StringBuilder value2 = cache.getCopy(BYTES, compute, StringBuilder::new);
+		StringBuilder value3 = cache.getCopy(BYTES, compute, StringBuilder::new);
+
+		assertEquals(1, computeCount.get());
+		assertNotSame(value2, value3);
+		assertEquals("value", value2.toString());
+
+		value2.append(" modified");
+		assertEquals("value", value3.toString());
+		assertEquals("value", cache.getCached(BYTES).toString());
+	}
+
+	@Test
+	public void testClearedOnCommandContextClose() throws Exception
+	{
+		CommandContext commandContext = openCommandContext();
+		cache.get(BYTES, compute);
+
+		getListener(commandContext).onCommandContextClose(commandContext);
+		assertNull(cache.getCached(BYTES));
+
+		cache.get(BYTES, compute);
+		assertEquals(2, computeCount.get());
+	}
+
+	@Test
+	public void testClearedOnCommandFailed() throws Exception
+	{
+		CommandContext commandContext = openCommandContext();
+		cache.get(BYTES, compute);
+
+		getListener(commandContext).onCommandFailed(commandContext, new RuntimeException());
+		assertNull(cache.getCached(BYTES));
+
+		cache.get(BYTES, compute);
+		assertEquals(2, computeCount.get());
+	}
+
+	@Test
+	public void testNotSharedBetweenCommandContexts() throws Exception
+	{
+		openCommandContext();
+		cache.get(BYTES, compute);
+
+		openCommandContext();
+		assertNull(cache.getCached(BYTES));
+		cache.get(BYTES, compute);
+
+		assertEquals(2, computeCount.get());
+	}
+}
@@ -0,0 +1,181 @@
+package org.highmed.dsf.fhir.variables;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.nio.charset.StandardCharsets;
+
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.highmed.dsf.fhir.json.ObjectMapperFactory;
+import org.highmed.dsf.fhir.variables.FhirResourceValues.FhirResourceValue;
+import org.highmed.dsf.fhir.variables.FhirResourcesListValues.FhirResourcesListValue;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Resource;
+import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.TaskStatus;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ca.uhn.fhir.context.FhirContext;
+
+public class CompactFhirResourceSerializerTest
+{
+	private static final FhirContext fhirContext = FhirContext.forR4();
+
+	private static Task createTask()
+	{
+		Task task = new Task();
+		task.setStatus(TaskStatus.REQUESTED);
+		for (int i = 0; i < 100; i++)
+			task.addInput().setValue(new StringType("value " + i)).getType().setText("input");
+		return task;
+	}
+
+	@Test
+	public void testReadWriteCompressed() throws Exception
+	{
+		for (VariableCompression compression : VariableCompression.values())
+		{
+			CompactFhirResourceSerializer serializer = new CompactFhirResourceSerializer(fhirContext, compression, 0);
+
+			Task task = createTask();
+			TestValueFields fields = new TestValueFields();
+			serializer.writeValue(FhirResourceValues.create(task), fields);
+
+			assertEquals(Task.class.getName(), fields.getTextValue());
+			assertNotNull(fields.getByteArrayValue());
+
+			FhirResourceValue read = serializer.readValue(fields, false);
+			assertNotNull(read);
+			assertTrue(task.equalsDeep(read.getValue()));
+		}
+	}
+
+	@Test
+	public void testReadUncompressedFromFhirResourceSerializer() throws Exception
+	{
+		FhirResourceSerializer legacy = new FhirResourceSerializer(fhirContext);
+		CompactFhirResourceSerializer compact = new CompactFhirResourceSerializer(fhirContext, VariableCompression.GZIP,
+				0);
+
+		Task task = createTask();
+		TestValueFields fields = new TestValueFields();
+		legacy.writeValue(FhirResourceValues.create(task), fields);
+
+		FhirResourceValue read = compact.readValue(fields, false);
+		assertTrue(task.equalsDeep(read.getValue()));
+	}
+
+	@Test
+	public void testCompressionThreshold() throws Exception
+	{
+		CompactFhirResourceSerializer serializer = new CompactFhirResourceSerializer(fhirContext,
+				VariableCompression.GZIP, Integer.MAX_VALUE);
+
+		Task task = createTask();
+		TestValueFields fields = new TestValueFields();
+		serializer.writeValue(FhirResourceValues.create(task), fields);
+
+		assertArrayEquals(fhirContext.newJsonParser().encodeResourceToString(task).getBytes(StandardCharsets.UTF_8),
+				fields.getByteArrayValue());
+	}
+
+	@Test
+	public void testReadWriteListCompressed() throws Exception
+	{
+		ObjectMapper objectMapper = ObjectMapperFactory.createObjectMapper(fhirContext);
+
+		for (VariableCompression compression : VariableCompression.values())
+		{
+			CompactFhirResourcesListSerializer serializer = new CompactFhirResourcesListSerializer(objectMapper,
+					compression, 0);
+
+			FhirResourcesList list = new FhirResourcesList(createTask(), new Patient().setActive(true));
+			TestValueFields fields = new TestValueFields();
+			serializer.writeValue(FhirResourcesListValues.create(list), fields);
+
+			FhirResourcesListValue read = serializer.readValue(fields, false);
+			assertNotNull(read);
+			assertEquals(2, read.getValue().getResources().size());
+			for (int i = 0; i < 2; i++)
+			{
+				Resource expected = list.getResources().get(i);
+				assertTrue(expected.equalsDeep(read.getValue().getResources().get(i)));
+			}
+		}
+	}
+
+	@Test
+	public void testUnchangedValueNotEncodedWithinCommandContext() throws Exception
+	{
+		FhirContext spyContext = spy(FhirContext.forR4());
+		CompactFhirResourceSerializer serializer = new CompactFhirResourceSerializer(spyContext,
+				VariableCompression.GZIP, 0);
+
+		TestValueFields fields = new TestValueFields();
+		serializer.writeValue(FhirResourceValues.create(createTask()), fields);
+		byte[] stored = fields.getByteArrayValue();
+
+		Context.setCommandContext(mock(CommandContext.class));
+		try
+		{
+			clearInvocations(spyContext);
+
+			Task read = (Task) serializer.readValue(fields, false).getValue();
+			serializer.writeValue(FhirResourceValues.create(read), fields);
+			assertSame(stored, fields.getByteArrayValue());
+			verify(spyContext, times(1)).newJsonParser();
+
+			read.setStatus(TaskStatus.COMPLETED);
+			serializer.writeValue(FhirResourceValues.create(read), fields);
+			verify(spyContext, times(2)).newJsonParser();
+			assertNotSame(stored, fields.getByteArrayValue());
+			assertEquals(TaskStatus.COMPLETED, ((Task) serializer.readValue(fields, false).getValue()).getStatus());
+		}
+		finally
+		{
+			Context.removeCommandContext();
+		}
+	}
+
+	@Test
+	public void testUnchangedListNotWrittenWithinCommandContext() throws Exception
+	{
+		CompactFhirResourcesListSerializer serializer = new CompactFhirResourcesListSerializer(
+				ObjectMapperFactory.createObjectMapper(fhirContext), VariableCompression.GZIP, 0);
+
+		TestValueFields fields = new TestValueFields();
+		serializer.writeValue(FhirResourcesListValues.create(new FhirResourcesList(createTask())), fields);
+		byte[] stored = fields.getByteArrayValue();
+
+		Context.setCommandContext(mock(CommandContext.class));
+		try
+		{
+			FhirResourcesList read = serializer.readValue(fields, false).getValue();
+			serializer.writeValue(FhirResourcesListValues.create(read), fields);
+			assertSame(stored, fields.getByteArrayValue());
+
+			((Task) read.getResources().get(0)).setStatus(TaskStatus.COMPLETED);
+			serializer.writeValue(FhirResourcesListValues.create(read), fields);
+			assertNotSame(stored, fields.getByteArrayValue());
+			assertEquals(TaskStatus.COMPLETED,
+					((Task) serializer.readValue(fields, false).getValue().getResources().get(0)).getStatus());
+		}
+		finally
+		{
+			Context.removeCommandContext();
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package org.highmed.dsf.fhir.variables;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.highmed.dsf.fhir.client.FhirWebserviceClientProvider;
+import org.highmed.dsf.fhir.variables.FhirResourceReferenceValues.FhirResourceReferenceValue;
+import org.highmed.fhir.client.FhirWebserviceClient;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.TaskStatus;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FhirResourceReferenceSerializerTest
+{
+	private final FhirWebserviceClientProvider clientProvider = mock(FhirWebserviceClientProvider.class);
+	private final FhirWebserviceClient client = mock(FhirWebserviceClient.class);
+
+	@Before
+	public void before() throws Exception
+	{
+		when(clientProvider.getLocalWebserviceClient()).thenReturn(client);
+		when(client.read("Task", "id", "2")).thenAnswer(i -> createTask());
+	}
+
+	private static Task createTask()
+	{
+		Task task = new Task();
+		task.setIdElement(new IdType("Task", "id", "2"));
+		task.setStatus(TaskStatus.REQUESTED);
+		return task;
+	}
+
+	private static TestValueFields write(FhirResourceReferenceSerializer serializer, FhirResourceReferenceValue value)
+	{
+		TestValueFields fields = new TestValueFields();
+		serializer.writeValue(value, fields);
+		return fields;
+	}
+
+	@Test
+	public void testReadWrite() throws Exception
+	{
+		FhirResourceReferenceSerializer serializer = new FhirResourceReferenceSerializer(clientProvider, 10);
+
+		TestValueFields fields = write(serializer, FhirResourceReferenceValues.create(createTask()));
+		assertEquals("Task/id/_history/2", fields.getTextValue());
+		assertNull(fields.getByteArrayValue());
+
+		FhirResourceReferenceValue read = serializer.readValue(fields, false);
+		assertNotNull(read.getValue());
+		assertEquals("Task/id/_history/2", read.getValue().getReference());
+		assertFalse(read.getValue().isResolved());
+		verify(client, never()).read("Task", "id", "2");
+
+		Task task = read.getFhirResource();
+		assertTrue(createTask().equalsDeep(task));
+		verify(client, times(1)).read("Task", "id", "2");
+	}
+
+	@Test
+	public void testReadWriteNull() throws Exception
+	{
+		FhirResourceReferenceSerializer serializer = new FhirResourceReferenceSerializer(clientProvider, 10);
+
+		FhirResourceReferenceValue read = serializer.readValue(new TestValueFields(), false);
+		assertNotNull(read);
+		assertNull(read.getValue());
+		assertNull(read.getFhirResource());
+
+		TestValueFields fields = write(serializer, FhirResourceReferenceValues.create(createTask()));
+		serializer.writeValue(FhirResourceReferenceValues.create((FhirResourceReference) null), fields);
+		assertNull(fields.getTextValue());
+		assertNull(serializer.readValue(fields, false).getValue());
+	}
+
+	@Test
+	public void testResolvedFromCacheAsCopy() throws Exception
+	{
+		FhirResourceReferenceSerializer serializer = new FhirResourceReferenceSerializer(clientProvider, 10);
+		TestValueFields fields = write(serializer, FhirResourceReferenceValues.create(createTask()));
+
+		Task task1 = serializer.readValue(fields, false).getFhirResource();
+		task1.setStatus(TaskStatus.COMPLETED);
+
+		Task task2 = serializer.readValue(fields, false).getFhirResource();
+		Task task3 = serializer.readValue(fields, false).getFhirResource();
+
+		verify(client, times(1)).read("Task", "id", "2");
+		assertNotSame(task1, task2);
+		assertNotSame(task2, task3);
+		assertEquals(TaskStatus.REQUESTED, task2.getStatus());
+
+		task2.setStatus(TaskStatus.FAILED);
+		assertEquals(TaskStatus.REQUESTED, task3.getStatus());
+		assertEquals(TaskStatus.REQUESTED, serializer.readValue(fields, false).<Task> getFhirResource().getStatus());
+	}
+
+	@Test
+	public void testCacheSizeLimit() throws Exception
+	{
+		when(client.read("Task", "other", "1")).thenAnswer(i -> new Task().setIdElement(new IdType("Task", "other", "1")));
+
+		FhirResourceReferenceSerializer serializer = new FhirResourceReferenceSerializer(clientProvider, 1);
+		TestValueFields fields = write(serializer, FhirResourceReferenceValues.create(createTask()));
+		TestValueFields other = write(serializer,
+				FhirResourceReferenceValues.create(new Task().setIdElement(new IdType("Task", "other", "1"))));
+
+		serializer.readValue(fields, false).getFhirResource();
+		serializer.readValue(other, false).getFhirResource();
+		serializer.readValue(fields, false).getFhirResource();
+
+		verify(client, times(2)).read("Task", "id", "2");
+		verify(client, times(1)).read("Task", "other", "1");
+	}
+
+	@Test
+	public void testCacheDisabled() throws Exception
+	{
+		FhirResourceReferenceSerializer serializer = new FhirResourceReferenceSerializer(clientProvider, 0);
+		TestValueFields fields = write(serializer, FhirResourceReferenceValues.create(createTask()));
+
+		serializer.readValue(fields, false).getFhirResource();
+		serializer.readValue(fields, false).getFhirResource();
+
+		verify(client, times(2)).read("Task", "id", "2");
+	}
+}
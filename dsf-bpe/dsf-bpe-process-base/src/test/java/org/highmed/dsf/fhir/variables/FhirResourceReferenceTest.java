@@ -0,0 +1,68 @@
+package org.highmed.dsf.fhir.variables;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Task;
+import org.junit.Test;
+
+public class FhirResourceReferenceTest
+{
+	@Test
+	public void testOfResource() throws Exception
+	{
+		Task task = new Task();
+		task.setIdElement(new IdType("https://foo.bar/fhir", "Task", "id", "2"));
+
+		FhirResourceReference reference = FhirResourceReference.of(task);
+		assertEquals("Task/id/_history/2", reference.getReference());
+		assertEquals("Task", reference.getResourceType());
+		assertEquals("id", reference.getId());
+		assertEquals("2", reference.getVersion());
+		assertTrue(reference.isResolved());
+		assertSame(task, reference.getResource());
+	}
+
+	@Test
+	public void testOfResourceWithoutResourceTypeInId() throws Exception
+	{
+		Bundle bundle = new Bundle();
+		bundle.setIdElement(new IdType(null, null, "id", "1"));
+
+		assertEquals("Bundle/id/_history/1", FhirResourceReference.of(bundle).getReference());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testOfResourceWithoutVersion() throws Exception
+	{
+		Task task = new Task();
+		task.setIdElement(new IdType("Task", "id"));
+
+		FhirResourceReference.of(task);
+	}
+
+	@Test
+	public void testLazyResolve() throws Exception
+	{
+		AtomicInteger resolveCount = new AtomicInteger();
+		FhirResourceReference reference = FhirResourceReference.of("Task/id/_history/3", id ->
+		{
+			resolveCount.incrementAndGet();
+			return new Task().setIdElement(id);
+		});
+
+		assertFalse(reference.isResolved());
+		assertEquals(0, resolveCount.get());
+
+		Task task = reference.getResource();
+		assertEquals("3", task.getIdElement().getVersionIdPart());
+		assertSame(task, reference.getResource());
+		assertEquals(1, resolveCount.get());
+	}
+}
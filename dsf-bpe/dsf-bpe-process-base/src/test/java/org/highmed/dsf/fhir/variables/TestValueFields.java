@@ -0,0 +1,72 @@
+package org.highmed.dsf.fhir.variables;
+
+import org.camunda.bpm.engine.impl.variable.serializer.ValueFields;
+
+class TestValueFields implements ValueFields
+{
+	String textValue;
+	byte[] byteArrayValue;
+
+	@Override
+	public String getName()
+	{
+		return "test";
+	}
+
+	@Override
+	public String getTextValue()
+	{
+		return textValue;
+	}
+
+	@Override
+	public void setTextValue(String textValue)
+	{
+		this.textValue = textValue;
+	}
+
+	@Override
+	public String getTextValue2()
+	{
+		return null;
+	}
+
+	@Override
+	public void setTextValue2(String textValue2)
+	{
+	}
+
+	@Override
+	public Long getLongValue()
+	{
+		return null;
+	}
+
+	@Override
+	public void setLongValue(Long longValue)
+	{
+	}
+
+	@Override
+	public Double getDoubleValue()
+	{
+		return null;
+	}
+
+	@Override
+	public void setDoubleValue(Double doubleValue)
+	{
+	}
+
+	@Override
+	public byte[] getByteArrayValue()
+	{
+		return byteArrayValue;
+	}
+
+	@Override
+	public void setByteArrayValue(byte[] bytes)
+	{
+		this.byteArrayValue = bytes;
+	}
+}
@@ -31,6 +31,7 @@ import org.glassfish.jersey.servlet.init.JerseyServletContainerInitializer;
 import org.highmed.dsf.bpe.webservice.StatusService;
 import org.highmed.dsf.tools.db.DbMigrator;
 import org.highmed.dsf.tools.db.DbMigratorConfig;
+import org.highmed.dsf.tools.jetty.JettyCompression;
 import org.slf4j.bridge.SLF4JBridgeHandler;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 import org.springframework.web.SpringServletContainerInitializer;
@@ -99,6 +100,8 @@ public final class BpeServer
 		server.getWebAppContext().getSessionHandler()
 				.setSessionTrackingModes(Collections.singleton(SessionTrackingMode.SSL));
 
+		JettyCompression.configure(server.getWebAppContext(), properties);
+
 		start(server);
 	}
 
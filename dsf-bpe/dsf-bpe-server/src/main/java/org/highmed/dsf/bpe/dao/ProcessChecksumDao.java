@@ -0,0 +1,21 @@
+package org.highmed.dsf.bpe.dao;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+import org.highmed.dsf.bpe.process.ProcessKeyAndVersion;
+
+/**
+ * Checksums of BPMN models and FHIR resources last deployed per process, see
+ * {@link org.highmed.dsf.bpe.process.ContentChecksum}
+ */
+public interface ProcessChecksumDao
+{
+	void updateBpmnChecksums(Map<ProcessKeyAndVersion, String> checksums) throws SQLException;
+
+	Map<ProcessKeyAndVersion, String> getBpmnChecksums() throws SQLException;
+
+	void updateResourcesChecksums(Map<ProcessKeyAndVersion, String> checksums) throws SQLException;
+
+	Map<ProcessKeyAndVersion, String> getResourcesChecksums() throws SQLException;
+}
@@ -0,0 +1,94 @@
+package org.highmed.dsf.bpe.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.highmed.dsf.bpe.process.ProcessKeyAndVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ProcessChecksumDaoJdbc extends AbstractDaoJdbc implements ProcessChecksumDao
+{
+	private static final Logger logger = LoggerFactory.getLogger(ProcessChecksumDaoJdbc.class);
+
+	public ProcessChecksumDaoJdbc(BasicDataSource dataSource)
+	{
+		super(dataSource);
+	}
+
+	@Override
+	public void updateBpmnChecksums(Map<ProcessKeyAndVersion, String> checksums) throws SQLException
+	{
+		updateChecksums(checksums, "bpmn_checksum");
+	}
+
+	@Override
+	public Map<ProcessKeyAndVersion, String> getBpmnChecksums() throws SQLException
+	{
+		return getChecksums("bpmn_checksum");
+	}
+
+	@Override
+	public void updateResourcesChecksums(Map<ProcessKeyAndVersion, String> checksums) throws SQLException
+	{
+		updateChecksums(checksums, "resources_checksum");
+	}
+
+	@Override
+	public Map<ProcessKeyAndVersion, String> getResourcesChecksums() throws SQLException
+	{
+		return getChecksums("resources_checksum");
+	}
+
+	private void updateChecksums(Map<ProcessKeyAndVersion, String> checksums, String column) throws SQLException
+	{
+		Objects.requireNonNull(checksums, "checksums");
+
+		if (checksums.isEmpty())
+			return;
+
+		try (Connection connection = dataSource.getConnection())
+		{
+			connection.setReadOnly(false);
+
+			try (PreparedStatement statement = connection
+					.prepareStatement("INSERT INTO process_checksums (process_key_and_version, " + column
+							+ ") VALUES (?, ?) ON CONFLICT (process_key_and_version) DO UPDATE SET " + column + " = ?"))
+			{
+				for (Entry<ProcessKeyAndVersion, String> entry : checksums.entrySet())
+				{
+					statement.setString(1, entry.getKey().toString());
+					statement.setString(2, entry.getValue());
+					statement.setString(3, entry.getValue());
+
+					statement.addBatch();
+				}
+
+				logger.trace("Executing query '{}'", statement);
+				statement.executeBatch();
+			}
+		}
+	}
+
+	private Map<ProcessKeyAndVersion, String> getChecksums(String column) throws SQLException
+	{
+		try (Connection connection = dataSource.getConnection();
+				PreparedStatement statement = connection.prepareStatement("SELECT process_key_and_version, " + column
+						+ " FROM process_checksums WHERE " + column + " IS NOT NULL");
+				ResultSet resultSet = statement.executeQuery())
+		{
+			Map<ProcessKeyAndVersion, String> checksums = new HashMap<>();
+			while (resultSet.next())
+				checksums.put(ProcessKeyAndVersion.fromString(resultSet.getString(1)), resultSet.getString(2));
+
+			return checksums;
+		}
+	}
+}
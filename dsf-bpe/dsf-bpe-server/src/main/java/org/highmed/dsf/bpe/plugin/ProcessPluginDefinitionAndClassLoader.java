@@ -21,6 +21,7 @@ import org.camunda.bpm.model.bpmn.BpmnModelInstance;
 import org.camunda.bpm.model.bpmn.instance.Process;
 import org.highmed.dsf.bpe.ProcessPluginDefinition;
 import org.highmed.dsf.bpe.process.BpmnFileAndModel;
+import org.highmed.dsf.bpe.process.ContentChecksum;
 import org.highmed.dsf.bpe.process.ProcessKeyAndVersion;
 import org.highmed.dsf.fhir.resources.ResourceProvider;
 import org.slf4j.Logger;
@@ -198,7 +199,7 @@ public class ProcessPluginDefinitionAndClassLoader
 			Bpmn.validateModel(model);
 			validateModelVersionTagsAndProcessCount(bpmnFile, model);
 
-			return new BpmnFileAndModel(bpmnFile, model, jars);
+			return new BpmnFileAndModel(bpmnFile, model, jars, ContentChecksum.of(read));
 		}
 		catch (IOException e)
 		{
@@ -18,7 +18,12 @@ import java.util.Objects;
 import java.util.ServiceLoader;
 import java.util.ServiceLoader.Provider;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.BinaryOperator;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -63,16 +68,36 @@ public class ProcessPluginProviderImpl implements ProcessPluginProvider, Initial
 	private final Path pluginDirectory;
 	private final ApplicationContext mainApplicationContext;
 	private final PropertyResolver resolver;
+	private final int loaderThreads;
 
 	private List<ProcessPluginDefinitionAndClassLoader> definitions;
 
 	public ProcessPluginProviderImpl(FhirContext fhirContext, Path pluginDirectory,
 			ApplicationContext mainApplicationContext, PropertyResolver resolver)
+	{
+		this(fhirContext, pluginDirectory, mainApplicationContext, resolver, 1);
+	}
+
+	/**
+	 * @param fhirContext
+	 *            not <code>null</code>
+	 * @param pluginDirectory
+	 *            not <code>null</code>
+	 * @param mainApplicationContext
+	 *            not <code>null</code>
+	 * @param resolver
+	 *            used to resolve placeholders in BPMN files and FHIR resources
+	 * @param loaderThreads
+	 *            number of threads used to load plugins, parse BPMN models and read FHIR resources, &gt; 0
+	 */
+	public ProcessPluginProviderImpl(FhirContext fhirContext, Path pluginDirectory,
+			ApplicationContext mainApplicationContext, PropertyResolver resolver, int loaderThreads)
 	{
 		this.fhirContext = fhirContext;
 		this.pluginDirectory = pluginDirectory;
 		this.mainApplicationContext = mainApplicationContext;
 		this.resolver = resolver;
+		this.loaderThreads = loaderThreads;
 	}
 
 	@Override
@@ -81,6 +106,8 @@ public class ProcessPluginProviderImpl implements ProcessPluginProvider, Initial
 		Objects.requireNonNull(fhirContext, "fhirContext");
 		Objects.requireNonNull(pluginDirectory, "pluginDirectory");
 		Objects.requireNonNull(mainApplicationContext, "mainApplicationContext");
+		if (loaderThreads < 1)
+			throw new IllegalArgumentException("loaderThreads < 1");
 	}
 
 	@Override
@@ -91,38 +118,88 @@ public class ProcessPluginProviderImpl implements ProcessPluginProvider, Initial
 			synchronized (this)
 			{
 				if (definitions == null)
-					definitions = handleDependencies(loadDefinitions());
+					definitions = loadDefinitionsInParallel();
 			}
 		}
 
 		return definitions;
 	}
 
-	private List<ProcessPluginDefinitionAndClassLoader> loadDefinitions()
+	private List<ProcessPluginDefinitionAndClassLoader> loadDefinitionsInParallel()
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(loaderThreads);
+		try
+		{
+			long start = System.currentTimeMillis();
+
+			List<ProcessPluginDefinitionAndClassLoader> definitions = handleDependencies(loadDefinitions(executor),
+					executor);
+
+			// parse BPMN models and read FHIR resources in parallel, results are cached by the definitions
+			inParallel(executor, definitions, def ->
+			{
+				def.getAndValidateModels();
+				def.getResourceProvider();
+				return def;
+			});
+
+			logger.info("{} process plugin{} loaded in {} ms using {} thread{}", definitions.size(),
+					definitions.size() == 1 ? "" : "s", System.currentTimeMillis() - start, loaderThreads,
+					loaderThreads == 1 ? "" : "s");
+
+			return definitions;
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	private <T, R> List<R> inParallel(ExecutorService executor, List<T> values, Function<T, R> mapper)
+	{
+		List<Future<R>> futures = values.stream().map(v -> executor.submit(() -> mapper.apply(v)))
+				.collect(Collectors.toList());
+
+		List<R> results = new ArrayList<>(futures.size());
+		for (Future<R> future : futures)
+		{
+			try
+			{
+				results.add(future.get());
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			}
+			catch (ExecutionException e)
+			{
+				if (e.getCause() instanceof RuntimeException)
+					throw (RuntimeException) e.getCause();
+				else
+					throw new RuntimeException(e.getCause());
+			}
+		}
+
+		return results;
+	}
+
+	private List<ProcessPluginDefinitionAndClassLoader> loadDefinitions(ExecutorService executor)
 	{
 		try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(pluginDirectory))
 		{
-			List<ProcessPluginDefinitionAndClassLoader> definitions = new ArrayList<>();
+			List<Path> paths = new ArrayList<>();
 
 			directoryStream.forEach(p ->
 			{
-				if (Files.isReadable(p) && p.getFileName().toString().endsWith(".jar"))
-				{
-					ProcessPluginDefinitionAndClassLoader def = toJarDefinition(p);
-					if (def != null)
-						definitions.add(def);
-				}
-				else if (Files.isDirectory(p))
-				{
-					ProcessPluginDefinitionAndClassLoader def = toFolderDefinition(p);
-					if (def != null)
-						definitions.add(def);
-				}
+				if ((Files.isReadable(p) && p.getFileName().toString().endsWith(".jar")) || Files.isDirectory(p))
+					paths.add(p);
 				else
 					logger.warn("Ignoring file/folder {}", p.toAbsolutePath().toString());
 			});
 
-			return definitions;
+			return inParallel(executor, paths, p -> Files.isDirectory(p) ? toFolderDefinition(p) : toJarDefinition(p))
+					.stream().filter(Objects::nonNull).collect(Collectors.toList());
 		}
 		catch (IOException e)
 		{
@@ -208,13 +285,13 @@ public class ProcessPluginProviderImpl implements ProcessPluginProvider, Initial
 	}
 
 	private List<ProcessPluginDefinitionAndClassLoader> handleDependencies(
-			List<ProcessPluginDefinitionAndClassLoader> definitions)
+			List<ProcessPluginDefinitionAndClassLoader> definitions, ExecutorService executor)
 	{
 		Map<String, ProcessPluginDefinitionAndClassLoader> definitionsByJar = new HashMap<>();
 		definitions.stream()
 				.forEach(def -> def.getJars().forEach(p -> definitionsByJar.put(p.getFileName().toString(), def)));
 
-		return definitions.stream().map(def -> withDependencies(def, definitionsByJar)).collect(Collectors.toList());
+		return inParallel(executor, definitions, def -> withDependencies(def, definitionsByJar));
 	}
 
 	private ProcessPluginDefinitionAndClassLoader withDependencies(ProcessPluginDefinitionAndClassLoader definition,
@@ -13,14 +13,32 @@ public final class BpmnFileAndModel
 	private final String file;
 	private final BpmnModelInstance model;
 	private final List<Path> jars = new ArrayList<>();
+	private final String checksum;
 
 	public BpmnFileAndModel(String file, BpmnModelInstance model, Collection<? extends Path> jars)
+	{
+		this(file, model, jars, null);
+	}
+
+	/**
+	 * @param file
+	 *            not <code>null</code>
+	 * @param model
+	 *            not <code>null</code>
+	 * @param jars
+	 *            may be <code>null</code>
+	 * @param checksum
+	 *            checksum of the BPMN file after placeholder replacement, may be <code>null</code>
+	 */
+	public BpmnFileAndModel(String file, BpmnModelInstance model, Collection<? extends Path> jars, String checksum)
 	{
 		this.file = file;
 		this.model = model;
 
 		if (jars != null)
 			this.jars.addAll(jars);
+
+		this.checksum = checksum;
 	}
 
 	public String getFile()
@@ -38,6 +56,15 @@ public final class BpmnFileAndModel
 		return Collections.unmodifiableList(jars);
 	}
 
+	/**
+	 * @return checksum of the BPMN file after placeholder replacement, may be <code>null</code>
+	 * @see ContentChecksum
+	 */
+	public String getChecksum()
+	{
+		return checksum;
+	}
+
 	public ProcessKeyAndVersion getProcessKeyAndVersion()
 	{
 		return ProcessKeyAndVersion.fromModel(getModel());
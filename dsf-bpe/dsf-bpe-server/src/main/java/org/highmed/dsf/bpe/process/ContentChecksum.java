@@ -0,0 +1,71 @@
+package org.highmed.dsf.bpe.process;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * SHA-256 checksums of BPMN models and FHIR resources deployed from process plugins, used to detect unchanged content
+ * between restarts of the DSF BPE server.
+ */
+public final class ContentChecksum
+{
+	private static final String ALGORITHM = "SHA-256";
+
+	private ContentChecksum()
+	{
+	}
+
+	/**
+	 * @param content
+	 *            not <code>null</code>
+	 * @return hex encoded SHA-256 checksum of the UTF-8 encoded content
+	 */
+	public static String of(String content)
+	{
+		return of(List.of(content));
+	}
+
+	/**
+	 * @param contents
+	 *            not <code>null</code>, order relevant
+	 * @return hex encoded SHA-256 checksum of the UTF-8 encoded contents
+	 */
+	public static String of(List<String> contents)
+	{
+		MessageDigest digest = newDigest();
+		for (String content : contents)
+		{
+			byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+
+			// length prefix, checksum of [ab, c] differs from checksum of [a, bc]
+			digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+			digest.update((byte) ':');
+			digest.update(bytes);
+		}
+
+		return toHex(digest.digest());
+	}
+
+	private static MessageDigest newDigest()
+	{
+		try
+		{
+			return MessageDigest.getInstance(ALGORITHM);
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes)
+	{
+		StringBuilder b = new StringBuilder(bytes.length * 2);
+		for (byte v : bytes)
+			b.append(Character.forDigit((v >> 4) & 0xf, 16)).append(Character.forDigit(v & 0xf, 16));
+
+		return b.toString();
+	}
+}
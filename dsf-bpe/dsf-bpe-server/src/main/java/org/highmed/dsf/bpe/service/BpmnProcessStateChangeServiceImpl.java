@@ -15,6 +15,7 @@ import org.camunda.bpm.engine.RepositoryService;
 import org.camunda.bpm.engine.repository.Deployment;
 import org.camunda.bpm.engine.repository.DeploymentBuilder;
 import org.camunda.bpm.engine.repository.ProcessDefinition;
+import org.highmed.dsf.bpe.dao.ProcessChecksumDao;
 import org.highmed.dsf.bpe.dao.ProcessStateDao;
 import org.highmed.dsf.bpe.plugin.ProcessPluginProvider;
 import org.highmed.dsf.bpe.process.BpmnFileAndModel;
@@ -31,17 +32,19 @@ public class BpmnProcessStateChangeServiceImpl implements BpmnProcessStateChange
 
 	private final RepositoryService repositoryService;
 	private final ProcessStateDao processStateDao;
+	private final ProcessChecksumDao processChecksumDao;
 	private final ProcessPluginProvider processPluginProvider;
 	private final List<ProcessKeyAndVersion> excluded = new ArrayList<>();
 	private final List<ProcessKeyAndVersion> retired = new ArrayList<>();
 	private final List<ProcessKeyAndVersion> draft = new ArrayList<>();
 
 	public BpmnProcessStateChangeServiceImpl(RepositoryService repositoryService, ProcessStateDao processStateDao,
-			ProcessPluginProvider processPluginProvider, List<ProcessKeyAndVersion> excluded,
-			List<ProcessKeyAndVersion> retired)
+			ProcessChecksumDao processChecksumDao, ProcessPluginProvider processPluginProvider,
+			List<ProcessKeyAndVersion> excluded, List<ProcessKeyAndVersion> retired)
 	{
 		this.repositoryService = repositoryService;
 		this.processStateDao = processStateDao;
+		this.processChecksumDao = processChecksumDao;
 		this.processPluginProvider = processPluginProvider;
 
 		if (excluded != null)
@@ -57,6 +60,7 @@ public class BpmnProcessStateChangeServiceImpl implements BpmnProcessStateChange
 	{
 		Objects.requireNonNull(repositoryService, "repositoryService");
 		Objects.requireNonNull(processStateDao, "processStateDao");
+		Objects.requireNonNull(processChecksumDao, "processChecksumDao");
 		Objects.requireNonNull(processPluginProvider, "processPluginProvider");
 	}
 
@@ -73,6 +77,19 @@ public class BpmnProcessStateChangeServiceImpl implements BpmnProcessStateChange
 		}
 	}
 
+	private Map<ProcessKeyAndVersion, String> getBpmnChecksums()
+	{
+		try
+		{
+			return processChecksumDao.getBpmnChecksums();
+		}
+		catch (SQLException e)
+		{
+			logger.warn("Error while retrieving process checksums from db", e);
+			throw new RuntimeException(e);
+		}
+	}
+
 	@Override
 	public List<ProcessStateChangeOutcome> deploySuspendOrActivateProcesses(Stream<BpmnFileAndModel> models)
 	{
@@ -81,8 +98,13 @@ public class BpmnProcessStateChangeServiceImpl implements BpmnProcessStateChange
 		Map<ProcessKeyAndVersion, ProcessState> oldProcessStates = getStates();
 		Map<ProcessKeyAndVersion, ProcessState> newProcessStates = new HashMap<>();
 
+		Map<ProcessKeyAndVersion, String> oldChecksums = getBpmnChecksums();
+		Map<ProcessKeyAndVersion, String> newChecksums = new HashMap<>();
+
 		logger.debug("Deploying process models ...");
-		models.forEach(this::deploy);
+		models.forEach(model -> deploy(model, oldChecksums, newChecksums));
+
+		updateBpmnChecksums(newChecksums);
 
 		List<ProcessKeyAndVersion> loadedProcesses = processPluginProvider.getProcessKeyAndVersions();
 
@@ -169,6 +191,25 @@ public class BpmnProcessStateChangeServiceImpl implements BpmnProcessStateChange
 		}
 	}
 
+	private boolean isDeployed(ProcessKeyAndVersion processKeyAndVersion)
+	{
+		return repositoryService.createProcessDefinitionQuery().processDefinitionKey(processKeyAndVersion.getKey())
+				.versionTag(processKeyAndVersion.getVersion()).count() > 0;
+	}
+
+	private void updateBpmnChecksums(Map<ProcessKeyAndVersion, String> checksums)
+	{
+		try
+		{
+			processChecksumDao.updateBpmnChecksums(checksums);
+		}
+		catch (SQLException e)
+		{
+			logger.warn("Error while updating process checksums in db", e);
+			throw new RuntimeException(e);
+		}
+	}
+
 	private void logProcessDeploymentStatus()
 	{
 		Map<String, Deployment> deploymentsById = repositoryService.createDeploymentQuery().orderByDeploymentName()
@@ -193,10 +234,22 @@ public class BpmnProcessStateChangeServiceImpl implements BpmnProcessStateChange
 		}
 	}
 
-	private void deploy(BpmnFileAndModel fileAndModel)
+	private void deploy(BpmnFileAndModel fileAndModel, Map<ProcessKeyAndVersion, String> oldChecksums,
+			Map<ProcessKeyAndVersion, String> newChecksums)
 	{
 		ProcessKeyAndVersion processKeyAndVersion = fileAndModel.getProcessKeyAndVersion();
 
+		if (fileAndModel.getChecksum() != null
+				&& fileAndModel.getChecksum().equals(oldChecksums.get(processKeyAndVersion))
+				&& isDeployed(processKeyAndVersion))
+		{
+			logger.debug("Process {} from {}://{} unchanged since last deployment, checksum {}",
+					processKeyAndVersion.toString(),
+					fileAndModel.getJars().stream().map(Path::toString).collect(Collectors.joining("; ")),
+					fileAndModel.getFile(), fileAndModel.getChecksum());
+			return;
+		}
+
 		DeploymentBuilder builder = repositoryService.createDeployment().name(processKeyAndVersion.toString())
 				.source(fileAndModel.getFile()).addModelInstance(fileAndModel.getFile(), fileAndModel.getModel())
 				.enableDuplicateFiltering(true);
@@ -207,6 +260,9 @@ public class BpmnProcessStateChangeServiceImpl implements BpmnProcessStateChange
 				fileAndModel.getJars().stream().map(Path::toString).collect(Collectors.joining("; ")),
 				fileAndModel.getFile(), deployment.getId());
 
+		if (fileAndModel.getChecksum() != null)
+			newChecksums.put(processKeyAndVersion, fileAndModel.getChecksum());
+
 		if (draft.contains(processKeyAndVersion))
 		{
 			List<ProcessDefinition> activeDraftDefinitions = repositoryService.createProcessDefinitionQuery()
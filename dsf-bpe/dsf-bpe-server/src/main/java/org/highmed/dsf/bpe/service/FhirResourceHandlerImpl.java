@@ -6,10 +6,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -18,8 +20,10 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.highmed.dsf.bpe.dao.ProcessChecksumDao;
 import org.highmed.dsf.bpe.dao.ProcessPluginResourcesDao;
 import org.highmed.dsf.bpe.plugin.ProcessPluginDefinitionAndClassLoader;
+import org.highmed.dsf.bpe.process.ContentChecksum;
 import org.highmed.dsf.bpe.process.ProcessKeyAndVersion;
 import org.highmed.dsf.bpe.process.ProcessState;
 import org.highmed.dsf.bpe.process.ProcessStateChangeOutcome;
@@ -54,6 +58,7 @@ public class FhirResourceHandlerImpl implements FhirResourceHandler, Initializin
 
 	private final FhirWebserviceClient localWebserviceClient;
 	private final ProcessPluginResourcesDao dao;
+	private final ProcessChecksumDao checksumDao;
 	private final FhirContext fhirContext;
 	private final int fhirServerRequestMaxRetries;
 	private final long fhirServerRetryDelayMillis;
@@ -61,11 +66,12 @@ public class FhirResourceHandlerImpl implements FhirResourceHandler, Initializin
 	private final Map<String, ResourceProvider> resouceProvidersByDpendencyNameAndVersion = new HashMap<>();
 
 	public FhirResourceHandlerImpl(FhirWebserviceClient localWebserviceClient, ProcessPluginResourcesDao dao,
-			FhirContext fhirContext, int fhirServerRequestMaxRetries, long fhirServerRetryDelayMillis,
-			Map<String, ResourceProvider> resouceProvidersByDpendencyNameAndVersion)
+			ProcessChecksumDao checksumDao, FhirContext fhirContext, int fhirServerRequestMaxRetries,
+			long fhirServerRetryDelayMillis, Map<String, ResourceProvider> resouceProvidersByDpendencyNameAndVersion)
 	{
 		this.localWebserviceClient = localWebserviceClient;
 		this.dao = dao;
+		this.checksumDao = checksumDao;
 		this.fhirContext = fhirContext;
 		this.fhirServerRequestMaxRetries = fhirServerRequestMaxRetries;
 		this.fhirServerRetryDelayMillis = fhirServerRetryDelayMillis;
@@ -79,6 +85,7 @@ public class FhirResourceHandlerImpl implements FhirResourceHandler, Initializin
 	{
 		Objects.requireNonNull(localWebserviceClient, "localWebserviceClient");
 		Objects.requireNonNull(dao, "dao");
+		Objects.requireNonNull(checksumDao, "checksumDao");
 		Objects.requireNonNull(fhirContext, "fhirContext");
 		if (fhirServerRequestMaxRetries < -1)
 			throw new IllegalArgumentException("fhirServerRequestMaxRetries < -1");
@@ -113,6 +120,11 @@ public class FhirResourceHandlerImpl implements FhirResourceHandler, Initializin
 
 		Map<ProcessKeyAndVersion, List<ResourceInfo>> dbResourcesByProcess = getResourceInfosFromDb();
 
+		// checksums calculated before resource status is modified while creating bundle entries
+		Map<ProcessKeyAndVersion, String> draftChecksums = getDraftResourcesChecksums(definitionByProcessKeyAndVersion,
+				changes);
+		Set<ProcessKeyAndVersion> unchangedDrafts = getUnchangedDrafts(draftChecksums);
+
 		Map<ResourceInfo, ProcessesResource> resources = new HashMap<>();
 		for (ProcessStateChangeOutcome change : changes)
 		{
@@ -155,13 +167,15 @@ public class FhirResourceHandlerImpl implements FhirResourceHandler, Initializin
 			});
 		}
 
-		addResourcesRemovedFromDraftProcess(changes, dbResourcesByProcess, resources);
+		removeDraftsWithMissingResources(resources.values(), unchangedDrafts);
+
+		addResourcesRemovedFromDraftProcess(changes, unchangedDrafts, dbResourcesByProcess, resources);
 
 		findMissingResourcesAndModifyOldState(resources.values());
 
-		List<ProcessesResource> resourceValues = new ArrayList<>(
-				resources.values().stream().filter(ProcessesResource::hasStateChangeOrDraft)
-						.filter(ProcessesResource::notNewToExcludedChange).collect(Collectors.toList()));
+		List<ProcessesResource> resourceValues = new ArrayList<>(resources.values().stream()
+				.filter(ProcessesResource::hasStateChangeOrDraft).filter(ProcessesResource::notNewToExcludedChange)
+				.filter(r -> !isUnchangedDraft(r, unchangedDrafts)).collect(Collectors.toList()));
 
 		Bundle batchBundle = new Bundle();
 		batchBundle.setType(BundleType.BATCH);
@@ -173,7 +187,10 @@ public class FhirResourceHandlerImpl implements FhirResourceHandler, Initializin
 		try
 		{
 			if (batchBundle.getEntry().isEmpty())
+			{
 				logger.debug("No transaction bundle to execute");
+				updateResourcesChecksums(draftChecksums);
+			}
 			else
 			{
 				logger.debug("Executing process plugin resources bundle");
@@ -188,6 +205,7 @@ public class FhirResourceHandlerImpl implements FhirResourceHandler, Initializin
 				try
 				{
 					dao.addOrRemoveResources(resources.values(), deletedResourcesIds, excludedProcesses);
+					checksumDao.updateResourcesChecksums(draftChecksums);
 				}
 				catch (SQLException e)
 				{
@@ -206,14 +224,74 @@ public class FhirResourceHandlerImpl implements FhirResourceHandler, Initializin
 		}
 	}
 
+	private Map<ProcessKeyAndVersion, String> getDraftResourcesChecksums(
+			Map<ProcessKeyAndVersion, ProcessPluginDefinitionAndClassLoader> definitionByProcessKeyAndVersion,
+			List<ProcessStateChangeOutcome> changes)
+	{
+		Map<ProcessKeyAndVersion, String> checksums = new HashMap<>();
+		for (ProcessStateChangeOutcome change : changes)
+		{
+			ProcessPluginDefinitionAndClassLoader definition = definitionByProcessKeyAndVersion
+					.get(change.getProcessKeyAndVersion());
+
+			if (definition != null && ProcessState.DRAFT.equals(change.getOldProcessState())
+					&& ProcessState.DRAFT.equals(change.getNewProcessState()))
+			{
+				List<String> resources = getResources(change.getProcessKeyAndVersion(), definition)
+						.map(r -> fhirContext.newJsonParser().encodeResourceToString(r)).collect(Collectors.toList());
+				checksums.put(change.getProcessKeyAndVersion(), ContentChecksum.of(resources));
+			}
+		}
+
+		return checksums;
+	}
+
+	private Set<ProcessKeyAndVersion> getUnchangedDrafts(Map<ProcessKeyAndVersion, String> draftChecksums)
+	{
+		Map<ProcessKeyAndVersion, String> dbChecksums = getResourcesChecksumsFromDb();
+
+		return draftChecksums.entrySet().stream().filter(e -> e.getValue().equals(dbChecksums.get(e.getKey())))
+				.map(Map.Entry::getKey).collect(Collectors.toCollection(HashSet::new));
+	}
+
+	/**
+	 * Resources of unchanged draft processes are only skipped if they still exist on the FHIR server, draft processes
+	 * with resources deleted from the FHIR server are removed from the given <b>unchangedDrafts</b> and uploaded again.
+	 */
+	private void removeDraftsWithMissingResources(Collection<ProcessesResource> resources,
+			Set<ProcessKeyAndVersion> unchangedDrafts)
+	{
+		List<ProcessesResource> unchangedDraftResources = resources.stream()
+				.filter(r -> isUnchangedDraft(r, unchangedDrafts)).collect(Collectors.toList());
+
+		findMissingResources(unchangedDraftResources).forEach(r ->
+		{
+			logger.info("Resource {} of unchanged draft process {} missing, updating", r.getSearchBundleEntryUrl(),
+					r.getProcesses());
+			unchangedDrafts.removeAll(r.getProcesses());
+		});
+
+		unchangedDrafts.forEach(
+				p -> logger.info("Resources of draft process {} unchanged since last deployment, not updating", p));
+	}
+
+	private boolean isUnchangedDraft(ProcessesResource resource, Set<ProcessKeyAndVersion> unchangedDrafts)
+	{
+		return ProcessState.DRAFT.equals(resource.getOldProcessState())
+				&& ProcessState.DRAFT.equals(resource.getNewProcessState())
+				&& unchangedDrafts.containsAll(resource.getProcesses());
+	}
+
 	private void addResourcesRemovedFromDraftProcess(List<ProcessStateChangeOutcome> changes,
+			Set<ProcessKeyAndVersion> unchangedDrafts,
 			Map<ProcessKeyAndVersion, List<ResourceInfo>> dbResourcesByProcess,
 			Map<ResourceInfo, ProcessesResource> resources)
 	{
 		for (ProcessStateChangeOutcome change : changes)
 		{
 			if (ProcessState.DRAFT.equals(change.getOldProcessState())
-					&& ProcessState.DRAFT.equals(change.getNewProcessState()))
+					&& ProcessState.DRAFT.equals(change.getNewProcessState())
+					&& !unchangedDrafts.contains(change.getProcessKeyAndVersion()))
 			{
 				List<ResourceInfo> dbResources = dbResourcesByProcess.getOrDefault(change.getProcessKeyAndVersion(),
 						Collections.emptyList());
@@ -239,6 +317,17 @@ public class FhirResourceHandlerImpl implements FhirResourceHandler, Initializin
 		List<ProcessesResource> resourceValues = resources.stream().filter(ProcessesResource::shouldExist)
 				.collect(Collectors.toList());
 
+		findMissingResources(resourceValues).forEach(resource ->
+		{
+			resource.setOldProcessState(ProcessState.MISSING);
+
+			logger.warn("Resource {} not found, setting old process state for resource to {}",
+					resource.getSearchBundleEntryUrl(), ProcessState.MISSING);
+		});
+	}
+
+	private List<ProcessesResource> findMissingResources(List<ProcessesResource> resourceValues)
+	{
 		Bundle batchBundle = new Bundle();
 		batchBundle.setType(BundleType.BATCH);
 
@@ -246,7 +335,7 @@ public class FhirResourceHandlerImpl implements FhirResourceHandler, Initializin
 				resourceValues.stream().map(ProcessesResource::toSearchBundleEntryCount0).collect(Collectors.toList()));
 
 		if (batchBundle.getEntry().isEmpty())
-			return;
+			return Collections.emptyList();
 
 		Bundle returnBundle = retryClient().postBundle(batchBundle);
 
@@ -254,6 +343,7 @@ public class FhirResourceHandlerImpl implements FhirResourceHandler, Initializin
 			throw new RuntimeException("Return bundle size unexpeced, expected " + resourceValues.size() + " got "
 					+ returnBundle.getEntry().size());
 
+		List<ProcessesResource> missing = new ArrayList<>();
 		for (int i = 0; i < resourceValues.size(); i++)
 		{
 			ProcessesResource resource = resourceValues.get(i);
@@ -270,19 +360,13 @@ public class FhirResourceHandlerImpl implements FhirResourceHandler, Initializin
 				logger.warn("Response for {} not a searchset Bundle, missing resource will not be added",
 						resource.getSearchBundleEntryUrl());
 			}
-
-			Bundle searchBundle = (Bundle) entry.getResource();
-
-			if (searchBundle.getTotal() <= 0)
-			{
-				resource.setOldProcessState(ProcessState.MISSING);
-
-				logger.warn("Resource {} not found, setting old process state for resource to {}",
-						resource.getSearchBundleEntryUrl(), ProcessState.MISSING);
-			}
+			else if (((Bundle) entry.getResource()).getTotal() <= 0)
+				missing.add(resource);
 			else
 				logger.info("Resource {} found", resource.getSearchBundleEntryUrl());
 		}
+
+		return missing;
 	}
 
 	private List<UUID> addIdsAndReturnDeleted(List<ProcessesResource> resourceValues, Bundle returnBundle)
@@ -461,6 +545,32 @@ public class FhirResourceHandlerImpl implements FhirResourceHandler, Initializin
 		}
 	}
 
+	private Map<ProcessKeyAndVersion, String> getResourcesChecksumsFromDb()
+	{
+		try
+		{
+			return checksumDao.getResourcesChecksums();
+		}
+		catch (SQLException e)
+		{
+			logger.warn("Error while retrieving resource checksums from db", e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void updateResourcesChecksums(Map<ProcessKeyAndVersion, String> checksums)
+	{
+		try
+		{
+			checksumDao.updateResourcesChecksums(checksums);
+		}
+		catch (SQLException e)
+		{
+			logger.error("Error while updating resource checksums in db", e);
+			throw new RuntimeException(e);
+		}
+	}
+
 	private UUID toUuid(String id)
 	{
 		if (id == null)
@@ -6,6 +6,9 @@ import java.nio.file.Path;
 import java.util.List;
 
 import org.apache.commons.dbcp2.BasicDataSource;
+import org.camunda.bpm.engine.impl.jobexecutor.DefaultJobExecutor;
+import org.camunda.bpm.engine.impl.jobexecutor.JobExecutor;
+import org.camunda.bpm.engine.impl.persistence.StrongUuidGenerator;
 import org.camunda.bpm.engine.impl.variable.serializer.TypedValueSerializer;
 import org.camunda.bpm.engine.impl.variable.serializer.VariableSerializerFactory;
 import org.camunda.bpm.engine.spring.ProcessEngineFactoryBean;
@@ -76,7 +79,13 @@ public class CamundaConfig
 		dataSource.setUsername(propertiesConfig.getDbCamundaUsername());
 		dataSource.setPassword(toString(propertiesConfig.getDbCamundaPassword()));
 
-		dataSource.setTestOnBorrow(true);
+		dataSource.setMinIdle(propertiesConfig.getDbCamundaPoolMinIdle());
+		dataSource.setMaxIdle(propertiesConfig.getDbCamundaPoolMaxIdle());
+		dataSource.setMaxTotal(propertiesConfig.getDbCamundaPoolMaxTotal());
+
+		dataSource.setTestOnBorrow(propertiesConfig.getDbCamundaPoolTestOnBorrow());
+		dataSource.setTestWhileIdle(true);
+		dataSource.setTimeBetweenEvictionRunsMillis(propertiesConfig.getDbCamundaPoolIdleValidationInterval());
 		dataSource.setValidationQuery("SELECT 1");
 		return dataSource;
 	}
@@ -126,6 +135,12 @@ public class CamundaConfig
 		c.setTransactionManager(transactionManager());
 		c.setDatabaseSchemaUpdate("false");
 		c.setJobExecutorActivate(true);
+		c.setJobExecutor(jobExecutor());
+		c.setHistory(propertiesConfig.getCamundaHistoryLevel());
+
+		// DbIdGenerator needs a second connection to fetch new id blocks, may deadlock if the connection pool is
+		// exhausted by concurrent commands
+		c.setIdGenerator(new StrongUuidGenerator());
 		c.setCustomPreBPMNParseListeners(List.of(defaultBpmnParseListener(), debugLoggingBpmnParseListener()));
 		c.setCustomPreVariableSerializers(baseSerializers);
 		c.setFallbackSerializerFactory(getFallbackSerializerFactory());
@@ -137,6 +152,18 @@ public class CamundaConfig
 		return c;
 	}
 
+	@Bean
+	public JobExecutor jobExecutor()
+	{
+		var e = new DefaultJobExecutor();
+		e.setCorePoolSize(propertiesConfig.getCamundaJobExecutorCorePoolSize());
+		e.setMaxPoolSize(propertiesConfig.getCamundaJobExecutorMaxPoolSize());
+		e.setQueueSize(propertiesConfig.getCamundaJobExecutorQueueSize());
+		e.setMaxJobsPerAcquisition(propertiesConfig.getCamundaJobExecutorMaxJobsPerAcquisition());
+		e.setWaitTimeInMillis(propertiesConfig.getCamundaJobExecutorWaitTime());
+		return e;
+	}
+
 	@Bean
 	public VariableSerializerFactory getFallbackSerializerFactory()
 	{
@@ -169,7 +196,7 @@ public class CamundaConfig
 					"Process plug in directory '" + processPluginDirectoryPath.toString() + "' not readable");
 
 		return new ProcessPluginProviderImpl(fhirConfig.fhirContext(), processPluginDirectoryPath, applicationContext,
-				environment);
+				environment, propertiesConfig.getProcessPluginLoaderThreads());
 	}
 
 	@Bean
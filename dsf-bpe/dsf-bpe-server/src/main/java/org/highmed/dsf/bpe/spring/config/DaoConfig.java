@@ -3,6 +3,8 @@ package org.highmed.dsf.bpe.spring.config;
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.highmed.dsf.bpe.dao.LastEventTimeDao;
 import org.highmed.dsf.bpe.dao.LastEventTimeDaoJdbc;
+import org.highmed.dsf.bpe.dao.ProcessChecksumDao;
+import org.highmed.dsf.bpe.dao.ProcessChecksumDaoJdbc;
 import org.highmed.dsf.bpe.dao.ProcessPluginResourcesDao;
 import org.highmed.dsf.bpe.dao.ProcessPluginResourcesDaoJdbc;
 import org.highmed.dsf.bpe.dao.ProcessStateDao;
@@ -50,6 +52,12 @@ public class DaoConfig
 		return new ProcessStateDaoJdbc(dataSource());
 	}
 
+	@Bean
+	public ProcessChecksumDao processChecksumDao()
+	{
+		return new ProcessChecksumDaoJdbc(dataSource());
+	}
+
 	@Bean
 	public LastEventTimeDao lastEventTimeDaoTask()
 	{
@@ -12,6 +12,7 @@ import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.pkcs.PKCSException;
@@ -26,6 +27,7 @@ import org.highmed.dsf.fhir.group.GroupHelperImpl;
 import org.highmed.dsf.fhir.organization.EndpointProvider;
 import org.highmed.dsf.fhir.organization.OrganizationProvider;
 import org.highmed.dsf.fhir.organization.OrganizationProviderImpl;
+import org.highmed.dsf.fhir.organization.SearchResultCache;
 import org.highmed.dsf.fhir.questionnaire.QuestionnaireResponseHandler;
 import org.highmed.dsf.fhir.questionnaire.QuestionnaireResponseHelper;
 import org.highmed.dsf.fhir.questionnaire.QuestionnaireResponseHelperImpl;
@@ -34,6 +36,7 @@ import org.highmed.dsf.fhir.service.ReferenceCleaner;
 import org.highmed.dsf.fhir.service.ReferenceCleanerImpl;
 import org.highmed.dsf.fhir.service.ReferenceExtractor;
 import org.highmed.dsf.fhir.service.ReferenceExtractorImpl;
+import org.highmed.dsf.fhir.subscription.CacheInvalidationSubscriptionHandlerFactory;
 import org.highmed.dsf.fhir.subscription.SubscriptionHandlerFactory;
 import org.highmed.dsf.fhir.task.TaskHandler;
 import org.highmed.dsf.fhir.task.TaskHelper;
@@ -42,6 +45,9 @@ import org.highmed.dsf.fhir.task.TaskSubscriptionHandlerFactory;
 import org.highmed.dsf.fhir.websocket.FhirConnector;
 import org.highmed.dsf.fhir.websocket.FhirConnectorImpl;
 import org.highmed.dsf.fhir.websocket.ResourceHandler;
+import org.hl7.fhir.r4.model.Endpoint;
+import org.hl7.fhir.r4.model.Organization;
+import org.hl7.fhir.r4.model.OrganizationAffiliation;
 import org.hl7.fhir.r4.model.QuestionnaireResponse;
 import org.hl7.fhir.r4.model.Task;
 import org.slf4j.Logger;
@@ -172,16 +178,24 @@ public class FhirConfig implements InitializingBean
 				keyStorePassword);
 	}
 
+	@Bean
+	public SearchResultCache organizationSearchResultCache()
+	{
+		return new SearchResultCache(propertiesConfig.getOrganizationCacheTimeToLiveMillis());
+	}
+
 	@Bean
 	public OrganizationProvider organizationProvider()
 	{
-		return new OrganizationProviderImpl(clientProvider(), propertiesConfig.getOrganizationIdentifierValue());
+		return new OrganizationProviderImpl(clientProvider(), organizationSearchResultCache(),
+				propertiesConfig.getOrganizationIdentifierValue());
 	}
 
 	@Bean
 	public EndpointProvider endpointProvider()
 	{
-		return new EndpointProviderImpl(clientProvider(), propertiesConfig.getOrganizationIdentifierValue());
+		return new EndpointProviderImpl(clientProvider(), organizationSearchResultCache(),
+				propertiesConfig.getOrganizationIdentifierValue());
 	}
 
 	@Bean
@@ -227,11 +241,60 @@ public class FhirConfig implements InitializingBean
 				propertiesConfig.getWebsocketRetrySleepMillis(), propertiesConfig.getWebsocketMaxRetries());
 	}
 
+	@Bean
+	public FhirConnector fhirConnectorOrganization()
+	{
+		return new FhirConnectorImpl<>("Organization", clientProvider(),
+				new CacheInvalidationSubscriptionHandlerFactory<Organization>(organizationSearchResultCache()),
+				fhirContext(), propertiesConfig.getOrganizationSubscriptionSearchParameter(),
+				propertiesConfig.getWebsocketRetrySleepMillis(),
+				propertiesConfig.getOrganizationCacheSubscriptionMaxRetries(),
+				organizationCacheSubscriptionError("Organization"));
+	}
+
+	@Bean
+	public FhirConnector fhirConnectorOrganizationAffiliation()
+	{
+		return new FhirConnectorImpl<>("OrganizationAffiliation", clientProvider(),
+				new CacheInvalidationSubscriptionHandlerFactory<OrganizationAffiliation>(
+						organizationSearchResultCache()),
+				fhirContext(), propertiesConfig.getOrganizationAffiliationSubscriptionSearchParameter(),
+				propertiesConfig.getWebsocketRetrySleepMillis(),
+				propertiesConfig.getOrganizationCacheSubscriptionMaxRetries(),
+				organizationCacheSubscriptionError("OrganizationAffiliation"));
+	}
+
+	@Bean
+	public FhirConnector fhirConnectorEndpoint()
+	{
+		return new FhirConnectorImpl<>("Endpoint", clientProvider(),
+				new CacheInvalidationSubscriptionHandlerFactory<Endpoint>(organizationSearchResultCache()),
+				fhirContext(), propertiesConfig.getEndpointSubscriptionSearchParameter(),
+				propertiesConfig.getWebsocketRetrySleepMillis(),
+				propertiesConfig.getOrganizationCacheSubscriptionMaxRetries(),
+				organizationCacheSubscriptionError("Endpoint"));
+	}
+
+	private Consumer<Throwable> organizationCacheSubscriptionError(String resourceType)
+	{
+		return t -> logger.warn(
+				"Unable to receive {} change notifications from local FHIR server ({}), "
+						+ "organization cache entries only invalidated after {} ms",
+				resourceType, t.getMessage(), propertiesConfig.getOrganizationCacheTimeToLiveMillis());
+	}
+
 	@EventListener({ ContextRefreshedEvent.class })
 	public void onContextRefreshedEvent(ContextRefreshedEvent event)
 	{
 		fhirConnectorTask().connect();
 		fhirConnectorQuestionnaireResponse().connect();
+
+		if (organizationSearchResultCache().isEnabled())
+		{
+			fhirConnectorOrganization().connect();
+			fhirConnectorOrganizationAffiliation().connect();
+			fhirConnectorEndpoint().connect();
+		}
 	}
 
 	@Bean
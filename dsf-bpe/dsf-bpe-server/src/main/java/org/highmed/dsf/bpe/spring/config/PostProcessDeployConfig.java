@@ -69,7 +69,8 @@ public class PostProcessDeployConfig
 	public BpmnProcessStateChangeService bpmnProcessStateChangeService()
 	{
 		return new BpmnProcessStateChangeServiceImpl(processEngine.getRepositoryService(), daoConfig.processStateDao(),
-				processPluginProvider, ProcessKeyAndVersion.fromStrings(propertiesConfig.getProcessExcluded()),
+				daoConfig.processChecksumDao(), processPluginProvider,
+				ProcessKeyAndVersion.fromStrings(propertiesConfig.getProcessExcluded()),
 				ProcessKeyAndVersion.fromStrings(propertiesConfig.getProcessRetired()));
 	}
 
@@ -77,7 +78,7 @@ public class PostProcessDeployConfig
 	public FhirResourceHandler fhirResourceHandler()
 	{
 		return new FhirResourceHandlerImpl(fhirConfig.clientProvider().getLocalWebserviceClient(),
-				daoConfig.processPluginResourcesDao(), fhirConfig.fhirContext(),
+				daoConfig.processPluginResourcesDao(), daoConfig.processChecksumDao(), fhirConfig.fhirContext(),
 				propertiesConfig.getFhirServerRequestMaxRetries(), propertiesConfig.getFhirServerRetryDelayMillis(),
 				processPluginProvider.getResouceProvidersByDpendencyNameAndVersion());
 	}
@@ -5,6 +5,7 @@ import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.List;
 
+import org.highmed.dsf.fhir.variables.VariableCompression;
 import org.highmed.dsf.tools.docker.secrets.DockerSecretsPropertySourceFactory;
 import org.highmed.dsf.tools.generator.Documentation;
 import org.springframework.beans.factory.annotation.Value;
@@ -38,6 +39,50 @@ public class PropertiesConfig
 	@Value("${org.highmed.dsf.bpe.db.user.camunda.password}")
 	private char[] dbCamundaPassword;
 
+	@Documentation(description = "Minimum number of idle connections in the database connection pool used by the camunda process engine")
+	@Value("${org.highmed.dsf.bpe.db.camunda.pool.idle.min:0}")
+	private int dbCamundaPoolMinIdle;
+
+	@Documentation(description = "Maximum number of idle connections in the database connection pool used by the camunda process engine", recommendation = "For high throughput, set to the maximum number of connections")
+	@Value("${org.highmed.dsf.bpe.db.camunda.pool.idle.max:8}")
+	private int dbCamundaPoolMaxIdle;
+
+	@Documentation(description = "Maximum number of connections in the database connection pool used by the camunda process engine", recommendation = "Should be larger than the maximum job executor thread pool size, to leave connections for incoming subscription events and process starts")
+	@Value("${org.highmed.dsf.bpe.db.camunda.pool.total.max:8}")
+	private int dbCamundaPoolMaxTotal;
+
+	@Documentation(description = "Milliseconds between two validation runs for idle connections in the database connection pool used by the camunda process engine, idle connections are validated and evicted if broken")
+	@Value("${org.highmed.dsf.bpe.db.camunda.pool.idle.validation.interval:30000}")
+	private long dbCamundaPoolIdleValidationInterval;
+
+	@Documentation(description = "To validate connections from the database connection pool used by the camunda process engine on every borrow, set to `true`", recommendation = "Validation on borrow adds a database roundtrip to every transaction; enable only if broken connections are not detected by idle validation in your environment")
+	@Value("${org.highmed.dsf.bpe.db.camunda.pool.validation.onBorrow:false}")
+	private boolean dbCamundaPoolTestOnBorrow;
+
+	@Documentation(description = "Camunda process engine history level: `none`, `activity`, `audit` or `full`", recommendation = "Lower history levels reduce the number of writes per process instance; changing the history level of an existing installation requires the *historyLevel* entry in table *ACT_GE_PROPERTY* to be updated")
+	@Value("${org.highmed.dsf.bpe.camunda.history.level:audit}")
+	private String camundaHistoryLevel;
+
+	@Documentation(description = "Core number of threads of the camunda job executor")
+	@Value("${org.highmed.dsf.bpe.camunda.job.executor.pool.core:3}")
+	private int camundaJobExecutorCorePoolSize;
+
+	@Documentation(description = "Maximum number of threads of the camunda job executor", recommendation = "For high throughput, increase together with the database connection pool size")
+	@Value("${org.highmed.dsf.bpe.camunda.job.executor.pool.max:10}")
+	private int camundaJobExecutorMaxPoolSize;
+
+	@Documentation(description = "Size of the queue for jobs acquired by the camunda job executor but not yet executed")
+	@Value("${org.highmed.dsf.bpe.camunda.job.executor.queue.size:3}")
+	private int camundaJobExecutorQueueSize;
+
+	@Documentation(description = "Maximum number of jobs acquired by the camunda job executor in one acquisition cycle", recommendation = "For high throughput, set to a value close to the maximum number of threads of the job executor")
+	@Value("${org.highmed.dsf.bpe.camunda.job.executor.acquisition.max:3}")
+	private int camundaJobExecutorMaxJobsPerAcquisition;
+
+	@Documentation(description = "Milliseconds the camunda job executor waits before the next acquisition cycle, if no jobs where acquired")
+	@Value("${org.highmed.dsf.bpe.camunda.job.executor.acquisition.wait:5000}")
+	private int camundaJobExecutorWaitTime;
+
 	@Documentation(required = true, description = "The local identifier value used in the Allow-List", recommendation = "By convention: The shortest possible FQDN that resolve the homepage of the organization", example = "hospital.com")
 	@Value("${org.highmed.dsf.bpe.fhir.server.organization.identifier.value}")
 	private String organizationIdentifierValue;
@@ -130,6 +175,26 @@ public class PropertiesConfig
 	@Value("${org.highmed.dsf.bpe.fhir.questionnaire.response.subscription.search.parameter:?criteria=QuestionnaireResponse%3Fstatus%3Dcompleted&status=active&type=websocket&payload=application/fhir%2Bjson}")
 	private String questionnaireResponseSubscriptionSearchParameter;
 
+	@Documentation(description = "Milliseconds search results for Organization, OrganizationAffiliation and Endpoint resources are cached, cache entries are invalidated early if any of these resources are created or updated on the DSF FHIR server; `0` disables the cache")
+	@Value("${org.highmed.dsf.bpe.fhir.organization.cache.ttl:300000}")
+	private long organizationCacheTimeToLiveMillis;
+
+	@Documentation(description = "Subscription to receive notifications about organization resources from the DSF FHIR server, used to invalidate the organization cache")
+	@Value("${org.highmed.dsf.bpe.fhir.organization.subscription.search.parameter:?criteria=Organization&status=active&type=websocket&payload=application/fhir%2Bjson}")
+	private String organizationSubscriptionSearchParameter;
+
+	@Documentation(description = "Subscription to receive notifications about organization affiliation resources from the DSF FHIR server, used to invalidate the organization cache")
+	@Value("${org.highmed.dsf.bpe.fhir.organization.affiliation.subscription.search.parameter:?criteria=OrganizationAffiliation&status=active&type=websocket&payload=application/fhir%2Bjson}")
+	private String organizationAffiliationSubscriptionSearchParameter;
+
+	@Documentation(description = "Subscription to receive notifications about endpoint resources from the DSF FHIR server, used to invalidate the organization cache")
+	@Value("${org.highmed.dsf.bpe.fhir.endpoint.subscription.search.parameter:?criteria=Endpoint&status=active&type=websocket&payload=application/fhir%2Bjson}")
+	private String endpointSubscriptionSearchParameter;
+
+	@Documentation(description = "Number of retries until the organization cache subscriptions are retrieved from the DSF FHIR server, if not retrieved cache entries are only invalidated after the configured time to live; `-1` means infinite number of retries")
+	@Value("${org.highmed.dsf.bpe.fhir.organization.cache.subscription.retry.max:5}")
+	private int organizationCacheSubscriptionMaxRetries;
+
 	@Documentation(description = "Number of retries until a websocket connection can be established with the DSF FHIR server, `-1` means infinite number of retries")
 	@Value("${org.highmed.dsf.bpe.fhir.task.subscription.retry.max:-1}")
 	private int websocketMaxRetries;
@@ -158,6 +223,10 @@ public class PropertiesConfig
 	@Value("${org.highmed.dsf.bpe.process.plugin.directroy:process}")
 	private String processPluginDirectory;
 
+	@Documentation(description = "Number of threads used to load process plugins, parse BPMN models and read FHIR resources during startup of the DSF BPE server, values < 1 use the number of available processors")
+	@Value("${org.highmed.dsf.bpe.process.plugin.loader.threads:-1}")
+	private int processPluginLoaderThreads;
+
 	@Documentation(description = "List of process names that should be excluded from deployment during startup of the DSF BPE server; comma or space separated list, YAML block scalars supported", recommendation = "Only deploy processes that can be started depending on your organization's roles in the Allow-List")
 	@Value("#{'${org.highmed.dsf.bpe.process.excluded:}'.trim().split('(,[ ]?)|(\\n)')}")
 	private List<String> processExcluded;
@@ -262,6 +331,22 @@ public class PropertiesConfig
 	@Value("${org.highmed.dsf.bpe.debug.log.message.variables:false}")
 	private boolean debugLogMessageVariables;
 
+	@Documentation(description = "To store FHIR resource and FHIR resource list process variables as compact, optionally compressed JSON with transaction scoped caching of parsed values, set to `true`", recommendation = "Process variables stored with compression can not be read after a downgrade to a DSF BPE server version without this option")
+	@Value("${org.highmed.dsf.bpe.variables.compact:false}")
+	private boolean variablesCompact;
+
+	@Documentation(description = "Compression algorithm for compact FHIR resource and FHIR resource list process variables: `NONE`, `GZIP` or `LZ4`. Requires compact process variables to be enabled via *ORG_HIGHMED_DSF_BPE_VARIABLES_COMPACT*")
+	@Value("${org.highmed.dsf.bpe.variables.compression:NONE}")
+	private String variablesCompression;
+
+	@Documentation(description = "Minimum size in bytes of compact FHIR resource and FHIR resource list process variables to be compressed. Requires compact process variables to be enabled via *ORG_HIGHMED_DSF_BPE_VARIABLES_COMPACT*")
+	@Value("${org.highmed.dsf.bpe.variables.compression.threshold:1024}")
+	private int variablesCompressionThreshold;
+
+	@Documentation(description = "Maximum number of FHIR resources referenced by process variables to keep in memory, resources are read from the local DSF FHIR server if not cached; `0` disables caching")
+	@Value("${org.highmed.dsf.bpe.variables.reference.cache.size:1000}")
+	private int variablesReferenceCacheSize;
+
 	@Bean // static in order to initialize before @Configuration classes
 	public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer(
 			ConfigurableEnvironment environment)
@@ -296,6 +381,61 @@ public class PropertiesConfig
 		return dbCamundaPassword;
 	}
 
+	public int getDbCamundaPoolMinIdle()
+	{
+		return dbCamundaPoolMinIdle;
+	}
+
+	public int getDbCamundaPoolMaxIdle()
+	{
+		return dbCamundaPoolMaxIdle;
+	}
+
+	public int getDbCamundaPoolMaxTotal()
+	{
+		return dbCamundaPoolMaxTotal;
+	}
+
+	public long getDbCamundaPoolIdleValidationInterval()
+	{
+		return dbCamundaPoolIdleValidationInterval;
+	}
+
+	public boolean getDbCamundaPoolTestOnBorrow()
+	{
+		return dbCamundaPoolTestOnBorrow;
+	}
+
+	public String getCamundaHistoryLevel()
+	{
+		return camundaHistoryLevel;
+	}
+
+	public int getCamundaJobExecutorCorePoolSize()
+	{
+		return camundaJobExecutorCorePoolSize;
+	}
+
+	public int getCamundaJobExecutorMaxPoolSize()
+	{
+		return camundaJobExecutorMaxPoolSize;
+	}
+
+	public int getCamundaJobExecutorQueueSize()
+	{
+		return camundaJobExecutorQueueSize;
+	}
+
+	public int getCamundaJobExecutorMaxJobsPerAcquisition()
+	{
+		return camundaJobExecutorMaxJobsPerAcquisition;
+	}
+
+	public int getCamundaJobExecutorWaitTime()
+	{
+		return camundaJobExecutorWaitTime;
+	}
+
 	public String getOrganizationIdentifierValue()
 	{
 		return organizationIdentifierValue;
@@ -411,6 +551,31 @@ public class PropertiesConfig
 		return questionnaireResponseSubscriptionSearchParameter;
 	}
 
+	public long getOrganizationCacheTimeToLiveMillis()
+	{
+		return organizationCacheTimeToLiveMillis;
+	}
+
+	public int getOrganizationCacheSubscriptionMaxRetries()
+	{
+		return organizationCacheSubscriptionMaxRetries;
+	}
+
+	public String getOrganizationSubscriptionSearchParameter()
+	{
+		return organizationSubscriptionSearchParameter;
+	}
+
+	public String getOrganizationAffiliationSubscriptionSearchParameter()
+	{
+		return organizationAffiliationSubscriptionSearchParameter;
+	}
+
+	public String getEndpointSubscriptionSearchParameter()
+	{
+		return endpointSubscriptionSearchParameter;
+	}
+
 	public long getWebsocketRetrySleepMillis()
 	{
 		return websocketRetrySleepMillis;
@@ -446,6 +611,11 @@ public class PropertiesConfig
 		return Paths.get(processPluginDirectory);
 	}
 
+	public int getProcessPluginLoaderThreads()
+	{
+		return processPluginLoaderThreads < 1 ? Runtime.getRuntime().availableProcessors() : processPluginLoaderThreads;
+	}
+
 	public List<String> getProcessExcluded()
 	{
 		return Collections.unmodifiableList(processExcluded);
@@ -575,4 +745,24 @@ public class PropertiesConfig
 	{
 		return debugLogMessageVariables;
 	}
+
+	public boolean getVariablesCompact()
+	{
+		return variablesCompact;
+	}
+
+	public VariableCompression getVariablesCompression()
+	{
+		return VariableCompression.valueOf(variablesCompression.trim().toUpperCase());
+	}
+
+	public int getVariablesCompressionThreshold()
+	{
+		return variablesCompressionThreshold;
+	}
+
+	public int getVariablesReferenceCacheSize()
+	{
+		return variablesReferenceCacheSize;
+	}
 }
@@ -1,8 +1,14 @@
 package org.highmed.dsf.bpe.spring.config;
 
+import org.camunda.bpm.engine.impl.variable.serializer.PrimitiveValueSerializer;
 import org.highmed.dsf.fhir.json.ObjectMapperFactory;
+import org.highmed.dsf.fhir.variables.CompactFhirResourceSerializer;
+import org.highmed.dsf.fhir.variables.CompactFhirResourcesListSerializer;
+import org.highmed.dsf.fhir.variables.FhirResourceReferenceSerializer;
 import org.highmed.dsf.fhir.variables.FhirResourceSerializer;
+import org.highmed.dsf.fhir.variables.FhirResourceValues.FhirResourceValue;
 import org.highmed.dsf.fhir.variables.FhirResourcesListSerializer;
+import org.highmed.dsf.fhir.variables.FhirResourcesListValues.FhirResourcesListValue;
 import org.highmed.dsf.fhir.variables.TargetSerializer;
 import org.highmed.dsf.fhir.variables.TargetsSerializer;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +25,12 @@ public class SerializerConfig
 	@Autowired
 	private FhirContext fhirContext;
 
+	@Autowired
+	private PropertiesConfig propertiesConfig;
+
+	@Autowired
+	private FhirConfig fhirConfig;
+
 	@Bean
 	public ObjectMapper objectMapper()
 	{
@@ -26,15 +38,30 @@ public class SerializerConfig
 	}
 
 	@Bean
-	public FhirResourceSerializer fhirResourceSerializer()
+	public PrimitiveValueSerializer<FhirResourceValue> fhirResourceSerializer()
+	{
+		if (propertiesConfig.getVariablesCompact())
+			return new CompactFhirResourceSerializer(fhirContext, propertiesConfig.getVariablesCompression(),
+					propertiesConfig.getVariablesCompressionThreshold());
+		else
+			return new FhirResourceSerializer(fhirContext);
+	}
+
+	@Bean
+	public PrimitiveValueSerializer<FhirResourcesListValue> fhirResourcesListSerializer()
 	{
-		return new FhirResourceSerializer(fhirContext);
+		if (propertiesConfig.getVariablesCompact())
+			return new CompactFhirResourcesListSerializer(objectMapper(), propertiesConfig.getVariablesCompression(),
+					propertiesConfig.getVariablesCompressionThreshold());
+		else
+			return new FhirResourcesListSerializer(objectMapper());
 	}
 
 	@Bean
-	public FhirResourcesListSerializer fhirResourcesListSerializer()
+	public FhirResourceReferenceSerializer fhirResourceReferenceSerializer()
 	{
-		return new FhirResourcesListSerializer(objectMapper());
+		return new FhirResourceReferenceSerializer(fhirConfig.clientProvider(),
+				propertiesConfig.getVariablesReferenceCacheSize());
 	}
 
 	@Bean
@@ -1,16 +1,21 @@
 package org.highmed.dsf.fhir.endpoint;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.highmed.dsf.bpe.ConstantsBase;
 import org.highmed.dsf.fhir.client.FhirWebserviceClientProvider;
 import org.highmed.dsf.fhir.organization.EndpointProvider;
+import org.highmed.dsf.fhir.organization.SearchResultCache;
 import org.highmed.fhir.client.FhirWebserviceClient;
 import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
@@ -19,17 +24,20 @@ import org.hl7.fhir.r4.model.Endpoint.EndpointStatus;
 import org.hl7.fhir.r4.model.Identifier;
 import org.hl7.fhir.r4.model.Organization;
 import org.hl7.fhir.r4.model.OrganizationAffiliation;
+import org.hl7.fhir.r4.model.Resource;
 import org.springframework.beans.factory.InitializingBean;
 
 public class EndpointProviderImpl implements EndpointProvider, InitializingBean
 {
 	private final FhirWebserviceClientProvider fhirWebserviceClientProvider;
+	private final SearchResultCache searchResultCache;
 	private final String organizationIdentifierLocalValue;
 
 	public EndpointProviderImpl(FhirWebserviceClientProvider fhirWebserviceClientProvider,
-			String organizationIdentifierLocalValue)
+			SearchResultCache searchResultCache, String organizationIdentifierLocalValue)
 	{
 		this.fhirWebserviceClientProvider = fhirWebserviceClientProvider;
+		this.searchResultCache = searchResultCache;
 		this.organizationIdentifierLocalValue = organizationIdentifierLocalValue;
 	}
 
@@ -37,6 +45,7 @@ public class EndpointProviderImpl implements EndpointProvider, InitializingBean
 	public void afterPropertiesSet() throws Exception
 	{
 		Objects.requireNonNull(fhirWebserviceClientProvider, "fhirWebserviceClientProvider");
+		Objects.requireNonNull(searchResultCache, "searchResultCache");
 		Objects.requireNonNull(organizationIdentifierLocalValue, "organizationIdentifierLocalValue");
 	}
 
@@ -45,6 +54,11 @@ public class EndpointProviderImpl implements EndpointProvider, InitializingBean
 		return fhirWebserviceClientProvider.getLocalWebserviceClient();
 	}
 
+	private Bundle search(Class<? extends Resource> resourceType, Map<String, List<String>> parameters)
+	{
+		return searchResultCache.search(getLocalWebserviceClient(), resourceType, parameters);
+	}
+
 	@Override
 	public Endpoint getLocalEndpoint()
 	{
@@ -54,8 +68,8 @@ public class EndpointProviderImpl implements EndpointProvider, InitializingBean
 	@Override
 	public Map<String, Endpoint> getDefaultEndpointsByOrganizationIdentifier()
 	{
-		Bundle b = getLocalWebserviceClient().searchWithStrictHandling(Organization.class, Map.of("active",
-				Collections.singletonList("true"), "_include", Collections.singletonList("Organization:endpoint")));
+		Bundle b = search(Organization.class, Map.of("active", Collections.singletonList("true"), "_include",
+				Collections.singletonList("Organization:endpoint")));
 
 		return toEndpointsByOrganizationIdentifier(b);
 	}
@@ -83,21 +97,37 @@ public class EndpointProviderImpl implements EndpointProvider, InitializingBean
 	@Override
 	public Optional<Endpoint> getFirstDefaultEndpoint(String organizationIdentifierValue)
 	{
-		Bundle b = getLocalWebserviceClient().searchWithStrictHandling(Organization.class,
-				Map.of("active", Collections.singletonList("true"), "identifier",
-						Collections.singletonList(ConstantsBase.NAMINGSYSTEM_HIGHMED_ORGANIZATION_IDENTIFIER + "|"
-								+ organizationIdentifierValue),
-						"_include", Collections.singletonList("Organization:endpoint")));
+		Bundle b = search(Organization.class, Map.of("active", Collections.singletonList("true"), "identifier",
+				Collections.singletonList(
+						ConstantsBase.NAMINGSYSTEM_HIGHMED_ORGANIZATION_IDENTIFIER + "|" + organizationIdentifierValue),
+				"_include", Collections.singletonList("Organization:endpoint")));
 
 		return b.getEntry().stream().filter(BundleEntryComponent::hasResource).map(BundleEntryComponent::getResource)
 				.filter(r -> r instanceof Endpoint).map(r -> (Endpoint) r)
 				.filter(e -> EndpointStatus.ACTIVE.equals(e.getStatus())).findFirst();
 	}
 
+	@Override
+	public Map<String, Endpoint> getFirstDefaultEndpoints(Collection<String> organizationIdentifierValues)
+	{
+		Set<String> values = Set.copyOf(organizationIdentifierValues);
+
+		Bundle b = new Bundle();
+		searchResultCache
+				.searchAll(getLocalWebserviceClient(), Organization.class,
+						Map.of("active", Collections.singletonList("true"), "_include",
+								Collections.singletonList("Organization:endpoint")))
+				.forEach(r -> b.addEntry().setResource(r));
+
+		Map<String, Endpoint> endpoints = new HashMap<>(toEndpointsByOrganizationIdentifier(b));
+		endpoints.keySet().retainAll(values);
+		return endpoints;
+	}
+
 	@Override
 	public Map<String, Endpoint> getConsortiumEndpointsByOrganizationIdentifier(String consortiumIdentifierValue)
 	{
-		Bundle b = getLocalWebserviceClient().searchWithStrictHandling(OrganizationAffiliation.class,
+		Bundle b = search(OrganizationAffiliation.class,
 				Map.of("active", Collections.singletonList("true"), "primary-organization:identifier",
 						Collections.singletonList(ConstantsBase.NAMINGSYSTEM_HIGHMED_ORGANIZATION_IDENTIFIER + "|"
 								+ consortiumIdentifierValue),
@@ -111,7 +141,7 @@ public class EndpointProviderImpl implements EndpointProvider, InitializingBean
 	public Map<String, Endpoint> getConsortiumEndpointsByOrganizationIdentifier(String consortiumIdentifierValue,
 			String roleSystem, String roleCode)
 	{
-		Bundle b = getLocalWebserviceClient().searchWithStrictHandling(OrganizationAffiliation.class,
+		Bundle b = search(OrganizationAffiliation.class,
 				Map.of("active", Collections.singletonList("true"), "primary-organization:identifier",
 						Collections.singletonList(ConstantsBase.NAMINGSYSTEM_HIGHMED_ORGANIZATION_IDENTIFIER + "|"
 								+ consortiumIdentifierValue),
@@ -126,8 +156,8 @@ public class EndpointProviderImpl implements EndpointProvider, InitializingBean
 	public Optional<Endpoint> getFirstConsortiumEndpoint(String consortiumIdentifierValue, String roleSystem,
 			String roleCode, String organizationIdentifierValue)
 	{
-		Bundle b = getLocalWebserviceClient().searchWithStrictHandling(OrganizationAffiliation.class, Map.of("active",
-				Collections.singletonList("true"), "primary-organization:identifier",
+		Bundle b = search(OrganizationAffiliation.class, Map.of("active", Collections.singletonList("true"),
+				"primary-organization:identifier",
 				Collections.singletonList(
 						ConstantsBase.NAMINGSYSTEM_HIGHMED_ORGANIZATION_IDENTIFIER + "|" + consortiumIdentifierValue),
 				"participating-organization:identifier",
@@ -144,11 +174,31 @@ public class EndpointProviderImpl implements EndpointProvider, InitializingBean
 	@Override
 	public Optional<Endpoint> getEndpoint(String endpointIdentifierValue)
 	{
-		Bundle resultSet = getLocalWebserviceClient().searchWithStrictHandling(Endpoint.class,
+		Bundle resultSet = search(Endpoint.class,
 				Map.of("status", Collections.singletonList("active"), "identifier", Collections.singletonList(
 						ConstantsBase.NAMINGSYSTEM_HIGHMED_ENDPOINT_IDENTIFIER + "|" + endpointIdentifierValue)));
 
 		return resultSet.getEntry().stream().map(bundleEntry -> bundleEntry.getResource())
 				.filter(resource -> resource instanceof Endpoint).map(endpoint -> (Endpoint) endpoint).findFirst();
 	}
+
+	@Override
+	public Map<String, Endpoint> getEndpoints(Collection<String> endpointIdentifierValues)
+	{
+		Set<String> values = Set.copyOf(endpointIdentifierValues);
+
+		Map<String, Endpoint> endpoints = new HashMap<>();
+		searchResultCache
+				.searchAll(getLocalWebserviceClient(), Endpoint.class,
+						Map.of("status", Collections.singletonList("active"), "identifier",
+								Collections
+										.singletonList(ConstantsBase.NAMINGSYSTEM_HIGHMED_ENDPOINT_IDENTIFIER + "|")))
+				.stream().filter(r -> r instanceof Endpoint).map(r -> (Endpoint) r)
+				.forEach(e -> e.getIdentifier().stream()
+						.filter(i -> ConstantsBase.NAMINGSYSTEM_HIGHMED_ENDPOINT_IDENTIFIER.equals(i.getSystem()))
+						.map(Identifier::getValue).filter(values::contains)
+						.forEach(value -> endpoints.putIfAbsent(value, e)));
+
+		return endpoints;
+	}
 }
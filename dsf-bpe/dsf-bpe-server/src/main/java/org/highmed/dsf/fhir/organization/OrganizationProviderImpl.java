@@ -5,12 +5,14 @@ import static org.highmed.dsf.bpe.ConstantsBase.CODESYSTEM_HIGHMED_ORGANIZATION_
 import static org.highmed.dsf.bpe.ConstantsBase.NAMINGSYSTEM_HIGHMED_ORGANIZATION_IDENTIFIER;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -30,13 +32,15 @@ public class OrganizationProviderImpl implements OrganizationProvider, Initializ
 	private static final Logger logger = LoggerFactory.getLogger(OrganizationProviderImpl.class);
 
 	private final FhirWebserviceClientProvider clientProvider;
+	private final SearchResultCache searchResultCache;
 	private final String organizationIdentifierLocalValue;
 	private final Identifier localIdentifier;
 
-	public OrganizationProviderImpl(FhirWebserviceClientProvider clientProvider,
+	public OrganizationProviderImpl(FhirWebserviceClientProvider clientProvider, SearchResultCache searchResultCache,
 			String organizationIdentifierLocalValue)
 	{
 		this.clientProvider = clientProvider;
+		this.searchResultCache = searchResultCache;
 		this.organizationIdentifierLocalValue = organizationIdentifierLocalValue;
 
 		localIdentifier = new Identifier().setSystem(getDefaultIdentifierSystem())
@@ -47,6 +51,7 @@ public class OrganizationProviderImpl implements OrganizationProvider, Initializ
 	public void afterPropertiesSet() throws Exception
 	{
 		Objects.requireNonNull(clientProvider, "clientProvider");
+		Objects.requireNonNull(searchResultCache, "searchResultCache");
 		Objects.requireNonNull(organizationIdentifierLocalValue, "organizationIdentifierLocalValue");
 	}
 
@@ -88,7 +93,7 @@ public class OrganizationProviderImpl implements OrganizationProvider, Initializ
 
 	private Stream<Organization> searchForOrganizations(String identifierValue)
 	{
-		Bundle resultSet = clientProvider.getLocalWebserviceClient().searchWithStrictHandling(Organization.class,
+		Bundle resultSet = searchResultCache.search(clientProvider.getLocalWebserviceClient(), Organization.class,
 				Map.of("active", Collections.singletonList("true"), "identifier",
 						Collections.singletonList(identifierValue)));
 
@@ -108,6 +113,24 @@ public class OrganizationProviderImpl implements OrganizationProvider, Initializ
 		return searchForOrganizations(system, identifier).findFirst();
 	}
 
+	@Override
+	public Map<String, Organization> getOrganizations(Collection<String> identifierValues)
+	{
+		Set<String> values = Set.copyOf(identifierValues);
+
+		Map<String, Organization> organizations = new HashMap<>();
+		searchResultCache
+				.searchAll(clientProvider.getLocalWebserviceClient(), Organization.class,
+						Map.of("active", Collections.singletonList("true"), "identifier",
+								Collections.singletonList(getDefaultIdentifierSystem() + "|")))
+				.stream().filter(r -> r instanceof Organization).map(r -> (Organization) r)
+				.forEach(o -> o.getIdentifier().stream().filter(identifierWithSystem(getDefaultIdentifierSystem()))
+						.map(Identifier::getValue).filter(values::contains)
+						.forEach(value -> organizations.putIfAbsent(value, o)));
+
+		return organizations;
+	}
+
 	@Override
 	public Organization getLocalOrganization()
 	{
@@ -125,7 +148,7 @@ public class OrganizationProviderImpl implements OrganizationProvider, Initializ
 	@Override
 	public Stream<Organization> getOrganizationsByType(String type)
 	{
-		Bundle resultSet = clientProvider.getLocalWebserviceClient().searchWithStrictHandling(Organization.class,
+		Bundle resultSet = searchResultCache.search(clientProvider.getLocalWebserviceClient(), Organization.class,
 				Map.of("active", Collections.singletonList("true"), "type",
 						Collections.singletonList(getDefaultTypeSystem() + "|" + type)));
 
@@ -173,7 +196,7 @@ public class OrganizationProviderImpl implements OrganizationProvider, Initializ
 		searchParameters.put("active", Collections.singletonList("true"));
 		searchParameters.put("_include", Arrays.asList("OrganizationAffiliation:participating-organization"));
 
-		return clientProvider.getLocalWebserviceClient().searchWithStrictHandling(OrganizationAffiliation.class,
+		return searchResultCache.search(clientProvider.getLocalWebserviceClient(), OrganizationAffiliation.class,
 				searchParameters);
 	}
 
@@ -0,0 +1,59 @@
+package org.highmed.dsf.fhir.subscription;
+
+import java.util.Objects;
+
+import org.highmed.dsf.fhir.organization.SearchResultCache;
+import org.highmed.fhir.client.FhirWebserviceClient;
+import org.hl7.fhir.r4.model.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+
+import ca.uhn.fhir.model.api.annotation.ResourceDef;
+
+/**
+ * Invalidates the {@link SearchResultCache} for every received resource or ping event. Existing resources are not
+ * loaded, instead the cache is invalidated when (re-)connecting to the websocket, since events may have been missed
+ * while not connected.
+ */
+public class CacheInvalidationSubscriptionHandlerFactory<R extends Resource>
+		implements SubscriptionHandlerFactory<R>, InitializingBean
+{
+	private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationSubscriptionHandlerFactory.class);
+
+	private final SearchResultCache searchResultCache;
+
+	public CacheInvalidationSubscriptionHandlerFactory(SearchResultCache searchResultCache)
+	{
+		this.searchResultCache = searchResultCache;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		Objects.requireNonNull(searchResultCache, "searchResultCache");
+	}
+
+	@Override
+	public ExistingResourceLoader<R> createExistingResourceLoader(FhirWebserviceClient client)
+	{
+		return searchCriteriaQueryParameters -> searchResultCache.invalidate();
+	}
+
+	@Override
+	public EventResourceHandler<R> createEventResourceHandler()
+	{
+		return resource ->
+		{
+			logger.debug("{} with id {} changed, invalidating search result cache",
+					resource.getClass().getAnnotation(ResourceDef.class).name(), resource.getIdElement().getIdPart());
+			searchResultCache.invalidate();
+		};
+	}
+
+	@Override
+	public PingEventResourceHandler<R> createPingEventResourceHandler(ExistingResourceLoader<R> existingResourceLoader)
+	{
+		return new PingEventResourceHandler<>(existingResourceLoader);
+	}
+}
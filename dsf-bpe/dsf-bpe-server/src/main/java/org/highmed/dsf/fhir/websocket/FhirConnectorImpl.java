@@ -4,7 +4,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import org.highmed.dsf.fhir.client.FhirWebsocketClientProvider;
@@ -40,10 +42,24 @@ public class FhirConnectorImpl<R extends Resource> implements FhirConnector, Ini
 	private final long retrySleepMillis;
 	private final int maxRetries;
 	private final Map<String, List<String>> subscriptionSearchParameter;
+	private final Consumer<Throwable> errorHandler;
 
 	public FhirConnectorImpl(String resourcePath, FhirWebsocketClientProvider clientProvider,
 			SubscriptionHandlerFactory<R> subscriptionHandlerFactory, FhirContext fhirContext,
 			String subscriptionSearchParameter, long retrySleepMillis, int maxRetries)
+	{
+		this(resourcePath, clientProvider, subscriptionHandlerFactory, fhirContext, subscriptionSearchParameter,
+				retrySleepMillis, maxRetries, t -> logger.error("Error while connecting to websocket", t));
+	}
+
+	/**
+	 * @param errorHandler
+	 *            not <code>null</code>, called if the subscription could not be retrieved after <b>maxRetries</b> or
+	 *            the websocket connection could not be established
+	 */
+	public FhirConnectorImpl(String resourcePath, FhirWebsocketClientProvider clientProvider,
+			SubscriptionHandlerFactory<R> subscriptionHandlerFactory, FhirContext fhirContext,
+			String subscriptionSearchParameter, long retrySleepMillis, int maxRetries, Consumer<Throwable> errorHandler)
 	{
 		this.resourcePath = resourcePath;
 		this.clientProvider = clientProvider;
@@ -52,6 +68,7 @@ public class FhirConnectorImpl<R extends Resource> implements FhirConnector, Ini
 		this.subscriptionSearchParameter = parse(subscriptionSearchParameter, null);
 		this.retrySleepMillis = retrySleepMillis;
 		this.maxRetries = maxRetries;
+		this.errorHandler = errorHandler;
 	}
 
 	private static Map<String, List<String>> parse(String queryParameters, String expectedPath)
@@ -78,6 +95,7 @@ public class FhirConnectorImpl<R extends Resource> implements FhirConnector, Ini
 	{
 		Objects.requireNonNull(clientProvider, "clientProvider");
 		Objects.requireNonNull(fhirContext, "fhirContext");
+		Objects.requireNonNull(errorHandler, "errorHandler");
 	}
 
 	@Override
@@ -126,7 +144,7 @@ public class FhirConnectorImpl<R extends Resource> implements FhirConnector, Ini
 			}
 		}
 
-		logger.error("Error while retrieving websocket subscription ({}), giving up", lastException.getMessage());
+		logger.debug("Error while retrieving websocket subscription ({}), giving up", lastException.getMessage());
 		throw lastException;
 	}
 
@@ -221,7 +239,7 @@ public class FhirConnectorImpl<R extends Resource> implements FhirConnector, Ini
 
 	private Void onError(Throwable t)
 	{
-		logger.error("Error while connecting to websocket", t);
+		errorHandler.accept(t instanceof CompletionException && t.getCause() != null ? t.getCause() : t);
 		return null;
 	}
 
@@ -0,0 +1,175 @@
+package org.highmed.dsf.bpe.camunda;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.impl.cfg.StandaloneProcessEngineConfiguration;
+import org.camunda.bpm.engine.impl.jobexecutor.DefaultJobExecutor;
+import org.camunda.bpm.engine.impl.persistence.StrongUuidGenerator;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.highmed.dsf.bpe.dao.AbstractDaoTest;
+import org.junit.Test;
+import org.postgresql.Driver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Load test for the camunda job executor and database connection pool settings configurable via
+ * {@link org.highmed.dsf.bpe.spring.config.PropertiesConfig}: Starts process instances with two asynchronous
+ * continuations from concurrent threads and measures the time until all instances are finished. Not executed during the
+ * build, run with <code>-Dit.test=JobExecutorLoadBenchmark</code>.
+ */
+public class JobExecutorLoadBenchmark extends AbstractDaoTest
+{
+	private static final Logger logger = LoggerFactory.getLogger(JobExecutorLoadBenchmark.class);
+
+	private static final String PROCESS_KEY = "load";
+	private static final int PROCESS_INSTANCES = 500;
+	private static final int STARTING_THREADS = 10;
+	private static final long TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+	private static final class Profile
+	{
+		final String name;
+		final int poolMinIdle;
+		final int poolMaxIdle;
+		final int poolMaxTotal;
+		final boolean poolTestOnBorrow;
+		final String historyLevel;
+		final int executorCorePoolSize;
+		final int executorMaxPoolSize;
+		final int executorQueueSize;
+		final int executorMaxJobsPerAcquisition;
+
+		Profile(String name, int poolMinIdle, int poolMaxIdle, int poolMaxTotal, boolean poolTestOnBorrow,
+				String historyLevel, int executorCorePoolSize, int executorMaxPoolSize, int executorQueueSize,
+				int executorMaxJobsPerAcquisition)
+		{
+			this.name = name;
+			this.poolMinIdle = poolMinIdle;
+			this.poolMaxIdle = poolMaxIdle;
+			this.poolMaxTotal = poolMaxTotal;
+			this.poolTestOnBorrow = poolTestOnBorrow;
+			this.historyLevel = historyLevel;
+			this.executorCorePoolSize = executorCorePoolSize;
+			this.executorMaxPoolSize = executorMaxPoolSize;
+			this.executorQueueSize = executorQueueSize;
+			this.executorMaxJobsPerAcquisition = executorMaxJobsPerAcquisition;
+		}
+	}
+
+	@Test
+	public void testDefaultProfile() throws Exception
+	{
+		run(new Profile("default", 0, 8, 8, true, "audit", 3, 10, 3, 3));
+	}
+
+	@Test
+	public void testThroughputProfile() throws Exception
+	{
+		run(new Profile("throughput", 10, 30, 30, false, "activity", 20, 20, 20, 20));
+	}
+
+	private BasicDataSource createDataSource(Profile profile)
+	{
+		BasicDataSource dataSource = new BasicDataSource();
+		dataSource.setDriverClassName(Driver.class.getName());
+		dataSource.setUrl(DATABASE_URL);
+		dataSource.setUsername(DATABASE_CAMUNDA_USER);
+		dataSource.setPassword(DATABASE_CAMUNDA_USER_PASSWORD);
+
+		dataSource.setMinIdle(profile.poolMinIdle);
+		dataSource.setMaxIdle(profile.poolMaxIdle);
+		dataSource.setMaxTotal(profile.poolMaxTotal);
+
+		dataSource.setTestOnBorrow(profile.poolTestOnBorrow);
+		dataSource.setTestWhileIdle(true);
+		dataSource.setTimeBetweenEvictionRunsMillis(30_000);
+		dataSource.setValidationQuery("SELECT 1");
+
+		return dataSource;
+	}
+
+	private ProcessEngine createProcessEngine(Profile profile, BasicDataSource dataSource)
+	{
+		DefaultJobExecutor jobExecutor = new DefaultJobExecutor();
+		jobExecutor.setCorePoolSize(profile.executorCorePoolSize);
+		jobExecutor.setMaxPoolSize(profile.executorMaxPoolSize);
+		jobExecutor.setQueueSize(profile.executorQueueSize);
+		jobExecutor.setMaxJobsPerAcquisition(profile.executorMaxJobsPerAcquisition);
+
+		StandaloneProcessEngineConfiguration c = new StandaloneProcessEngineConfiguration();
+		c.setProcessEngineName(profile.name);
+		c.setDataSource(dataSource);
+		c.setDatabaseSchemaUpdate("false");
+		c.setHistory(profile.historyLevel);
+		c.setIdGenerator(new StrongUuidGenerator());
+		c.setJobExecutor(jobExecutor);
+		c.setJobExecutorActivate(true);
+		c.setInitializeTelemetry(false);
+		c.setTelemetryReporterActivate(false);
+		c.setMetricsEnabled(false);
+
+		return c.buildProcessEngine();
+	}
+
+	private BpmnModelInstance createProcess()
+	{
+		return Bpmn.createExecutableProcess(PROCESS_KEY).camundaHistoryTimeToLive(1).startEvent().serviceTask("first")
+				.camundaAsyncBefore().camundaExpression("${execution.setVariable('first', true)}").serviceTask("second")
+				.camundaAsyncBefore().camundaExpression("${execution.setVariable('second', true)}").endEvent().done();
+	}
+
+	private void run(Profile profile) throws Exception
+	{
+		BasicDataSource dataSource = createDataSource(profile);
+		ProcessEngine engine = createProcessEngine(profile, dataSource);
+
+		try
+		{
+			engine.getRepositoryService().createDeployment().addModelInstance("load.bpmn", createProcess()).deploy();
+
+			long start = System.currentTimeMillis();
+
+			ExecutorService starter = Executors.newFixedThreadPool(STARTING_THREADS);
+			List<Future<?>> starts = new ArrayList<>();
+			for (int i = 0; i < PROCESS_INSTANCES; i++)
+				starts.add(starter.submit(() -> engine.getRuntimeService().startProcessInstanceByKey(PROCESS_KEY)));
+			for (Future<?> f : starts)
+				f.get();
+			starter.shutdown();
+
+			long started = System.currentTimeMillis();
+
+			long running;
+			while ((running = engine.getRuntimeService().createProcessInstanceQuery().count()) > 0
+					&& System.currentTimeMillis() - start < TIMEOUT_MILLIS)
+				Thread.sleep(100);
+
+			long finished = System.currentTimeMillis();
+
+			logger.info(
+					"Profile {}: {} process instances started from {} threads in {} ms, all finished after {} ms ({} instances/s)",
+					profile.name, PROCESS_INSTANCES, STARTING_THREADS, started - start, finished - start,
+					String.format("%.1f", PROCESS_INSTANCES * 1000d / (finished - start)));
+
+			assertEquals(0, running);
+			assertTrue(engine.getManagementService().createJobQuery().count() == 0);
+		}
+		finally
+		{
+			engine.close();
+			dataSource.close();
+		}
+	}
+}
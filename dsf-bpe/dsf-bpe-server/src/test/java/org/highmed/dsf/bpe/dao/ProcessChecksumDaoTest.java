@@ -0,0 +1,46 @@
+package org.highmed.dsf.bpe.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.highmed.dsf.bpe.process.ProcessKeyAndVersion;
+import org.junit.Test;
+
+public class ProcessChecksumDaoTest extends AbstractDaoTest
+{
+	private static final ProcessKeyAndVersion PROCESS_1 = new ProcessKeyAndVersion("highmedorg_test1", "0.1.0");
+	private static final ProcessKeyAndVersion PROCESS_2 = new ProcessKeyAndVersion("highmedorg_test2", "0.1.0");
+
+	private ProcessChecksumDao dao = new ProcessChecksumDaoJdbc(defaultDataSource);
+
+	@Test
+	public void testReadEmpty() throws Exception
+	{
+		Map<ProcessKeyAndVersion, String> bpmnChecksums = dao.getBpmnChecksums();
+		assertNotNull(bpmnChecksums);
+		assertTrue(bpmnChecksums.isEmpty());
+
+		Map<ProcessKeyAndVersion, String> resourcesChecksums = dao.getResourcesChecksums();
+		assertNotNull(resourcesChecksums);
+		assertTrue(resourcesChecksums.isEmpty());
+	}
+
+	@Test
+	public void testUpdateRead() throws Exception
+	{
+		dao.updateBpmnChecksums(Map.of(PROCESS_1, "bpmn1", PROCESS_2, "bpmn2"));
+		dao.updateResourcesChecksums(Map.of(PROCESS_1, "resources1"));
+
+		assertEquals(Map.of(PROCESS_1, "bpmn1", PROCESS_2, "bpmn2"), dao.getBpmnChecksums());
+		assertEquals(Map.of(PROCESS_1, "resources1"), dao.getResourcesChecksums());
+
+		dao.updateBpmnChecksums(Map.of(PROCESS_1, "bpmn1b"));
+		dao.updateResourcesChecksums(Map.of(PROCESS_2, "resources2"));
+
+		assertEquals(Map.of(PROCESS_1, "bpmn1b", PROCESS_2, "bpmn2"), dao.getBpmnChecksums());
+		assertEquals(Map.of(PROCESS_1, "resources1", PROCESS_2, "resources2"), dao.getResourcesChecksums());
+	}
+}
@@ -7,6 +7,7 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.function.Supplier;
 
 import javax.ws.rs.WebApplicationException;
@@ -23,10 +24,20 @@ import ca.uhn.fhir.parser.IParser;
 public abstract class AbstractFhirAdapter<T extends BaseResource> implements MessageBodyReader<T>, MessageBodyWriter<T>
 {
 	public static final String PRETTY = "pretty";
+	public static final String SUMMARY = "summary";
+
+	private static final int PRETTY_FLAG = 1;
+	private static final int SUMMARY_FLAG = 2;
 
 	private final Class<T> resourceType;
 	private final Supplier<IParser> parser;
 
+	/*
+	 * Parsers are not guaranteed to be thread safe, but can be reused by the same thread. One configured parser per
+	 * thread and combination of pretty and summary mode, indexed by PRETTY_FLAG | SUMMARY_FLAG
+	 */
+	private final ThreadLocal<IParser[]> parsers = ThreadLocal.withInitial(() -> new IParser[4]);
+
 	protected AbstractFhirAdapter(Class<T> resourceType, Supplier<IParser> parser)
 	{
 		this.resourceType = resourceType;
@@ -45,13 +56,26 @@ public abstract class AbstractFhirAdapter<T extends BaseResource> implements Mes
 
 	private IParser getParser(MediaType mediaType)
 	{
-		/* Parsers are not guaranteed to be thread safe */
+		int variant = 0;
+		if (mediaType != null && "true".equals(mediaType.getParameters().getOrDefault(PRETTY, "false")))
+			variant |= PRETTY_FLAG;
+		if (mediaType != null && "true".equals(mediaType.getParameters().getOrDefault(SUMMARY, "false")))
+			variant |= SUMMARY_FLAG;
+
+		IParser[] threadParsers = parsers.get();
+		if (threadParsers[variant] == null)
+			threadParsers[variant] = createParser((variant & PRETTY_FLAG) != 0, (variant & SUMMARY_FLAG) != 0);
+
+		return threadParsers[variant];
+	}
+
+	private IParser createParser(boolean pretty, boolean summary)
+	{
 		IParser p = parser.get();
 		p.setStripVersionsFromReferences(false);
 		p.setOverrideResourceIdWithBundleEntryFullUrl(false);
-
-		if (mediaType != null && "true".equals(mediaType.getParameters().getOrDefault(PRETTY, "false")))
-			p.setPrettyPrint(true);
+		p.setPrettyPrint(pretty);
+		p.setSummaryMode(summary);
 
 		return p;
 	}
@@ -67,7 +91,9 @@ public abstract class AbstractFhirAdapter<T extends BaseResource> implements Mes
 			MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
 			throws IOException, WebApplicationException
 	{
-		getParser(mediaType).encodeResourceToWriter(t, new OutputStreamWriter(entityStream));
+		OutputStreamWriter writer = new OutputStreamWriter(entityStream, StandardCharsets.UTF_8);
+		getParser(mediaType).encodeResourceToWriter(t, writer);
+		writer.flush();
 	}
 
 	@Override
@@ -81,7 +107,8 @@ public abstract class AbstractFhirAdapter<T extends BaseResource> implements Mes
 			MultivaluedMap<String, String> httpHeaders, InputStream entityStream)
 			throws IOException, WebApplicationException
 	{
-		return fixResource(getParser(null).parseResource(type, new InputStreamReader(entityStream)));
+		return fixResource(
+				getParser(null).parseResource(type, new InputStreamReader(entityStream, StandardCharsets.UTF_8)));
 	}
 
 	protected T fixResource(T resource)
@@ -0,0 +1,132 @@
+package org.highmed.dsf.fhir.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.ws.rs.core.MediaType;
+
+import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.TaskIntent;
+import org.hl7.fhir.r4.model.Task.TaskStatus;
+import org.junit.Test;
+
+import ca.uhn.fhir.context.FhirContext;
+
+public class AbstractFhirAdapterTest
+{
+	private static final FhirContext fhirContext = FhirContext.forR4();
+
+	private static final MediaType JSON = new MediaType("application", "fhir+json");
+	private static final MediaType JSON_PRETTY = new MediaType("application", "fhir+json",
+			Map.of(AbstractFhirAdapter.PRETTY, "true"));
+	private static final MediaType JSON_SUMMARY = new MediaType("application", "fhir+json",
+			Map.of(AbstractFhirAdapter.SUMMARY, "true"));
+
+	private static Task createTask(String value)
+	{
+		Task task = new Task().setStatus(TaskStatus.REQUESTED).setIntent(TaskIntent.ORDER)
+				.setInstantiatesUri("http://highmed.org/bpe/Process/test/0.1.0");
+		task.addInput().setValue(new StringType(value)).getType().addCoding().setSystem("http://test.org")
+				.setCode("test");
+		return task;
+	}
+
+	private static String write(AbstractFhirAdapter<Task> adapter, Task task, MediaType mediaType) throws Exception
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		adapter.writeTo(task, Task.class, null, null, mediaType, null, out);
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static Task read(AbstractFhirAdapter<Task> adapter, String content) throws Exception
+	{
+		return adapter.readFrom(Task.class, null, null, null, null,
+				new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	public void testWriteReadJson() throws Exception
+	{
+		testWriteRead(new TaskJsonFhirAdapter(fhirContext));
+	}
+
+	@Test
+	public void testWriteReadXml() throws Exception
+	{
+		testWriteRead(new TaskXmlFhirAdapter(fhirContext));
+	}
+
+	private void testWriteRead(AbstractFhirAdapter<Task> adapter) throws Exception
+	{
+		Task task = createTask("äöü");
+
+		Task read = read(adapter, write(adapter, task, null));
+		assertTrue(task.equalsDeep(read));
+	}
+
+	@Test
+	public void testPrettyAndSummaryVariants() throws Exception
+	{
+		TaskJsonFhirAdapter adapter = new TaskJsonFhirAdapter(fhirContext);
+		Task task = createTask("value");
+
+		String plain = write(adapter, task, JSON);
+		String pretty = write(adapter, task, JSON_PRETTY);
+		String summary = write(adapter, task, JSON_SUMMARY);
+
+		assertFalse(plain.contains("\n"));
+		assertTrue(pretty.contains("\n"));
+		assertTrue(plain.contains("\"input\""));
+		assertFalse(summary.contains("\"input\""));
+
+		// parsers are reused, configuration of one variant must not leak into another
+		assertEquals(plain, write(adapter, task, JSON));
+	}
+
+	@Test
+	public void testConcurrentWriteRead() throws Exception
+	{
+		TaskJsonFhirAdapter adapter = new TaskJsonFhirAdapter(fhirContext);
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try
+		{
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int t = 0; t < 8; t++)
+			{
+				final int thread = t;
+				Callable<Boolean> writeRead = () ->
+				{
+					for (int i = 0; i < 200; i++)
+					{
+						Task task = createTask(thread + "-" + i);
+						if (!task.equalsDeep(read(adapter, write(adapter, task, i % 2 == 0 ? JSON : JSON_PRETTY))))
+							return false;
+					}
+					return true;
+				};
+				results.add(executor.submit(writeRead));
+			}
+
+			for (Future<Boolean> result : results)
+				assertTrue(result.get());
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+}
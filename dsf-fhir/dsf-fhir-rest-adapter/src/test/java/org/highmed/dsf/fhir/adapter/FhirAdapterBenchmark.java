@@ -0,0 +1,169 @@
+package org.highmed.dsf.fhir.adapter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.UUID;
+
+import javax.ws.rs.core.MediaType;
+
+import org.hl7.fhir.r4.model.BaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.BundleType;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Identifier;
+import org.hl7.fhir.r4.model.QuestionnaireResponse;
+import org.hl7.fhir.r4.model.QuestionnaireResponse.QuestionnaireResponseStatus;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.TaskIntent;
+import org.hl7.fhir.r4.model.Task.TaskStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+
+/**
+ * Compares throughput and allocation of the {@link AbstractFhirAdapter} parser reuse with creating and configuring a
+ * new {@link IParser} for every call, for representative Task, Bundle and QuestionnaireResponse payloads. Not executed
+ * during the build, run the main method with the test classpath.
+ */
+public class FhirAdapterBenchmark
+{
+	private static final Logger logger = LoggerFactory.getLogger(FhirAdapterBenchmark.class);
+
+	private static final int WARMUP_ITERATIONS = 2_000;
+	private static final int MEASUREMENT_ITERATIONS = 10_000;
+
+	private static final MediaType JSON = new MediaType("application", "fhir+json");
+	private static final MediaType XML = new MediaType("application", "fhir+xml");
+
+	private interface Operation
+	{
+		void run() throws Exception;
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		FhirContext fhirContext = FhirContext.forR4();
+
+		Task task = createTask();
+		Bundle bundle = createBundle();
+		QuestionnaireResponse questionnaireResponse = createQuestionnaireResponse();
+
+		benchmark(fhirContext, "Task", task, Task.class, new TaskJsonFhirAdapter(fhirContext),
+				new TaskXmlFhirAdapter(fhirContext));
+		benchmark(fhirContext, "Bundle", bundle, Bundle.class, new BundleJsonFhirAdapter(fhirContext),
+				new BundleXmlFhirAdapter(fhirContext));
+		benchmark(fhirContext, "QuestionnaireResponse", questionnaireResponse, QuestionnaireResponse.class,
+				new QuestionnaireResponseJsonFhirAdapter(fhirContext),
+				new QuestionnaireResponseXmlFhirAdapter(fhirContext));
+	}
+
+	private static <R extends BaseResource> void benchmark(FhirContext fhirContext, String name, R resource,
+			Class<R> type, AbstractFhirAdapter<R> jsonAdapter, AbstractFhirAdapter<R> xmlAdapter) throws Exception
+	{
+		byte[] json = fhirContext.newJsonParser().encodeResourceToString(resource).getBytes(StandardCharsets.UTF_8);
+		byte[] xml = fhirContext.newXmlParser().encodeResourceToString(resource).getBytes(StandardCharsets.UTF_8);
+
+		measure(name + " json write, new parser", () -> configure(fhirContext.newJsonParser())
+				.encodeResourceToWriter(resource, new OutputStreamWriter(new ByteArrayOutputStream())));
+		measure(name + " json write, adapter",
+				() -> jsonAdapter.writeTo(resource, type, null, null, JSON, null, new ByteArrayOutputStream()));
+		measure(name + " json read, new parser", () -> configure(fhirContext.newJsonParser()).parseResource(type,
+				new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8)));
+		measure(name + " json read, adapter",
+				() -> jsonAdapter.readFrom(type, null, null, JSON, null, new ByteArrayInputStream(json)));
+
+		measure(name + " xml write, new parser", () -> configure(fhirContext.newXmlParser())
+				.encodeResourceToWriter(resource, new OutputStreamWriter(new ByteArrayOutputStream())));
+		measure(name + " xml write, adapter",
+				() -> xmlAdapter.writeTo(resource, type, null, null, XML, null, new ByteArrayOutputStream()));
+		measure(name + " xml read, new parser", () -> configure(fhirContext.newXmlParser()).parseResource(type,
+				new InputStreamReader(new ByteArrayInputStream(xml), StandardCharsets.UTF_8)));
+		measure(name + " xml read, adapter",
+				() -> xmlAdapter.readFrom(type, null, null, XML, null, new ByteArrayInputStream(xml)));
+	}
+
+	private static IParser configure(IParser parser)
+	{
+		parser.setStripVersionsFromReferences(false);
+		parser.setOverrideResourceIdWithBundleEntryFullUrl(false);
+		return parser;
+	}
+
+	private static void measure(String name, Operation operation) throws Exception
+	{
+		for (int i = 0; i < WARMUP_ITERATIONS; i++)
+			operation.run();
+
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+
+		long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+		long start = System.nanoTime();
+
+		for (int i = 0; i < MEASUREMENT_ITERATIONS; i++)
+			operation.run();
+
+		long duration = System.nanoTime() - start;
+		long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+		logger.info("{}: {} ops/s, {} bytes/op", name,
+				String.format("%.0f", MEASUREMENT_ITERATIONS / (duration / 1_000_000_000d)),
+				allocated / MEASUREMENT_ITERATIONS);
+	}
+
+	private static Task createTask()
+	{
+		Task task = new Task().setStatus(TaskStatus.REQUESTED).setIntent(TaskIntent.ORDER).setAuthoredOn(new Date())
+				.setInstantiatesUri("http://highmed.org/bpe/Process/ping/0.5.0")
+				.setRequester(new Reference().setType("Organization").setIdentifier(new Identifier()
+						.setSystem("http://highmed.org/sid/organization-identifier").setValue("Test_MeDIC_1")));
+		task.getMeta().addProfile("http://highmed.org/fhir/StructureDefinition/task-ping");
+		task.getRestriction().addRecipient().setType("Organization").getIdentifier()
+				.setSystem("http://highmed.org/sid/organization-identifier").setValue("Test_MeDIC_2");
+		task.addInput().setValue(new StringType("pingMessage")).getType().addCoding()
+				.setSystem("http://highmed.org/fhir/CodeSystem/bpmn-message").setCode("message-name");
+		task.addInput().setValue(new StringType(UUID.randomUUID().toString())).getType().addCoding()
+				.setSystem("http://highmed.org/fhir/CodeSystem/bpmn-message").setCode("business-key");
+		task.addInput().setValue(new StringType(UUID.randomUUID().toString())).getType().addCoding()
+				.setSystem("http://highmed.org/fhir/CodeSystem/bpmn-message").setCode("correlation-key");
+		return task;
+	}
+
+	private static Bundle createBundle()
+	{
+		Bundle bundle = new Bundle().setType(BundleType.SEARCHSET).setTotal(50);
+		for (int i = 0; i < 50; i++)
+		{
+			Task task = createTask();
+			task.setIdElement(new IdType("Task", UUID.randomUUID().toString(), "1"));
+			bundle.addEntry().setFullUrl("https://foo.bar/fhir/Task/" + task.getIdElement().getIdPart())
+					.setResource(task);
+		}
+		return bundle;
+	}
+
+	private static QuestionnaireResponse createQuestionnaireResponse()
+	{
+		QuestionnaireResponse questionnaireResponse = new QuestionnaireResponse()
+				.setStatus(QuestionnaireResponseStatus.INPROGRESS).setAuthored(new Date())
+				.setQuestionnaire("http://highmed.org/fhir/Questionnaire/user-task|0.1.0");
+		questionnaireResponse.addItem().setLinkId("business-key").setText("The business-key of the process execution")
+				.addAnswer().setValue(new StringType(UUID.randomUUID().toString()));
+		questionnaireResponse.addItem().setLinkId("user-task-id").setText("The user-task-id of the process execution")
+				.addAnswer().setValue(new StringType("42"));
+		for (int i = 0; i < 10; i++)
+			questionnaireResponse.addItem().setLinkId("item-" + i).setText("Question " + i).addAnswer()
+					.setValue(new StringType("Answer " + i));
+		return questionnaireResponse;
+	}
+}
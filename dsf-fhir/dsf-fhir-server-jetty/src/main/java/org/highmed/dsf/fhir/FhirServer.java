@@ -32,9 +32,11 @@ import org.eclipse.jetty.websocket.jsr356.server.deploy.WebSocketServerContainer
 import org.glassfish.jersey.servlet.init.JerseyServletContainerInitializer;
 import org.highmed.dsf.fhir.authentication.AuthenticationFilter;
 import org.highmed.dsf.fhir.cors.CorsFilter;
+import org.highmed.dsf.fhir.replica.ReadReplicaFilter;
 import org.highmed.dsf.fhir.webservice.specification.StatusService;
 import org.highmed.dsf.tools.db.DbMigrator;
 import org.highmed.dsf.tools.db.DbMigratorConfig;
+import org.highmed.dsf.tools.jetty.JettyCompression;
 import org.slf4j.bridge.SLF4JBridgeHandler;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 import org.springframework.web.SpringServletContainerInitializer;
@@ -92,6 +94,7 @@ public final class FhirServer
 
 		List<Class<? extends Filter>> filters = new ArrayList<>();
 		filters.add(AuthenticationFilter.class);
+		filters.add(ReadReplicaFilter.class);
 		if (Boolean.parseBoolean(properties.getProperty("jetty.cors.enable")))
 			filters.add(CorsFilter.class);
 
@@ -103,6 +106,8 @@ public final class FhirServer
 		server.getWebAppContext().getSessionHandler()
 				.setSessionTrackingModes(Collections.singleton(SessionTrackingMode.SSL));
 
+		JettyCompression.configure(server.getWebAppContext(), properties);
+
 		initializeWebSocketServerContainer(server);
 
 		start(server);
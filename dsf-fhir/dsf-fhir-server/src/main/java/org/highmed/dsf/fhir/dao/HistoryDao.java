@@ -1,11 +1,15 @@
 package org.highmed.dsf.fhir.dao;
 
+import java.io.IOException;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.UUID;
 
+import org.highmed.dsf.fhir.function.ConsumerWithIoException;
 import org.highmed.dsf.fhir.history.AtParameter;
 import org.highmed.dsf.fhir.history.History;
+import org.highmed.dsf.fhir.history.HistoryCursor;
+import org.highmed.dsf.fhir.history.HistoryEntry;
 import org.highmed.dsf.fhir.history.SinceParameter;
 import org.highmed.dsf.fhir.history.user.HistoryUserFilter;
 import org.highmed.dsf.fhir.search.PageAndCount;
@@ -21,4 +25,49 @@ public interface HistoryDao
 
 	History readHistory(HistoryUserFilter filter, PageAndCount pageAndCount, AtParameter atParameter,
 			SinceParameter sinceParameter, Class<? extends Resource> resource, UUID id) throws SQLException;
+
+	/**
+	 * Cursor based history without count query, entries ordered by last updated, resource type, id and version
+	 *
+	 * @param filters
+	 *            not <code>null</code>
+	 * @param cursor
+	 *            may be <code>null</code>, only entries after the given cursor if not <code>null</code>
+	 * @param count
+	 *            {@code >0}
+	 * @param atParameter
+	 *            not <code>null</code>
+	 * @param sinceParameter
+	 *            not <code>null</code>
+	 * @param resource
+	 *            may be <code>null</code>, history of all resource types if <code>null</code>
+	 * @return history without total, next cursor set if more entries are available
+	 * @throws SQLException
+	 */
+	History readHistory(List<HistoryUserFilter> filters, HistoryCursor cursor, int count, AtParameter atParameter,
+			SinceParameter sinceParameter, Class<? extends Resource> resource) throws SQLException;
+
+	/**
+	 * Streams all entries after the given cursor, ordered by last updated, resource type, id and version, using a
+	 * database cursor
+	 *
+	 * @param filters
+	 *            not <code>null</code>
+	 * @param cursor
+	 *            may be <code>null</code>, only entries after the given cursor if not <code>null</code>
+	 * @param atParameter
+	 *            not <code>null</code>
+	 * @param sinceParameter
+	 *            not <code>null</code>
+	 * @param resource
+	 *            may be <code>null</code>, history of all resource types if <code>null</code>
+	 * @param consumer
+	 *            not <code>null</code>
+	 * @throws SQLException
+	 * @throws IOException
+	 *             if thrown by the consumer
+	 */
+	void streamHistory(List<HistoryUserFilter> filters, HistoryCursor cursor, AtParameter atParameter,
+			SinceParameter sinceParameter, Class<? extends Resource> resource,
+			ConsumerWithIoException<HistoryEntry> consumer) throws SQLException, IOException;
 }
@@ -1,7 +1,10 @@
 package org.highmed.dsf.fhir.dao;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -11,9 +14,11 @@ import org.highmed.dsf.fhir.dao.exception.ResourceDeletedException;
 import org.highmed.dsf.fhir.dao.exception.ResourceNotFoundException;
 import org.highmed.dsf.fhir.dao.exception.ResourceNotMarkedDeletedException;
 import org.highmed.dsf.fhir.dao.exception.ResourceVersionNoMatchException;
+import org.highmed.dsf.fhir.function.ConsumerWithIoException;
 import org.highmed.dsf.fhir.search.DbSearchQuery;
 import org.highmed.dsf.fhir.search.PartialResult;
 import org.highmed.dsf.fhir.search.SearchQuery;
+import org.highmed.dsf.fhir.search.SearchResultHandler;
 import org.hl7.fhir.r4.model.Resource;
 
 public interface ResourceDao<R extends Resource>
@@ -152,6 +157,26 @@ public interface ResourceDao<R extends Resource>
 	 */
 	List<R> readAllWithTransaction(Connection connection) throws SQLException;
 
+	/**
+	 * Streams the JSON of all current, not deleted resources readable by the given user. Rows are fetched in batches
+	 * using a server-side cursor, resources are not parsed.
+	 *
+	 * @param user
+	 *            not <code>null</code>, resources are filtered by the users read access
+	 * @param since
+	 *            may be <code>null</code>, if not <code>null</code> only resources last updated at or after the given
+	 *            time are exported
+	 * @param consumer
+	 *            not <code>null</code>, called with the JSON of every exported resource, single line
+	 * @return number of exported resources
+	 * @throws SQLException
+	 *             if database access errors occur
+	 * @throws IOException
+	 *             if the consumer throws an {@link IOException}
+	 */
+	long export(User user, OffsetDateTime since, ConsumerWithIoException<String> consumer)
+			throws SQLException, IOException;
+
 	/**
 	 * @param id
 	 *            not <code>null</code>
@@ -343,6 +368,20 @@ public interface ResourceDao<R extends Resource>
 	 */
 	PartialResult<R> search(DbSearchQuery query) throws SQLException;
 
+	/**
+	 * Executes the search query and hands every matching and included resource to the given handler while reading the
+	 * database result, without collecting the whole result in memory. Included resources are handed to the handler
+	 * directly after the matching resource that included them.
+	 *
+	 * @param query
+	 *            not <code>null</code>
+	 * @param handler
+	 *            not <code>null</code>
+	 * @throws SQLException
+	 *             if database access errors occur
+	 */
+	void search(DbSearchQuery query, SearchResultHandler<R> handler) throws SQLException;
+
 	/**
 	 * @param connection
 	 *            not <code>null</code>
@@ -388,4 +427,51 @@ public interface ResourceDao<R extends Resource>
 	 */
 	void deletePermanentlyWithTransaction(Connection connection, UUID uuid)
 			throws SQLException, ResourceNotFoundException, ResourceNotMarkedDeletedException;
+
+	/**
+	 * Permanently deletes up to <b>limit</b> resources marked as deleted before the given time, including all versions,
+	 * search index and read access entries. Executed in a single transaction.
+	 *
+	 * @param deletedBefore
+	 *            not <code>null</code>
+	 * @param limit
+	 *            <code>&gt; 0</code>, max number of resources to delete
+	 * @return ids of the permanently deleted resources, empty if no resources marked as deleted before the given time
+	 *         exist
+	 * @throws SQLException
+	 *             if database access errors occur
+	 */
+	List<UUID> deletePermanentlyDeletedBefore(LocalDateTime deletedBefore, int limit) throws SQLException;
+
+	/**
+	 * Reads up to <b>limit</b> ids of resources with more than <b>keepVersions</b> versions, ordered by id. Used to
+	 * page through the resources with old versions via <b>afterId</b>.
+	 *
+	 * @param keepVersions
+	 *            <code>&gt; 0</code>, number of versions to keep per resource
+	 * @param afterId
+	 *            may be <code>null</code>, only ids greater than the given id are returned if not <code>null</code>
+	 * @param limit
+	 *            <code>&gt; 0</code>, max number of ids to return
+	 * @return ids of resources with more than <b>keepVersions</b> versions
+	 * @throws SQLException
+	 *             if database access errors occur
+	 */
+	List<UUID> readIdsWithOldVersions(int keepVersions, UUID afterId, int limit) throws SQLException;
+
+	/**
+	 * Deletes old versions of the given resources, keeping the latest <b>keepVersions</b> versions of every resource,
+	 * including search index and read access entries of the deleted versions. Executed in a single transaction.
+	 *
+	 * @param keepVersions
+	 *            <code>&gt; 0</code>, number of versions to keep per resource
+	 * @param ids
+	 *            not <code>null</code>
+	 * @return number of deleted versions, <code>0</code> if none of the given resources has more than
+	 *         <b>keepVersions</b> versions
+	 * @throws SQLException
+	 *             if database access errors occur
+	 * @see #readIdsWithOldVersions(int, UUID, int)
+	 */
+	int deleteOldVersions(int keepVersions, List<UUID> ids) throws SQLException;
 }
@@ -143,6 +143,8 @@ public class TransactionCommandList implements CommandList
 					logger.debug("Commiting DB transaction");
 					connection.commit();
 				}
+
+				transactionResources.release();
 			}
 
 			try
@@ -1,5 +1,7 @@
 package org.highmed.dsf.fhir.dao.command;
 
+import java.util.Objects;
+
 import org.highmed.dsf.fhir.validation.SnapshotGenerator;
 
 public class TransactionResources
@@ -7,13 +9,22 @@ public class TransactionResources
 	private final ValidationHelper validationHelper;
 	private final SnapshotGenerator snapshotGenerator;
 	private final TransactionEventHandler transactionEventHandler;
+	private final Runnable release;
 
 	public TransactionResources(ValidationHelper validationHelper, SnapshotGenerator snapshotGenerator,
 			TransactionEventHandler transactionEventHandler)
+	{
+		this(validationHelper, snapshotGenerator, transactionEventHandler, () ->
+		{});
+	}
+
+	public TransactionResources(ValidationHelper validationHelper, SnapshotGenerator snapshotGenerator,
+			TransactionEventHandler transactionEventHandler, Runnable release)
 	{
 		this.validationHelper = validationHelper;
 		this.snapshotGenerator = snapshotGenerator;
 		this.transactionEventHandler = transactionEventHandler;
+		this.release = Objects.requireNonNull(release, "release");
 	}
 
 	public ValidationHelper getValidationHelper()
@@ -30,4 +41,13 @@ public class TransactionResources
 	{
 		return transactionEventHandler;
 	}
+
+	/**
+	 * Releases pooled resources for reuse by other transactions, must only be called after the transaction was
+	 * committed. Resources of failed transactions are not released.
+	 */
+	public void release()
+	{
+		release.run();
+	}
 }
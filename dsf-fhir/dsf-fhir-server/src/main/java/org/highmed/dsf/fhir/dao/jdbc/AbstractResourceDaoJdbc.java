@@ -1,23 +1,31 @@
 package org.highmed.dsf.fhir.dao.jdbc;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 import javax.sql.DataSource;
 
@@ -27,13 +35,17 @@ import org.highmed.dsf.fhir.dao.exception.ResourceDeletedException;
 import org.highmed.dsf.fhir.dao.exception.ResourceNotFoundException;
 import org.highmed.dsf.fhir.dao.exception.ResourceNotMarkedDeletedException;
 import org.highmed.dsf.fhir.dao.exception.ResourceVersionNoMatchException;
+import org.highmed.dsf.fhir.function.ConsumerWithIoException;
 import org.highmed.dsf.fhir.search.DbSearchQuery;
 import org.highmed.dsf.fhir.search.PartialResult;
 import org.highmed.dsf.fhir.search.SearchQuery;
 import org.highmed.dsf.fhir.search.SearchQuery.SearchQueryBuilder;
 import org.highmed.dsf.fhir.search.SearchQueryParameter;
+import org.highmed.dsf.fhir.search.SearchQueryPlanCache;
+import org.highmed.dsf.fhir.search.SearchQueryProjection;
 import org.highmed.dsf.fhir.search.SearchQueryRevIncludeParameterFactory;
 import org.highmed.dsf.fhir.search.SearchQueryUserFilter;
+import org.highmed.dsf.fhir.search.SearchResultHandler;
 import org.highmed.dsf.fhir.search.parameters.ResourceId;
 import org.highmed.dsf.fhir.search.parameters.ResourceLastUpdated;
 import org.highmed.dsf.fhir.search.parameters.ResourceProfile;
@@ -45,10 +57,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParser;
-
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.model.api.annotation.ResourceDef;
 
@@ -56,51 +64,9 @@ abstract class AbstractResourceDaoJdbc<R extends Resource> implements ResourceDa
 {
 	private static final Logger logger = LoggerFactory.getLogger(AbstractResourceDaoJdbc.class);
 
-	private static final class ResourceDistinctById
-	{
-		private final IdType id;
-		private final Resource resource;
-
-		public ResourceDistinctById(IdType id, Resource resource)
-		{
-			this.id = id;
-			this.resource = resource;
-		}
-
-		@Override
-		public int hashCode()
-		{
-			final int prime = 31;
-			int result = 1;
-			result = prime * result + ((id == null) ? 0 : id.hashCode());
-			return result;
-		}
-
-		@Override
-		public boolean equals(Object obj)
-		{
-			if (this == obj)
-				return true;
-			if (obj == null)
-				return false;
-			if (getClass() != obj.getClass())
-				return false;
-			ResourceDistinctById other = (ResourceDistinctById) obj;
-			if (id == null)
-			{
-				if (other.id != null)
-					return false;
-			}
-			else if (!id.equals(other.id))
-				return false;
-			return true;
-		}
+	private static final int SEARCH_FETCH_SIZE = 100;
 
-		public Resource getResource()
-		{
-			return resource;
-		}
-	}
+	private static final int EXPORT_FETCH_SIZE = 500;
 
 	private final DataSource dataSource;
 	private final DataSource permanentDeleteDataSource;
@@ -112,6 +78,9 @@ abstract class AbstractResourceDaoJdbc<R extends Resource> implements ResourceDa
 	private final String resourceIdColumn;
 
 	private final PreparedStatementFactory<R> preparedStatementFactory;
+	private final SearchQueryProjection projection;
+	private final SearchQueryPlanCache planCache = new SearchQueryPlanCache();
+	private final SearchIndexWriter<R> searchIndexWriter;
 	private final Function<User, SearchQueryUserFilter> userFilter;
 	private final List<Supplier<SearchQueryParameter<R>>> searchParameterFactories = new ArrayList<>();
 	private final List<Supplier<SearchQueryRevIncludeParameterFactory>> searchRevIncludeParameterFactories = new ArrayList<>();
@@ -158,6 +127,7 @@ abstract class AbstractResourceDaoJdbc<R extends Resource> implements ResourceDa
 		this.resourceIdColumn = resourceIdColumn;
 
 		this.preparedStatementFactory = preparedStatementFactory;
+		projection = new SearchQueryProjection(Objects.requireNonNull(fhirContext, "fhirContext"), resourceType);
 
 		this.userFilter = userFilter;
 
@@ -165,6 +135,9 @@ abstract class AbstractResourceDaoJdbc<R extends Resource> implements ResourceDa
 			this.searchParameterFactories.addAll(searchParameterFactories);
 		if (searchRevIncludeParameterFactories != null)
 			this.searchRevIncludeParameterFactories.addAll(searchRevIncludeParameterFactories);
+
+		searchIndexWriter = new SearchIndexWriter<>(resourceTypeName, preparedStatementFactory,
+				this.searchParameterFactories);
 	}
 
 	@Override
@@ -178,6 +151,8 @@ abstract class AbstractResourceDaoJdbc<R extends Resource> implements ResourceDa
 		Objects.requireNonNull(resourceIdColumn, "resourceIdColumn");
 		Objects.requireNonNull(preparedStatementFactory, "preparedStatementFactory");
 		Objects.requireNonNull(userFilter, "userFilter");
+
+		planCache.registerMBean(resourceTable);
 	}
 
 	protected DataSource getDataSource()
@@ -245,7 +220,23 @@ abstract class AbstractResourceDaoJdbc<R extends Resource> implements ResourceDa
 		try (Connection connection = dataSource.getConnection())
 		{
 			connection.setReadOnly(false);
-			return createWithTransactionAndId(connection, resource, uuid);
+
+			if (!searchIndexWriter.isEnabled())
+				return createWithTransactionAndId(connection, resource, uuid);
+
+			// resource and search index entries written in one transaction
+			connection.setAutoCommit(false);
+			try
+			{
+				R created = createWithTransactionAndId(connection, resource, uuid);
+				connection.commit();
+				return created;
+			}
+			catch (Exception e)
+			{
+				connection.rollback();
+				throw e;
+			}
 		}
 	}
 
@@ -279,6 +270,8 @@ abstract class AbstractResourceDaoJdbc<R extends Resource> implements ResourceDa
 			statement.execute();
 		}
 
+		searchIndexWriter.insert(connection, uuid, FIRST_VERSION, resource);
+
 		return resource;
 	}
 
@@ -296,7 +289,7 @@ abstract class AbstractResourceDaoJdbc<R extends Resource> implements ResourceDa
 		if (uuid == null)
 			return Optional.empty();
 
-		try (Connection connection = dataSource.getConnection())
+		try (Connection connection = ReadReplicaDataSource.getReadConnection(dataSource))
 		{
 			return readWithTransaction(connection, uuid);
 		}
@@ -353,7 +346,7 @@ abstract class AbstractResourceDaoJdbc<R extends Resource> implements ResourceDa
 		if (uuid == null || version < FIRST_VERSION)
 			return Optional.empty();
 
-		try (Connection connection = dataSource.getConnection())
+		try (Connection connection = ReadReplicaDataSource.getReadConnection(dataSource))
 		{
 			return readVersionWithTransaction(connection, uuid, version);
 		}
@@ -473,6 +466,72 @@ abstract class AbstractResourceDaoJdbc<R extends Resource> implements ResourceDa
 		}
 	}
 
+	@Override
+	public long export(User user, OffsetDateTime since, ConsumerWithIoException<String> consumer)
+			throws SQLException, IOException
+	{
+		Objects.requireNonNull(user, "user");
+		Objects.requireNonNull(consumer, "consumer");
+
+		SearchQueryUserFilter filter = userFilter.apply(user);
+		String filterSql = filter.getFilterQuery();
+
+		List<String> where = new ArrayList<>();
+		if (!filterSql.isBlank())
+			where.add(filterSql);
+		if (since != null)
+			where.add(ResourceLastUpdated.getLastUpdatedExpression(resourceColumn) + " >= ?");
+
+		String sql = "SELECT " + getExportResourceSql() + " FROM current_" + resourceTable
+				+ (where.isEmpty() ? "" : " WHERE " + String.join(" AND ", where));
+
+		try (Connection connection = ReadReplicaDataSource.getReadConnection(dataSource))
+		{
+			// cursor based fetching needs a transaction
+			connection.setAutoCommit(false);
+
+			try (PreparedStatement statement = connection.prepareStatement(sql))
+			{
+				statement.setFetchSize(EXPORT_FETCH_SIZE);
+
+				int parameterIndex = 1;
+				for (int i = 1; i <= filter.getSqlParameterCount(); i++)
+					filter.modifyStatement(parameterIndex++, i, statement);
+				// lastUpdated values have millisecond precision, resources updated within the millisecond of since
+				// are included
+				if (since != null)
+					statement.setTimestamp(parameterIndex++, Timestamp.valueOf(since.truncatedTo(ChronoUnit.MILLIS)
+							.atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime()));
+
+				logger.trace("Executing query '{}'", statement);
+				try (ResultSet result = statement.executeQuery())
+				{
+					long count = 0;
+					while (result.next())
+					{
+						consumer.accept(result.getString(1));
+						count++;
+					}
+
+					return count;
+				}
+			}
+			finally
+			{
+				connection.rollback();
+			}
+		}
+	}
+
+	/**
+	 * @return SQL selecting the JSON of exported resources from the <code>current_...</code> view, default is the
+	 *         resource column
+	 */
+	protected String getExportResourceSql()
+	{
+		return resourceColumn;
+	}
+
 	@Override
 	public boolean existsNotDeleted(String idString, String versionString) throws SQLException
 	{
@@ -645,6 +704,8 @@ abstract class AbstractResourceDaoJdbc<R extends Resource> implements ResourceDa
 			statement.execute();
 		}
 
+		searchIndexWriter.insert(connection, uuid, version, resource);
+
 		return resource;
 	}
 
@@ -764,7 +825,7 @@ abstract class AbstractResourceDaoJdbc<R extends Resource> implements ResourceDa
 	{
 		Objects.requireNonNull(query, "query");
 
-		try (Connection connection = dataSource.getConnection())
+		try (Connection connection = ReadReplicaDataSource.getReadConnection(dataSource))
 		{
 			return searchWithTransaction(connection, query);
 		}
@@ -776,7 +837,32 @@ abstract class AbstractResourceDaoJdbc<R extends Resource> implements ResourceDa
 		Objects.requireNonNull(connection, "connection");
 		Objects.requireNonNull(query, "query");
 
-		int total = 0;
+		int total = count(connection, query);
+
+		List<R> partialResult = new ArrayList<>();
+		List<Resource> includes = new ArrayList<>();
+
+		if (!query.getPageAndCount().isCountOnly(total))
+		{
+			try (PreparedStatement statement = connection.prepareStatement(query.getSearchSql()))
+			{
+				query.modifySearchStatement(statement, connection::createArrayOf);
+
+				logger.trace("Executing query '{}'", statement);
+				try (ResultSet result = statement.executeQuery())
+				{
+					// included resources need to be filtered by read rules, before returning to user, see rest access
+					// layer
+					readSearchResult(result, connection, query, partialResult::add, includes::add);
+				}
+			}
+		}
+
+		return new PartialResult<>(total, query.getPageAndCount(), partialResult, includes);
+	}
+
+	private int count(Connection connection, DbSearchQuery query) throws SQLException
+	{
 		try (PreparedStatement statement = connection.prepareStatement(query.getCountSql()))
 		{
 			query.modifyStatement(statement, connection::createArrayOf);
@@ -784,42 +870,53 @@ abstract class AbstractResourceDaoJdbc<R extends Resource> implements ResourceDa
 			logger.trace("Executing query '{}'", statement);
 			try (ResultSet result = statement.executeQuery())
 			{
-				if (result.next())
-					total = result.getInt(1);
+				return result.next() ? result.getInt(1) : 0;
 			}
 		}
+	}
 
-		List<R> partialResult = new ArrayList<>();
-		List<Resource> includes = new ArrayList<>();
+	@Override
+	public final void search(DbSearchQuery query, SearchResultHandler<R> handler) throws SQLException
+	{
+		Objects.requireNonNull(query, "query");
+		Objects.requireNonNull(handler, "handler");
 
-		if (!query.getPageAndCount().isCountOnly(total))
+		try (Connection connection = ReadReplicaDataSource.getReadConnection(dataSource))
 		{
-			try (PreparedStatement statement = connection.prepareStatement(query.getSearchSql()))
+			connection.setReadOnly(true);
+			// cursor based fetching (fetch size) only supported by the postgres driver if auto commit is disabled
+			connection.setAutoCommit(false);
+
+			try
 			{
-				query.modifyStatement(statement, connection::createArrayOf);
+				int total = count(connection, query);
+				handler.onTotal(total, query.getPageAndCount());
 
-				logger.trace("Executing query '{}'", statement);
-				try (ResultSet result = statement.executeQuery())
+				if (!query.getPageAndCount().isCountOnly(total))
 				{
-					ResultSetMetaData metaData = result.getMetaData();
-					while (result.next())
+					try (PreparedStatement statement = connection.prepareStatement(query.getSearchSql()))
 					{
-						R resource = getResource(result, 1);
-						modifySearchResultResource(resource, connection);
-						partialResult.add(resource);
-
-						for (int columnIndex = 2; columnIndex <= metaData.getColumnCount(); columnIndex++)
-							getResources(result, columnIndex, includes, connection, query);
+						query.modifySearchStatement(statement, connection::createArrayOf);
+						statement.setFetchSize(SEARCH_FETCH_SIZE);
+
+						logger.trace("Executing query '{}'", statement);
+						try (ResultSet result = statement.executeQuery())
+						{
+							// included resources need to be filtered by read rules, before returning to user, see rest
+							// access layer
+							readSearchResult(result, connection, query, handler::onMatch, handler::onInclude);
+						}
 					}
 				}
+
+				connection.commit();
+			}
+			catch (Exception e)
+			{
+				connection.rollback();
+				throw e;
 			}
 		}
-
-		// needs to be filtered by read rules, before returning to user, see rest access layer
-		includes = includes.stream().map(r -> new ResourceDistinctById(r.getIdElement(), r)).distinct()
-				.map(ResourceDistinctById::getResource).collect(Collectors.toList());
-
-		return new PartialResult<>(total, query.getPageAndCount(), partialResult, includes);
 	}
 
 	/**
@@ -838,29 +935,50 @@ abstract class AbstractResourceDaoJdbc<R extends Resource> implements ResourceDa
 	{
 	}
 
-	private void getResources(ResultSet result, int columnIndex, List<? super Resource> includeResources,
-			Connection connection, DbSearchQuery query) throws SQLException
+	/**
+	 * Included resources are de-duplicated by versioned id using the <code>include_id</code> column, duplicates are not
+	 * parsed.
+	 *
+	 * @see DbSearchQuery#getSearchSql()
+	 */
+	private void readSearchResult(ResultSet result, Connection connection, DbSearchQuery query,
+			Consumer<R> matchHandler, Consumer<Resource> includeHandler) throws SQLException
 	{
-		String json = result.getString(columnIndex);
+		if (!query.hasIncludeParameters())
+		{
+			while (result.next())
+			{
+				R resource = getResource(result, 1);
+				modifySearchResultResource(resource, connection);
+				matchHandler.accept(resource);
+			}
 
-		if (json == null)
 			return;
+		}
 
-		JsonArray array = (JsonArray) JsonParser.parseString(json);
-
-		Iterator<JsonElement> it = array.iterator();
-		while (it.hasNext())
+		Set<String> includeIds = new HashSet<>();
+		while (result.next())
 		{
-			JsonElement jsonElement = it.next();
-			IBaseResource resource = preparedStatementFactory.getJsonParser().parseResource(jsonElement.toString());
-			if (resource instanceof Resource)
+			int columnIndex = result.getInt(2);
+
+			if (columnIndex == 1)
 			{
-				query.modifyIncludeResource((Resource) resource, columnIndex, connection);
-				includeResources.add((Resource) resource);
+				R resource = getResource(result, 3);
+				modifySearchResultResource(resource, connection);
+				matchHandler.accept(resource);
+			}
+			else if (includeIds.add(result.getString(4)))
+			{
+				IBaseResource resource = preparedStatementFactory.getJsonParser().parseResource(result.getString(3));
+				if (resource instanceof Resource)
+				{
+					query.modifyIncludeResource((Resource) resource, columnIndex, connection);
+					includeHandler.accept((Resource) resource);
+				}
+				else
+					logger.warn("parsed resouce of type {} not instance of {}, ignoring include resource",
+							resource.getClass().getName(), Resource.class.getName());
 			}
-			else
-				logger.warn("parsed resouce of type {} not instance of {}, ignoring include resource",
-						resource.getClass().getName(), Resource.class.getName());
 		}
 	}
 
@@ -880,7 +998,9 @@ abstract class AbstractResourceDaoJdbc<R extends Resource> implements ResourceDa
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	private SearchQuery<R> doCreateSearchQuery(User user, int page, int count)
 	{
-		var builder = SearchQueryBuilder.create(resourceType, getResourceTable(), getResourceColumn(), page, count);
+		var builder = SearchQueryBuilder
+				.create(resourceType, getResourceTable(), getResourceIdColumn(), getResourceColumn(), page, count)
+				.with(projection).with(planCache);
 
 		if (user != null)
 			builder = builder.with(userFilter.apply(user));
@@ -928,8 +1048,171 @@ abstract class AbstractResourceDaoJdbc<R extends Resource> implements ResourceDa
 
 			logger.trace("Executing query '{}'", statement);
 			statement.execute();
+		}
+
+		searchIndexWriter.delete(connection, uuid);
+
+		logger.debug("{} with ID {} deleted permanently", resourceTypeName, uuid);
+	}
+
+	@Override
+	public List<UUID> deletePermanentlyDeletedBefore(LocalDateTime deletedBefore, int limit) throws SQLException
+	{
+		Objects.requireNonNull(deletedBefore, "deletedBefore");
+		if (limit <= 0)
+			throw new IllegalArgumentException("limit <= 0");
+
+		try (Connection connection = permanentDeleteDataSource.getConnection())
+		{
+			connection.setReadOnly(false);
+			connection.setAutoCommit(false);
+
+			try
+			{
+				Set<UUID> deleted = new LinkedHashSet<>();
+
+				// deleted is only set on the latest version, newer versions exist if the resource was recreated
+				try (PreparedStatement statement = connection.prepareStatement("DELETE FROM " + resourceTable
+						+ " WHERE " + resourceIdColumn + " IN (SELECT " + resourceIdColumn + " FROM " + resourceTable
+						+ " r WHERE deleted IS NOT NULL AND deleted < ? AND NOT EXISTS (SELECT 1 FROM " + resourceTable
+						+ " WHERE " + resourceIdColumn + " = r." + resourceIdColumn
+						+ " AND version > r.version) LIMIT ?) RETURNING " + resourceIdColumn))
+				{
+					statement.setTimestamp(1, Timestamp.valueOf(deletedBefore));
+					statement.setInt(2, limit);
+
+					logger.trace("Executing query '{}'", statement);
+					try (ResultSet result = statement.executeQuery())
+					{
+						while (result.next())
+							deleted.add(result.getObject(1, UUID.class));
+					}
+				}
+
+				for (UUID uuid : deleted)
+				{
+					deleteReadAccess(connection, uuid, Long.MAX_VALUE);
+					searchIndexWriter.delete(connection, uuid);
+				}
+
+				connection.commit();
+
+				logger.debug("{} {} resource{} marked as deleted before {} deleted permanently", deleted.size(),
+						resourceTypeName, deleted.size() != 1 ? "s" : "", deletedBefore);
+				return new ArrayList<>(deleted);
+			}
+			catch (SQLException e)
+			{
+				connection.rollback();
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public List<UUID> readIdsWithOldVersions(int keepVersions, UUID afterId, int limit) throws SQLException
+	{
+		if (keepVersions <= 0)
+			throw new IllegalArgumentException("keepVersions <= 0");
+		if (limit <= 0)
+			throw new IllegalArgumentException("limit <= 0");
+
+		// grouped along the (id, version) primary key index, paged by id
+		try (Connection connection = permanentDeleteDataSource.getConnection();
+				PreparedStatement statement = connection.prepareStatement("SELECT " + resourceIdColumn + " FROM "
+						+ resourceTable + (afterId == null ? "" : " WHERE " + resourceIdColumn + " > ?") + " GROUP BY "
+						+ resourceIdColumn + " HAVING COUNT(*) > ? ORDER BY " + resourceIdColumn + " LIMIT ?"))
+		{
+			int parameterIndex = 1;
+			if (afterId != null)
+				statement.setObject(parameterIndex++, preparedStatementFactory.uuidToPgObject(afterId));
+			statement.setInt(parameterIndex++, keepVersions);
+			statement.setInt(parameterIndex++, limit);
+
+			logger.trace("Executing query '{}'", statement);
+			try (ResultSet result = statement.executeQuery())
+			{
+				List<UUID> ids = new ArrayList<>();
+
+				while (result.next())
+					ids.add(result.getObject(1, UUID.class));
+
+				return ids;
+			}
+		}
+	}
+
+	@Override
+	public int deleteOldVersions(int keepVersions, List<UUID> ids) throws SQLException
+	{
+		if (keepVersions <= 0)
+			throw new IllegalArgumentException("keepVersions <= 0");
+		Objects.requireNonNull(ids, "ids");
+
+		if (ids.isEmpty())
+			return 0;
+
+		try (Connection connection = permanentDeleteDataSource.getConnection())
+		{
+			connection.setReadOnly(false);
+			connection.setAutoCommit(false);
+
+			try
+			{
+				Map<UUID, Long> maxDeletedVersions = new HashMap<>();
+				int count = 0;
+
+				try (PreparedStatement statement = connection.prepareStatement("DELETE FROM " + resourceTable
+						+ " WHERE (" + resourceIdColumn + ", version) IN (SELECT " + resourceIdColumn
+						+ ", version FROM (SELECT " + resourceIdColumn + ", version, row_number() OVER (PARTITION BY "
+						+ resourceIdColumn + " ORDER BY version DESC) AS version_rank FROM " + resourceTable + " WHERE "
+						+ resourceIdColumn + " = ANY (?)) AS ranked WHERE version_rank > ?) RETURNING "
+						+ resourceIdColumn + ", version"))
+				{
+					statement.setArray(1, connection.createArrayOf("UUID", ids.toArray()));
+					statement.setInt(2, keepVersions);
+
+					logger.trace("Executing query '{}'", statement);
+					try (ResultSet result = statement.executeQuery())
+					{
+						while (result.next())
+						{
+							maxDeletedVersions.merge(result.getObject(1, UUID.class), result.getLong(2), Math::max);
+							count++;
+						}
+					}
+				}
 
-			logger.debug("{} with ID {} deleted permanently", resourceTypeName, uuid);
+				for (Entry<UUID, Long> entry : maxDeletedVersions.entrySet())
+				{
+					deleteReadAccess(connection, entry.getKey(), entry.getValue());
+					searchIndexWriter.deleteVersions(connection, entry.getKey(), entry.getValue());
+				}
+
+				connection.commit();
+
+				logger.debug("{} old version{} of {} {} resource{} deleted", count, count != 1 ? "s" : "",
+						maxDeletedVersions.size(), resourceTypeName, maxDeletedVersions.size() != 1 ? "s" : "");
+				return count;
+			}
+			catch (SQLException e)
+			{
+				connection.rollback();
+				throw e;
+			}
+		}
+	}
+
+	private void deleteReadAccess(Connection connection, UUID uuid, long maxVersion) throws SQLException
+	{
+		try (PreparedStatement statement = connection
+				.prepareStatement("DELETE FROM read_access WHERE resource_id = ? AND resource_version <= ?"))
+		{
+			statement.setObject(1, preparedStatementFactory.uuidToPgObject(uuid));
+			statement.setLong(2, maxVersion);
+
+			logger.trace("Executing query '{}'", statement);
+			statement.execute();
 		}
 	}
 }
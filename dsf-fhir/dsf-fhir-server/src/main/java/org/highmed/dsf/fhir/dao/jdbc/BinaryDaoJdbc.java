@@ -42,6 +42,13 @@ public class BinaryDaoJdbc extends AbstractResourceDaoJdbc<Binary> implements Bi
 		return binary;
 	}
 
+	@Override
+	protected String getExportResourceSql()
+	{
+		// single line base64, encode adds line breaks every 76 characters
+		return "jsonb_set(binary_json, '{data}', to_jsonb(translate(encode(binary_data, 'base64'), E'\\n', '')))";
+	}
+
 	@Override
 	protected void modifySearchResultResource(Binary resource, Connection connection) throws SQLException
 	{
@@ -0,0 +1,45 @@
+package org.highmed.dsf.fhir.dao.jdbc;
+
+/**
+ * JMX view on the connection pool and connection borrow times of an {@link InstrumentedDataSource}
+ */
+public interface DataSourceMetricsMXBean
+{
+	int getNumActive();
+
+	int getNumIdle();
+
+	/**
+	 * @return number of threads waiting for a connection
+	 */
+	int getNumWaiters();
+
+	int getMaxTotal();
+
+	long getBorrowCount();
+
+	/**
+	 * @return number of borrows slower than the configured warn threshold
+	 */
+	long getSlowBorrowCount();
+
+	/**
+	 * @return number of failed borrows, e.g. max-wait exceeded
+	 */
+	long getFailedBorrowCount();
+
+	double getMeanBorrowTimeMillis();
+
+	long getMaxBorrowTimeMillis();
+
+	/**
+	 * @return upper bounds (inclusive) of the borrow time histogram buckets, without the last unbounded bucket
+	 */
+	long[] getBorrowTimeHistogramBoundsMillis();
+
+	/**
+	 * @return number of borrows per histogram bucket, one element more than
+	 *         {@link #getBorrowTimeHistogramBoundsMillis()}
+	 */
+	long[] getBorrowTimeHistogram();
+}
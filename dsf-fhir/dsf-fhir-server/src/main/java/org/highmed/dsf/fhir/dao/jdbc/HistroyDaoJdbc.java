@@ -1,5 +1,6 @@
 package org.highmed.dsf.fhir.dao.jdbc;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -16,8 +17,10 @@ import java.util.stream.Stream;
 import javax.sql.DataSource;
 
 import org.highmed.dsf.fhir.dao.HistoryDao;
+import org.highmed.dsf.fhir.function.ConsumerWithIoException;
 import org.highmed.dsf.fhir.history.AtParameter;
 import org.highmed.dsf.fhir.history.History;
+import org.highmed.dsf.fhir.history.HistoryCursor;
 import org.highmed.dsf.fhir.history.HistoryEntry;
 import org.highmed.dsf.fhir.history.SinceParameter;
 import org.highmed.dsf.fhir.history.user.HistoryUserFilter;
@@ -41,6 +44,8 @@ public class HistroyDaoJdbc implements HistoryDao, InitializingBean
 {
 	private static final Logger logger = LoggerFactory.getLogger(HistroyDaoJdbc.class);
 
+	private static final int STREAM_FETCH_SIZE = 100;
+
 	private final DataSource dataSource;
 	private final FhirContext fhirContext;
 	private final BinaryDaoJdbc binaryDao;
@@ -103,7 +108,7 @@ public class HistroyDaoJdbc implements HistoryDao, InitializingBean
 	private History readHistory(List<HistoryUserFilter> filter, PageAndCount pageAndCount, AtParameter atParameter,
 			SinceParameter sinceParameter, Class<? extends Resource> resource, UUID id) throws SQLException
 	{
-		try (Connection connection = dataSource.getConnection())
+		try (Connection connection = ReadReplicaDataSource.getReadConnection(dataSource))
 		{
 			int total = 0;
 			try (PreparedStatement statement = connection.prepareStatement(
@@ -131,20 +136,7 @@ public class HistroyDaoJdbc implements HistoryDao, InitializingBean
 					try (ResultSet result = statement.executeQuery())
 					{
 						while (result.next())
-						{
-							UUID entryId = result.getObject(1, UUID.class);
-							long version = result.getLong(2);
-							String resourceType = result.getString(3);
-							String method = result.getString(4);
-							Timestamp lastUpdated = result.getTimestamp(5);
-							Resource entryResource = jsonToResource(result.getString(6), resource);
-							modifyResource(entryResource, connection);
-
-							HistoryEntry entry = new HistoryEntry(entryId, String.valueOf(version), resourceType,
-									method, lastUpdated == null ? null : lastUpdated.toLocalDateTime(), entryResource);
-							entries.add(entry);
-						}
-
+							entries.add(toHistoryEntry(result, resource, connection));
 					}
 				}
 			}
@@ -153,6 +145,96 @@ public class HistroyDaoJdbc implements HistoryDao, InitializingBean
 		}
 	}
 
+	private HistoryEntry toHistoryEntry(ResultSet result, Class<? extends Resource> resource, Connection connection)
+			throws SQLException
+	{
+		UUID entryId = result.getObject(1, UUID.class);
+		long version = result.getLong(2);
+		String resourceType = result.getString(3);
+		String method = result.getString(4);
+		Timestamp lastUpdated = result.getTimestamp(5);
+		Resource entryResource = jsonToResource(result.getString(6), resource);
+		modifyResource(entryResource, connection);
+
+		return new HistoryEntry(entryId, String.valueOf(version), resourceType, method,
+				lastUpdated == null ? null : lastUpdated.toLocalDateTime(), entryResource);
+	}
+
+	@Override
+	public History readHistory(List<HistoryUserFilter> filters, HistoryCursor cursor, int count,
+			AtParameter atParameter, SinceParameter sinceParameter, Class<? extends Resource> resource)
+			throws SQLException
+	{
+		Objects.requireNonNull(filters, "filters");
+		if (count <= 0)
+			throw new IllegalArgumentException("count <= 0");
+		Objects.requireNonNull(atParameter, "atParameter");
+		Objects.requireNonNull(sinceParameter, "sinceParameter");
+
+		try (Connection connection = ReadReplicaDataSource.getReadConnection(dataSource);
+				PreparedStatement statement = connection.prepareStatement(
+						createCursorSql(resource != null, filters, atParameter, sinceParameter, cursor, count + 1)))
+		{
+			configureStatement(statement, null, resource, filters, atParameter, sinceParameter, cursor);
+
+			logger.trace("Executing cursor query '{}'", statement);
+			try (ResultSet result = statement.executeQuery())
+			{
+				List<HistoryEntry> entries = new ArrayList<>();
+				boolean more = false;
+				while (result.next())
+				{
+					// one more entry selected than returned, to detect if a next page exists
+					if (entries.size() == count)
+					{
+						more = true;
+						break;
+					}
+
+					entries.add(toHistoryEntry(result, resource, connection));
+				}
+
+				HistoryCursor next = more ? HistoryCursor.of(entries.get(entries.size() - 1)) : null;
+				return new History(new PageAndCount(1, count), entries, next);
+			}
+		}
+	}
+
+	@Override
+	public void streamHistory(List<HistoryUserFilter> filters, HistoryCursor cursor, AtParameter atParameter,
+			SinceParameter sinceParameter, Class<? extends Resource> resource,
+			ConsumerWithIoException<HistoryEntry> consumer) throws SQLException, IOException
+	{
+		Objects.requireNonNull(filters, "filters");
+		Objects.requireNonNull(atParameter, "atParameter");
+		Objects.requireNonNull(sinceParameter, "sinceParameter");
+		Objects.requireNonNull(consumer, "consumer");
+
+		try (Connection connection = ReadReplicaDataSource.getReadConnection(dataSource))
+		{
+			// cursor based fetching needs a transaction
+			connection.setAutoCommit(false);
+
+			try (PreparedStatement statement = connection.prepareStatement(
+					createCursorSql(resource != null, filters, atParameter, sinceParameter, cursor, -1)))
+			{
+				statement.setFetchSize(STREAM_FETCH_SIZE);
+				configureStatement(statement, null, resource, filters, atParameter, sinceParameter, cursor);
+
+				logger.trace("Executing stream query '{}'", statement);
+				try (ResultSet result = statement.executeQuery())
+				{
+					while (result.next())
+						consumer.accept(toHistoryEntry(result, resource, connection));
+				}
+			}
+			finally
+			{
+				connection.rollback();
+			}
+		}
+	}
+
 	private void modifyResource(Resource resource, Connection connection) throws SQLException
 	{
 		if (resource instanceof Binary)
@@ -224,6 +306,13 @@ public class HistroyDaoJdbc implements HistoryDao, InitializingBean
 
 	private String createSql(boolean forId, boolean forResource, List<HistoryUserFilter> filter,
 			AtParameter atParameter, SinceParameter sinceParameter, String selectSql, String limitOffsetSql)
+	{
+		return createConditions(forId, forResource, filter, atParameter, sinceParameter)
+				.collect(Collectors.joining(" AND ", selectSql, limitOffsetSql));
+	}
+
+	private Stream<String> createConditions(boolean forId, boolean forResource, List<HistoryUserFilter> filter,
+			AtParameter atParameter, SinceParameter sinceParameter)
 	{
 		String idSql = forId ? "id = ?" : null;
 		String typeSql = forResource ? "type = ?" : null;
@@ -234,12 +323,34 @@ public class HistroyDaoJdbc implements HistoryDao, InitializingBean
 		Stream<String> params = Stream.of(atParameter, sinceParameter).filter(SearchQueryParameter::isDefined)
 				.map(SearchQueryParameter::getFilterQuery);
 
-		return Stream.concat(Stream.of(idSql, typeSql, filterSql).filter(s -> s != null), params)
-				.collect(Collectors.joining(" AND ", selectSql, limitOffsetSql));
+		return Stream.concat(Stream.of(idSql, typeSql, filterSql).filter(s -> s != null), params);
+	}
+
+	/**
+	 * @param limit
+	 *            {@code <=0} for no limit
+	 */
+	private String createCursorSql(boolean forResource, List<HistoryUserFilter> filter, AtParameter atParameter,
+			SinceParameter sinceParameter, HistoryCursor cursor, int limit)
+	{
+		String cursorSql = cursor != null ? "(last_updated, type, id, version) > (?, ?, ?, ?)" : null;
+		String whereSql = Stream.concat(createConditions(false, forResource, filter, atParameter, sinceParameter),
+				Stream.ofNullable(cursorSql)).collect(Collectors.joining(" AND "));
+
+		return "SELECT id, version, type, method, last_updated, resource FROM history"
+				+ (whereSql.isEmpty() ? "" : " WHERE " + whereSql) + " ORDER BY last_updated, type, id, version"
+				+ (limit > 0 ? " LIMIT " + limit : "");
 	}
 
 	private void configureStatement(PreparedStatement statement, UUID id, Class<? extends Resource> resource,
 			List<HistoryUserFilter> filter, AtParameter atParameter, SinceParameter sinceParameter) throws SQLException
+	{
+		configureStatement(statement, id, resource, filter, atParameter, sinceParameter, null);
+	}
+
+	private void configureStatement(PreparedStatement statement, UUID id, Class<? extends Resource> resource,
+			List<HistoryUserFilter> filter, AtParameter atParameter, SinceParameter sinceParameter,
+			HistoryCursor cursor) throws SQLException
 	{
 		int parameterIndex = 1;
 		if (id != null)
@@ -267,5 +378,13 @@ public class HistroyDaoJdbc implements HistoryDao, InitializingBean
 			for (int i = 1; i <= sinceParameter.getSqlParameterCount(); i++)
 				sinceParameter.modifyStatement(parameterIndex++, i, statement, null);
 		}
+
+		if (cursor != null)
+		{
+			statement.setTimestamp(parameterIndex++, Timestamp.valueOf(cursor.getLastUpdated()));
+			statement.setString(parameterIndex++, cursor.getResourceType());
+			statement.setObject(parameterIndex++, uuidToPgObject(cursor.getId()));
+			statement.setLong(parameterIndex++, cursor.getVersion());
+		}
 	}
 }
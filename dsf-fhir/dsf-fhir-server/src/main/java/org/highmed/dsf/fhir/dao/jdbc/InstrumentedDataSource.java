@@ -0,0 +1,244 @@
+package org.highmed.dsf.fhir.dao.jdbc;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link BasicDataSource} measuring the time needed to borrow connections from the pool. Borrows slower than the
+ * configured threshold are logged as warnings, including the current pool state, to make connection starvation visible.
+ * Pool state and borrow times are available via JMX, see {@link #registerMBean()}.
+ */
+public class InstrumentedDataSource extends BasicDataSource
+{
+	private static final Logger logger = LoggerFactory.getLogger(InstrumentedDataSource.class);
+
+	private static final long[] BORROW_TIME_HISTOGRAM_BOUNDS_MILLIS = { 1, 5, 10, 50, 100, 500, 1_000, 5_000 };
+
+	private final class Metrics implements DataSourceMetricsMXBean
+	{
+		@Override
+		public int getNumActive()
+		{
+			return InstrumentedDataSource.this.getNumActive();
+		}
+
+		@Override
+		public int getNumIdle()
+		{
+			return InstrumentedDataSource.this.getNumIdle();
+		}
+
+		@Override
+		public int getNumWaiters()
+		{
+			return InstrumentedDataSource.this.getNumWaiters();
+		}
+
+		@Override
+		public int getMaxTotal()
+		{
+			return InstrumentedDataSource.this.getMaxTotal();
+		}
+
+		@Override
+		public long getBorrowCount()
+		{
+			return InstrumentedDataSource.this.getBorrowCount();
+		}
+
+		@Override
+		public long getSlowBorrowCount()
+		{
+			return slowBorrows.sum();
+		}
+
+		@Override
+		public long getFailedBorrowCount()
+		{
+			return failedBorrows.sum();
+		}
+
+		@Override
+		public double getMeanBorrowTimeMillis()
+		{
+			long count = getBorrowCount();
+			return count == 0 ? 0d : borrowTimeNanos.sum() / 1_000_000d / count;
+		}
+
+		@Override
+		public long getMaxBorrowTimeMillis()
+		{
+			return TimeUnit.NANOSECONDS.toMillis(maxBorrowTimeNanos.get());
+		}
+
+		@Override
+		public long[] getBorrowTimeHistogramBoundsMillis()
+		{
+			return BORROW_TIME_HISTOGRAM_BOUNDS_MILLIS.clone();
+		}
+
+		@Override
+		public long[] getBorrowTimeHistogram()
+		{
+			return InstrumentedDataSource.this.getBorrowTimeHistogram();
+		}
+	}
+
+	private final String name;
+	private final long borrowWarnThresholdMillis;
+
+	private final LongAdder borrowTimeNanos = new LongAdder();
+	private final LongAccumulator maxBorrowTimeNanos = new LongAccumulator(Math::max, 0);
+	private final LongAdder slowBorrows = new LongAdder();
+	private final LongAdder failedBorrows = new LongAdder();
+	private final LongAdder[] borrowTimeHistogram = new LongAdder[BORROW_TIME_HISTOGRAM_BOUNDS_MILLIS.length + 1];
+
+	/**
+	 * @param name
+	 *            not <code>null</code>, used in log messages and the JMX object name
+	 * @param borrowWarnThresholdMillis
+	 *            borrows slower than the threshold are logged as warnings, <code>&lt;0</code> to disable
+	 */
+	public InstrumentedDataSource(String name, long borrowWarnThresholdMillis)
+	{
+		this.name = Objects.requireNonNull(name, "name");
+		this.borrowWarnThresholdMillis = borrowWarnThresholdMillis;
+
+		Arrays.setAll(borrowTimeHistogram, i -> new LongAdder());
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException
+	{
+		long start = System.nanoTime();
+		boolean failed = true;
+		try
+		{
+			Connection connection = super.getConnection();
+			failed = false;
+			return connection;
+		}
+		finally
+		{
+			onBorrow(System.nanoTime() - start, failed);
+		}
+	}
+
+	private void onBorrow(long nanos, boolean failed)
+	{
+		long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+
+		borrowTimeNanos.add(nanos);
+		maxBorrowTimeNanos.accumulate(nanos);
+		borrowTimeHistogram[getHistogramBucket(millis)].increment();
+
+		if (failed)
+			failedBorrows.increment();
+
+		if (borrowWarnThresholdMillis >= 0 && millis > borrowWarnThresholdMillis)
+		{
+			slowBorrows.increment();
+			logger.warn(
+					"{} connection from pool '{}' after {} ms (threshold {} ms), active {}, idle {}, waiting {}, max total {}",
+					failed ? "Unable to borrow" : "Borrowed", name, millis, borrowWarnThresholdMillis, getNumActive(),
+					getNumIdle(), getNumWaiters(), getMaxTotal());
+		}
+	}
+
+	private int getHistogramBucket(long millis)
+	{
+		for (int i = 0; i < BORROW_TIME_HISTOGRAM_BOUNDS_MILLIS.length; i++)
+			if (millis <= BORROW_TIME_HISTOGRAM_BOUNDS_MILLIS[i])
+				return i;
+
+		return BORROW_TIME_HISTOGRAM_BOUNDS_MILLIS.length;
+	}
+
+	/**
+	 * @return number of threads waiting for a connection, <code>0</code> if the pool is not initialized
+	 */
+	public int getNumWaiters()
+	{
+		GenericObjectPool<?> pool = getConnectionPool();
+		return pool == null ? 0 : pool.getNumWaiters();
+	}
+
+	public long getBorrowCount()
+	{
+		return Arrays.stream(borrowTimeHistogram).mapToLong(LongAdder::sum).sum();
+	}
+
+	public long[] getBorrowTimeHistogram()
+	{
+		return Arrays.stream(borrowTimeHistogram).mapToLong(LongAdder::sum).toArray();
+	}
+
+	@Override
+	public synchronized void close() throws SQLException
+	{
+		super.close();
+
+		try
+		{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = getObjectName();
+
+			if (server.isRegistered(objectName))
+				server.unregisterMBean(objectName);
+		}
+		catch (JMException e)
+		{
+			logger.debug("Unable to unregister data source MBean for {}: {} - {}", name, e.getClass().getName(),
+					e.getMessage());
+		}
+	}
+
+	private ObjectName getObjectName() throws JMException
+	{
+		return new ObjectName("org.highmed.dsf.fhir:type=DataSource,name=" + name);
+	}
+
+	/**
+	 * Registers pool state and borrow time metrics with the platform MBean server as
+	 * <code>org.highmed.dsf.fhir:type=DataSource,name=&lt;name&gt;</code>, replaces metrics registered with the same
+	 * name.
+	 */
+	public void registerMBean()
+	{
+		try
+		{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = getObjectName();
+
+			if (server.isRegistered(objectName))
+				server.unregisterMBean(objectName);
+
+			server.registerMBean(new Metrics(), objectName);
+		}
+		catch (JMException e)
+		{
+			logger.warn("Unable to register data source MBean for {}: {} - {}", name, e.getClass().getName(),
+					e.getMessage());
+		}
+	}
+}
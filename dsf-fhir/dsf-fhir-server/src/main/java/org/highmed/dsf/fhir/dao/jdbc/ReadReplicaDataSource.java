@@ -0,0 +1,222 @@
+package org.highmed.dsf.fhir.dao.jdbc;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link DataSource} returning connections to the primary database, with optional routing of reads to a read-only
+ * replica via {@link #getReadConnection(DataSource)}.
+ * <p>
+ * Reads are only routed to the replica while a read context is set for the current thread, see
+ * {@link #setReadContext(String)}. The read context contains the WAL position (LSN) of the last write of the current
+ * client; the replica is only used if it has replayed the WAL up to this position, otherwise the read is executed on
+ * the primary (read-your-writes). A replica that is not in recovery (e.g. a second pool to the primary) is always
+ * considered up to date.
+ */
+public class ReadReplicaDataSource implements DataSource, AutoCloseable
+{
+	private static final org.slf4j.Logger logger = LoggerFactory.getLogger(ReadReplicaDataSource.class);
+
+	/**
+	 * LSN value of a read context, forcing reads to the primary database
+	 */
+	public static final String LSN_PRIMARY = "primary";
+
+	private static final class ReadContext
+	{
+		final String lsn;
+
+		ReadContext(String lsn)
+		{
+			this.lsn = lsn;
+		}
+	}
+
+	private static final ThreadLocal<ReadContext> readContext = new ThreadLocal<>();
+
+	private final DataSource primary;
+	private final DataSource replica;
+
+	/**
+	 * @param primary
+	 *            not <code>null</code>
+	 * @param replica
+	 *            may be <code>null</code>, if <code>null</code> all reads are executed on the primary
+	 */
+	public ReadReplicaDataSource(DataSource primary, DataSource replica)
+	{
+		this.primary = Objects.requireNonNull(primary, "primary");
+		this.replica = replica;
+	}
+
+	/**
+	 * @param dataSource
+	 *            not <code>null</code>
+	 * @return connection to the read replica if <b>dataSource</b> is a {@link ReadReplicaDataSource}, a read context is
+	 *         set for the current thread and the replica is up to date, a connection from <b>dataSource</b> otherwise
+	 * @throws SQLException
+	 *             if a database access error occurs
+	 */
+	public static Connection getReadConnection(DataSource dataSource) throws SQLException
+	{
+		Objects.requireNonNull(dataSource, "dataSource");
+
+		if (dataSource instanceof ReadReplicaDataSource)
+			return ((ReadReplicaDataSource) dataSource).getReadConnection();
+		else
+			return dataSource.getConnection();
+	}
+
+	/**
+	 * Enables reads from the replica for the current thread, until {@link #clearReadContext()} is called.
+	 *
+	 * @param lsn
+	 *            WAL position of the last write of the current client, <code>null</code> if the client did not write
+	 *            recently, {@link #LSN_PRIMARY} to force reads to the primary
+	 */
+	public static void setReadContext(String lsn)
+	{
+		readContext.set(new ReadContext(lsn));
+	}
+
+	public static void clearReadContext()
+	{
+		readContext.remove();
+	}
+
+	public boolean hasReplica()
+	{
+		return replica != null;
+	}
+
+	/**
+	 * @return current WAL position of the primary database
+	 * @throws SQLException
+	 *             if a database access error occurs
+	 */
+	public String getPrimaryLsn() throws SQLException
+	{
+		try (Connection connection = primary.getConnection();
+				Statement statement = connection.createStatement();
+				ResultSet result = statement.executeQuery("SELECT pg_current_wal_lsn()"))
+		{
+			return result.next() ? result.getString(1) : null;
+		}
+	}
+
+	private Connection getReadConnection() throws SQLException
+	{
+		ReadContext context = readContext.get();
+
+		if (replica == null || context == null || LSN_PRIMARY.equals(context.lsn))
+			return primary.getConnection();
+
+		Connection connection = replica.getConnection();
+		try
+		{
+			if (context.lsn == null || isReplayed(connection, context.lsn))
+				return connection;
+		}
+		catch (SQLException e)
+		{
+			connection.close();
+			throw e;
+		}
+
+		logger.debug("Replica behind LSN {}, reading from primary", context.lsn);
+		connection.close();
+		return primary.getConnection();
+	}
+
+	private boolean isReplayed(Connection connection, String lsn) throws SQLException
+	{
+		try (PreparedStatement statement = connection
+				.prepareStatement("SELECT NOT pg_is_in_recovery() OR pg_last_wal_replay_lsn() >= CAST(? AS pg_lsn)"))
+		{
+			statement.setString(1, lsn);
+
+			try (ResultSet result = statement.executeQuery())
+			{
+				return result.next() && result.getBoolean(1);
+			}
+		}
+	}
+
+	/**
+	 * Closes the replica {@link DataSource} if {@link AutoCloseable}, the primary {@link DataSource} is not closed.
+	 */
+	@Override
+	public void close() throws Exception
+	{
+		if (replica instanceof AutoCloseable)
+			((AutoCloseable) replica).close();
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException
+	{
+		return primary.getConnection();
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException
+	{
+		return primary.getConnection(username, password);
+	}
+
+	@Override
+	public PrintWriter getLogWriter() throws SQLException
+	{
+		return primary.getLogWriter();
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException
+	{
+		primary.setLogWriter(out);
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException
+	{
+		primary.setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() throws SQLException
+	{
+		return primary.getLoginTimeout();
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException
+	{
+		return primary.getParentLogger();
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException
+	{
+		if (iface.isInstance(this))
+			return iface.cast(this);
+		else
+			return primary.unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException
+	{
+		return iface.isInstance(this) || primary.isWrapperFor(iface);
+	}
+}
@@ -0,0 +1,174 @@
+package org.highmed.dsf.fhir.dao.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.highmed.dsf.fhir.search.SearchIndexEntry;
+import org.highmed.dsf.fhir.search.SearchIndexEntry.Type;
+import org.highmed.dsf.fhir.search.SearchQueryIndexParameter;
+import org.highmed.dsf.fhir.search.SearchQueryParameter;
+import org.hl7.fhir.r4.model.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Extracts {@link SearchIndexEntry}s from resource versions via {@link SearchQueryIndexParameter}s and writes them to
+ * the typed search index tables, using the connection / transaction of the resource insert.
+ *
+ * @param <R>
+ *            resource type
+ */
+class SearchIndexWriter<R extends Resource>
+{
+	private static final Logger logger = LoggerFactory.getLogger(SearchIndexWriter.class);
+
+	private final String resourceTypeName;
+	private final PreparedStatementFactory<R> preparedStatementFactory;
+	private final List<Supplier<SearchQueryIndexParameter<R>>> indexParameterFactories;
+
+	@SuppressWarnings("unchecked")
+	SearchIndexWriter(String resourceTypeName, PreparedStatementFactory<R> preparedStatementFactory,
+			List<Supplier<SearchQueryParameter<R>>> searchParameterFactories)
+	{
+		this.resourceTypeName = resourceTypeName;
+		this.preparedStatementFactory = preparedStatementFactory;
+
+		indexParameterFactories = searchParameterFactories.stream()
+				.filter(f -> f.get() instanceof SearchQueryIndexParameter)
+				.map(f -> (Supplier<SearchQueryIndexParameter<R>>) () -> (SearchQueryIndexParameter<R>) f.get())
+				.collect(Collectors.toUnmodifiableList());
+	}
+
+	boolean isEnabled()
+	{
+		return !indexParameterFactories.isEmpty();
+	}
+
+	/**
+	 * @param connection
+	 *            not <code>null</code>
+	 * @param uuid
+	 *            not <code>null</code>
+	 * @param version
+	 *            {@code >= 1}
+	 * @param resource
+	 *            not <code>null</code>, resource as written to the database
+	 * @throws SQLException
+	 */
+	void insert(Connection connection, UUID uuid, long version, R resource) throws SQLException
+	{
+		if (!isEnabled())
+			return;
+
+		Map<Type, List<SearchIndexEntry>> entriesByType = indexParameterFactories.stream().map(Supplier::get)
+				.flatMap(p -> p.getIndexEntries(resource).stream()).collect(Collectors
+						.groupingBy(SearchIndexEntry::getType, () -> new EnumMap<>(Type.class), Collectors.toList()));
+
+		for (Map.Entry<Type, List<SearchIndexEntry>> entries : entriesByType.entrySet())
+		{
+			try (PreparedStatement statement = connection.prepareStatement(getInsertSql(entries.getKey())))
+			{
+				for (SearchIndexEntry entry : entries.getValue())
+				{
+					statement.setString(1, resourceTypeName);
+					statement.setObject(2, preparedStatementFactory.uuidToPgObject(uuid));
+					statement.setLong(3, version);
+					statement.setString(4, entry.getParameterName());
+					statement.setString(5, entry.getValue());
+
+					if (Type.TOKEN.equals(entry.getType()))
+						statement.setString(6, entry.getSystem());
+
+					statement.addBatch();
+				}
+
+				logger.trace("Executing batch '{}'", statement);
+				statement.executeBatch();
+			}
+		}
+
+		logger.debug("{} search index entries for {} with ID {} and version {} created",
+				entriesByType.values().stream().mapToInt(List::size).sum(), resourceTypeName, uuid, version);
+	}
+
+	private String getInsertSql(Type type)
+	{
+		switch (type)
+		{
+			case TOKEN:
+				return "INSERT INTO " + type.table
+						+ " (resource_type, resource_id, version, parameter, value, system) VALUES (?, ?, ?, ?, ?, ?)";
+			case DATE:
+				return "INSERT INTO " + type.table
+						+ " (resource_type, resource_id, version, parameter, value) VALUES (?, ?, ?, ?, ?::timestamp)";
+			default:
+				return "INSERT INTO " + type.table
+						+ " (resource_type, resource_id, version, parameter, value) VALUES (?, ?, ?, ?, ?)";
+		}
+	}
+
+	/**
+	 * Deletes the index entries of all versions of the given resource.
+	 *
+	 * @param connection
+	 *            not <code>null</code>
+	 * @param uuid
+	 *            not <code>null</code>
+	 * @throws SQLException
+	 */
+	void delete(Connection connection, UUID uuid) throws SQLException
+	{
+		if (!isEnabled())
+			return;
+
+		for (Type type : Type.values())
+		{
+			try (PreparedStatement statement = connection
+					.prepareStatement("DELETE FROM " + type.table + " WHERE resource_type = ? AND resource_id = ?"))
+			{
+				statement.setString(1, resourceTypeName);
+				statement.setObject(2, preparedStatementFactory.uuidToPgObject(uuid));
+
+				logger.trace("Executing query '{}'", statement);
+				statement.execute();
+			}
+		}
+	}
+
+	/**
+	 * Deletes the index entries of all versions of the given resource up to and including <b>maxVersion</b>.
+	 *
+	 * @param connection
+	 *            not <code>null</code>
+	 * @param uuid
+	 *            not <code>null</code>
+	 * @param maxVersion
+	 * @throws SQLException
+	 */
+	void deleteVersions(Connection connection, UUID uuid, long maxVersion) throws SQLException
+	{
+		if (!isEnabled())
+			return;
+
+		for (Type type : Type.values())
+		{
+			try (PreparedStatement statement = connection.prepareStatement(
+					"DELETE FROM " + type.table + " WHERE resource_type = ? AND resource_id = ? AND version <= ?"))
+			{
+				statement.setString(1, resourceTypeName);
+				statement.setObject(2, preparedStatementFactory.uuidToPgObject(uuid));
+				statement.setLong(3, maxVersion);
+
+				logger.trace("Executing query '{}'", statement);
+				statement.execute();
+			}
+		}
+	}
+}
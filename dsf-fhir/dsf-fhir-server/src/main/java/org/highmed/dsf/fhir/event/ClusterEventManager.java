@@ -0,0 +1,321 @@
+package org.highmed.dsf.fhir.event;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.highmed.dsf.fhir.dao.ResourceDao;
+import org.highmed.dsf.fhir.dao.exception.ResourceDeletedException;
+import org.highmed.dsf.fhir.dao.provider.DaoProvider;
+import org.hl7.fhir.r4.model.Resource;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * {@link EventManager} forwarding events to other FHIR server nodes connected to the same database. Events are
+ * dispatched to the local {@link EventHandler}s of the delegate and published via Postgres <code>NOTIFY</code>
+ * afterwards. Events published by other nodes are received on a dedicated <code>LISTEN</code> connection and dispatched
+ * to the local {@link EventHandler}s.
+ * <p>
+ * Notifications only contain resource type, id and version of the event, created and updated resources are read from
+ * the database by the receiving node. Events published while the listener connection is down are lost; the listener
+ * reconnects after {@link #RECONNECT_DELAY_MILLIS}.
+ */
+public class ClusterEventManager implements EventManager, InitializingBean, DisposableBean
+{
+	private static final Logger logger = LoggerFactory.getLogger(ClusterEventManager.class);
+
+	public static final String CHANNEL = "dsf_fhir_events";
+
+	private static final long RECONNECT_DELAY_MILLIS = 5_000;
+	private static final int NOTIFICATION_TIMEOUT_MILLIS = 500;
+
+	// postgres payload limit is 8000 bytes
+	private static final int MAX_PAYLOAD_LENGTH = 7_000;
+
+	private static final String CREATED = "C";
+	private static final String UPDATED = "U";
+	private static final String DELETED = "D";
+
+	private final EventManager delegate;
+	private final DataSource dataSource;
+	private final DataSource listenerDataSource;
+	private final DaoProvider daoProvider;
+	private final String nodeId = UUID.randomUUID().toString();
+
+	private volatile boolean running;
+	private Thread listener;
+
+	/**
+	 * @param delegate
+	 *            not <code>null</code>, local event manager
+	 * @param dataSource
+	 *            not <code>null</code>, used to publish notifications
+	 * @param listenerDataSource
+	 *            not <code>null</code>, connections are held while listening, should not be pooled
+	 * @param daoProvider
+	 *            not <code>null</code>, used to read created and updated resources of events from other nodes
+	 */
+	public ClusterEventManager(EventManager delegate, DataSource dataSource, DataSource listenerDataSource,
+			DaoProvider daoProvider)
+	{
+		this.delegate = delegate;
+		this.dataSource = dataSource;
+		this.listenerDataSource = listenerDataSource;
+		this.daoProvider = daoProvider;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		Objects.requireNonNull(delegate, "delegate");
+		Objects.requireNonNull(dataSource, "dataSource");
+		Objects.requireNonNull(listenerDataSource, "listenerDataSource");
+		Objects.requireNonNull(daoProvider, "daoProvider");
+
+		running = true;
+		listener = new Thread(this::listen, "cluster-event-listener");
+		listener.setDaemon(true);
+		listener.start();
+	}
+
+	@Override
+	public void destroy() throws Exception
+	{
+		running = false;
+
+		if (listener != null)
+		{
+			listener.interrupt();
+			listener.join(RECONNECT_DELAY_MILLIS);
+		}
+	}
+
+	public String getNodeId()
+	{
+		return nodeId;
+	}
+
+	@Override
+	public void handleEvent(Event event)
+	{
+		if (event == null)
+			return;
+
+		delegate.handleEvent(event);
+		publish(Collections.singletonList(event));
+	}
+
+	@Override
+	public void handleEvents(List<Event> events)
+	{
+		if (events == null)
+			return;
+
+		delegate.handleEvents(events);
+		publish(events);
+	}
+
+	@Override
+	public Runnable addHandler(EventHandler eventHandler)
+	{
+		return delegate.addHandler(eventHandler);
+	}
+
+	@Override
+	public void removeHandler(EventHandler eventHandler)
+	{
+		delegate.removeHandler(eventHandler);
+	}
+
+	private void publish(List<Event> events)
+	{
+		List<String> payloads = toPayloads(events);
+		if (payloads.isEmpty())
+			return;
+
+		try (Connection connection = dataSource.getConnection();
+				PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)"))
+		{
+			connection.setReadOnly(false);
+
+			for (String payload : payloads)
+			{
+				statement.setString(1, CHANNEL);
+				statement.setString(2, payload);
+				statement.execute();
+			}
+		}
+		catch (SQLException e)
+		{
+			logger.warn("Unable to publish {} event{} to other nodes: {}", events.size(), events.size() != 1 ? "s" : "",
+					e.getMessage());
+		}
+	}
+
+	/**
+	 * Payload format: <code>nodeId</code> line followed by one <code>C|U|D resourceType id [version]</code> line per
+	 * event
+	 */
+	private List<String> toPayloads(List<Event> events)
+	{
+		List<String> payloads = new ArrayList<>();
+		StringBuilder payload = new StringBuilder(nodeId);
+
+		for (Event event : events)
+		{
+			String line = toLine(event);
+			if (line == null)
+				continue;
+
+			if (payload.length() + line.length() + 1 > MAX_PAYLOAD_LENGTH)
+			{
+				payloads.add(payload.toString());
+				payload = new StringBuilder(nodeId);
+			}
+
+			payload.append('\n').append(line);
+		}
+
+		if (payload.length() > nodeId.length())
+			payloads.add(payload.toString());
+
+		return payloads;
+	}
+
+	private String toLine(Event event)
+	{
+		// r4 model class names equal resource type names
+		String resourceTypeName = event.getResourceType().getSimpleName();
+
+		if (event instanceof ResourceDeletedEvent)
+			return DELETED + " " + resourceTypeName + " " + event.getId();
+		else if (event instanceof ResourceCreatedEvent || event instanceof ResourceUpdatedEvent)
+		{
+			String version = event.getResource().getIdElement().getVersionIdPart();
+			if (version == null)
+				version = event.getResource().getMeta().getVersionId();
+
+			return (event instanceof ResourceCreatedEvent ? CREATED : UPDATED) + " " + resourceTypeName + " "
+					+ event.getId() + " " + version;
+		}
+		else
+		{
+			logger.debug("Event of type {} not published to other nodes", event.getClass().getName());
+			return null;
+		}
+	}
+
+	private void listen()
+	{
+		while (running)
+		{
+			try (Connection connection = listenerDataSource.getConnection())
+			{
+				try (Statement statement = connection.createStatement())
+				{
+					statement.execute("LISTEN " + CHANNEL);
+				}
+
+				logger.info("Listening for events of other nodes on channel {}", CHANNEL);
+
+				PGConnection pgConnection = connection.unwrap(PGConnection.class);
+				while (running)
+				{
+					PGNotification[] notifications = pgConnection.getNotifications(NOTIFICATION_TIMEOUT_MILLIS);
+					if (notifications != null)
+						for (PGNotification notification : notifications)
+							onNotification(notification.getParameter());
+				}
+			}
+			catch (SQLException e)
+			{
+				if (running)
+				{
+					logger.warn("Error while listening for events of other nodes, reconnecting in {} ms: {}",
+							RECONNECT_DELAY_MILLIS, e.getMessage());
+
+					try
+					{
+						Thread.sleep(RECONNECT_DELAY_MILLIS);
+					}
+					catch (InterruptedException ie)
+					{
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+			}
+		}
+	}
+
+	private void onNotification(String payload)
+	{
+		String[] lines = payload.split("\n");
+		if (lines.length < 2 || nodeId.equals(lines[0]))
+			return;
+
+		List<Event> events = new ArrayList<>(lines.length - 1);
+		for (int i = 1; i < lines.length; i++)
+		{
+			try
+			{
+				toEvent(lines[i]).ifPresent(events::add);
+			}
+			catch (Exception e)
+			{
+				logger.warn("Unable to handle event '{}' of node {}: {} - {}", lines[i], lines[0],
+						e.getClass().getName(), e.getMessage());
+			}
+		}
+
+		logger.debug("Handling {} event{} of node {}", events.size(), events.size() != 1 ? "s" : "", lines[0]);
+
+		if (!events.isEmpty())
+			delegate.handleEvents(events);
+	}
+
+	private Optional<Event> toEvent(String line) throws SQLException
+	{
+		String[] parts = line.split(" ");
+		if (parts.length < 3)
+			return Optional.empty();
+
+		Optional<ResourceDao<?>> dao = daoProvider.getDao(parts[1]);
+		if (dao.isEmpty())
+			return Optional.empty();
+
+		if (DELETED.equals(parts[0]))
+			return Optional.of(new ResourceDeletedEvent(dao.get().getResourceType(), parts[2]));
+
+		Optional<? extends Resource> resource;
+		try
+		{
+			resource = dao.get().readVersion(UUID.fromString(parts[2]), Long.parseLong(parts[3]));
+		}
+		catch (ResourceDeletedException e)
+		{
+			return Optional.empty();
+		}
+
+		if (CREATED.equals(parts[0]))
+			return resource.map(r -> new ResourceCreatedEvent(r.getClass(), r));
+		else if (UPDATED.equals(parts[0]))
+			return resource.map(r -> new ResourceUpdatedEvent(r.getClass(), r));
+		else
+			return Optional.empty();
+	}
+}
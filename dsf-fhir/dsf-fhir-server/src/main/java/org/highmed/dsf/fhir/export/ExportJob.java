@@ -0,0 +1,205 @@
+package org.highmed.dsf.fhir.export;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.highmed.dsf.fhir.authentication.User;
+import org.highmed.dsf.fhir.dao.ResourceDao;
+
+/**
+ * State of an asynchronous bulk export, thread safe
+ */
+public class ExportJob
+{
+	public static enum ExportJobStatus
+	{
+		ACCEPTED, IN_PROGRESS, COMPLETED, FAILED, CANCELLED
+	}
+
+	public static final class ExportOutput
+	{
+		private final String resourceTypeName;
+		private final String fileName;
+		private final long count;
+
+		public ExportOutput(String resourceTypeName, String fileName, long count)
+		{
+			this.resourceTypeName = resourceTypeName;
+			this.fileName = fileName;
+			this.count = count;
+		}
+
+		public String getResourceTypeName()
+		{
+			return resourceTypeName;
+		}
+
+		public String getFileName()
+		{
+			return fileName;
+		}
+
+		public long getCount()
+		{
+			return count;
+		}
+	}
+
+	private final String id;
+	private final User user;
+	private final List<ResourceDao<?>> daos;
+	private final OffsetDateTime since;
+	private final String request;
+	private final OffsetDateTime transactionTime = OffsetDateTime.now();
+	private final List<ExportOutput> outputs = new ArrayList<>();
+
+	private ExportJobStatus status = ExportJobStatus.ACCEPTED;
+	private String errorMessage;
+	private OffsetDateTime finished;
+
+	/**
+	 * @param id
+	 *            not <code>null</code>
+	 * @param user
+	 *            not <code>null</code>
+	 * @param daos
+	 *            not <code>null</code>, daos of the exported resource types
+	 * @param since
+	 *            may be <code>null</code>
+	 * @param request
+	 *            not <code>null</code>, kick-off request url
+	 */
+	public ExportJob(String id, User user, List<ResourceDao<?>> daos, OffsetDateTime since, String request)
+	{
+		this.id = Objects.requireNonNull(id, "id");
+		this.user = Objects.requireNonNull(user, "user");
+		this.daos = Collections.unmodifiableList(Objects.requireNonNull(daos, "daos"));
+		this.since = since;
+		this.request = Objects.requireNonNull(request, "request");
+	}
+
+	public String getId()
+	{
+		return id;
+	}
+
+	public User getUser()
+	{
+		return user;
+	}
+
+	/**
+	 * @param user
+	 *            not <code>null</code>
+	 * @return <code>true</code> if the given user has the same role, organization and certificate subject as the user
+	 *         that started the export
+	 */
+	public boolean isOwner(User user)
+	{
+		return this.user.getRole().equals(user.getRole())
+				&& Objects.equals(this.user.getSubjectDn(), user.getSubjectDn())
+				&& Objects.equals(this.user.getOrganization().getIdElement().getIdPart(),
+						user.getOrganization().getIdElement().getIdPart());
+	}
+
+	public List<ResourceDao<?>> getDaos()
+	{
+		return daos;
+	}
+
+	public OffsetDateTime getSince()
+	{
+		return since;
+	}
+
+	public String getRequest()
+	{
+		return request;
+	}
+
+	public OffsetDateTime getTransactionTime()
+	{
+		return transactionTime;
+	}
+
+	public synchronized ExportJobStatus getStatus()
+	{
+		return status;
+	}
+
+	public synchronized boolean isCancelled()
+	{
+		return ExportJobStatus.CANCELLED.equals(status);
+	}
+
+	public synchronized String getErrorMessage()
+	{
+		return errorMessage;
+	}
+
+	/**
+	 * @return time the job completed, failed or was cancelled, <code>null</code> if not finished
+	 */
+	public synchronized OffsetDateTime getFinished()
+	{
+		return finished;
+	}
+
+	/**
+	 * @return number of exported resource types
+	 */
+	public synchronized int getProgress()
+	{
+		return outputs.size();
+	}
+
+	public synchronized List<ExportOutput> getOutputs()
+	{
+		return new ArrayList<>(outputs);
+	}
+
+	synchronized boolean start()
+	{
+		if (!ExportJobStatus.ACCEPTED.equals(status))
+			return false;
+
+		status = ExportJobStatus.IN_PROGRESS;
+		return true;
+	}
+
+	synchronized void addOutput(ExportOutput output)
+	{
+		outputs.add(output);
+	}
+
+	synchronized void complete()
+	{
+		if (ExportJobStatus.IN_PROGRESS.equals(status))
+		{
+			status = ExportJobStatus.COMPLETED;
+			finished = OffsetDateTime.now();
+		}
+	}
+
+	synchronized void fail(String errorMessage)
+	{
+		if (ExportJobStatus.IN_PROGRESS.equals(status))
+		{
+			status = ExportJobStatus.FAILED;
+			this.errorMessage = errorMessage;
+			finished = OffsetDateTime.now();
+		}
+	}
+
+	synchronized void cancel()
+	{
+		if (!isCancelled())
+		{
+			status = ExportJobStatus.CANCELLED;
+			finished = OffsetDateTime.now();
+		}
+	}
+}
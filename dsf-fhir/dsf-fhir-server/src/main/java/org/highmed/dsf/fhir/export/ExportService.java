@@ -0,0 +1,81 @@
+package org.highmed.dsf.fhir.export;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+
+import org.highmed.dsf.fhir.authentication.User;
+import org.hl7.fhir.r4.model.Resource;
+
+/**
+ * Asynchronous bulk export of current resources as gzip compressed NDJSON files, see
+ * <a href="https://hl7.org/fhir/uv/bulkdata/export/index.html">https://hl7.org/fhir/uv/bulkdata/export/index.html</a>.
+ * Exports are generated in the background, status and files are only accessible for the user that started the export.
+ * In deployments with multiple FHIR server nodes, exports are only executed by one node.
+ */
+public interface ExportService
+{
+	String OPERATION = "$export";
+
+	/**
+	 * Kick-off request, supports the <code>_type</code>, <code>_since</code> and <code>_outputFormat</code> parameters,
+	 * requires <code>Prefer: respond-async</code>.
+	 *
+	 * @param user
+	 *            not <code>null</code>
+	 * @param uri
+	 *            not <code>null</code>
+	 * @param headers
+	 *            not <code>null</code>
+	 * @param resourceType
+	 *            may be <code>null</code>, export of the given resource type if not <code>null</code> (type level
+	 *            export), resource types from <code>_type</code> or all resource types otherwise
+	 * @return <code>202 Accepted</code> with the status url as <code>Content-Location</code> header, <code>503 Service
+	 *         Unavailable</code> if exports are executed by another FHIR server node
+	 */
+	Response startExport(User user, UriInfo uri, HttpHeaders headers, Class<? extends Resource> resourceType);
+
+	/**
+	 * @param user
+	 *            not <code>null</code>
+	 * @param jobId
+	 *            not <code>null</code>
+	 * @param uri
+	 *            not <code>null</code>
+	 * @param headers
+	 *            not <code>null</code>
+	 * @return <code>202 Accepted</code> while in progress, <code>200 OK</code> with the export manifest if completed,
+	 *         <code>500 Internal Server Error</code> if failed
+	 */
+	Response getStatus(User user, String jobId, UriInfo uri, HttpHeaders headers);
+
+	/**
+	 * @param user
+	 *            not <code>null</code>
+	 * @param jobId
+	 *            not <code>null</code>
+	 * @param fileName
+	 *            not <code>null</code>
+	 * @param uri
+	 *            not <code>null</code>
+	 * @param headers
+	 *            not <code>null</code>
+	 * @return NDJSON file, gzip content encoded if accepted by the client
+	 */
+	Response getFile(User user, String jobId, String fileName, UriInfo uri, HttpHeaders headers);
+
+	/**
+	 * Cancels the export if in progress and deletes exported files
+	 *
+	 * @param user
+	 *            not <code>null</code>
+	 * @param jobId
+	 *            not <code>null</code>
+	 * @param uri
+	 *            not <code>null</code>
+	 * @param headers
+	 *            not <code>null</code>
+	 * @return <code>202 Accepted</code>
+	 */
+	Response deleteExport(User user, String jobId, UriInfo uri, HttpHeaders headers);
+}
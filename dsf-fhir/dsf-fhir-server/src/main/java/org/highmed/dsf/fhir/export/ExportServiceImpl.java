@@ -0,0 +1,596 @@
+package org.highmed.dsf.fhir.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.sql.DataSource;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
+
+import org.highmed.dsf.fhir.authentication.User;
+import org.highmed.dsf.fhir.dao.ResourceDao;
+import org.highmed.dsf.fhir.dao.jdbc.ReadReplicaDataSource;
+import org.highmed.dsf.fhir.export.ExportJob.ExportJobStatus;
+import org.highmed.dsf.fhir.export.ExportJob.ExportOutput;
+import org.highmed.dsf.fhir.help.ParameterConverter;
+import org.highmed.dsf.fhir.help.ResponseGenerator;
+import org.hl7.fhir.r4.model.OperationOutcome;
+import org.hl7.fhir.r4.model.OperationOutcome.IssueSeverity;
+import org.hl7.fhir.r4.model.OperationOutcome.IssueType;
+import org.hl7.fhir.r4.model.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import ca.uhn.fhir.model.api.annotation.ResourceDef;
+
+/**
+ * Exports are only executed by the FHIR server node holding a Postgres advisory lock, kick-off requests are answered
+ * with <code>503 Service Unavailable</code> by other nodes. Export jobs are held in memory and their files are written
+ * to a local directory, status and file requests must therefore reach the node that started the export. The lock is
+ * acquired with the first kick-off request and held on a dedicated connection until shutdown; if the node holding the
+ * lock stops, the next kick-off request on any node acquires the lock.
+ */
+public class ExportServiceImpl implements ExportService, InitializingBean, DisposableBean
+{
+	private static final Logger logger = LoggerFactory.getLogger(ExportServiceImpl.class);
+
+	private static final String MEDIA_TYPE_FHIR_NDJSON = ParameterConverter.CT_FHIR_NDJSON;
+	private static final List<String> OUTPUT_FORMATS = Stream
+			.concat(ParameterConverter.NDJSON_FORMATS.stream(), Stream.of(ParameterConverter.NDJSON_FORMAT))
+			.collect(Collectors.toList());
+
+	private static final String FILE_SUFFIX = ".ndjson";
+	private static final String GZIP_SUFFIX = ".gz";
+
+	private static final String PARAMETER_TYPE = "_type";
+	private static final String PARAMETER_SINCE = "_since";
+	private static final String PARAMETER_OUTPUT_FORMAT = "_outputFormat";
+
+	private static final String HEADER_PREFER = "Prefer";
+	private static final String HEADER_PROGRESS = "X-Progress";
+	private static final String RESPOND_ASYNC = "respond-async";
+
+	private static final int RETRY_AFTER_SECONDS = 2;
+
+	// "dsfexprt" as ascii
+	private static final long EXPORT_LOCK_KEY = 0x6473666578707274L;
+	private static final int LOCK_CONNECTION_VALIDATION_TIMEOUT_SECONDS = 1;
+
+	private final String serverBase;
+	private final Path exportDirectory;
+	private final int threads;
+	private final int retentionHours;
+	private final Map<String, ResourceDao<?>> daosByResourceTypeName;
+	private final ResponseGenerator responseGenerator;
+	private final ObjectMapper objectMapper;
+	private final DataSource lockDataSource;
+
+	private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+	private Connection lockConnection;
+
+	private ExecutorService executor;
+	private ScheduledExecutorService cleanupExecutor;
+
+	/**
+	 * @param serverBase
+	 *            not <code>null</code>
+	 * @param exportDirectory
+	 *            not <code>null</code>, job directories of previous exports are deleted when the export lock is
+	 *            acquired
+	 * @param threads
+	 *            {@code >0}, number of exports generated in parallel
+	 * @param retentionHours
+	 *            {@code >0}, hours after which finished exports and their files are deleted
+	 * @param daos
+	 *            not <code>null</code>, daos of all exportable resource types
+	 * @param responseGenerator
+	 *            not <code>null</code>
+	 * @param objectMapper
+	 *            not <code>null</code>
+	 * @param lockDataSource
+	 *            not <code>null</code>, used to hold the export lock, should not be pooled
+	 */
+	public ExportServiceImpl(String serverBase, Path exportDirectory, int threads, int retentionHours,
+			List<? extends ResourceDao<?>> daos, ResponseGenerator responseGenerator, ObjectMapper objectMapper,
+			DataSource lockDataSource)
+	{
+		this.serverBase = serverBase;
+		this.exportDirectory = exportDirectory;
+		this.threads = threads;
+		this.retentionHours = retentionHours;
+		this.daosByResourceTypeName = daos == null ? null
+				: daos.stream().collect(Collectors.toMap(ResourceDao::getResourceTypeName, Function.identity()));
+		this.responseGenerator = responseGenerator;
+		this.objectMapper = objectMapper;
+		this.lockDataSource = lockDataSource;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		Objects.requireNonNull(serverBase, "serverBase");
+		Objects.requireNonNull(exportDirectory, "exportDirectory");
+		if (threads <= 0)
+			throw new IllegalArgumentException("threads <= 0");
+		if (retentionHours <= 0)
+			throw new IllegalArgumentException("retentionHours <= 0");
+		Objects.requireNonNull(daosByResourceTypeName, "daosByResourceTypeName");
+		Objects.requireNonNull(responseGenerator, "responseGenerator");
+		Objects.requireNonNull(objectMapper, "objectMapper");
+		Objects.requireNonNull(lockDataSource, "lockDataSource");
+
+		Files.createDirectories(exportDirectory);
+
+		executor = Executors.newFixedThreadPool(threads);
+		cleanupExecutor = Executors.newSingleThreadScheduledExecutor();
+		cleanupExecutor.scheduleWithFixedDelay(this::deleteExpiredJobs, 10, 10, TimeUnit.MINUTES);
+	}
+
+	@Override
+	public void destroy() throws Exception
+	{
+		jobs.values().forEach(ExportJob::cancel);
+
+		cleanupExecutor.shutdownNow();
+		executor.shutdownNow();
+		if (!executor.awaitTermination(10, TimeUnit.SECONDS))
+			logger.warn("Export executor did not terminate");
+
+		closeLockConnection();
+	}
+
+	private synchronized boolean hasExportLock()
+	{
+		try
+		{
+			if (lockConnection != null && lockConnection.isValid(LOCK_CONNECTION_VALIDATION_TIMEOUT_SECONDS))
+				return true;
+		}
+		catch (SQLException e)
+		{
+			logger.warn("Unable to validate export lock connection: {}", e.getMessage());
+		}
+
+		closeLockConnection();
+
+		try
+		{
+			Connection connection = lockDataSource.getConnection();
+			boolean locked = false;
+
+			try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)"))
+			{
+				statement.setLong(1, EXPORT_LOCK_KEY);
+
+				try (ResultSet result = statement.executeQuery())
+				{
+					locked = result.next() && result.getBoolean(1);
+				}
+			}
+			finally
+			{
+				if (!locked)
+					connection.close();
+			}
+
+			if (locked)
+			{
+				logger.info("Export lock acquired, exports are executed by this node");
+
+				lockConnection = connection;
+				deletePreviousJobDirectories();
+			}
+
+			return locked;
+		}
+		catch (SQLException e)
+		{
+			logger.warn("Unable to acquire export lock: {}", e.getMessage());
+			return false;
+		}
+	}
+
+	private synchronized void closeLockConnection()
+	{
+		if (lockConnection == null)
+			return;
+
+		try
+		{
+			lockConnection.close();
+		}
+		catch (SQLException e)
+		{
+			logger.debug("Unable to close export lock connection: {}", e.getMessage());
+		}
+
+		lockConnection = null;
+	}
+
+	/**
+	 * Jobs are not persisted, files of exports started before the lock was acquired can not be accessed
+	 */
+	private void deletePreviousJobDirectories()
+	{
+		try (Stream<Path> directories = Files.list(exportDirectory))
+		{
+			for (Path directory : directories.filter(this::isPreviousJobDirectory).collect(Collectors.toList()))
+			{
+				logger.debug("Deleting files of previous export {}", directory.getFileName());
+				deleteDirectory(directory);
+			}
+		}
+		catch (IOException e)
+		{
+			logger.warn("Unable to delete files of previous exports: {}", e.getMessage());
+		}
+	}
+
+	private boolean isPreviousJobDirectory(Path directory)
+	{
+		String name = directory.getFileName().toString();
+		if (!Files.isDirectory(directory) || jobs.containsKey(name))
+			return false;
+
+		try
+		{
+			return UUID.fromString(name).toString().equals(name);
+		}
+		catch (IllegalArgumentException e)
+		{
+			return false;
+		}
+	}
+
+	@Override
+	public Response startExport(User user, UriInfo uri, HttpHeaders headers, Class<? extends Resource> resourceType)
+	{
+		List<String> prefer = headers.getRequestHeader(HEADER_PREFER);
+		if (prefer == null || prefer.stream().noneMatch(p -> p.contains(RESPOND_ASYNC)))
+			return badRequest("Header " + HEADER_PREFER + ": " + RESPOND_ASYNC + " required");
+
+		MultivaluedMap<String, String> parameters = uri.getQueryParameters();
+
+		String outputFormat = parameters.getFirst(PARAMETER_OUTPUT_FORMAT);
+		if (outputFormat != null && !OUTPUT_FORMATS.contains(outputFormat))
+			return badRequest(PARAMETER_OUTPUT_FORMAT + " '" + outputFormat + "' not supported, supported: "
+					+ String.join(", ", OUTPUT_FORMATS));
+
+		OffsetDateTime since = null;
+		String sinceValue = parameters.getFirst(PARAMETER_SINCE);
+		if (sinceValue != null)
+		{
+			try
+			{
+				since = OffsetDateTime.parse(sinceValue);
+			}
+			catch (DateTimeParseException e)
+			{
+				return badRequest(PARAMETER_SINCE + " '" + sinceValue + "' not a valid instant");
+			}
+		}
+
+		List<String> resourceTypeNames = getResourceTypeNames(parameters.get(PARAMETER_TYPE));
+		if (resourceType != null)
+		{
+			String resourceTypeName = resourceType.getAnnotation(ResourceDef.class).name();
+			if (!resourceTypeNames.isEmpty() && !resourceTypeNames.equals(List.of(resourceTypeName)))
+				return badRequest(PARAMETER_TYPE + " not supported for " + resourceTypeName + " export");
+
+			resourceTypeNames = List.of(resourceTypeName);
+		}
+		else if (resourceTypeNames.isEmpty())
+			resourceTypeNames = daosByResourceTypeName.keySet().stream().sorted().collect(Collectors.toList());
+
+		List<ResourceDao<?>> daos = new ArrayList<>();
+		for (String resourceTypeName : resourceTypeNames)
+		{
+			ResourceDao<?> dao = daosByResourceTypeName.get(resourceTypeName);
+			if (dao == null)
+				return badRequest("Resource type '" + resourceTypeName + "' not supported");
+
+			daos.add(dao);
+		}
+
+		if (!hasExportLock())
+		{
+			logger.warn("Export request rejected: Exports are executed by another node");
+
+			OperationOutcome outcome = responseGenerator.createOutcome(IssueSeverity.ERROR, IssueType.TRANSIENT,
+					"Exports are executed by another FHIR server node");
+			return Response.status(Status.SERVICE_UNAVAILABLE).entity(outcome).build();
+		}
+
+		ExportJob job = new ExportJob(UUID.randomUUID().toString(), user, daos, since, uri.getRequestUri().toString());
+		jobs.put(job.getId(), job);
+		executor.execute(() -> export(job));
+
+		logger.info("Export {} of {} for user '{}' started", job.getId(), resourceTypeNames, user.getName());
+
+		return Response.status(Status.ACCEPTED).header(HttpHeaders.CONTENT_LOCATION, getStatusUrl(job)).build();
+	}
+
+	private List<String> getResourceTypeNames(List<String> typeParameters)
+	{
+		if (typeParameters == null)
+			return List.of();
+
+		return typeParameters.stream().flatMap(t -> Stream.of(t.split(","))).map(String::trim).filter(t -> !t.isEmpty())
+				.distinct().collect(Collectors.toList());
+	}
+
+	private String getStatusUrl(ExportJob job)
+	{
+		return serverBase + "/" + OPERATION + "/" + job.getId();
+	}
+
+	private void export(ExportJob job)
+	{
+		if (!job.start())
+			return;
+
+		// exports do not need to see writes of the current session, may be executed on the read replica
+		ReadReplicaDataSource.setReadContext(null);
+		try
+		{
+			Path jobDirectory = exportDirectory.resolve(job.getId());
+			Files.createDirectories(jobDirectory);
+
+			for (ResourceDao<?> dao : job.getDaos())
+			{
+				if (job.isCancelled())
+					break;
+
+				String fileName = dao.getResourceTypeName() + FILE_SUFFIX;
+				Path file = jobDirectory.resolve(fileName + GZIP_SUFFIX);
+
+				long count;
+				try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+						new GZIPOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8)))
+				{
+					count = dao.export(job.getUser(), job.getSince(), json ->
+					{
+						if (job.isCancelled())
+							throw new IOException("Export cancelled");
+
+						writer.write(json);
+						writer.write('\n');
+					});
+				}
+
+				logger.debug("Export {}: {} {} resource{}", job.getId(), count, dao.getResourceTypeName(),
+						count != 1 ? "s" : "");
+
+				if (count > 0)
+					job.addOutput(new ExportOutput(dao.getResourceTypeName(), fileName, count));
+				else
+					Files.delete(file);
+			}
+
+			job.complete();
+
+			logger.info("Export {} {}", job.getId(), job.getStatus().name().toLowerCase());
+		}
+		catch (Exception e)
+		{
+			if (!job.isCancelled())
+			{
+				logger.warn("Export {} failed: {} - {}", job.getId(), e.getClass().getName(), e.getMessage());
+				job.fail("Export failed: " + e.getMessage());
+			}
+		}
+		finally
+		{
+			ReadReplicaDataSource.clearReadContext();
+		}
+
+		if (job.isCancelled())
+			deleteJobDirectory(job);
+	}
+
+	private void deleteExpiredJobs()
+	{
+		OffsetDateTime expired = OffsetDateTime.now().minusHours(retentionHours);
+
+		jobs.values().stream().filter(j -> j.getFinished() != null && j.getFinished().isBefore(expired))
+				.collect(Collectors.toList()).forEach(job ->
+				{
+					logger.debug("Deleting expired export {}", job.getId());
+					jobs.remove(job.getId());
+					deleteJobDirectory(job);
+				});
+	}
+
+	private void deleteJobDirectory(ExportJob job)
+	{
+		try
+		{
+			deleteDirectory(exportDirectory.resolve(job.getId()));
+		}
+		catch (IOException e)
+		{
+			logger.warn("Unable to delete files of export {}: {}", job.getId(), e.getMessage());
+		}
+	}
+
+	private void deleteDirectory(Path directory) throws IOException
+	{
+		if (!Files.exists(directory))
+			return;
+
+		try (Stream<Path> files = Files.walk(directory))
+		{
+			for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+				Files.delete(file);
+		}
+	}
+
+	private Optional<ExportJob> getJob(User user, String jobId)
+	{
+		ExportJob job = jobs.get(jobId);
+		return job != null && job.isOwner(user) ? Optional.of(job) : Optional.empty();
+	}
+
+	@Override
+	public Response getStatus(User user, String jobId, UriInfo uri, HttpHeaders headers)
+	{
+		Optional<ExportJob> optJob = getJob(user, jobId);
+		if (optJob.isEmpty() || optJob.get().isCancelled())
+			return responseGenerator.notFound(jobId, "Export");
+
+		ExportJob job = optJob.get();
+		switch (job.getStatus())
+		{
+			case COMPLETED:
+				return Response
+						.ok(createManifest(job), MediaType.APPLICATION_JSON_TYPE).header(HttpHeaders.EXPIRES, job
+								.getFinished().plusHours(retentionHours).format(DateTimeFormatter.RFC_1123_DATE_TIME))
+						.build();
+
+			case FAILED:
+				OperationOutcome outcome = responseGenerator.createOutcome(IssueSeverity.ERROR, IssueType.EXCEPTION,
+						job.getErrorMessage());
+				return Response.status(Status.INTERNAL_SERVER_ERROR).entity(outcome).build();
+
+			default:
+				return Response.status(Status.ACCEPTED)
+						.header(HEADER_PROGRESS,
+								"Exported " + job.getProgress() + " of " + job.getDaos().size() + " resource types")
+						.header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).build();
+		}
+	}
+
+	private String createManifest(ExportJob job)
+	{
+		ObjectNode manifest = objectMapper.createObjectNode();
+		manifest.put("transactionTime", job.getTransactionTime().toString());
+		manifest.put("request", job.getRequest());
+		manifest.put("requiresAccessToken", true);
+
+		ArrayNode output = manifest.putArray("output");
+		for (ExportOutput o : job.getOutputs())
+		{
+			ObjectNode file = output.addObject();
+			file.put("type", o.getResourceTypeName());
+			file.put("url", getStatusUrl(job) + "/" + o.getFileName());
+			file.put("count", o.getCount());
+		}
+
+		manifest.putArray("error");
+
+		try
+		{
+			return objectMapper.writeValueAsString(manifest);
+		}
+		catch (JsonProcessingException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public Response getFile(User user, String jobId, String fileName, UriInfo uri, HttpHeaders headers)
+	{
+		Optional<ExportJob> job = getJob(user, jobId);
+		if (job.isEmpty() || !ExportJobStatus.COMPLETED.equals(job.get().getStatus())
+				|| job.get().getOutputs().stream().noneMatch(o -> o.getFileName().equals(fileName)))
+			return responseGenerator.notFound(fileName, "Export file");
+
+		Path file = exportDirectory.resolve(jobId).resolve(fileName + GZIP_SUFFIX);
+
+		if (acceptsGzip(headers))
+		{
+			StreamingOutput content = out -> Files.copy(file, out);
+			return Response.ok(content, MEDIA_TYPE_FHIR_NDJSON).header(HttpHeaders.CONTENT_ENCODING, "gzip").build();
+		}
+		else
+		{
+			StreamingOutput content = out ->
+			{
+				try (InputStream in = new GZIPInputStream(Files.newInputStream(file)))
+				{
+					in.transferTo(out);
+				}
+			};
+			return Response.ok(content, MEDIA_TYPE_FHIR_NDJSON).build();
+		}
+	}
+
+	private boolean acceptsGzip(HttpHeaders headers)
+	{
+		List<String> acceptEncoding = headers.getRequestHeader(HttpHeaders.ACCEPT_ENCODING);
+		return acceptEncoding != null && acceptEncoding.stream().flatMap(a -> Stream.of(a.split(",")))
+				.map(a -> a.trim().split(";")[0]).anyMatch("gzip"::equalsIgnoreCase);
+	}
+
+	@Override
+	public Response deleteExport(User user, String jobId, UriInfo uri, HttpHeaders headers)
+	{
+		Optional<ExportJob> job = getJob(user, jobId);
+		if (job.isEmpty() || job.get().isCancelled())
+			return responseGenerator.notFound(jobId, "Export");
+
+		boolean running = ExportJobStatus.IN_PROGRESS.equals(job.get().getStatus());
+		job.get().cancel();
+		jobs.remove(jobId);
+
+		// running exports delete their files after cancellation
+		if (!running)
+			deleteJobDirectory(job.get());
+
+		logger.info("Export {} deleted by user '{}'", jobId, user.getName());
+
+		return Response.status(Status.ACCEPTED).build();
+	}
+
+	private Response badRequest(String message)
+	{
+		logger.warn("Export request rejected: {}", message);
+
+		OperationOutcome outcome = responseGenerator.createOutcome(IssueSeverity.ERROR, IssueType.PROCESSING, message);
+		return Response.status(Status.BAD_REQUEST).entity(outcome).build();
+	}
+}
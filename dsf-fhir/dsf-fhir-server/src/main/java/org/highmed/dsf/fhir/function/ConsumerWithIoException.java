@@ -0,0 +1,9 @@
+package org.highmed.dsf.fhir.function;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface ConsumerWithIoException<T>
+{
+	void accept(T t) throws IOException;
+}
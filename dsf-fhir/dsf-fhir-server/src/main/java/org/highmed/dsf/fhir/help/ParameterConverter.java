@@ -4,6 +4,7 @@ import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +39,9 @@ public class ParameterConverter
 	public static final String XML_FORMAT = "xml";
 	public static final List<String> XML_FORMATS = Arrays.asList(Constants.CT_FHIR_XML, Constants.CT_FHIR_XML_NEW,
 			MediaType.APPLICATION_XML, MediaType.TEXT_XML);
+	public static final String NDJSON_FORMAT = "ndjson";
+	public static final String CT_FHIR_NDJSON = "application/fhir+ndjson";
+	public static final List<String> NDJSON_FORMATS = Arrays.asList(CT_FHIR_NDJSON, "application/ndjson");
 
 	private final ExceptionHandler exceptionHandler;
 
@@ -96,54 +100,78 @@ public class ParameterConverter
 	{
 		String format = uri.getQueryParameters().getFirst("_format");
 		boolean pretty = "true".equals(uri.getQueryParameters().getFirst("_pretty"));
+		boolean summary = "true".equals(uri.getQueryParameters().getFirst("_summary"));
 		String accept = headers.getHeaderString(HttpHeaders.ACCEPT);
 
 		if (format == null || format.isBlank())
-			return getMediaType(accept, pretty);
+			return getMediaType(accept, pretty, summary);
 
 		else if (XML_FORMATS.contains(format) || JSON_FORMATS.contains(format) || MediaType.TEXT_HTML.equals(format))
-			return getMediaType(format, pretty);
+			return getMediaType(format, pretty, summary);
 		else if (XML_FORMAT.equals(format))
-			return Optional.of(mediaType("application", "fhir+xml", pretty));
+			return Optional.of(mediaType("application", "fhir+xml", pretty, summary));
 		else if (JSON_FORMAT.equals(format))
-			return Optional.of(mediaType("application", "fhir+json", pretty));
+			return Optional.of(mediaType("application", "fhir+json", pretty, summary));
 		else if (HTML_FORMAT.equals(format))
-			return Optional.of(mediaType("text", "html", pretty));
+			return Optional.of(mediaType("text", "html", pretty, summary));
 		else
 			return Optional.empty();
 	}
 
-	private Optional<MediaType> getMediaType(String mediaType, boolean pretty)
+	/**
+	 * @param uri
+	 *            not <code>null</code>
+	 * @param headers
+	 *            not <code>null</code>
+	 * @return <code>true</code> if newline delimited JSON is requested via <code>_format</code> parameter or
+	 *         <code>Accept</code> header
+	 */
+	public boolean isNdjsonRequested(UriInfo uri, HttpHeaders headers)
+	{
+		String format = uri.getQueryParameters().getFirst("_format");
+		if (format != null && !format.isBlank())
+			return NDJSON_FORMAT.equals(format) || NDJSON_FORMATS.contains(format);
+
+		String accept = headers.getHeaderString(HttpHeaders.ACCEPT);
+		return accept != null && NDJSON_FORMATS.stream().anyMatch(accept::contains);
+	}
+
+	private Optional<MediaType> getMediaType(String mediaType, boolean pretty, boolean summary)
 	{
 		if (mediaType == null || mediaType.isBlank())
 			mediaType = MediaType.WILDCARD;
 
 		if (mediaType.contains(MediaType.TEXT_HTML))
-			return Optional.of(mediaType("text", "html", pretty));
+			return Optional.of(mediaType("text", "html", pretty, summary));
 		else if (mediaType.contains(Constants.CT_FHIR_JSON_NEW))
-			return Optional.of(mediaType("application", "fhir+json", pretty));
+			return Optional.of(mediaType("application", "fhir+json", pretty, summary));
 		else if (mediaType.contains(Constants.CT_FHIR_JSON))
-			return Optional.of(mediaType("application", "json+fhir", pretty));
+			return Optional.of(mediaType("application", "json+fhir", pretty, summary));
 		else if (mediaType.contains(MediaType.APPLICATION_JSON))
-			return Optional.of(mediaType("application", "json", pretty));
+			return Optional.of(mediaType("application", "json", pretty, summary));
 		else if (mediaType.contains(Constants.CT_FHIR_XML_NEW))
-			return Optional.of(mediaType("application", "fhir+xml", pretty));
+			return Optional.of(mediaType("application", "fhir+xml", pretty, summary));
 		else if (mediaType.contains(Constants.CT_FHIR_XML))
-			return Optional.of(mediaType("application", "xml+fhir", pretty));
+			return Optional.of(mediaType("application", "xml+fhir", pretty, summary));
 		else if (mediaType.contains(MediaType.APPLICATION_XML))
-			return Optional.of(mediaType("application", "xml", pretty));
+			return Optional.of(mediaType("application", "xml", pretty, summary));
 		else if (mediaType.contains(MediaType.TEXT_XML))
-			return Optional.of(mediaType("text", "xml", pretty));
+			return Optional.of(mediaType("text", "xml", pretty, summary));
 		else if (mediaType.contains(MediaType.WILDCARD))
-			return Optional.of(mediaType("application", "fhir+xml", pretty));
+			return Optional.of(mediaType("application", "fhir+xml", pretty, summary));
 		else
 			return Optional.empty();
 	}
 
-	private MediaType mediaType(String type, String subtype, boolean pretty)
+	private MediaType mediaType(String type, String subtype, boolean pretty, boolean summary)
 	{
-		return new MediaType(type, subtype,
-				!pretty ? null : Map.of(AbstractFhirAdapter.PRETTY, String.valueOf(pretty)));
+		Map<String, String> parameters = new HashMap<>();
+		if (pretty)
+			parameters.put(AbstractFhirAdapter.PRETTY, String.valueOf(pretty));
+		if (summary)
+			parameters.put(AbstractFhirAdapter.SUMMARY, String.valueOf(summary));
+
+		return new MediaType(type, subtype, parameters.isEmpty() ? null : parameters);
 	}
 
 	public PreferReturnType getPreferReturn(HttpHeaders headers)
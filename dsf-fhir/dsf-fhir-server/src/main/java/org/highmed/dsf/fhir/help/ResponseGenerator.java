@@ -1,11 +1,14 @@
 package org.highmed.dsf.fhir.help;
 
+import java.io.OutputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.time.ZoneId;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -18,6 +21,7 @@ import javax.ws.rs.core.UriBuilder;
 
 import org.highmed.dsf.fhir.authentication.User;
 import org.highmed.dsf.fhir.history.History;
+import org.highmed.dsf.fhir.history.HistoryCursor;
 import org.highmed.dsf.fhir.history.HistoryEntry;
 import org.highmed.dsf.fhir.prefer.PreferReturnType;
 import org.highmed.dsf.fhir.search.PageAndCount;
@@ -41,6 +45,7 @@ import org.hl7.fhir.utilities.validation.ValidationMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.validation.ValidationResult;
 
@@ -49,10 +54,12 @@ public class ResponseGenerator
 	private static final Logger logger = LoggerFactory.getLogger(ResponseGenerator.class);
 
 	private final String serverBase;
+	private final FhirContext fhirContext;
 
-	public ResponseGenerator(String serverBase)
+	public ResponseGenerator(String serverBase, FhirContext fhirContext)
 	{
 		this.serverBase = serverBase;
+		this.fhirContext = fhirContext;
 	}
 
 	public OperationOutcome createOutcome(IssueSeverity severity, IssueType type, String diagnostics)
@@ -173,6 +180,62 @@ public class ResponseGenerator
 		return bundle;
 	}
 
+	/**
+	 * @param mediaType
+	 *            not <code>null</code>, JSON or XML, see {@link SearchSetWriter#isSupported(MediaType)}
+	 * @param out
+	 *            not <code>null</code>
+	 * @param errors
+	 *            not <code>null</code>
+	 * @param bundleUri
+	 *            not <code>null</code>
+	 * @param format
+	 *            may be <code>null</code>
+	 * @param pretty
+	 *            may be <code>null</code>
+	 * @param includeFilter
+	 *            not <code>null</code>
+	 * @param resourceModifier
+	 *            not <code>null</code>
+	 * @return {@link SearchSetWriter} writing a {@link Bundle} of type {@link BundleType#SEARCHSET} to the given
+	 *         {@link OutputStream}
+	 */
+	public <R extends Resource> SearchSetWriter<R> createSearchSetWriter(MediaType mediaType, OutputStream out,
+			List<SearchQueryParameterError> errors, UriBuilder bundleUri, String format, String pretty,
+			Predicate<Resource> includeFilter, Consumer<Resource> resourceModifier)
+	{
+		return new SearchSetWriter<>(this, fhirContext, mediaType, out, errors, bundleUri, format, pretty,
+				includeFilter, resourceModifier);
+	}
+
+	/**
+	 * @param total
+	 *            number of resources matching the search query
+	 * @param pageAndCount
+	 *            not <code>null</code>
+	 * @param bundleUri
+	 *            not <code>null</code>
+	 * @param format
+	 *            may be <code>null</code>
+	 * @param pretty
+	 *            may be <code>null</code>
+	 * @param isEmpty
+	 *            <code>true</code> if the requested page does not contain matching resources
+	 * @return {@link Bundle} of type {@link BundleType#SEARCHSET} without entries, used by {@link SearchSetWriter}
+	 */
+	public Bundle createSearchSetHeader(int total, PageAndCount pageAndCount, UriBuilder bundleUri, String format,
+			String pretty, boolean isEmpty)
+	{
+		Bundle bundle = new Bundle();
+		bundle.setTimestamp(new Date());
+		bundle.setType(BundleType.SEARCHSET);
+		bundle.setTotal(total);
+
+		setLinks(pageAndCount, bundleUri, format, pretty, bundle, isEmpty, total);
+
+		return bundle;
+	}
+
 	public BundleEntryComponent toBundleEntryComponent(Resource resource, SearchEntryMode mode)
 	{
 		BundleEntryComponent entry = new BundleEntryComponent();
@@ -194,14 +257,36 @@ public class ResponseGenerator
 		if (!errors.isEmpty())
 			bundle.addEntry(toBundleEntryComponent(toOperationOutcomeWarning(errors), SearchEntryMode.OUTCOME));
 
-		bundle.setTotal(history.getTotal());
+		if (history.hasTotal())
+		{
+			bundle.setTotal(history.getTotal());
 
-		setLinks(history.getPageAndCount(), bundleUri, format, pretty, bundle, history.getEntries().isEmpty(),
-				history.getTotal());
+			setLinks(history.getPageAndCount(), bundleUri, format, pretty, bundle, history.getEntries().isEmpty(),
+					history.getTotal());
+		}
+		else
+			setCursorLinks(history, bundleUri, format, pretty, bundle);
 
 		return bundle;
 	}
 
+	private void setCursorLinks(History history, UriBuilder bundleUri, String format, String pretty, Bundle bundle)
+	{
+		if (format != null)
+			bundleUri = bundleUri.replaceQueryParam("_format", format);
+		if (pretty != null)
+			bundleUri = bundleUri.replaceQueryParam("_pretty", pretty);
+
+		bundleUri = bundleUri.replaceQueryParam("_count", history.getPageAndCount().getCount());
+		bundle.addLink().setRelation("self").setUrlElement(new UriType(bundleUri.build()));
+
+		if (history.getNext() != null)
+		{
+			bundleUri = bundleUri.replaceQueryParam(HistoryCursor.PARAMETER_CURSOR, history.getNext().encode());
+			bundle.addLink().setRelation("next").setUrlElement(new UriType(bundleUri.build()));
+		}
+	}
+
 	public BundleEntryComponent toBundleEntryComponent(HistoryEntry historyEntry)
 	{
 		BundleEntryComponent entry = new BundleEntryComponent();
@@ -0,0 +1,382 @@
+package org.highmed.dsf.fhir.help;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.UriBuilder;
+
+import org.highmed.dsf.fhir.adapter.AbstractFhirAdapter;
+import org.highmed.dsf.fhir.search.PageAndCount;
+import org.highmed.dsf.fhir.search.SearchQueryParameterError;
+import org.highmed.dsf.fhir.search.SearchResultHandler;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.SearchEntryMode;
+import org.hl7.fhir.r4.model.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+
+/**
+ * Writes a search-set {@link Bundle} to an {@link OutputStream} while the search result is read from the database. The
+ * {@link Bundle} header is encoded when the total is known, every matching resource is encoded individually and
+ * appended to the output, only a single matching resource is held in memory at any time. Entries are encoded as part of
+ * a single entry {@link Bundle}, the entry is then cut from the encoded {@link Bundle}, this ensures the same element
+ * order and escaping as used by the HAPI parser for complete bundles.
+ * <p>
+ * The encoded output is buffered in memory up to {@value #RESPONSE_BUFFER_MAX_CHARACTERS} characters and written to the
+ * {@link OutputStream} by {@link #finish()}, small search-sets are therefore sent after the database connection used to
+ * read the search result was released. Larger search-sets are written to the {@link OutputStream} as soon as the buffer
+ * is exceeded, holding the database connection until the client received all matching resources.
+ * <p>
+ * Supports JSON and XML media types, see {@link #isSupported(MediaType)}. Included resources are written after all
+ * matching resources, as done for non streamed search-set bundles. Encoded include entries are buffered in memory up to
+ * {@value #INCLUDE_BUFFER_MAX_CHARACTERS} characters, additional include entries are buffered in a temporary file
+ * deleted by {@link #close()}. An {@link org.hl7.fhir.r4.model.OperationOutcome} with search parameter errors is
+ * written as the last entry.
+ *
+ * @param <R>
+ *            type of the matching resources
+ */
+public class SearchSetWriter<R extends Resource> implements SearchResultHandler<R>, AutoCloseable
+{
+	private static final Logger logger = LoggerFactory.getLogger(SearchSetWriter.class);
+
+	public static final int RESPONSE_BUFFER_MAX_CHARACTERS = 1024 * 1024;
+	public static final int INCLUDE_BUFFER_MAX_CHARACTERS = 1024 * 1024;
+
+	private static final String JSON_ENTRY = "\"entry\"";
+	private static final String XML_ENTRY = "<entry>";
+	private static final String XML_BUNDLE_END = "</Bundle>";
+
+	/**
+	 * @param mediaType
+	 *            may be <code>null</code>
+	 * @return <code>true</code> if the given media type is a JSON or XML media type
+	 */
+	public static boolean isSupported(MediaType mediaType)
+	{
+		return isJson(mediaType) || isXml(mediaType);
+	}
+
+	private static boolean isJson(MediaType mediaType)
+	{
+		return mediaType != null && mediaType.getSubtype().contains("json");
+	}
+
+	private static boolean isXml(MediaType mediaType)
+	{
+		return mediaType != null && mediaType.getSubtype().contains("xml");
+	}
+
+	private final ResponseGenerator responseGenerator;
+	private final IParser parser;
+	private final boolean json;
+	private final Writer writer;
+	private final List<SearchQueryParameterError> errors;
+	private final UriBuilder bundleUri;
+	private final String format;
+	private final String pretty;
+	private final Predicate<Resource> includeFilter;
+	private final Consumer<Resource> resourceModifier;
+
+	private final StringBuilder responseBuffer = new StringBuilder();
+	private boolean responseBufferExceeded;
+
+	private final StringBuilder includeEntries = new StringBuilder();
+	private Path includeEntriesFile;
+	private Writer includeEntriesFileWriter;
+	private boolean includeEntryBuffered;
+
+	private boolean headerWritten;
+	private boolean entryWritten;
+
+	/**
+	 * @param responseGenerator
+	 *            not <code>null</code>
+	 * @param fhirContext
+	 *            not <code>null</code>
+	 * @param mediaType
+	 *            not <code>null</code>, JSON or XML, see {@link #isSupported(MediaType)}
+	 * @param out
+	 *            not <code>null</code>
+	 * @param errors
+	 *            not <code>null</code>
+	 * @param bundleUri
+	 *            not <code>null</code>
+	 * @param format
+	 *            may be <code>null</code>
+	 * @param pretty
+	 *            may be <code>null</code>
+	 * @param includeFilter
+	 *            not <code>null</code>, included resources not matching the filter are not written
+	 * @param resourceModifier
+	 *            not <code>null</code>, called for every resource before it is written
+	 */
+	public SearchSetWriter(ResponseGenerator responseGenerator, FhirContext fhirContext, MediaType mediaType,
+			OutputStream out, List<SearchQueryParameterError> errors, UriBuilder bundleUri, String format,
+			String pretty, Predicate<Resource> includeFilter, Consumer<Resource> resourceModifier)
+	{
+		Objects.requireNonNull(fhirContext, "fhirContext");
+		Objects.requireNonNull(mediaType, "mediaType");
+		Objects.requireNonNull(out, "out");
+
+		if (!isSupported(mediaType))
+			throw new IllegalArgumentException("MediaType " + mediaType + " not supported");
+
+		this.responseGenerator = Objects.requireNonNull(responseGenerator, "responseGenerator");
+		this.json = isJson(mediaType);
+		this.parser = createParser(fhirContext, mediaType, json);
+		this.writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+		this.errors = Objects.requireNonNull(errors, "errors");
+		this.bundleUri = Objects.requireNonNull(bundleUri, "bundleUri");
+		this.format = format;
+		this.pretty = pretty;
+		this.includeFilter = Objects.requireNonNull(includeFilter, "includeFilter");
+		this.resourceModifier = Objects.requireNonNull(resourceModifier, "resourceModifier");
+	}
+
+	private static IParser createParser(FhirContext fhirContext, MediaType mediaType, boolean json)
+	{
+		IParser parser = json ? fhirContext.newJsonParser() : fhirContext.newXmlParser();
+
+		parser.setStripVersionsFromReferences(false);
+		parser.setOverrideResourceIdWithBundleEntryFullUrl(false);
+
+		if (mediaType.getParameters() != null)
+		{
+			parser.setPrettyPrint(Boolean.parseBoolean(mediaType.getParameters().get(AbstractFhirAdapter.PRETTY)));
+			parser.setSummaryMode(Boolean.parseBoolean(mediaType.getParameters().get(AbstractFhirAdapter.SUMMARY)));
+		}
+
+		return parser;
+	}
+
+	@Override
+	public void onTotal(int total, PageAndCount pageAndCount)
+	{
+		if (headerWritten)
+			throw new IllegalStateException("Total already written");
+
+		boolean isEmpty = pageAndCount.isCountOnly(total)
+				|| (pageAndCount.getPage() - 1) * pageAndCount.getCount() >= total;
+		Bundle header = responseGenerator.createSearchSetHeader(total, pageAndCount, bundleUri, format, pretty,
+				isEmpty);
+
+		String encoded = parser.encodeResourceToString(header);
+		int end = json ? encoded.lastIndexOf('}') : encoded.lastIndexOf(XML_BUNDLE_END);
+
+		write(encoded.substring(0, end));
+		headerWritten = true;
+	}
+
+	@Override
+	public void onMatch(R resource)
+	{
+		writeEntry(encodeEntry(resource, SearchEntryMode.MATCH));
+	}
+
+	@Override
+	public void onInclude(Resource resource)
+	{
+		if (!headerWritten)
+			throw new IllegalStateException("Total not written");
+
+		if (includeFilter.test(resource))
+			bufferIncludeEntry(encodeEntry(resource, SearchEntryMode.INCLUDE));
+	}
+
+	private void bufferIncludeEntry(String entry)
+	{
+		String value = includeEntryBuffered && json ? "," + entry : entry;
+		includeEntryBuffered = true;
+
+		if (includeEntriesFileWriter == null
+				&& includeEntries.length() + value.length() <= INCLUDE_BUFFER_MAX_CHARACTERS)
+		{
+			includeEntries.append(value);
+			return;
+		}
+
+		try
+		{
+			if (includeEntriesFileWriter == null)
+			{
+				includeEntriesFile = Files.createTempFile("search-set-includes", json ? ".json" : ".xml");
+				includeEntriesFileWriter = Files.newBufferedWriter(includeEntriesFile, StandardCharsets.UTF_8);
+				logger.debug("Include entries exceed {} characters, buffering in {}", INCLUDE_BUFFER_MAX_CHARACTERS,
+						includeEntriesFile);
+			}
+
+			includeEntriesFileWriter.write(value);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void writeIncludeEntries()
+	{
+		writeEntry(includeEntries.toString());
+		includeEntries.setLength(0);
+
+		if (includeEntriesFileWriter != null)
+		{
+			try
+			{
+				includeEntriesFileWriter.close();
+				includeEntriesFileWriter = null;
+
+				writeResponseBuffer();
+
+				try (Reader reader = Files.newBufferedReader(includeEntriesFile, StandardCharsets.UTF_8))
+				{
+					reader.transferTo(writer);
+				}
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private String encodeEntry(Resource resource, SearchEntryMode mode)
+	{
+		resourceModifier.accept(resource);
+
+		Bundle entryBundle = new Bundle();
+		entryBundle.addEntry(responseGenerator.toBundleEntryComponent(resource, mode));
+		String encoded = parser.encodeResourceToString(entryBundle);
+
+		if (json)
+		{
+			// first "entry" property of the single entry bundle, resource content follows the property
+			int start = encoded.indexOf('[', encoded.indexOf(JSON_ENTRY)) + 1;
+			int end = encoded.lastIndexOf(']');
+			return encoded.substring(start, end);
+		}
+		else
+		{
+			int start = encoded.indexOf(XML_ENTRY);
+			int end = encoded.lastIndexOf(XML_BUNDLE_END);
+			return encoded.substring(start, end);
+		}
+	}
+
+	private void writeEntry(String entry)
+	{
+		if (!headerWritten)
+			throw new IllegalStateException("Total not written");
+
+		if (json)
+			write(entryWritten ? "," : ",\"entry\":[");
+
+		write(entry);
+		entryWritten = true;
+	}
+
+	/**
+	 * Writes the {@link org.hl7.fhir.r4.model.OperationOutcome} entry if search parameter errors exist, completes the
+	 * {@link Bundle} and flushes the output. Does not close the underlying {@link OutputStream}.
+	 */
+	public void finish()
+	{
+		if (!headerWritten)
+			throw new IllegalStateException("Total not written");
+
+		if (includeEntryBuffered)
+			writeIncludeEntries();
+
+		if (!errors.isEmpty())
+			writeEntry(encodeEntry(responseGenerator.toOperationOutcomeWarning(errors), SearchEntryMode.OUTCOME));
+
+		if (json)
+			write(entryWritten ? "]}" : "}");
+		else
+			write(XML_BUNDLE_END);
+
+		try
+		{
+			writeResponseBuffer();
+			writer.flush();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Deletes the temporary file used to buffer include entries, if any. Does not close the underlying
+	 * {@link OutputStream}.
+	 */
+	@Override
+	public void close()
+	{
+		try
+		{
+			if (includeEntriesFileWriter != null)
+				includeEntriesFileWriter.close();
+
+			if (includeEntriesFile != null)
+				Files.deleteIfExists(includeEntriesFile);
+		}
+		catch (IOException e)
+		{
+			logger.warn("Unable to delete temporary file {}: {} - {}", includeEntriesFile, e.getClass().getName(),
+					e.getMessage());
+		}
+		finally
+		{
+			includeEntriesFileWriter = null;
+			includeEntriesFile = null;
+		}
+	}
+
+	private void write(String value)
+	{
+		if (!responseBufferExceeded && responseBuffer.length() + value.length() <= RESPONSE_BUFFER_MAX_CHARACTERS)
+		{
+			responseBuffer.append(value);
+			return;
+		}
+
+		try
+		{
+			if (!responseBufferExceeded)
+			{
+				logger.debug("Search-set exceeds {} characters, writing to client while reading search result",
+						RESPONSE_BUFFER_MAX_CHARACTERS);
+				responseBufferExceeded = true;
+			}
+
+			writeResponseBuffer();
+			writer.write(value);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void writeResponseBuffer() throws IOException
+	{
+		writer.append(responseBuffer);
+		responseBuffer.setLength(0);
+	}
+}
@@ -12,6 +12,7 @@ public class History
 	private final int total;
 	private final PageAndCount pageAndCount;
 	private final List<HistoryEntry> entries = new ArrayList<>();
+	private final HistoryCursor next;
 
 	public History(int total, PageAndCount pageAndCount, Collection<? extends HistoryEntry> entries)
 	{
@@ -19,6 +20,34 @@ public class History
 		this.pageAndCount = pageAndCount;
 		if (entries != null)
 			this.entries.addAll(entries);
+		this.next = null;
+	}
+
+	/**
+	 * Cursor based history without total
+	 *
+	 * @param pageAndCount
+	 *            not <code>null</code>, page ignored
+	 * @param entries
+	 *            may be <code>null</code>
+	 * @param next
+	 *            may be <code>null</code>, cursor of the last entry if more entries are available
+	 */
+	public History(PageAndCount pageAndCount, Collection<? extends HistoryEntry> entries, HistoryCursor next)
+	{
+		this.total = -1;
+		this.pageAndCount = pageAndCount;
+		if (entries != null)
+			this.entries.addAll(entries);
+		this.next = next;
+	}
+
+	/**
+	 * @return <code>false</code> for cursor based history
+	 */
+	public boolean hasTotal()
+	{
+		return total >= 0;
 	}
 
 	public int getTotal()
@@ -36,4 +65,11 @@ public class History
 		return Collections.unmodifiableList(entries);
 	}
 
-}
\ No newline at end of file
+	/**
+	 * @return <code>null</code> if not cursor based or no more entries available
+	 */
+	public HistoryCursor getNext()
+	{
+		return next;
+	}
+}
@@ -0,0 +1,101 @@
+package org.highmed.dsf.fhir.history;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Position in the history ordered by last updated, resource type, id and version. Encoded as an opaque url safe
+ * {@link String} for the <code>_cursor</code> parameter.
+ */
+public class HistoryCursor
+{
+	public static final String PARAMETER_CURSOR = "_cursor";
+
+	private static final String SEPARATOR = "|";
+
+	private final LocalDateTime lastUpdated;
+	private final String resourceType;
+	private final UUID id;
+	private final long version;
+
+	/**
+	 * @param lastUpdated
+	 *            not <code>null</code>
+	 * @param resourceType
+	 *            not <code>null</code>
+	 * @param id
+	 *            not <code>null</code>
+	 * @param version
+	 *            {@code >0}
+	 */
+	public HistoryCursor(LocalDateTime lastUpdated, String resourceType, UUID id, long version)
+	{
+		this.lastUpdated = Objects.requireNonNull(lastUpdated, "lastUpdated");
+		this.resourceType = Objects.requireNonNull(resourceType, "resourceType");
+		this.id = Objects.requireNonNull(id, "id");
+		this.version = version;
+	}
+
+	public static HistoryCursor of(HistoryEntry entry)
+	{
+		return new HistoryCursor(entry.getLastUpdated(), entry.getResourceType(), entry.getId(),
+				Long.parseLong(entry.getVersion()));
+	}
+
+	/**
+	 * @param encoded
+	 *            not <code>null</code>
+	 * @return decoded cursor
+	 * @throws IllegalArgumentException
+	 *             if the given value is not a valid encoded cursor
+	 * @see #encode()
+	 */
+	public static HistoryCursor decode(String encoded)
+	{
+		String[] parts = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8)
+				.split("\\" + SEPARATOR);
+		if (parts.length != 4)
+			throw new IllegalArgumentException("Cursor not valid");
+
+		try
+		{
+			return new HistoryCursor(LocalDateTime.parse(parts[0]), parts[1], UUID.fromString(parts[2]),
+					Long.parseLong(parts[3]));
+		}
+		catch (DateTimeParseException e)
+		{
+			throw new IllegalArgumentException("Cursor not valid", e);
+		}
+	}
+
+	public String encode()
+	{
+		String value = lastUpdated.toString() + SEPARATOR + resourceType + SEPARATOR + id.toString() + SEPARATOR
+				+ version;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public LocalDateTime getLastUpdated()
+	{
+		return lastUpdated;
+	}
+
+	public String getResourceType()
+	{
+		return resourceType;
+	}
+
+	public UUID getId()
+	{
+		return id;
+	}
+
+	public long getVersion()
+	{
+		return version;
+	}
+}
@@ -1,6 +1,7 @@
 package org.highmed.dsf.fhir.history;
 
 import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.highmed.dsf.fhir.authentication.User;
@@ -14,4 +15,21 @@ public interface HistoryService
 	Bundle getHistory(User user, UriInfo uri, HttpHeaders headers, Class<? extends Resource> resource);
 
 	Bundle getHistory(User user, UriInfo uri, HttpHeaders headers, Class<? extends Resource> resource, String id);
+
+	/**
+	 * Newline delimited JSON history for synchronization clients, one entry per line with the <code>_cursor</code>
+	 * value to continue after the entry. Streams all entries after the given <code>_cursor</code>, no total is
+	 * calculated.
+	 *
+	 * @param user
+	 *            not <code>null</code>
+	 * @param uri
+	 *            not <code>null</code>
+	 * @param headers
+	 *            not <code>null</code>
+	 * @param resource
+	 *            may be <code>null</code>, history of all resource types if <code>null</code>
+	 * @return entries written while the response is sent
+	 */
+	StreamingOutput getHistoryStream(User user, UriInfo uri, HttpHeaders headers, Class<? extends Resource> resource);
 }
@@ -1,13 +1,22 @@
 package org.highmed.dsf.fhir.history;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
@@ -16,6 +25,7 @@ import org.highmed.dsf.fhir.dao.HistoryDao;
 import org.highmed.dsf.fhir.help.ExceptionHandler;
 import org.highmed.dsf.fhir.help.ParameterConverter;
 import org.highmed.dsf.fhir.help.ResponseGenerator;
+import org.highmed.dsf.fhir.history.user.HistoryUserFilter;
 import org.highmed.dsf.fhir.history.user.HistoryUserFilterFactory;
 import org.highmed.dsf.fhir.prefer.PreferHandlingType;
 import org.highmed.dsf.fhir.search.PageAndCount;
@@ -24,13 +34,30 @@ import org.highmed.dsf.fhir.search.SearchQueryParameterError;
 import org.highmed.dsf.fhir.service.ReferenceCleaner;
 import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
+import org.hl7.fhir.r4.model.OperationOutcome;
+import org.hl7.fhir.r4.model.OperationOutcome.IssueSeverity;
+import org.hl7.fhir.r4.model.OperationOutcome.IssueType;
 import org.hl7.fhir.r4.model.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+
+import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.model.api.annotation.ResourceDef;
+import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.rest.api.Constants;
 
 public class HistoryServiceImpl implements HistoryService, InitializingBean
 {
+	private static final Logger logger = LoggerFactory.getLogger(HistoryServiceImpl.class);
+
+	public static final String PARAMETER_TOTAL = "_total";
+	public static final String TOTAL_NONE = "none";
+
 	private final String serverBase;
 	private final int defaultPageCount;
 	private final ParameterConverter parameterConverter;
@@ -39,10 +66,13 @@ public class HistoryServiceImpl implements HistoryService, InitializingBean
 	private final ReferenceCleaner referenceCleaner;
 	private final HistoryDao historyDao;
 	private final HistoryUserFilterFactory historyUserFilterFactory;
+	private final FhirContext fhirContext;
+	private final ObjectMapper objectMapper;
 
 	public HistoryServiceImpl(String serverBase, int defaultPageCount, ParameterConverter parameterConverter,
 			ExceptionHandler exceptionHandler, ResponseGenerator responseGenerator, ReferenceCleaner referenceCleaner,
-			HistoryDao historyDao, HistoryUserFilterFactory historyUserFilterFactory)
+			HistoryDao historyDao, HistoryUserFilterFactory historyUserFilterFactory, FhirContext fhirContext,
+			ObjectMapper objectMapper)
 	{
 		this.serverBase = serverBase;
 		this.defaultPageCount = defaultPageCount;
@@ -52,6 +82,8 @@ public class HistoryServiceImpl implements HistoryService, InitializingBean
 		this.referenceCleaner = referenceCleaner;
 		this.historyDao = historyDao;
 		this.historyUserFilterFactory = historyUserFilterFactory;
+		this.fhirContext = fhirContext;
+		this.objectMapper = objectMapper;
 	}
 
 	@Override
@@ -64,6 +96,8 @@ public class HistoryServiceImpl implements HistoryService, InitializingBean
 		Objects.requireNonNull(referenceCleaner, "referenceCleaner");
 		Objects.requireNonNull(historyDao, "historyDao");
 		Objects.requireNonNull(historyUserFilterFactory, "historyUserFilterFactory");
+		Objects.requireNonNull(fhirContext, "fhirContext");
+		Objects.requireNonNull(objectMapper, "objectMapper");
 	}
 
 	@Override
@@ -96,9 +130,21 @@ public class HistoryServiceImpl implements HistoryService, InitializingBean
 		SinceParameter sinceParameter = new SinceParameter();
 		sinceParameter.configure(queryParameters);
 
+		// cursor based history without count query, not supported for instance history
+		boolean cursorMode = id == null && (queryParameters.containsKey(HistoryCursor.PARAMETER_CURSOR)
+				|| TOTAL_NONE.equals(queryParameters.getFirst(PARAMETER_TOTAL)));
+		HistoryCursor cursor = cursorMode ? getCursor(queryParameters, uri, headers) : null;
+		int cursorCount = effectiveCount > 0 ? effectiveCount : defaultPageCount;
+
 		String path = null;
 		History history;
-		if (resource == null && id == null)
+		if (cursorMode)
+		{
+			history = exceptionHandler.handleSqlException(() -> historyDao.readHistory(getUserFilters(user, resource),
+					cursor, cursorCount, atParameter, sinceParameter, resource));
+			path = getResourceTypeName(resource);
+		}
+		else if (resource == null && id == null)
 			history = exceptionHandler
 					.handleSqlException(() -> historyDao.readHistory(historyUserFilterFactory.getUserFilters(user),
 							pageAndCount, atParameter, sinceParameter));
@@ -141,6 +187,11 @@ public class HistoryServiceImpl implements HistoryService, InitializingBean
 		atParameter.modifyBundleUri(bundleUri);
 		sinceParameter.modifyBundleUri(bundleUri);
 
+		if (cursorMode && cursor != null)
+			bundleUri = bundleUri.replaceQueryParam(HistoryCursor.PARAMETER_CURSOR, cursor.encode());
+		else if (cursorMode)
+			bundleUri = bundleUri.replaceQueryParam(PARAMETER_TOTAL, TOTAL_NONE);
+
 		Bundle bundle = responseGenerator.createHistoryBundle(history, errors, bundleUri, format, pretty);
 		// clean literal references from bundle entries
 		bundle.getEntry().stream().filter(BundleEntryComponent::hasResource).map(BundleEntryComponent::getResource)
@@ -148,6 +199,104 @@ public class HistoryServiceImpl implements HistoryService, InitializingBean
 		return bundle;
 	}
 
+	private List<HistoryUserFilter> getUserFilters(User user, Class<? extends Resource> resource)
+	{
+		if (resource == null)
+			return historyUserFilterFactory.getUserFilters(user);
+		else
+			return Collections.singletonList(historyUserFilterFactory.getUserFilter(user, resource));
+	}
+
+	private HistoryCursor getCursor(MultivaluedMap<String, String> queryParameters, UriInfo uri, HttpHeaders headers)
+	{
+		String value = queryParameters.getFirst(HistoryCursor.PARAMETER_CURSOR);
+		if (value == null || value.isBlank())
+			return null;
+
+		try
+		{
+			return HistoryCursor.decode(value);
+		}
+		catch (IllegalArgumentException e)
+		{
+			logger.warn("Unable to decode {} parameter value '{}': {}", HistoryCursor.PARAMETER_CURSOR, value,
+					e.getMessage());
+
+			OperationOutcome outcome = responseGenerator.createOutcome(IssueSeverity.ERROR, IssueType.INVALID,
+					"Parameter " + HistoryCursor.PARAMETER_CURSOR + " not valid");
+			MediaType mediaType = parameterConverter.getMediaTypeIfSupported(uri, headers)
+					.orElse(MediaType.valueOf(Constants.CT_FHIR_JSON_NEW));
+			throw new WebApplicationException(
+					responseGenerator.response(Status.BAD_REQUEST, outcome, mediaType).build());
+		}
+	}
+
+	@Override
+	public StreamingOutput getHistoryStream(User user, UriInfo uri, HttpHeaders headers,
+			Class<? extends Resource> resource)
+	{
+		MultivaluedMap<String, String> queryParameters = uri.getQueryParameters();
+
+		AtParameter atParameter = new AtParameter();
+		atParameter.configure(queryParameters);
+		SinceParameter sinceParameter = new SinceParameter();
+		sinceParameter.configure(queryParameters);
+
+		List<SearchQueryParameterError> errors = new ArrayList<>();
+		errors.addAll(atParameter.getErrors());
+		errors.addAll(sinceParameter.getErrors());
+
+		// errors can not be reported after streaming started
+		if (!errors.isEmpty())
+			throw new WebApplicationException(
+					responseGenerator.response(Status.BAD_REQUEST, responseGenerator.toOperationOutcomeError(errors),
+							MediaType.valueOf(Constants.CT_FHIR_JSON_NEW)).build());
+
+		HistoryCursor cursor = getCursor(queryParameters, uri, headers);
+		List<HistoryUserFilter> filters = getUserFilters(user, resource);
+
+		return out ->
+		{
+			IParser parser = fhirContext.newJsonParser();
+			parser.setStripVersionsFromReferences(false);
+
+			Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+			try
+			{
+				historyDao.streamHistory(filters, cursor, atParameter, sinceParameter, resource, entry ->
+				{
+					writer.write(toNdjsonLine(entry, parser));
+					writer.write('\n');
+				});
+			}
+			catch (SQLException e)
+			{
+				// status already sent, client detects incomplete responses by the missing last chunk
+				logger.error("Error while streaming history", e);
+				throw new IOException(e);
+			}
+
+			writer.flush();
+		};
+	}
+
+	private String toNdjsonLine(HistoryEntry entry, IParser parser) throws IOException
+	{
+		ObjectNode line = objectMapper.createObjectNode();
+		line.put("cursor", HistoryCursor.of(entry).encode());
+		line.put("method", entry.getMethod());
+		line.put("resourceType", entry.getResourceType());
+		line.put("id", entry.getId().toString());
+		line.put("versionId", entry.getVersion());
+		line.put("lastUpdated", entry.getLastUpdated().toString());
+
+		if (entry.getResource() != null)
+			line.putRawValue("resource", new RawValue(
+					parser.encodeResourceToString(referenceCleaner.cleanLiteralReferences(entry.getResource()))));
+
+		return objectMapper.writeValueAsString(line);
+	}
+
 	private String getResourceTypeName(Class<? extends Resource> resource)
 	{
 		if (resource == null)
@@ -0,0 +1,145 @@
+package org.highmed.dsf.fhir.replica;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.highmed.dsf.fhir.dao.jdbc.ReadReplicaDataSource;
+
+/**
+ * Keeps the WAL position (LSN) of the primary database after the last write request of every client, used to decide if
+ * reads of the client can be executed on the read replica, see {@link ReadReplicaFilter}. Kept server side, because
+ * http sessions are invalidated after every request.
+ * <p>
+ * The number of clients is bounded, the least recently writing client is removed if the maximum size is reached.
+ * Entries expire after the given timeout, reads of clients without entry are executed on the replica without waiting
+ * for a WAL position. The timeout should therefore be larger than the expected replication lag.
+ */
+public class LastWriteLsnCache
+{
+	private static final class Entry
+	{
+		String lsn;
+		int writesInProgress;
+		long lastWriteMillis;
+	}
+
+	private final Map<String, Entry> entries;
+	private final long timeoutMillis;
+	private final Clock clock;
+
+	/**
+	 * @param maxSize
+	 *            {@code > 0}
+	 * @param timeout
+	 *            not <code>null</code>, not negative
+	 */
+	public LastWriteLsnCache(int maxSize, Duration timeout)
+	{
+		this(maxSize, timeout, Clock.systemUTC());
+	}
+
+	LastWriteLsnCache(int maxSize, Duration timeout, Clock clock)
+	{
+		if (maxSize <= 0)
+			throw new IllegalArgumentException("maxSize <= 0");
+		if (Objects.requireNonNull(timeout, "timeout").isNegative())
+			throw new IllegalArgumentException("timeout negative");
+
+		this.entries = new LinkedHashMap<>()
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest)
+			{
+				return size() > maxSize;
+			}
+		};
+		this.timeoutMillis = timeout.toMillis();
+		this.clock = Objects.requireNonNull(clock, "clock");
+	}
+
+	/**
+	 * @param client
+	 *            not <code>null</code>
+	 * @return {@link ReadReplicaDataSource#LSN_PRIMARY} while a write request of the given client is processed, the WAL
+	 *         position after the last write request of the client or <code>null</code> if the client did not write
+	 *         within the timeout
+	 */
+	public String getLsn(String client)
+	{
+		Objects.requireNonNull(client, "client");
+
+		synchronized (entries)
+		{
+			Entry entry = entries.get(client);
+			if (entry == null)
+				return null;
+			else if (entry.writesInProgress > 0)
+				return ReadReplicaDataSource.LSN_PRIMARY;
+			else if (clock.millis() - entry.lastWriteMillis > timeoutMillis)
+			{
+				entries.remove(client);
+				return null;
+			}
+			else
+				return entry.lsn;
+		}
+	}
+
+	/**
+	 * @param client
+	 *            not <code>null</code>
+	 */
+	public void writeStarted(String client)
+	{
+		Objects.requireNonNull(client, "client");
+
+		synchronized (entries)
+		{
+			// removed and added again, most recently writing clients are evicted last
+			Entry entry = entries.remove(client);
+			if (entry == null)
+				entry = new Entry();
+
+			entry.writesInProgress++;
+			entry.lastWriteMillis = clock.millis();
+			entries.put(client, entry);
+		}
+	}
+
+	/**
+	 * @param client
+	 *            not <code>null</code>
+	 * @param lsn
+	 *            WAL position of the primary database after the write, {@link ReadReplicaDataSource#LSN_PRIMARY} if
+	 *            unknown
+	 */
+	public void writeFinished(String client, String lsn)
+	{
+		Objects.requireNonNull(client, "client");
+
+		synchronized (entries)
+		{
+			Entry entry = entries.remove(client);
+			if (entry == null)
+				entry = new Entry();
+
+			entry.writesInProgress = Math.max(0, entry.writesInProgress - 1);
+			entry.lsn = lsn;
+			entry.lastWriteMillis = clock.millis();
+			entries.put(client, entry);
+		}
+	}
+
+	public int size()
+	{
+		synchronized (entries)
+		{
+			return entries.size();
+		}
+	}
+}
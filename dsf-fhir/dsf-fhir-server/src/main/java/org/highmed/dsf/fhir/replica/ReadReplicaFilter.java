@@ -0,0 +1,136 @@
+package org.highmed.dsf.fhir.replica;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.sql.SQLException;
+import java.util.Objects;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.codec.binary.Hex;
+import org.highmed.dsf.fhir.dao.jdbc.ReadReplicaDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+/**
+ * Routes reads of <code>GET</code> and <code>HEAD</code> requests to the read replica of the
+ * {@link ReadReplicaDataSource}, if configured. The WAL position (LSN) of the primary database after the last request
+ * of a client with a different method is stored in the {@link LastWriteLsnCache}, clients are identified by the SHA-512
+ * thumbprint of their certificate; reads are only executed on the replica if the replica has replayed the WAL up to
+ * this position. While a request with a different method is processed, reads of the same client are executed on the
+ * primary. Requests without client certificate are executed on the primary.
+ */
+public class ReadReplicaFilter implements Filter
+{
+	private static final Logger logger = LoggerFactory.getLogger(ReadReplicaFilter.class);
+
+	private ReadReplicaDataSource readReplicaDataSource;
+	private LastWriteLsnCache lastWriteLsnCache;
+
+	public ReadReplicaFilter()
+	{
+	}
+
+	ReadReplicaFilter(ReadReplicaDataSource readReplicaDataSource, LastWriteLsnCache lastWriteLsnCache)
+	{
+		this.readReplicaDataSource = readReplicaDataSource;
+		this.lastWriteLsnCache = lastWriteLsnCache;
+	}
+
+	@Override
+	public void init(FilterConfig filterConfig) throws ServletException
+	{
+		logger.debug("Init {}", ReadReplicaFilter.class.getName());
+
+		WebApplicationContext context = WebApplicationContextUtils
+				.getWebApplicationContext(filterConfig.getServletContext());
+		readReplicaDataSource = context.getBean(ReadReplicaDataSource.class);
+		lastWriteLsnCache = context.getBean(LastWriteLsnCache.class);
+
+		Objects.requireNonNull(readReplicaDataSource, "readReplicaDataSource");
+		Objects.requireNonNull(lastWriteLsnCache, "lastWriteLsnCache");
+	}
+
+	@Override
+	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+			throws IOException, ServletException
+	{
+		HttpServletRequest httpServletRequest = (HttpServletRequest) request;
+		String client = readReplicaDataSource.hasReplica() ? getClient(httpServletRequest) : null;
+
+		if (client == null)
+			chain.doFilter(request, response);
+		else if ("GET".equals(httpServletRequest.getMethod()) || "HEAD".equals(httpServletRequest.getMethod()))
+		{
+			ReadReplicaDataSource.setReadContext(lastWriteLsnCache.getLsn(client));
+			try
+			{
+				chain.doFilter(request, response);
+			}
+			finally
+			{
+				ReadReplicaDataSource.clearReadContext();
+			}
+		}
+		else
+		{
+			lastWriteLsnCache.writeStarted(client);
+			try
+			{
+				chain.doFilter(request, response);
+			}
+			finally
+			{
+				lastWriteLsnCache.writeFinished(client, getPrimaryLsn());
+			}
+		}
+	}
+
+	private String getClient(HttpServletRequest httpServletRequest)
+	{
+		X509Certificate[] certificates = (X509Certificate[]) httpServletRequest
+				.getAttribute("javax.servlet.request.X509Certificate");
+
+		if (certificates == null || certificates.length <= 0)
+			return null;
+
+		try
+		{
+			return Hex.encodeHexString(MessageDigest.getInstance("SHA-512").digest(certificates[0].getEncoded()));
+		}
+		catch (CertificateEncodingException | NoSuchAlgorithmException e)
+		{
+			logger.warn("Unable to calculate client certificate thumbprint, reading from primary: {}", e.getMessage());
+			return null;
+		}
+	}
+
+	private String getPrimaryLsn()
+	{
+		try
+		{
+			return readReplicaDataSource.getPrimaryLsn();
+		}
+		catch (SQLException e)
+		{
+			logger.warn("Unable to read WAL position of primary database, reading from primary: {}", e.getMessage());
+			return ReadReplicaDataSource.LSN_PRIMARY;
+		}
+	}
+
+	@Override
+	public void destroy()
+	{
+	}
+}
@@ -0,0 +1,349 @@
+package org.highmed.dsf.fhir.retention;
+
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.highmed.dsf.fhir.dao.ResourceDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * Background job permanently deleting resources marked as deleted for longer than the configured number of days and
+ * deleting old versions of selected resource types. Deletes are executed in small batches, one transaction per batch,
+ * with a pause between batches to limit the load on the database while the server takes traffic.
+ * <p>
+ * Progress is available via JMX as <code>org.highmed.dsf.fhir:type=RetentionJob</code>.
+ */
+public class RetentionJob implements RetentionJobMXBean, InitializingBean, DisposableBean
+{
+	private static final Logger logger = LoggerFactory.getLogger(RetentionJob.class);
+
+	private static final long INITIAL_DELAY_MINUTES = 5;
+
+	private final List<ResourceDao<?>> daos = new ArrayList<>();
+	private final int deletedRetentionDays;
+	private final List<ResourceDao<?>> versionDaos = new ArrayList<>();
+	private final int keepVersions;
+	private final int batchSize;
+	private final long batchDelayMillis;
+	private final long intervalMinutes;
+
+	private final AtomicBoolean running = new AtomicBoolean();
+	private final AtomicLong runCount = new AtomicLong();
+	private final AtomicLong failedRunCount = new AtomicLong();
+	private final AtomicLong batchCount = new AtomicLong();
+	private final AtomicLong permanentlyDeletedResourceCount = new AtomicLong();
+	private final AtomicLong deletedVersionCount = new AtomicLong();
+
+	private volatile String currentResourceType;
+	private volatile OffsetDateTime lastRunStart;
+	private volatile long lastRunDurationMillis;
+
+	private ScheduledExecutorService executor;
+
+	/**
+	 * @param daos
+	 *            not <code>null</code>, daos of resource types permanently deleted after <b>deletedRetentionDays</b>
+	 * @param deletedRetentionDays
+	 *            <code>&lt;= 0</code> to disable permanent deletes
+	 * @param versionDaos
+	 *            not <code>null</code>, daos of resource types with old versions deleted
+	 * @param keepVersions
+	 *            versions to keep per resource, <code>&lt;= 0</code> to disable the deletion of old versions
+	 * @param batchSize
+	 *            <code>&gt; 0</code>
+	 * @param batchDelayMillis
+	 *            <code>&gt;= 0</code>, pause between batches
+	 * @param intervalMinutes
+	 *            <code>&gt; 0</code>, delay between runs
+	 */
+	public RetentionJob(List<? extends ResourceDao<?>> daos, int deletedRetentionDays,
+			List<? extends ResourceDao<?>> versionDaos, int keepVersions, int batchSize, long batchDelayMillis,
+			long intervalMinutes)
+	{
+		if (daos != null)
+			this.daos.addAll(daos);
+		this.deletedRetentionDays = deletedRetentionDays;
+		if (versionDaos != null)
+			this.versionDaos.addAll(versionDaos);
+		this.keepVersions = keepVersions;
+		this.batchSize = batchSize;
+		this.batchDelayMillis = batchDelayMillis;
+		this.intervalMinutes = intervalMinutes;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		if (batchSize <= 0)
+			throw new IllegalArgumentException("batchSize <= 0");
+		if (batchDelayMillis < 0)
+			throw new IllegalArgumentException("batchDelayMillis < 0");
+		if (intervalMinutes <= 0)
+			throw new IllegalArgumentException("intervalMinutes <= 0");
+
+		if (!isEnabled())
+		{
+			logger.info("Retention job disabled");
+			return;
+		}
+
+		logger.info("Retention job enabled: permanent delete after {} days, keeping {} versions of {}, interval {} min",
+				deletedRetentionDays > 0 ? deletedRetentionDays : "[disabled]",
+				keepVersions > 0 ? keepVersions : "[all]", getResourceTypeNames(versionDaos), intervalMinutes);
+
+		executor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "retention-job"));
+		executor.scheduleWithFixedDelay(this::run, INITIAL_DELAY_MINUTES, intervalMinutes, TimeUnit.MINUTES);
+
+		registerMBean();
+	}
+
+	private boolean isEnabled()
+	{
+		return (deletedRetentionDays > 0 && !daos.isEmpty()) || (keepVersions > 0 && !versionDaos.isEmpty());
+	}
+
+	private List<String> getResourceTypeNames(List<ResourceDao<?>> daos)
+	{
+		List<String> names = new ArrayList<>();
+		daos.forEach(d -> names.add(d.getResourceTypeName()));
+		return Collections.unmodifiableList(names);
+	}
+
+	@Override
+	public void destroy() throws Exception
+	{
+		if (executor != null)
+		{
+			executor.shutdownNow();
+			executor.awaitTermination(10, TimeUnit.SECONDS);
+		}
+
+		unregisterMBean();
+	}
+
+	/**
+	 * Executes a run in the current thread, returns immediately if a run is already in progress
+	 */
+	public void run()
+	{
+		if (!running.compareAndSet(false, true))
+			return;
+
+		lastRunStart = OffsetDateTime.now();
+		long start = System.currentTimeMillis();
+
+		try
+		{
+			if (deletedRetentionDays > 0)
+			{
+				LocalDateTime deletedBefore = LocalDateTime.now().minusDays(deletedRetentionDays);
+				for (ResourceDao<?> dao : daos)
+					deletePermanently(dao, deletedBefore);
+			}
+
+			if (keepVersions > 0)
+			{
+				for (ResourceDao<?> dao : versionDaos)
+					deleteOldVersions(dao);
+			}
+
+			runCount.incrementAndGet();
+		}
+		catch (InterruptedException e)
+		{
+			logger.info("Retention job interrupted");
+			Thread.currentThread().interrupt();
+		}
+		catch (Exception e)
+		{
+			failedRunCount.incrementAndGet();
+			logger.warn("Error while executing retention job for {}: {} - {}", currentResourceType,
+					e.getClass().getName(), e.getMessage());
+		}
+		finally
+		{
+			lastRunDurationMillis = System.currentTimeMillis() - start;
+			currentResourceType = null;
+			running.set(false);
+		}
+	}
+
+	private void deletePermanently(ResourceDao<?> dao, LocalDateTime deletedBefore)
+			throws SQLException, InterruptedException
+	{
+		currentResourceType = dao.getResourceTypeName();
+
+		long total = 0;
+		int deleted;
+		do
+		{
+			pauseIfNotFirst(total == 0);
+
+			deleted = dao.deletePermanentlyDeletedBefore(deletedBefore, batchSize).size();
+			batchCount.incrementAndGet();
+			permanentlyDeletedResourceCount.addAndGet(deleted);
+			total += deleted;
+		}
+		while (deleted >= batchSize);
+
+		if (total > 0)
+			logger.info("{} {} resource{} marked as deleted before {} deleted permanently", total,
+					dao.getResourceTypeName(), total != 1 ? "s" : "", deletedBefore);
+	}
+
+	private void deleteOldVersions(ResourceDao<?> dao) throws SQLException, InterruptedException
+	{
+		currentResourceType = dao.getResourceTypeName();
+
+		long total = 0;
+		UUID lastId = null;
+		List<UUID> ids;
+		do
+		{
+			pauseIfNotFirst(lastId == null);
+
+			ids = dao.readIdsWithOldVersions(keepVersions, lastId, batchSize);
+			if (ids.isEmpty())
+				break;
+
+			int deleted = dao.deleteOldVersions(keepVersions, ids);
+			batchCount.incrementAndGet();
+			deletedVersionCount.addAndGet(deleted);
+			total += deleted;
+			lastId = ids.get(ids.size() - 1);
+		}
+		while (ids.size() >= batchSize);
+
+		if (total > 0)
+			logger.info("{} old version{} of {} resources deleted, keeping {} version{} per resource", total,
+					total != 1 ? "s" : "", dao.getResourceTypeName(), keepVersions, keepVersions != 1 ? "s" : "");
+	}
+
+	private void pauseIfNotFirst(boolean first) throws InterruptedException
+	{
+		if (Thread.currentThread().isInterrupted())
+			throw new InterruptedException();
+
+		if (!first && batchDelayMillis > 0)
+			Thread.sleep(batchDelayMillis);
+	}
+
+	private ObjectName getObjectName() throws JMException
+	{
+		return new ObjectName("org.highmed.dsf.fhir:type=RetentionJob");
+	}
+
+	private void registerMBean()
+	{
+		try
+		{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = getObjectName();
+
+			if (server.isRegistered(objectName))
+				server.unregisterMBean(objectName);
+
+			server.registerMBean(this, objectName);
+		}
+		catch (JMException e)
+		{
+			logger.warn("Unable to register retention job MBean: {} - {}", e.getClass().getName(), e.getMessage());
+		}
+	}
+
+	private void unregisterMBean()
+	{
+		try
+		{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = getObjectName();
+
+			if (server.isRegistered(objectName))
+				server.unregisterMBean(objectName);
+		}
+		catch (JMException e)
+		{
+			logger.debug("Unable to unregister retention job MBean: {} - {}", e.getClass().getName(), e.getMessage());
+		}
+	}
+
+	@Override
+	public boolean isRunning()
+	{
+		return running.get();
+	}
+
+	@Override
+	public String getCurrentResourceType()
+	{
+		return currentResourceType;
+	}
+
+	@Override
+	public long getRunCount()
+	{
+		return runCount.get();
+	}
+
+	@Override
+	public long getFailedRunCount()
+	{
+		return failedRunCount.get();
+	}
+
+	@Override
+	public String getLastRunStart()
+	{
+		return Objects.toString(lastRunStart, null);
+	}
+
+	@Override
+	public long getLastRunDurationMillis()
+	{
+		return lastRunDurationMillis;
+	}
+
+	@Override
+	public long getBatchCount()
+	{
+		return batchCount.get();
+	}
+
+	@Override
+	public long getPermanentlyDeletedResourceCount()
+	{
+		return permanentlyDeletedResourceCount.get();
+	}
+
+	@Override
+	public long getDeletedVersionCount()
+	{
+		return deletedVersionCount.get();
+	}
+
+	@Override
+	public void runNow()
+	{
+		if (executor != null)
+			executor.execute(this::run);
+	}
+}
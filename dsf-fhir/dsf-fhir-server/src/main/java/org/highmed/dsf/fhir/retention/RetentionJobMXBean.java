@@ -0,0 +1,36 @@
+package org.highmed.dsf.fhir.retention;
+
+/**
+ * JMX view on the progress of a {@link RetentionJob}
+ */
+public interface RetentionJobMXBean
+{
+	boolean isRunning();
+
+	/**
+	 * @return resource type currently processed, <code>null</code> if not running
+	 */
+	String getCurrentResourceType();
+
+	long getRunCount();
+
+	long getFailedRunCount();
+
+	/**
+	 * @return ISO 8601 start time of the last run, <code>null</code> if not run yet
+	 */
+	String getLastRunStart();
+
+	long getLastRunDurationMillis();
+
+	long getBatchCount();
+
+	long getPermanentlyDeletedResourceCount();
+
+	long getDeletedVersionCount();
+
+	/**
+	 * Starts a run in the background if not already running
+	 */
+	void runNow();
+}
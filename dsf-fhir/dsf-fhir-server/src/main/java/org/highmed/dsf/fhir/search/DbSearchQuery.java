@@ -12,11 +12,49 @@ public interface DbSearchQuery
 {
 	String getCountSql();
 
+	/**
+	 * @return <code>true</code> if the search sql returns matched and included resources, see {@link #getSearchSql()}
+	 */
+	boolean hasIncludeParameters();
+
+	/**
+	 * Without include parameters, the search sql returns one row per matched resource with the resource json as the
+	 * only column. With include parameters, the search sql returns one row per matched or included resource with the
+	 * columns <code>match_row</code>, <code>column_index</code>, <code>resource</code> and <code>include_id</code>,
+	 * ordered by <code>match_row</code>. Rows with <code>column_index</code> 1 contain matched resources, rows with
+	 * larger values resources included by the preceding match, see
+	 * {@link #modifyIncludeResource(Resource, int, Connection)}. <code>include_id</code> is the versioned id of
+	 * included resources.
+	 *
+	 * @return search sql with bind parameters for <code>LIMIT</code> and <code>OFFSET</code>, see
+	 *         {@link #modifySearchStatement(PreparedStatement, BiFunctionWithSqlException)}
+	 */
 	String getSearchSql();
 
+	/**
+	 * Binds the filter parameters of the {@link #getCountSql()} statement.
+	 *
+	 * @param statement
+	 *            not <code>null</code>
+	 * @param arrayCreator
+	 *            not <code>null</code>
+	 * @throws SQLException
+	 */
 	void modifyStatement(PreparedStatement statement, BiFunctionWithSqlException<String, Object[], Array> arrayCreator)
 			throws SQLException;
 
+	/**
+	 * Binds the filter, <code>LIMIT</code> and <code>OFFSET</code> parameters of the {@link #getSearchSql()} statement.
+	 *
+	 * @param statement
+	 *            not <code>null</code>
+	 * @param arrayCreator
+	 *            not <code>null</code>
+	 * @throws SQLException
+	 */
+	void modifySearchStatement(PreparedStatement statement,
+			BiFunctionWithSqlException<String, Object[], Array> arrayCreator) throws SQLException;
+
 	PageAndCount getPageAndCount();
 
 	void modifyIncludeResource(Resource resource, int columnIndex, Connection connection) throws SQLException;
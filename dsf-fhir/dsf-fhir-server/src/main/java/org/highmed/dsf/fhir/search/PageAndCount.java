@@ -1,5 +1,8 @@
 package org.highmed.dsf.fhir.search;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
 public class PageAndCount
 {
 	private final int page;
@@ -16,6 +19,29 @@ public class PageAndCount
 		return " LIMIT " + count + (page > 1 ? (" OFFSET " + ((page - 1) * count)) : "");
 	}
 
+	/**
+	 * @return <code>LIMIT</code> and <code>OFFSET</code> with bind parameters, equal for all pages, see
+	 *         {@link #modifyStatement(int, PreparedStatement)}
+	 */
+	public static String getParameterSql()
+	{
+		return " LIMIT ? OFFSET ?";
+	}
+
+	/**
+	 * @param parameterIndex
+	 *            index of the <code>LIMIT</code> parameter
+	 * @param statement
+	 *            not <code>null</code>
+	 * @throws SQLException
+	 * @see #getParameterSql()
+	 */
+	public void modifyStatement(int parameterIndex, PreparedStatement statement) throws SQLException
+	{
+		statement.setInt(parameterIndex, count);
+		statement.setInt(parameterIndex + 1, page > 1 ? (page - 1) * count : 0);
+	}
+
 	public boolean isCountOnly(int total)
 	{
 		return page < 1 || count < 1 || getPageStart() > total;
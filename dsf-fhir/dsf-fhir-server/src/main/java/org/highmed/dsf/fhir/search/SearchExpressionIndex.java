@@ -0,0 +1,120 @@
+package org.highmed.dsf.fhir.search;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.highmed.dsf.fhir.search.parameters.EndpointIdentifier;
+import org.highmed.dsf.fhir.search.parameters.OrganizationIdentifier;
+import org.highmed.dsf.fhir.search.parameters.ResourceLastUpdated;
+import org.highmed.dsf.fhir.search.parameters.TaskRequester;
+import org.highmed.dsf.fhir.search.parameters.user.TaskUserFilter;
+
+/**
+ * Catalog of expression indexes on the resource tables for hot search parameters and user filters. PostgreSQL only uses
+ * an expression index if the query contains the indexed expression verbatim, the expressions declared here are the
+ * exact sql fragments emitted by the classes given via {@link #getUsedBy()}. Indexes are created by the
+ * <code>db.search_expression_indexes</code> changelog, the <code>current_...</code> views of the indexed tables are
+ * defined without <code>DISTINCT ON</code> to allow the planner to push filters down to the indexed tables.
+ */
+public final class SearchExpressionIndex
+{
+	public static enum Method
+	{
+		BTREE("btree", ""), GIN_JSONB_PATH_OPS("gin", " jsonb_path_ops");
+
+		public final String accessMethod;
+		public final String operatorClass;
+
+		private Method(String accessMethod, String operatorClass)
+		{
+			this.accessMethod = accessMethod;
+			this.operatorClass = operatorClass;
+		}
+	}
+
+	public static final SearchExpressionIndex TASKS_REQUESTER_REFERENCE = new SearchExpressionIndex(
+			"tasks_requester_reference_index", "tasks", Method.BTREE, "task->'requester'->>'reference'",
+			TaskUserFilter.class, TaskRequester.class);
+	public static final SearchExpressionIndex TASKS_RESTRICTION_RECIPIENT = new SearchExpressionIndex(
+			"tasks_restriction_recipient_index", "tasks", Method.GIN_JSONB_PATH_OPS, "task->'restriction'->'recipient'",
+			TaskUserFilter.class);
+	public static final SearchExpressionIndex TASKS_LAST_UPDATED = new SearchExpressionIndex("tasks_last_updated_index",
+			"tasks", Method.BTREE, ResourceLastUpdated.getLastUpdatedExpression("task"), ResourceLastUpdated.class);
+	public static final SearchExpressionIndex QUESTIONNAIRE_RESPONSES_LAST_UPDATED = new SearchExpressionIndex(
+			"questionnaire_responses_last_updated_index", "questionnaire_responses", Method.BTREE,
+			ResourceLastUpdated.getLastUpdatedExpression("questionnaire_response"), ResourceLastUpdated.class);
+	public static final SearchExpressionIndex ORGANIZATIONS_IDENTIFIER = new SearchExpressionIndex(
+			"organizations_identifier_index", "organizations", Method.GIN_JSONB_PATH_OPS,
+			OrganizationIdentifier.RESOURCE_COLUMN + "->'identifier'", OrganizationIdentifier.class);
+	public static final SearchExpressionIndex ENDPOINTS_IDENTIFIER = new SearchExpressionIndex(
+			"endpoints_identifier_index", "endpoints", Method.GIN_JSONB_PATH_OPS,
+			EndpointIdentifier.RESOURCE_COLUMN + "->'identifier'", EndpointIdentifier.class);
+
+	public static final List<SearchExpressionIndex> ALL = Collections
+			.unmodifiableList(Arrays.asList(TASKS_REQUESTER_REFERENCE, TASKS_RESTRICTION_RECIPIENT, TASKS_LAST_UPDATED,
+					QUESTIONNAIRE_RESPONSES_LAST_UPDATED, ORGANIZATIONS_IDENTIFIER, ENDPOINTS_IDENTIFIER));
+
+	private final String name;
+	private final String table;
+	private final Method method;
+	private final String expression;
+	private final List<Class<?>> usedBy;
+
+	private SearchExpressionIndex(String name, String table, Method method, String expression, Class<?>... usedBy)
+	{
+		this.name = Objects.requireNonNull(name, "name");
+		this.table = Objects.requireNonNull(table, "table");
+		this.method = Objects.requireNonNull(method, "method");
+		this.expression = Objects.requireNonNull(expression, "expression");
+		this.usedBy = Collections.unmodifiableList(Arrays.asList(usedBy));
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public String getTable()
+	{
+		return table;
+	}
+
+	public Method getMethod()
+	{
+		return method;
+	}
+
+	/**
+	 * @return sql expression indexed, equal to the fragment emitted by the classes returned from {@link #getUsedBy()}
+	 */
+	public String getExpression()
+	{
+		return expression;
+	}
+
+	/**
+	 * @return search parameter and user filter classes with filter or sort queries using the indexed expression
+	 */
+	public List<Class<?>> getUsedBy()
+	{
+		return usedBy;
+	}
+
+	/**
+	 * @return <code>CREATE INDEX CONCURRENTLY</code> statement as contained in the
+	 *         <code>db.search_expression_indexes</code> changelog
+	 */
+	public String getCreateSql()
+	{
+		return "CREATE INDEX CONCURRENTLY " + name + " ON " + table + " USING " + method.accessMethod + " (("
+				+ expression + ")" + method.operatorClass + ")";
+	}
+
+	@Override
+	public String toString()
+	{
+		return name;
+	}
+}
@@ -0,0 +1,148 @@
+package org.highmed.dsf.fhir.search;
+
+import java.util.Objects;
+
+/**
+ * Search parameter value extracted from a resource version when the resource is written to the database, see
+ * {@link SearchQueryIndexParameter}. Entries are stored in one table per {@link Type}, all tables contain the columns
+ * <code>resource_type</code>, <code>resource_id</code>, <code>version</code>, <code>parameter</code> and
+ * <code>value</code>, the token table an additional <code>system</code> column.
+ */
+public class SearchIndexEntry
+{
+	public static enum Type
+	{
+		TOKEN("search_index_tokens"), STRING("search_index_strings"), DATE("search_index_dates"), REFERENCE(
+				"search_index_references"), URI("search_index_uris");
+
+		public final String table;
+
+		private Type(String table)
+		{
+			this.table = table;
+		}
+
+		/**
+		 * @param resourceTypeName
+		 *            not <code>null</code>
+		 * @param resourceIdColumn
+		 *            not <code>null</code>, id column of the searched <code>current_...</code> view
+		 * @param parameterName
+		 *            not <code>null</code>
+		 * @param condition
+		 *            not <code>null</code>, sql condition on the <code>value</code> (and <code>system</code>) columns
+		 *            of the index table
+		 * @return sql filter query matching resources with at least one index entry matching the given condition
+		 */
+		public String getFilterQuery(String resourceTypeName, String resourceIdColumn, String parameterName,
+				String condition)
+		{
+			return "(" + resourceIdColumn + ", version) IN (SELECT resource_id, version FROM " + table
+					+ " WHERE resource_type = '" + resourceTypeName + "' AND parameter = '" + parameterName + "' AND "
+					+ condition + ")";
+		}
+	}
+
+	private final Type type;
+	private final String parameterName;
+	private final String system;
+	private final String value;
+
+	private SearchIndexEntry(Type type, String parameterName, String system, String value)
+	{
+		this.type = Objects.requireNonNull(type, "type");
+		this.parameterName = Objects.requireNonNull(parameterName, "parameterName");
+		this.system = system;
+		this.value = value;
+	}
+
+	/**
+	 * @param parameterName
+	 *            not <code>null</code>
+	 * @param system
+	 *            may be <code>null</code>
+	 * @param code
+	 *            may be <code>null</code>
+	 * @return token entry
+	 */
+	public static SearchIndexEntry token(String parameterName, String system, String code)
+	{
+		return new SearchIndexEntry(Type.TOKEN, parameterName, system, code);
+	}
+
+	/**
+	 * @param parameterName
+	 *            not <code>null</code>
+	 * @param value
+	 *            not <code>null</code>, searched case insensitive via <code>lower(value)</code>
+	 * @return string entry
+	 */
+	public static SearchIndexEntry string(String parameterName, String value)
+	{
+		return new SearchIndexEntry(Type.STRING, parameterName, null, Objects.requireNonNull(value, "value"));
+	}
+
+	/**
+	 * @param parameterName
+	 *            not <code>null</code>
+	 * @param value
+	 *            not <code>null</code>, FHIR date or dateTime with at least day precision, cast to
+	 *            <code>timestamp</code> by the database
+	 * @return date entry
+	 */
+	public static SearchIndexEntry date(String parameterName, String value)
+	{
+		return new SearchIndexEntry(Type.DATE, parameterName, null, Objects.requireNonNull(value, "value"));
+	}
+
+	/**
+	 * @param parameterName
+	 *            not <code>null</code>
+	 * @param reference
+	 *            not <code>null</code>, reference as stored in the resource
+	 * @return reference entry
+	 */
+	public static SearchIndexEntry reference(String parameterName, String reference)
+	{
+		return new SearchIndexEntry(Type.REFERENCE, parameterName, null,
+				Objects.requireNonNull(reference, "reference"));
+	}
+
+	/**
+	 * @param parameterName
+	 *            not <code>null</code>
+	 * @param uri
+	 *            not <code>null</code>
+	 * @return uri entry
+	 */
+	public static SearchIndexEntry uri(String parameterName, String uri)
+	{
+		return new SearchIndexEntry(Type.URI, parameterName, null, Objects.requireNonNull(uri, "uri"));
+	}
+
+	public Type getType()
+	{
+		return type;
+	}
+
+	public String getParameterName()
+	{
+		return parameterName;
+	}
+
+	/**
+	 * @return may be <code>null</code>, always <code>null</code> if not a {@link Type#TOKEN} entry
+	 */
+	public String getSystem()
+	{
+		return system;
+	}
+
+	/**
+	 * @return may be <code>null</code> for {@link Type#TOKEN} entries
+	 */
+	public String getValue()
+	{
+		return value;
+	}
+}
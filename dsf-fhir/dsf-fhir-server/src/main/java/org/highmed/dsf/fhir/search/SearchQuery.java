@@ -20,6 +20,8 @@ import javax.ws.rs.core.UriBuilder;
 import org.highmed.dsf.fhir.dao.provider.DaoProvider;
 import org.highmed.dsf.fhir.function.BiFunctionWithSqlException;
 import org.highmed.dsf.fhir.search.SearchQueryParameterError.SearchQueryParameterErrorType;
+import org.highmed.dsf.fhir.search.SearchQueryPlanCache.SearchQueryPlan;
+import org.highmed.dsf.fhir.search.SearchQueryProjection.Summary;
 import org.hl7.fhir.r4.model.Resource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,20 +35,25 @@ public class SearchQuery<R extends Resource> implements DbSearchQuery, Matcher
 	public static final String PARAMETER_COUNT = "_count";
 	public static final String PARAMETER_FORMAT = "_format";
 	public static final String PARAMETER_PRETTY = "_pretty";
+	public static final String PARAMETER_SUMMARY = "_summary";
+	public static final String PARAMETER_ELEMENTS = "_elements";
 
 	public static final String[] STANDARD_PARAMETERS = { PARAMETER_SORT, PARAMETER_INCLUDE, PARAMETER_REVINCLUDE,
-			PARAMETER_PAGE, PARAMETER_COUNT, PARAMETER_FORMAT, PARAMETER_PRETTY };
+			PARAMETER_PAGE, PARAMETER_COUNT, PARAMETER_FORMAT, PARAMETER_PRETTY, PARAMETER_SUMMARY,
+			PARAMETER_ELEMENTS };
 
 	public static class SearchQueryBuilder<R extends Resource>
 	{
 		public static <R extends Resource> SearchQueryBuilder<R> create(Class<R> resourceType, String resourceTable,
-				String resourceColumn, int page, int count)
+				String resourceIdColumn, String resourceColumn, int page, int count)
 		{
-			return new SearchQueryBuilder<R>(resourceType, resourceTable, resourceColumn, page, count);
+			return new SearchQueryBuilder<R>(resourceType, resourceTable, resourceIdColumn, resourceColumn, page,
+					count);
 		}
 
 		private final Class<R> resourceType;
 		private final String resourceTable;
+		private final String resourceIdColumn;
 		private final String resourceColumn;
 
 		private final int page;
@@ -56,12 +63,15 @@ public class SearchQuery<R extends Resource> implements DbSearchQuery, Matcher
 		private final List<SearchQueryRevIncludeParameterFactory> revIncludeParameters = new ArrayList<>();
 
 		private SearchQueryUserFilter userFilter; // may be null
+		private SearchQueryProjection projection; // may be null
+		private SearchQueryPlanCache planCache; // may be null
 
-		private SearchQueryBuilder(Class<R> resourceType, String resourceTable, String resourceColumn, int page,
-				int count)
+		private SearchQueryBuilder(Class<R> resourceType, String resourceTable, String resourceIdColumn,
+				String resourceColumn, int page, int count)
 		{
 			this.resourceType = resourceType;
 			this.resourceTable = resourceTable;
+			this.resourceIdColumn = resourceIdColumn;
 			this.resourceColumn = resourceColumn;
 
 			this.page = page;
@@ -74,6 +84,18 @@ public class SearchQuery<R extends Resource> implements DbSearchQuery, Matcher
 			return this;
 		}
 
+		public SearchQueryBuilder<R> with(SearchQueryProjection projection)
+		{
+			this.projection = projection;
+			return this;
+		}
+
+		public SearchQueryBuilder<R> with(SearchQueryPlanCache planCache)
+		{
+			this.planCache = planCache;
+			return this;
+		}
+
 		public SearchQueryBuilder<R> with(SearchQueryParameter<R> searchParameters)
 		{
 			this.searchParameters.add(searchParameters);
@@ -110,8 +132,8 @@ public class SearchQuery<R extends Resource> implements DbSearchQuery, Matcher
 
 		public SearchQuery<R> build()
 		{
-			return new SearchQuery<R>(resourceType, resourceTable, resourceColumn, userFilter, page, count,
-					searchParameters, revIncludeParameters);
+			return new SearchQuery<R>(resourceType, resourceTable, resourceIdColumn, resourceColumn, userFilter,
+					projection, planCache, page, count, searchParameters, revIncludeParameters);
 		}
 	}
 
@@ -120,31 +142,39 @@ public class SearchQuery<R extends Resource> implements DbSearchQuery, Matcher
 	private final Class<R> resourceType;
 	private final String resourceColumn;
 	private final String resourceTable;
+	private final String resourceIdColumn;
 
 	private final SearchQueryUserFilter userFilter;
+	private final SearchQueryProjection projection;
+	private final SearchQueryPlanCache planCache;
 
-	private final PageAndCount pageAndCount;
+	private PageAndCount pageAndCount;
 
 	private final List<SearchQueryParameter<R>> searchParameters = new ArrayList<>();
 	private final List<SearchQueryRevIncludeParameterFactory> revIncludeParameterFactories = new ArrayList<>();
 
-	private String filterQuery;
-	private String sortSql;
-	private String includeSql;
-	private String revIncludeSql;
+	private SearchQueryPlan plan;
+	private List<SearchQueryParameter<R>> definedParameters = Collections.emptyList();
+	private Summary summary;
+	private List<String> elements = Collections.emptyList();
+	private final List<SearchQueryParameterError> projectionErrors = new ArrayList<>();
 	private List<SearchQueryParameter<R>> sortParameters = Collections.emptyList();
 	private List<SearchQueryIncludeParameter> includeParameters = Collections.emptyList();
 	private List<SearchQueryIncludeParameter> revIncludeParameters = Collections.emptyList();
 
-	SearchQuery(Class<R> resourceType, String resourceTable, String resourceColumn, SearchQueryUserFilter userFilter,
+	SearchQuery(Class<R> resourceType, String resourceTable, String resourceIdColumn, String resourceColumn,
+			SearchQueryUserFilter userFilter, SearchQueryProjection projection, SearchQueryPlanCache planCache,
 			int page, int count, List<? extends SearchQueryParameter<R>> searchParameters,
 			List<? extends SearchQueryRevIncludeParameterFactory> revIncludeParameters)
 	{
 		this.resourceType = resourceType;
 		this.resourceTable = resourceTable;
+		this.resourceIdColumn = resourceIdColumn;
 		this.resourceColumn = resourceColumn;
 
 		this.userFilter = userFilter;
+		this.projection = projection;
+		this.planCache = planCache;
 
 		this.pageAndCount = new PageAndCount(page, count);
 
@@ -155,25 +185,113 @@ public class SearchQuery<R extends Resource> implements DbSearchQuery, Matcher
 	public SearchQuery<R> configureParameters(Map<String, List<String>> queryParameters)
 	{
 		searchParameters.forEach(p -> p.configure(queryParameters));
+		definedParameters = searchParameters.stream().filter(SearchQueryParameter::isDefined)
+				.collect(Collectors.toList());
 
 		List<String> revIncludeParameterValues = queryParameters.getOrDefault(PARAMETER_REVINCLUDE,
 				Collections.emptyList());
 		revIncludeParameterFactories.forEach(p -> p.configure(revIncludeParameterValues));
 
-		includeSql = createIncludeSql(queryParameters.get(PARAMETER_INCLUDE));
-		revIncludeSql = createRevIncludeSql();
+		includeParameters = createIncludeParameters(queryParameters.get(PARAMETER_INCLUDE));
+		revIncludeParameters = createRevIncludeParameters();
+		sortParameters = createSortParameters(getFirst(queryParameters, PARAMETER_SORT));
 
-		filterQuery = createFilterQuery();
+		configureProjection(getFirst(queryParameters, PARAMETER_SUMMARY), queryParameters.get(PARAMETER_ELEMENTS));
 
-		sortSql = createSortSql(getFirst(queryParameters, PARAMETER_SORT));
+		plan = planCache == null ? createPlan() : planCache.getOrCreate(createSignature(), this::createPlan);
 
 		return this;
 	}
 
+	/**
+	 * The signature is created from parameter names, modifiers and value shapes (e.g. date precision, token with or
+	 * without system) before any SQL is generated, see {@link SearchQueryParameter#getSignature()}.
+	 */
+	private String createSignature()
+	{
+		StringBuilder signature = new StringBuilder(userFilter == null ? "" : userFilter.getSignature());
+
+		signature.append("|");
+		definedParameters.forEach(p -> signature.append(p.getSignature()).append(","));
+		signature.append("|");
+		sortParameters.forEach(
+				p -> signature.append(p.getSortParameter().get().getBundleUriQueryParameterValuePart()).append(","));
+		signature.append("|");
+		includeParameters.forEach(p -> signature.append(p.getBundleUriQueryParameterValues()).append(","));
+		signature.append("|");
+		revIncludeParameters.forEach(p -> signature.append(p.getBundleUriQueryParameterValues()).append(","));
+		signature.append("|").append(summary).append("|").append(String.join(",", elements));
+
+		return signature.toString();
+	}
+
+	private SearchQueryPlan createPlan()
+	{
+		String filterQuery = createFilterQuery();
+		String resourceSql = projection == null ? resourceColumn : projection.getSql(resourceColumn, summary, elements);
+		String whereSql = !filterQuery.isEmpty() ? (" WHERE " + filterQuery) : "";
+		String sortSql = createSortSql();
+
+		String searchSql = hasIncludeParameters() ? createIncludeSearchSql(resourceSql, whereSql, sortSql)
+				: "SELECT " + resourceSql + " FROM current_" + resourceTable + whereSql + sortSql
+						+ PageAndCount.getParameterSql();
+		String countSql = "SELECT count(*) FROM current_" + resourceTable + whereSql;
+
+		int userFilterParameterCount = userFilter == null ? 0 : userFilter.getSqlParameterCount();
+		int[] parameterCounts = definedParameters.stream().mapToInt(SearchQueryParameter::getSqlParameterCount)
+				.toArray();
+
+		return new SearchQueryPlan(searchSql, countSql, userFilterParameterCount, parameterCounts);
+	}
+
+	private void configureProjection(String summaryParameterValue, List<String> elementsParameterValues)
+	{
+		summary = null;
+		elements = Collections.emptyList();
+		projectionErrors.clear();
+
+		if (summaryParameterValue != null)
+		{
+			summary = Summary.fromValue(summaryParameterValue);
+
+			if (summary == null)
+				projectionErrors.add(new SearchQueryParameterError(SearchQueryParameterErrorType.UNPARSABLE_VALUE,
+						PARAMETER_SUMMARY, Collections.singletonList(summaryParameterValue),
+						"Allowed values: " + Arrays.toString(Summary.values()).toLowerCase()));
+			else if (Summary.COUNT.equals(summary))
+				pageAndCount = new PageAndCount(pageAndCount.getPage(), 0);
+		}
+
+		if (elementsParameterValues != null && !elementsParameterValues.isEmpty())
+		{
+			List<String> values = elementsParameterValues.stream().flatMap(v -> Arrays.stream(v.split(",")))
+					.map(String::trim).filter(v -> !v.isEmpty()).distinct().collect(Collectors.toList());
+
+			if (summary != null && !Summary.FALSE.equals(summary))
+				projectionErrors.add(new SearchQueryParameterError(SearchQueryParameterErrorType.UNPARSABLE_VALUE,
+						PARAMETER_ELEMENTS, elementsParameterValues,
+						"Not supported in combination with " + PARAMETER_SUMMARY + "=" + summaryParameterValue));
+			else if (projection == null)
+				projectionErrors.add(new SearchQueryParameterError(SearchQueryParameterErrorType.UNSUPPORTED_PARAMETER,
+						PARAMETER_ELEMENTS, elementsParameterValues));
+			else
+			{
+				elements = values.stream().filter(projection::isElement).collect(Collectors.toList());
+
+				List<String> unknownElements = values.stream().filter(v -> !projection.isElement(v))
+						.collect(Collectors.toList());
+				if (!unknownElements.isEmpty())
+					projectionErrors.add(new SearchQueryParameterError(SearchQueryParameterErrorType.UNPARSABLE_VALUE,
+							PARAMETER_ELEMENTS, unknownElements,
+							"Unknown top level elements of " + resourceType.getSimpleName()));
+			}
+		}
+
+	}
+
 	private String createFilterQuery()
 	{
-		Stream<String> elements = searchParameters.stream().filter(SearchQueryParameter::isDefined)
-				.map(SearchQueryParameter::getFilterQuery);
+		Stream<String> elements = definedParameters.stream().map(SearchQueryParameter::getFilterQuery);
 
 		if (userFilter != null && !userFilter.getFilterQuery().isEmpty())
 			elements = Stream.concat(Stream.of(userFilter.getFilterQuery()), elements);
@@ -194,6 +312,7 @@ public class SearchQuery<R extends Resource> implements DbSearchQuery, Matcher
 				.forEach(errors::add);
 
 		searchParameters.stream().flatMap(p -> p.getErrors().stream()).forEach(errors::add);
+		errors.addAll(projectionErrors);
 		revIncludeParameterFactories.stream().flatMap(p -> p.getErrors().stream()).forEach(errors::add);
 
 		List<String> includeParameterValues = queryParameters.getOrDefault(PARAMETER_INCLUDE, Collections.emptyList());
@@ -247,67 +366,92 @@ public class SearchQuery<R extends Resource> implements DbSearchQuery, Matcher
 			return null;
 	}
 
-	private String createSortSql(String sortParameterValue)
+	private List<SearchQueryParameter<R>> createSortParameters(String sortParameterValue)
 	{
 		if (sortParameterValue == null)
-			return "";
+			return Collections.emptyList();
 
-		sortParameters = searchParameters.stream().filter(sp -> sp.getSortParameter().isPresent())
-				.collect(Collectors.toList());
+		return searchParameters.stream().filter(sp -> sp.getSortParameter().isPresent()).collect(Collectors.toList());
+	}
 
+	private String createSortSql()
+	{
 		if (sortParameters.isEmpty())
-			return "";
+			return getDefaultSortSql();
 
 		return sortParameters.stream().map(sp -> sp.getSortParameter().get().getSql())
 				.collect(Collectors.joining(", ", " ORDER BY ", ""));
 	}
 
-	private String createIncludeSql(List<String> includeParameterValues)
+	/**
+	 * Paging needs a stable order, <code>current_...</code> views without <code>DISTINCT ON</code> do not return rows
+	 * ordered by id.
+	 */
+	private String getDefaultSortSql()
 	{
-		if (includeParameterValues == null || includeParameterValues.isEmpty())
-			return "";
-
-		includeParameters = searchParameters.stream().flatMap(sp -> sp.getIncludeParameters().stream())
-				.collect(Collectors.toList());
+		return " ORDER BY " + resourceIdColumn;
+	}
 
-		if (includeParameters.isEmpty())
-			return "";
+	private List<SearchQueryIncludeParameter> createIncludeParameters(List<String> includeParameterValues)
+	{
+		if (includeParameterValues == null || includeParameterValues.isEmpty())
+			return Collections.emptyList();
 
-		return includeParameters.stream().map(SearchQueryIncludeParameter::getSql)
-				.collect(Collectors.joining(", ", ", ", ""));
+		return searchParameters.stream().flatMap(sp -> sp.getIncludeParameters().stream()).collect(Collectors.toList());
 	}
 
-	private String createRevIncludeSql()
+	private List<SearchQueryIncludeParameter> createRevIncludeParameters()
 	{
 		if (revIncludeParameterFactories == null || revIncludeParameterFactories.isEmpty())
-			return "";
+			return Collections.emptyList();
 
-		revIncludeParameters = revIncludeParameterFactories.stream().flatMap(f -> f.getRevIncludeParameters().stream())
+		return revIncludeParameterFactories.stream().flatMap(f -> f.getRevIncludeParameters().stream())
 				.collect(Collectors.toList());
+	}
 
-		if (revIncludeParameters.isEmpty())
-			return "";
+	/**
+	 * Matched resources of the requested page are selected into a <code>matches</code> table, every include and
+	 * revinclude query is executed as a <code>LATERAL</code> subquery for every match. The result contains one row per
+	 * matched or included resource, included resources follow the resource they are included by. Resource json is not
+	 * aggregated into arrays, every resource can be handed to the parser as is.
+	 */
+	private String createIncludeSearchSql(String resourceSql, String whereSql, String sortSql)
+	{
+		StringBuilder sql = new StringBuilder("WITH matches AS (SELECT row_number() OVER (").append(sortSql.trim())
+				.append(") AS match_row, ").append(resourceColumn).append(" FROM current_").append(resourceTable)
+				.append(whereSql).append(sortSql).append(PageAndCount.getParameterSql()).append(")");
 
-		return revIncludeParameters.stream().map(SearchQueryIncludeParameter::getSql)
-				.collect(Collectors.joining(", ", ", ", ""));
+		sql.append(" SELECT match_row, 1 AS column_index, ").append(resourceSql)
+				.append(" AS resource, NULL::text AS include_id FROM matches");
+
+		List<SearchQueryIncludeParameter> parameters = Stream
+				.concat(includeParameters.stream(), revIncludeParameters.stream()).collect(Collectors.toList());
+		for (int i = 0; i < parameters.size(); i++)
+		{
+			sql.append(" UNION ALL SELECT match_row, ").append(i + 2).append(
+					", included.resource, concat(included.resource->>'resourceType', '/', included.resource->>'id', '/_history/', included.resource->'meta'->>'versionId') FROM matches, LATERAL (")
+					.append(parameters.get(i).getSql()).append(") AS included(resource)");
+		}
+
+		return sql.append(" ORDER BY match_row, column_index").toString();
 	}
 
 	@Override
 	public String getCountSql()
 	{
-		String countQueryMain = "SELECT count(*) FROM current_" + resourceTable;
+		return plan.getCountSql();
+	}
 
-		return countQueryMain + (!filterQuery.isEmpty() ? (" WHERE " + filterQuery) : "");
+	@Override
+	public boolean hasIncludeParameters()
+	{
+		return !includeParameters.isEmpty() || !revIncludeParameters.isEmpty();
 	}
 
 	@Override
 	public String getSearchSql()
 	{
-		String searchQueryMain = "SELECT " + resourceColumn + includeSql + revIncludeSql + " FROM current_"
-				+ resourceTable;
-
-		return searchQueryMain + (!filterQuery.isEmpty() ? (" WHERE " + filterQuery) : "") + sortSql
-				+ pageAndCount.getSql();
+		return plan.getSearchSql();
 	}
 
 	@Override
@@ -316,22 +460,22 @@ public class SearchQuery<R extends Resource> implements DbSearchQuery, Matcher
 	{
 		try
 		{
-			List<SearchQueryParameter<?>> filtered = searchParameters.stream().filter(SearchQueryParameter::isDefined)
-					.collect(Collectors.toList());
-
 			int index = 0;
 			if (userFilter != null)
 			{
-				while (index < userFilter.getSqlParameterCount())
+				while (index < plan.getUserFilterParameterCount())
 				{
 					int i = ++index;
 					userFilter.modifyStatement(i, i, statement);
 				}
 			}
 
-			for (SearchQueryParameter<?> q : filtered)
-				for (int i = 0; i < q.getSqlParameterCount(); i++)
+			for (int p = 0; p < definedParameters.size(); p++)
+			{
+				SearchQueryParameter<R> q = definedParameters.get(p);
+				for (int i = 0; i < plan.getParameterCount(p); i++)
 					q.modifyStatement(++index, i + 1, statement, arrayCreator);
+			}
 		}
 		catch (SQLException e)
 		{
@@ -340,6 +484,15 @@ public class SearchQuery<R extends Resource> implements DbSearchQuery, Matcher
 		}
 	}
 
+	@Override
+	public void modifySearchStatement(PreparedStatement statement,
+			BiFunctionWithSqlException<String, Object[], Array> arrayCreator) throws SQLException
+	{
+		modifyStatement(statement, arrayCreator);
+
+		pageAndCount.modifyStatement(plan.getFilterParameterCount() + 1, statement);
+	}
+
 	@Override
 	public PageAndCount getPageAndCount()
 	{
@@ -358,6 +511,10 @@ public class SearchQuery<R extends Resource> implements DbSearchQuery, Matcher
 			bundleUri.replaceQueryParam(PARAMETER_INCLUDE, includeParameters());
 		if (!revIncludeParameterFactories.isEmpty())
 			bundleUri.replaceQueryParam(PARAMETER_REVINCLUDE, revIncludeParameters());
+		if (summary != null)
+			bundleUri.replaceQueryParam(PARAMETER_SUMMARY, summary.name().toLowerCase());
+		if (!elements.isEmpty())
+			bundleUri.replaceQueryParam(PARAMETER_ELEMENTS, String.join(",", elements));
 
 		return bundleUri;
 	}
@@ -21,7 +21,9 @@ public class SearchQueryIncludeParameter
 
 	/**
 	 * @param sql
-	 *            not <code>null</code>
+	 *            not <code>null</code>, query returning one row per included resource with the resource json as the
+	 *            only column, may reference the resource column of the matched resource, executed as a
+	 *            <code>LATERAL</code> subquery for every matched resource
 	 * @param includeParts
 	 *            not <code>null</code>
 	 * @param includeResourceModifier
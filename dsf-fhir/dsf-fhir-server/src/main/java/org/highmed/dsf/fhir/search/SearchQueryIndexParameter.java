@@ -0,0 +1,27 @@
+package org.highmed.dsf.fhir.search;
+
+import java.util.List;
+
+import org.hl7.fhir.r4.model.Resource;
+
+/**
+ * Search parameters implementing this interface opt into the write-time search index. Values are extracted via
+ * {@link #getIndexEntries(Resource)} for every resource version created or updated and stored in the typed search index
+ * tables, see {@link SearchIndexEntry.Type}. The filter query of the parameter is expected to select resources from the
+ * index tables, see {@link SearchIndexEntry.Type#getFilterQuery(String, String, String, String)}, instead of evaluating
+ * the resource json of every row.
+ *
+ * @param <R>
+ *            resource type
+ */
+public interface SearchQueryIndexParameter<R extends Resource> extends SearchQueryParameter<R>
+{
+	/**
+	 * Called on a not configured instance of the search parameter.
+	 *
+	 * @param resource
+	 *            not <code>null</code>, resource with id and version as written to the database
+	 * @return not <code>null</code>, index entries with the name of this parameter
+	 */
+	List<SearchIndexEntry> getIndexEntries(R resource);
+}
@@ -45,6 +45,15 @@ public interface SearchQueryParameter<R extends Resource> extends MatcherParamet
 
 	int getSqlParameterCount();
 
+	/**
+	 * Will not be called if {@link #isDefined()} returns <code>false</code>
+	 *
+	 * @return not <code>null</code>, parameter name, modifiers and shape of the configured value, not the value itself;
+	 *         equal signatures of the same parameter result in equal {@link #getFilterQuery()} and
+	 *         {@link #getSqlParameterCount()}
+	 */
+	String getSignature();
+
 	void modifyStatement(int parameterIndex, int subqueryParameterIndex, PreparedStatement statement,
 			BiFunctionWithSqlException<String, Object[], Array> arrayCreator) throws SQLException;
 
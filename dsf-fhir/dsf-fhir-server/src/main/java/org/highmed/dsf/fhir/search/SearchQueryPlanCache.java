@@ -0,0 +1,203 @@
+package org.highmed.dsf.fhir.search;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches {@link SearchQueryPlan}s of a resource type by the normalized signature of a configured {@link SearchQuery}.
+ * Search queries with equal signatures produce equal sql, only values need to be bound per request. Plans are never
+ * evicted, the number of distinct search shapes is small compared to the number of requests. If the cache is full, new
+ * plans are created per request and not cached.
+ * <p>
+ * Hit and miss counts are available via JMX, see {@link #registerMBean(String)}.
+ */
+public class SearchQueryPlanCache implements SearchQueryPlanCacheMXBean
+{
+	private static final Logger logger = LoggerFactory.getLogger(SearchQueryPlanCache.class);
+
+	public static final int DEFAULT_MAX_SIZE = 1000;
+
+	/**
+	 * Precomputed search and count sql, filter parameter counts of the user filter and defined search parameters in
+	 * binding order.
+	 */
+	public static final class SearchQueryPlan
+	{
+		private final String searchSql;
+		private final String countSql;
+		private final int userFilterParameterCount;
+		private final int[] parameterCounts;
+
+		SearchQueryPlan(String searchSql, String countSql, int userFilterParameterCount, int[] parameterCounts)
+		{
+			this.searchSql = searchSql;
+			this.countSql = countSql;
+			this.userFilterParameterCount = userFilterParameterCount;
+			this.parameterCounts = parameterCounts;
+		}
+
+		public String getSearchSql()
+		{
+			return searchSql;
+		}
+
+		public String getCountSql()
+		{
+			return countSql;
+		}
+
+		public int getUserFilterParameterCount()
+		{
+			return userFilterParameterCount;
+		}
+
+		/**
+		 * @param definedParameterIndex
+		 *            index within the defined search parameters
+		 * @return number of sql parameters to bind
+		 */
+		public int getParameterCount(int definedParameterIndex)
+		{
+			return parameterCounts[definedParameterIndex];
+		}
+
+		public int getFilterParameterCount()
+		{
+			int count = userFilterParameterCount;
+			for (int c : parameterCounts)
+				count += c;
+			return count;
+		}
+	}
+
+	private final Map<String, SearchQueryPlan> plans = new ConcurrentHashMap<>();
+	private final int maxSize;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	public SearchQueryPlanCache()
+	{
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * @param maxSize
+	 *            {@code >= 0}, <code>0</code> disables caching
+	 */
+	public SearchQueryPlanCache(int maxSize)
+	{
+		if (maxSize < 0)
+			throw new IllegalArgumentException("maxSize < 0");
+
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * @param signature
+	 *            not <code>null</code>
+	 * @param planFactory
+	 *            not <code>null</code>, called if no plan cached for the given signature
+	 * @return cached or new plan
+	 */
+	public SearchQueryPlan getOrCreate(String signature, Supplier<SearchQueryPlan> planFactory)
+	{
+		Objects.requireNonNull(signature, "signature");
+		Objects.requireNonNull(planFactory, "planFactory");
+
+		SearchQueryPlan plan = plans.get(signature);
+		if (plan != null)
+		{
+			hits.increment();
+			return plan;
+		}
+
+		misses.increment();
+		plan = planFactory.get();
+
+		if (plans.size() < maxSize)
+			plans.putIfAbsent(signature, plan);
+		else
+			logger.debug("Search query plan cache full, plan for signature '{}' not cached", signature);
+
+		return plan;
+	}
+
+	@Override
+	public long getHitCount()
+	{
+		return hits.sum();
+	}
+
+	@Override
+	public long getMissCount()
+	{
+		return misses.sum();
+	}
+
+	@Override
+	public double getHitRate()
+	{
+		long hitCount = getHitCount();
+		long requestCount = hitCount + getMissCount();
+
+		return requestCount == 0 ? 0d : (double) hitCount / requestCount;
+	}
+
+	@Override
+	public int getSize()
+	{
+		return plans.size();
+	}
+
+	@Override
+	public int getMaxSize()
+	{
+		return maxSize;
+	}
+
+	@Override
+	public void clear()
+	{
+		plans.clear();
+	}
+
+	/**
+	 * Registers this cache with the platform MBean server as
+	 * <code>org.highmed.dsf.fhir:type=SearchQueryPlanCache,table=&lt;resourceTable&gt;</code>, replaces a cache
+	 * registered with the same name. The resource table is used, because DAOs of different tables may store the same
+	 * resource type.
+	 *
+	 * @param resourceTable
+	 *            not <code>null</code>
+	 */
+	public void registerMBean(String resourceTable)
+	{
+		try
+		{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName("org.highmed.dsf.fhir:type=SearchQueryPlanCache,table=" + resourceTable);
+
+			if (server.isRegistered(name))
+				server.unregisterMBean(name);
+
+			server.registerMBean(this, name);
+		}
+		catch (JMException e)
+		{
+			logger.warn("Unable to register search query plan cache MBean for {}: {} - {}", resourceTable,
+					e.getClass().getName(), e.getMessage());
+		}
+	}
+}
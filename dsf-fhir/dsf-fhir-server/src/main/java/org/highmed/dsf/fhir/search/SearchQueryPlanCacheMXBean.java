@@ -0,0 +1,22 @@
+package org.highmed.dsf.fhir.search;
+
+/**
+ * JMX view on the hit rate of a {@link SearchQueryPlanCache}
+ */
+public interface SearchQueryPlanCacheMXBean
+{
+	long getHitCount();
+
+	long getMissCount();
+
+	/**
+	 * @return hits divided by requests, <code>0</code> if no requests yet
+	 */
+	double getHitRate();
+
+	int getSize();
+
+	int getMaxSize();
+
+	void clear();
+}
@@ -0,0 +1,168 @@
+package org.highmed.dsf.fhir.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.hl7.fhir.r4.model.Resource;
+
+import ca.uhn.fhir.context.BaseRuntimeChildDefinition;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeResourceDefinition;
+
+/**
+ * Reduces resources returned by search queries to the elements requested via <code>_summary</code> or
+ * <code>_elements</code> within the database, see {@link #getSql(String, Summary, List)}. Only top level elements are
+ * projected, the reduced json is built using <code>jsonb_build_object</code> and <code>-&gt;</code> extraction, so the
+ * full resource is neither transferred from the database nor parsed.
+ * <p>
+ * The result is equal to the result of HAPI post-filtering the full resource:
+ * <ul>
+ * <li><code>_summary=true</code>: all top level summary elements, the HAPI parser applies summary mode for nested
+ * elements and adds the <code>SUBSETTED</code> tag when encoding the response</li>
+ * <li><code>_summary=text</code>: <code>id</code>, <code>meta</code>, <code>text</code> and all mandatory top level
+ * elements, <code>SUBSETTED</code> tag added</li>
+ * <li><code>_summary=data</code>: all elements except <code>text</code>, <code>SUBSETTED</code> tag added</li>
+ * <li><code>_elements</code>: <code>id</code>, <code>meta</code> and the given top level elements,
+ * <code>SUBSETTED</code> tag added</li>
+ * </ul>
+ * Instances are thread safe and created once per resource type.
+ */
+public class SearchQueryProjection
+{
+	public static enum Summary
+	{
+		TRUE, TEXT, DATA, COUNT, FALSE;
+
+		/**
+		 * @param value
+		 *            may be <code>null</code>
+		 * @return <code>null</code> if the given value is not a valid <code>_summary</code> value
+		 */
+		public static Summary fromValue(String value)
+		{
+			return value == null ? null
+					: Stream.of(values()).filter(s -> s.name().equalsIgnoreCase(value)).findFirst().orElse(null);
+		}
+	}
+
+	private static final String RESOURCE_TYPE = "resourceType";
+	private static final String ID = "id";
+	private static final String META = "meta";
+	private static final String TEXT = "text";
+
+	private static final String SUBSETTED_TAG = "[{\"system\":\"http://terminology.hl7.org/CodeSystem/v3-ObservationValue\","
+			+ "\"code\":\"SUBSETTED\",\"display\":\"Resource encoded in summary mode\"}]";
+
+	// jsonb_build_object supports 100 arguments
+	private static final int MAX_KEYS_PER_BUILD_OBJECT = 50;
+
+	private final Map<String, List<String>> jsonPropertiesByElement = new LinkedHashMap<>();
+	private final List<String> summaryElements = new ArrayList<>();
+	private final List<String> mandatoryElements = new ArrayList<>();
+
+	/**
+	 * @param fhirContext
+	 *            not <code>null</code>
+	 * @param resourceType
+	 *            not <code>null</code>
+	 */
+	public SearchQueryProjection(FhirContext fhirContext, Class<? extends Resource> resourceType)
+	{
+		Objects.requireNonNull(fhirContext, "fhirContext");
+		Objects.requireNonNull(resourceType, "resourceType");
+
+		RuntimeResourceDefinition definition = fhirContext.getResourceDefinition(resourceType);
+		for (BaseRuntimeChildDefinition child : definition.getChildren())
+		{
+			// choice elements: value[x] -> valueString, valueBoolean ...; primitive extensions: status -> _status
+			List<String> jsonProperties = child.getValidChildNames().stream()
+					.flatMap(name -> Stream.of(name, "_" + name)).collect(Collectors.toList());
+			jsonPropertiesByElement.put(child.getElementName(), jsonProperties);
+
+			if (child.isSummary())
+				summaryElements.add(child.getElementName());
+			if (child.getMin() > 0)
+				mandatoryElements.add(child.getElementName());
+		}
+	}
+
+	/**
+	 * @param element
+	 *            may be <code>null</code>
+	 * @return <code>true</code> if the given element is a top level element of the resource type
+	 */
+	public boolean isElement(String element)
+	{
+		return element != null && jsonPropertiesByElement.containsKey(element);
+	}
+
+	/**
+	 * @param resourceColumn
+	 *            not <code>null</code>
+	 * @param summary
+	 *            may be <code>null</code>
+	 * @param elements
+	 *            not <code>null</code>, top level elements, see {@link #isElement(String)}, ignored if the given
+	 *            <b>summary</b> is not <code>null</code> and not {@link Summary#FALSE}
+	 * @return sql select expression, the given <b>resourceColumn</b> if no projection is needed
+	 */
+	public String getSql(String resourceColumn, Summary summary, List<String> elements)
+	{
+		Objects.requireNonNull(resourceColumn, "resourceColumn");
+		Objects.requireNonNull(elements, "elements");
+
+		if (summary == null || Summary.FALSE.equals(summary) || Summary.COUNT.equals(summary))
+			return elements.isEmpty() ? resourceColumn
+					: subsetted(resourceColumn, buildObject(resourceColumn, withIdAndMeta(elements)));
+
+		switch (summary)
+		{
+			case TRUE:
+				// SUBSETTED tag added by the HAPI parser in summary mode
+				return buildObject(resourceColumn, summaryElements);
+			case TEXT:
+				return subsetted(resourceColumn, buildObject(resourceColumn, withIdAndMeta(
+						Stream.concat(Stream.of(TEXT), mandatoryElements.stream()).collect(Collectors.toList()))));
+			case DATA:
+				return subsetted(resourceColumn, "(" + resourceColumn + " - '" + TEXT + "')");
+			default:
+				throw new IllegalArgumentException("Summary " + summary + " not supported");
+		}
+	}
+
+	private List<String> withIdAndMeta(List<String> elements)
+	{
+		return Stream.concat(Stream.of(ID, META), elements.stream()).distinct().collect(Collectors.toList());
+	}
+
+	private String buildObject(String resourceColumn, List<String> elements)
+	{
+		List<String> jsonProperties = Stream
+				.concat(Stream.of(RESOURCE_TYPE),
+						elements.stream().flatMap(
+								e -> jsonPropertiesByElement.getOrDefault(e, Collections.emptyList()).stream()))
+				.distinct().collect(Collectors.toList());
+
+		List<String> buildObjects = new ArrayList<>();
+		for (int i = 0; i < jsonProperties.size(); i += MAX_KEYS_PER_BUILD_OBJECT)
+			buildObjects.add(jsonProperties.subList(i, Math.min(i + MAX_KEYS_PER_BUILD_OBJECT, jsonProperties.size()))
+					.stream().map(p -> "'" + p + "', " + resourceColumn + "->'" + p + "'")
+					.collect(Collectors.joining(", ", "jsonb_build_object(", ")")));
+
+		// elements not present in the resource are build as json null values
+		return buildObjects.stream().collect(Collectors.joining(" || ", "jsonb_strip_nulls(", ")"));
+	}
+
+	private String subsetted(String resourceColumn, String projection)
+	{
+		return "jsonb_set(" + projection + ", '{" + META + "}', jsonb_set(COALESCE(" + resourceColumn + "->'" + META
+				+ "', '{}'::jsonb), '{tag}', COALESCE(" + resourceColumn + "->'" + META + "'->'tag', '[]'::jsonb) || '"
+				+ SUBSETTED_TAG + "'::jsonb))";
+	}
+}
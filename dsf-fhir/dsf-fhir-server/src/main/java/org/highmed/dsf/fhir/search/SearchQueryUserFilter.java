@@ -15,6 +15,12 @@ public interface SearchQueryUserFilter
 	 */
 	int getSqlParameterCount();
 
+	/**
+	 * @return not <code>null</code>, equal signatures of the same filter result in equal {@link #getFilterQuery()} and
+	 *         {@link #getSqlParameterCount()}
+	 */
+	String getSignature();
+
 	/**
 	 * @param parameterIndex
 	 *            {@code >= 1}
@@ -0,0 +1,39 @@
+package org.highmed.dsf.fhir.search;
+
+import org.hl7.fhir.r4.model.Resource;
+
+/**
+ * Receives the result of a search query row by row, see
+ * {@link org.highmed.dsf.fhir.dao.ResourceDao#search(DbSearchQuery, SearchResultHandler)}. Implementations are expected
+ * to process (e.g. write to the client) and release every resource before returning.
+ *
+ * @param <R>
+ *            type of the matching resources
+ */
+public interface SearchResultHandler<R extends Resource>
+{
+	/**
+	 * Called exactly once, before any matching or included resource is handed to the handler.
+	 *
+	 * @param total
+	 *            number of resources matching the search query, ignoring paging
+	 * @param pageAndCount
+	 *            not <code>null</code>
+	 */
+	void onTotal(int total, PageAndCount pageAndCount);
+
+	/**
+	 * @param resource
+	 *            not <code>null</code>, resource matching the search query
+	 */
+	void onMatch(R resource);
+
+	/**
+	 * Included resources are de-duplicated by versioned id before being handed to the handler, but not filtered by read
+	 * access rules.
+	 *
+	 * @param resource
+	 *            not <code>null</code>, resource included via <code>_include</code> or <code>_revinclude</code>
+	 */
+	void onInclude(Resource resource);
+}
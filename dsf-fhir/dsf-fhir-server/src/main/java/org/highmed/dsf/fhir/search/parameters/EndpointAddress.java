@@ -3,9 +3,13 @@ package org.highmed.dsf.fhir.search.parameters;
 import java.sql.Array;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 import org.highmed.dsf.fhir.function.BiFunctionWithSqlException;
+import org.highmed.dsf.fhir.search.SearchIndexEntry;
+import org.highmed.dsf.fhir.search.SearchQueryIndexParameter;
 import org.highmed.dsf.fhir.search.SearchQueryParameter.SearchParameterDefinition;
 import org.highmed.dsf.fhir.search.parameters.basic.AbstractCanonicalUrlParameter;
 import org.hl7.fhir.r4.model.Endpoint;
@@ -14,28 +18,47 @@ import org.hl7.fhir.r4.model.Resource;
 
 @SearchParameterDefinition(name = EndpointAddress.PARAMETER_NAME, definition = "http://hl7.org/fhir/SearchParameter/Endpoint-address", type = SearchParamType.URI, documentation = "The address (url) of the endpoint")
 public class EndpointAddress extends AbstractCanonicalUrlParameter<Endpoint>
+		implements SearchQueryIndexParameter<Endpoint>
 {
 	public static final String PARAMETER_NAME = "address";
 
+	private static final String RESOURCE_TYPE_NAME = "Endpoint";
+	private static final String RESOURCE_ID_COLUMN = "endpoint_id";
+
 	public EndpointAddress()
 	{
 		super(PARAMETER_NAME);
 	}
 
+	@Override
+	public List<SearchIndexEntry> getIndexEntries(Endpoint resource)
+	{
+		if (resource.hasAddress())
+			return Collections.singletonList(SearchIndexEntry.uri(PARAMETER_NAME, resource.getAddress()));
+		else
+			return Collections.emptyList();
+	}
+
 	@Override
 	public String getFilterQuery()
 	{
 		switch (valueAndType.type)
 		{
 			case PRECISE:
-				return "endpoint->>'address' = ?";
+				return indexFilterQuery("value = ?");
 			case BELOW:
-				return "endpoint->>'address' LIKE ?";
+				return indexFilterQuery("value LIKE ?");
 			default:
 				return "";
 		}
 	}
 
+	private String indexFilterQuery(String condition)
+	{
+		return SearchIndexEntry.Type.URI.getFilterQuery(RESOURCE_TYPE_NAME, RESOURCE_ID_COLUMN, PARAMETER_NAME,
+				condition);
+	}
+
 	@Override
 	public int getSqlParameterCount()
 	{
@@ -96,7 +96,7 @@ public class MeasureDependsOn extends AbstractCanonicalReferenceParameter<Measur
 	{
 		// TODO Measure.relatedArtifact.where(type='depends-on').resource
 		if (includeParts.matches(RESOURCE_TYPE_NAME, PARAMETER_NAME, TARGET_RESOURCE_TYPE_NAME))
-			return "(SELECT jsonb_agg(library) FROM current_libraries WHERE library->'url' IN (SELECT canonical FROM jsonb_array_elements(measure->'library') AS canonical)) AS libraries";
+			return "SELECT library FROM current_libraries WHERE library->'url' IN (SELECT canonical FROM jsonb_array_elements(measure->'library') AS canonical)";
 		else
 			return null;
 	}
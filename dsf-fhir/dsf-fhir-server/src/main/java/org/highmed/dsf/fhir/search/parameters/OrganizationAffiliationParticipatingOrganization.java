@@ -184,7 +184,7 @@ public class OrganizationAffiliationParticipatingOrganization
 	protected String getIncludeSql(IncludeParts includeParts)
 	{
 		if (includeParts.matches(RESOURCE_TYPE_NAME, PARAMETER_NAME, TARGET_RESOURCE_TYPE_NAME))
-			return "(SELECT jsonb_build_array(organization) FROM current_organizations WHERE concat('Organization/', organization->>'id') = organization_affiliation->'participatingOrganization'->>'reference') AS organizations";
+			return "SELECT organization FROM current_organizations WHERE concat('Organization/', organization->>'id') = organization_affiliation->'participatingOrganization'->>'reference'";
 		else
 			return null;
 	}
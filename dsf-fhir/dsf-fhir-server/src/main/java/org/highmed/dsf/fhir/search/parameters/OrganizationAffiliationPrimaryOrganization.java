@@ -183,7 +183,7 @@ public class OrganizationAffiliationPrimaryOrganization extends AbstractReferenc
 	protected String getIncludeSql(IncludeParts includeParts)
 	{
 		if (includeParts.matches(RESOURCE_TYPE_NAME, PARAMETER_NAME, TARGET_RESOURCE_TYPE_NAME))
-			return "(SELECT jsonb_build_array(organization) FROM current_organizations WHERE concat('Organization/', organization->>'id') = organization_affiliation->'organization'->>'reference') AS organizations";
+			return "SELECT organization FROM current_organizations WHERE concat('Organization/', organization->>'id') = organization_affiliation->'organization'->>'reference'";
 		else
 			return null;
 	}
@@ -3,26 +3,43 @@ package org.highmed.dsf.fhir.search.parameters;
 import java.sql.Array;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.highmed.dsf.fhir.function.BiFunctionWithSqlException;
+import org.highmed.dsf.fhir.search.SearchIndexEntry;
+import org.highmed.dsf.fhir.search.SearchQueryIndexParameter;
 import org.highmed.dsf.fhir.search.SearchQueryParameter.SearchParameterDefinition;
 import org.highmed.dsf.fhir.search.parameters.basic.AbstractStringParameter;
 import org.hl7.fhir.r4.model.Enumerations.SearchParamType;
 import org.hl7.fhir.r4.model.Organization;
 import org.hl7.fhir.r4.model.Resource;
+import org.hl7.fhir.r4.model.StringType;
 
 @SearchParameterDefinition(name = OrganizationName.PARAMETER_NAME, definition = "http://hl7.org/fhir/SearchParameter/Organization-name", type = SearchParamType.STRING, documentation = "A portion of the organization's name or alias")
 public class OrganizationName extends AbstractStringParameter<Organization>
+		implements SearchQueryIndexParameter<Organization>
 {
 	public static final String PARAMETER_NAME = "name";
 
+	private static final String RESOURCE_TYPE_NAME = "Organization";
+	private static final String RESOURCE_ID_COLUMN = "organization_id";
+
 	public OrganizationName()
 	{
 		super(PARAMETER_NAME);
 	}
 
-	// FIXME property alias is a list
+	@Override
+	public List<SearchIndexEntry> getIndexEntries(Organization resource)
+	{
+		return Stream.concat(Stream.of(resource.getNameElement()), resource.getAlias().stream())
+				.filter(StringType::hasValue).map(n -> SearchIndexEntry.string(PARAMETER_NAME, n.getValue()))
+				.collect(Collectors.toList());
+	}
+
 	@Override
 	public String getFilterQuery()
 	{
@@ -30,26 +47,30 @@ public class OrganizationName extends AbstractStringParameter<Organization>
 		{
 			case STARTS_WITH:
 			case CONTAINS:
-				return "(lower(organization->>'name') LIKE ? OR lower(organization->>'alias') LIKE ?)";
+				return indexFilterQuery("lower(value) LIKE ?");
 			case EXACT:
-				return "(organization->>'name' = ? OR organization->>'alias' = ?)";
+				return indexFilterQuery("value = ?");
 			default:
 				return "";
 		}
 	}
 
+	private String indexFilterQuery(String condition)
+	{
+		return SearchIndexEntry.Type.STRING.getFilterQuery(RESOURCE_TYPE_NAME, RESOURCE_ID_COLUMN, PARAMETER_NAME,
+				condition);
+	}
+
 	@Override
 	public int getSqlParameterCount()
 	{
-		return 2;
+		return 1;
 	}
 
-	// FIXME property alias is a list
 	@Override
 	public void modifyStatement(int parameterIndex, int subqueryParameterIndex, PreparedStatement statement,
 			BiFunctionWithSqlException<String, Object[], Array> arrayCreator) throws SQLException
 	{
-		// will be called twice, once with subqueryParameterIndex = 1 and once with subqueryParameterIndex = 2
 		switch (valueAndType.type)
 		{
 			case STARTS_WITH:
@@ -183,7 +183,7 @@ public class PractitionerRoleOrganization extends AbstractReferenceParameter<Pra
 	protected String getIncludeSql(IncludeParts includeParts)
 	{
 		if (includeParts.matches(RESOURCE_TYPE_NAME, PARAMETER_NAME, TARGET_RESOURCE_TYPE_NAME))
-			return "(SELECT jsonb_build_array(organization) FROM current_organizations WHERE concat('Organization/', organization->>'id') = practitioner_role->'organization'->>'reference') AS organizations";
+			return "SELECT organization FROM current_organizations WHERE concat('Organization/', organization->>'id') = practitioner_role->'organization'->>'reference'";
 		else
 			return null;
 	}
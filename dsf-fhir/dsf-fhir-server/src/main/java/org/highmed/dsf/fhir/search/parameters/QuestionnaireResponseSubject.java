@@ -232,14 +232,14 @@ public class QuestionnaireResponseSubject extends AbstractReferenceParameter<Que
 			switch (includeParts.getTargetResourceTypeName())
 			{
 				case "Organization":
-					return "(SELECT jsonb_build_array(organization) FROM current_organizations"
-							+ " WHERE concat('Organization/', organization->>'id') = questionnaire_response->'subject'->>'reference') AS organizations";
+					return "SELECT organization FROM current_organizations"
+							+ " WHERE concat('Organization/', organization->>'id') = questionnaire_response->'subject'->>'reference'";
 				case "Practitioner":
-					return "(SELECT jsonb_build_array(practitioner) FROM current_practitioners"
-							+ " WHERE concat('Practitioner/', practitioner->>'id') = questionnaire_response->'subject'->>'reference') AS practitioners";
+					return "SELECT practitioner FROM current_practitioners"
+							+ " WHERE concat('Practitioner/', practitioner->>'id') = questionnaire_response->'subject'->>'reference'";
 				case "PractitionerRole":
-					return "(SELECT jsonb_build_array(practitioner_role) FROM current_practitioner_roles"
-							+ " WHERE concat('PractitionerRole/', practitioner_role->>'id') = questionnaire_response->'subject'->>'reference') AS practitioner_roles";
+					return "SELECT practitioner_role FROM current_practitioner_roles"
+							+ " WHERE concat('PractitionerRole/', practitioner_role->>'id') = questionnaire_response->'subject'->>'reference'";
 				default:
 					return null;
 			}
@@ -215,11 +215,11 @@ public class ResearchStudyPrincipalInvestigator extends AbstractReferenceParamet
 			switch (includeParts.getTargetResourceTypeName())
 			{
 				case "Practitioner":
-					return "(SELECT jsonb_build_array(practitioner) FROM current_practitioners"
-							+ " WHERE concat('Practitioner/', practitioner->>'id') = research_study->'principalInvestigator'->>'reference') AS practitioners";
+					return "SELECT practitioner FROM current_practitioners"
+							+ " WHERE concat('Practitioner/', practitioner->>'id') = research_study->'principalInvestigator'->>'reference'";
 				case "PractitionerRole":
-					return "(SELECT jsonb_build_array(practitioner_role) FROM current_practitioner_roles"
-							+ " WHERE concat('PractitionerRole/', practitioner_role->>'id') = research_study->'principalInvestigator'->>'reference') AS practitioner_roles";
+					return "SELECT practitioner_role FROM current_practitioner_roles"
+							+ " WHERE concat('PractitionerRole/', practitioner_role->>'id') = research_study->'principalInvestigator'->>'reference'";
 				default:
 					return null;
 			}
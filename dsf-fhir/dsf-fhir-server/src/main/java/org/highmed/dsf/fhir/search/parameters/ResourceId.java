@@ -84,6 +84,12 @@ public class ResourceId<R extends Resource> extends AbstractSearchParameter<R>
 		return resourceIdColumn + " = ?";
 	}
 
+	@Override
+	protected String getValueSignature()
+	{
+		return "";
+	}
+
 	@Override
 	public int getSqlParameterCount()
 	{
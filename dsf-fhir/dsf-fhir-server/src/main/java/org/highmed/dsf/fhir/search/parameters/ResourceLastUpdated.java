@@ -1,5 +1,6 @@
 package org.highmed.dsf.fhir.search.parameters;
 
+import org.highmed.dsf.fhir.search.SearchExpressionIndex;
 import org.highmed.dsf.fhir.search.SearchQueryParameter.SearchParameterDefinition;
 import org.highmed.dsf.fhir.search.parameters.basic.AbstractDateTimeParameter;
 import org.hl7.fhir.r4.model.DomainResource;
@@ -10,8 +11,25 @@ public class ResourceLastUpdated<R extends DomainResource> extends AbstractDateT
 {
 	public static final String PARAMETER_NAME = "_lastUpdated";
 
+	/**
+	 * Immutable variant of the <code>text::timestamp</code> cast defined by the
+	 * <code>db.search_expression_indexes</code> changelog, allows expression indexes on the lastUpdated value
+	 */
+	public static final String TIMESTAMP_FUNCTION = "fhir_timestamp";
+
 	public ResourceLastUpdated(String resourceColumn)
 	{
-		super(PARAMETER_NAME, resourceColumn + "->'meta'->>'lastUpdated'");
+		super(PARAMETER_NAME, getLastUpdatedExpression(resourceColumn));
+	}
+
+	/**
+	 * @param resourceColumn
+	 *            not <code>null</code>
+	 * @return sql expression of type <code>timestamp</code> compared to search values and used for sorting
+	 * @see SearchExpressionIndex
+	 */
+	public static String getLastUpdatedExpression(String resourceColumn)
+	{
+		return TIMESTAMP_FUNCTION + "(" + resourceColumn + "->'meta'->>'lastUpdated')";
 	}
 }
@@ -1,17 +1,52 @@
 package org.highmed.dsf.fhir.search.parameters;
 
+import java.util.Collections;
+import java.util.List;
+
+import org.highmed.dsf.fhir.search.SearchIndexEntry;
+import org.highmed.dsf.fhir.search.SearchQueryIndexParameter;
 import org.highmed.dsf.fhir.search.SearchQueryParameter.SearchParameterDefinition;
 import org.highmed.dsf.fhir.search.parameters.basic.AbstractDateTimeParameter;
 import org.hl7.fhir.r4.model.Enumerations.SearchParamType;
 import org.hl7.fhir.r4.model.Task;
 
+import ca.uhn.fhir.model.api.TemporalPrecisionEnum;
+
 @SearchParameterDefinition(name = TaskAuthoredOn.PARAMETER_NAME, definition = "http://hl7.org/fhir/SearchParameter/Task-authored-on", type = SearchParamType.DATE, documentation = "Search by creation date")
-public class TaskAuthoredOn extends AbstractDateTimeParameter<Task>
+public class TaskAuthoredOn extends AbstractDateTimeParameter<Task> implements SearchQueryIndexParameter<Task>
 {
 	public static final String PARAMETER_NAME = "authored-on";
 
+	private static final String RESOURCE_TYPE_NAME = "Task";
+	private static final String RESOURCE_ID_COLUMN = "task_id";
+
 	public TaskAuthoredOn()
 	{
 		super(PARAMETER_NAME, "task->>'authoredOn'");
 	}
+
+	@Override
+	public List<SearchIndexEntry> getIndexEntries(Task resource)
+	{
+		// year and year-month values can not be cast to timestamp
+		if (resource.hasAuthoredOnElement()
+				&& resource.getAuthoredOnElement().getPrecision().ordinal() >= TemporalPrecisionEnum.DAY.ordinal())
+			return Collections.singletonList(
+					SearchIndexEntry.date(PARAMETER_NAME, resource.getAuthoredOnElement().getValueAsString()));
+		else
+			return Collections.emptyList();
+	}
+
+	@Override
+	protected String getFilterTimestampColumn()
+	{
+		return "value";
+	}
+
+	@Override
+	public String getFilterQuery()
+	{
+		return SearchIndexEntry.Type.DATE.getFilterQuery(RESOURCE_TYPE_NAME, RESOURCE_ID_COLUMN, PARAMETER_NAME,
+				super.getFilterQuery());
+	}
 }
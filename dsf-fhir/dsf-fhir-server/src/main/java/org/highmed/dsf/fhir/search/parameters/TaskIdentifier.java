@@ -1,21 +1,105 @@
 package org.highmed.dsf.fhir.search.parameters;
 
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.highmed.dsf.fhir.function.BiFunctionWithSqlException;
+import org.highmed.dsf.fhir.search.SearchIndexEntry;
+import org.highmed.dsf.fhir.search.SearchQueryIndexParameter;
 import org.highmed.dsf.fhir.search.SearchQueryParameter.SearchParameterDefinition;
 import org.highmed.dsf.fhir.search.parameters.basic.AbstractIdentifierParameter;
+import org.highmed.dsf.fhir.search.parameters.basic.TokenSearchType;
 import org.hl7.fhir.r4.model.Enumerations.SearchParamType;
 import org.hl7.fhir.r4.model.Resource;
 import org.hl7.fhir.r4.model.Task;
 
 @SearchParameterDefinition(name = AbstractIdentifierParameter.PARAMETER_NAME, definition = "http://hl7.org/fhir/SearchParameter/Task-identifier", type = SearchParamType.TOKEN, documentation = "Search for a task instance by its business identifier")
-public class TaskIdentifier extends AbstractIdentifierParameter<Task>
+public class TaskIdentifier extends AbstractIdentifierParameter<Task> implements SearchQueryIndexParameter<Task>
 {
 	public static final String RESOURCE_COLUMN = "task";
 
+	private static final String RESOURCE_TYPE_NAME = "Task";
+	private static final String RESOURCE_ID_COLUMN = "task_id";
+
 	public TaskIdentifier()
 	{
 		super(RESOURCE_COLUMN);
 	}
 
+	@Override
+	public List<SearchIndexEntry> getIndexEntries(Task resource)
+	{
+		return resource
+				.getIdentifier().stream().map(i -> SearchIndexEntry.token(PARAMETER_NAME,
+						i.hasSystem() ? i.getSystem() : null, i.hasValue() ? i.getValue() : null))
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	public String getFilterQuery()
+	{
+		switch (valueAndType.type)
+		{
+			case CODE:
+				return negatedIfNeeded(indexFilterQuery("value = ?"));
+			case CODE_AND_SYSTEM:
+				return negatedIfNeeded(indexFilterQuery("system = ? AND value = ?"));
+			case SYSTEM:
+				return negatedIfNeeded(indexFilterQuery("system = ?"));
+			case CODE_AND_NO_SYSTEM_PROPERTY:
+				if (valueAndType.negated)
+					return indexFilterQuery("(value <> ? OR system IS NOT NULL)");
+				else
+					return indexFilterQuery("value = ? AND system IS NULL");
+			default:
+				return "";
+		}
+	}
+
+	private String indexFilterQuery(String condition)
+	{
+		return SearchIndexEntry.Type.TOKEN.getFilterQuery(RESOURCE_TYPE_NAME, RESOURCE_ID_COLUMN, PARAMETER_NAME,
+				condition);
+	}
+
+	private String negatedIfNeeded(String filterQuery)
+	{
+		// same as the json based query: resources without identifiers do not match negated searches
+		if (valueAndType.negated)
+			return "(" + RESOURCE_COLUMN + " ?? 'identifier' AND NOT " + filterQuery + ")";
+		else
+			return filterQuery;
+	}
+
+	@Override
+	public int getSqlParameterCount()
+	{
+		return TokenSearchType.CODE_AND_SYSTEM.equals(valueAndType.type) ? 2 : 1;
+	}
+
+	@Override
+	public void modifyStatement(int parameterIndex, int subqueryParameterIndex, PreparedStatement statement,
+			BiFunctionWithSqlException<String, Object[], Array> arrayCreator) throws SQLException
+	{
+		switch (valueAndType.type)
+		{
+			case CODE:
+			case CODE_AND_NO_SYSTEM_PROPERTY:
+				statement.setString(parameterIndex, valueAndType.codeValue);
+				return;
+			case CODE_AND_SYSTEM:
+				statement.setString(parameterIndex,
+						subqueryParameterIndex == 1 ? valueAndType.systemValue : valueAndType.codeValue);
+				return;
+			case SYSTEM:
+				statement.setString(parameterIndex, valueAndType.systemValue);
+				return;
+		}
+	}
+
 	@Override
 	public boolean matches(Resource resource)
 	{
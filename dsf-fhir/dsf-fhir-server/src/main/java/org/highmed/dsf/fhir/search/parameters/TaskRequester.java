@@ -5,6 +5,8 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
 import org.highmed.dsf.fhir.dao.ResourceDao;
@@ -13,6 +15,8 @@ import org.highmed.dsf.fhir.dao.provider.DaoProvider;
 import org.highmed.dsf.fhir.function.BiFunctionWithSqlException;
 import org.highmed.dsf.fhir.search.IncludeParameterDefinition;
 import org.highmed.dsf.fhir.search.IncludeParts;
+import org.highmed.dsf.fhir.search.SearchIndexEntry;
+import org.highmed.dsf.fhir.search.SearchQueryIndexParameter;
 import org.highmed.dsf.fhir.search.SearchQueryParameter.SearchParameterDefinition;
 import org.highmed.dsf.fhir.search.parameters.basic.AbstractIdentifierParameter;
 import org.highmed.dsf.fhir.search.parameters.basic.AbstractReferenceParameter;
@@ -30,9 +34,10 @@ import org.hl7.fhir.r4.model.Task;
 @IncludeParameterDefinition(resourceType = Task.class, parameterName = TaskRequester.PARAMETER_NAME, targetResourceTypes = {
 		Practitioner.class, Organization.class, Patient.class, PractitionerRole.class })
 @SearchParameterDefinition(name = TaskRequester.PARAMETER_NAME, definition = "http://hl7.org/fhir/SearchParameter/Task-requester", type = SearchParamType.REFERENCE, documentation = "Search by task requester")
-public class TaskRequester extends AbstractReferenceParameter<Task>
+public class TaskRequester extends AbstractReferenceParameter<Task> implements SearchQueryIndexParameter<Task>
 {
 	private static final String RESOURCE_TYPE_NAME = "Task";
+	private static final String RESOURCE_ID_COLUMN = "task_id";
 	public static final String PARAMETER_NAME = "requester";
 	private static final String[] TARGET_RESOURCE_TYPE_NAMES = { "Practitioner", "Organization", "Patient",
 			"PractitionerRole" };
@@ -52,6 +57,16 @@ public class TaskRequester extends AbstractReferenceParameter<Task>
 		super(Task.class, RESOURCE_TYPE_NAME, PARAMETER_NAME, TARGET_RESOURCE_TYPE_NAMES);
 	}
 
+	@Override
+	public List<SearchIndexEntry> getIndexEntries(Task resource)
+	{
+		if (resource.hasRequester() && resource.getRequester().hasReference())
+			return Collections
+					.singletonList(SearchIndexEntry.reference(PARAMETER_NAME, resource.getRequester().getReference()));
+		else
+			return Collections.emptyList();
+	}
+
 	@Override
 	public String getFilterQuery()
 	{
@@ -59,12 +74,12 @@ public class TaskRequester extends AbstractReferenceParameter<Task>
 		{
 			case ID:
 				// testing all TargetResourceTypeName/ID combinations
-				return "task->'requester'->>'reference' = ANY (?)";
+				return indexFilterQuery("value = ANY (?)");
 			case RESOURCE_NAME_AND_ID:
 			case URL:
 			case TYPE_AND_ID:
 			case TYPE_AND_RESOURCE_NAME_AND_ID:
-				return "task->'requester'->>'reference' = ?";
+				return indexFilterQuery("value = ?");
 			case IDENTIFIER:
 			{
 				switch (valueAndType.identifier.type)
@@ -83,6 +98,12 @@ public class TaskRequester extends AbstractReferenceParameter<Task>
 		return "";
 	}
 
+	private String indexFilterQuery(String condition)
+	{
+		return SearchIndexEntry.Type.REFERENCE.getFilterQuery(RESOURCE_TYPE_NAME, RESOURCE_ID_COLUMN, PARAMETER_NAME,
+				condition);
+	}
+
 	@Override
 	public int getSqlParameterCount()
 	{
@@ -243,17 +264,17 @@ public class TaskRequester extends AbstractReferenceParameter<Task>
 			switch (includeParts.getTargetResourceTypeName())
 			{
 				case "Practitioner":
-					return "(SELECT jsonb_build_array(practitioner) FROM current_practitioners"
-							+ " WHERE concat('Practitioner/', practitioner->>'id') = task->'requester'->>'reference') AS practitioners";
+					return "SELECT practitioner FROM current_practitioners"
+							+ " WHERE concat('Practitioner/', practitioner->>'id') = task->'requester'->>'reference'";
 				case "Organization":
-					return "(SELECT jsonb_build_array(organization) FROM current_organizations"
-							+ " WHERE concat('Organization/', organization->>'id') = task->'requester'->>'reference') AS organizations";
+					return "SELECT organization FROM current_organizations"
+							+ " WHERE concat('Organization/', organization->>'id') = task->'requester'->>'reference'";
 				case "Patient":
-					return "(SELECT jsonb_build_array(patient) FROM current_patients"
-							+ " WHERE concat('Patient/', patient->>'id') = task->'requester'->>'reference') AS patients";
+					return "SELECT patient FROM current_patients"
+							+ " WHERE concat('Patient/', patient->>'id') = task->'requester'->>'reference'";
 				case "PractitionerRole":
-					return "(SELECT jsonb_build_array(practitioner_role) FROM current_practitioner_roles"
-							+ " WHERE concat('PractitionerRole/', practitioner_role->>'id') = task->'requester'->>'reference') AS practitioner_roles";
+					return "SELECT practitioner_role FROM current_practitioner_roles"
+							+ " WHERE concat('PractitionerRole/', practitioner_role->>'id') = task->'requester'->>'reference'";
 				default:
 					return null;
 			}
@@ -55,6 +55,12 @@ public abstract class AbstractBooleanParameter<R extends DomainResource> extends
 		return value != null;
 	}
 
+	@Override
+	protected String getValueSignature()
+	{
+		return "";
+	}
+
 	@Override
 	public void modifyBundleUri(UriBuilder bundleUri)
 	{
@@ -113,6 +113,12 @@ public abstract class AbstractCanonicalUrlParameter<R extends DomainResource> ex
 		return isDefined() && valueAndType.version != null;
 	}
 
+	@Override
+	protected String getValueSignature()
+	{
+		return valueAndType.type + (hasVersion() ? "|version" : "");
+	}
+
 	@Override
 	public void modifyBundleUri(UriBuilder bundleUri)
 	{
@@ -138,6 +138,24 @@ public abstract class AbstractDateTimeParameter<R extends DomainResource> extend
 		}
 
 		checkParameters(parameters);
+
+		valuesAndTypes.forEach(this::addValues);
+	}
+
+	private void addValues(DateTimeValueAndTypeAndSearchType value)
+	{
+		switch (value.type)
+		{
+			case ZONED_DATE_TIME:
+			case LOCAL_DATE:
+				values.add(value.value);
+				break;
+			case YEAR_MONTH_PERIOD:
+			case YEAR_PERIOD:
+				values.add(((LocalDatePair) value.value).startInclusive);
+				values.add(((LocalDatePair) value.value).endExclusive);
+				break;
+		}
 	}
 
 	/**
@@ -246,6 +264,13 @@ public abstract class AbstractDateTimeParameter<R extends DomainResource> extend
 		return !valuesAndTypes.isEmpty();
 	}
 
+	@Override
+	protected String getValueSignature()
+	{
+		return valuesAndTypes.stream().map(value -> value.searchType.prefix + value.type)
+				.collect(Collectors.joining(","));
+	}
+
 	@Override
 	public void modifyBundleUri(UriBuilder bundleUri)
 	{
@@ -273,11 +298,18 @@ public abstract class AbstractDateTimeParameter<R extends DomainResource> extend
 	@Override
 	public String getFilterQuery()
 	{
-		values.clear();
-
 		return getValuesAndTypes().stream().map(this::getSubquery).collect(Collectors.joining(" AND "));
 	}
 
+	/**
+	 * @return column or expression compared to the search values within {@link #getFilterQuery()}, the timestamp column
+	 *         given to the constructor by default
+	 */
+	protected String getFilterTimestampColumn()
+	{
+		return timestampColumn;
+	}
+
 	private String getSubquery(DateTimeValueAndTypeAndSearchType value)
 	{
 		switch (value.type)
@@ -296,16 +328,12 @@ public abstract class AbstractDateTimeParameter<R extends DomainResource> extend
 
 	private String getSubquery(ZonedDateTime value, DateTimeSearchType searchType)
 	{
-		values.add(value);
-
-		return "(" + timestampColumn + ")::timestamp " + searchType.operator + " ?";
+		return "(" + getFilterTimestampColumn() + ")::timestamp " + searchType.operator + " ?";
 	}
 
 	private String getSubquery(LocalDate value, DateTimeSearchType searchType)
 	{
-		values.add(value);
-
-		return "(" + timestampColumn + ")::date " + searchType.operator + " ?";
+		return "(" + getFilterTimestampColumn() + ")::date " + searchType.operator + " ?";
 	}
 
 	private String getSubquery(LocalDatePair value)
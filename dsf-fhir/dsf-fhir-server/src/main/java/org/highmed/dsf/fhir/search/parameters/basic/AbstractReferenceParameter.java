@@ -236,6 +236,15 @@ public abstract class AbstractReferenceParameter<R extends DomainResource> exten
 		return valueAndType != null;
 	}
 
+	@Override
+	protected String getValueSignature()
+	{
+		if (ReferenceSearchType.IDENTIFIER.equals(valueAndType.type))
+			return valueAndType.type + ":" + valueAndType.identifier.getSignature();
+		else
+			return valueAndType.type + (valueAndType.resourceName != null ? ":" + valueAndType.resourceName : "");
+	}
+
 	@Override
 	public void modifyBundleUri(UriBuilder bundleUri)
 	{
@@ -293,6 +302,12 @@ public abstract class AbstractReferenceParameter<R extends DomainResource> exten
 		return Collections.unmodifiableList(includeParameters);
 	}
 
+	/**
+	 * @param includeParts
+	 *            not <code>null</code>
+	 * @return sql query returning one row per included resource with the resource json as the only column, may
+	 *         reference the resource column of the matched resource, <code>null</code> if not supported
+	 */
 	protected abstract String getIncludeSql(IncludeParts includeParts);
 
 	@Override
@@ -34,6 +34,18 @@ public abstract class AbstractSearchParameter<R extends Resource> implements Sea
 		return parameterName;
 	}
 
+	@Override
+	public final String getSignature()
+	{
+		return parameterName + "=" + getValueSignature();
+	}
+
+	/**
+	 * @return not <code>null</code>, modifiers and type of the configured value, never the value itself
+	 * @see #getSignature()
+	 */
+	protected abstract String getValueSignature();
+
 	@Override
 	public Stream<String> getBaseAndModifiedParameterNames()
 	{
@@ -94,6 +94,12 @@ public abstract class AbstractStringParameter<R extends DomainResource> extends
 		return valueAndType != null;
 	}
 
+	@Override
+	protected String getValueSignature()
+	{
+		return valueAndType.type.name();
+	}
+
 	@Override
 	public void modifyBundleUri(UriBuilder bundleUri)
 	{
@@ -50,6 +50,12 @@ public abstract class AbstractTokenParameter<R extends Resource> extends Abstrac
 		return valueAndType != null;
 	}
 
+	@Override
+	protected String getValueSignature()
+	{
+		return valueAndType.getSignature();
+	}
+
 	@Override
 	public void modifyBundleUri(UriBuilder bundleUri)
 	{
@@ -24,6 +24,14 @@ public class TokenValueAndSearchType
 		this.negated = negated;
 	}
 
+	/**
+	 * @return search type and modifier, not the system or code value
+	 */
+	public String getSignature()
+	{
+		return type + (negated ? NOT : "");
+	}
+
 	public static Optional<TokenValueAndSearchType> fromParamValue(String parameterName,
 			Map<String, List<String>> queryParameters, Consumer<SearchQueryParameterError> errors)
 	{
@@ -79,6 +79,12 @@ public abstract class AbstractRevIncludeParameterFactory implements SearchQueryR
 		return Collections.unmodifiableList(errors);
 	}
 
+	/**
+	 * @param includeParts
+	 *            not <code>null</code>
+	 * @return sql query returning one row per included resource with the resource json as the only column, may
+	 *         reference the resource column of the matched resource
+	 */
 	protected abstract String getRevIncludeSql(IncludeParts includeParts);
 
 	/**
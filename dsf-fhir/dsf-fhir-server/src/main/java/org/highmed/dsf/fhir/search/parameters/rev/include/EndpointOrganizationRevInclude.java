@@ -19,7 +19,7 @@ public class EndpointOrganizationRevInclude extends AbstractRevIncludeParameterF
 	@Override
 	protected String getRevIncludeSql(IncludeParts includeParts)
 	{
-		return "(SELECT jsonb_build_array(endpoint) FROM current_endpoints WHERE endpoint->'managingOrganization'->>'reference' = concat('Organization/', organization->>'id')) AS endpoints";
+		return "SELECT endpoint FROM current_endpoints WHERE endpoint->'managingOrganization'->>'reference' = concat('Organization/', organization->>'id')";
 	}
 
 	@Override
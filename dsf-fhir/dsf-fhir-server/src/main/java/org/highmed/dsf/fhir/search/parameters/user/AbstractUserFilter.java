@@ -15,4 +15,10 @@ abstract class AbstractUserFilter implements SearchQueryUserFilter
 		this.resourceTable = resourceTable;
 		this.resourceIdColumn = resourceIdColumn;
 	}
+
+	@Override
+	public String getSignature()
+	{
+		return String.valueOf(user.getRole());
+	}
 }
@@ -2,6 +2,7 @@ package org.highmed.dsf.fhir.service;
 
 import java.lang.ref.SoftReference;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -148,12 +149,16 @@ public class ValidationSupportWithCache implements IValidationSupport, EventHand
 		String url = toUrl.apply(resource);
 		String version = toVersion.apply(resource);
 
-		cache.put(url, new CacheEntry<>(resource, () -> fetch.apply(url)));
+		// snapshots are stored separately, StructureDefinitions from events without snapshot are fetched on first use
+		R cacheValue = resource instanceof StructureDefinition && !((StructureDefinition) resource).hasSnapshot() ? null
+				: resource;
+
+		cache.put(url, new CacheEntry<>(cacheValue, () -> fetch.apply(url)));
 
 		if (version != null)
 		{
 			String urlAndVersion = url + "|" + version;
-			cache.put(urlAndVersion, new CacheEntry<>(resource, () -> fetch.apply(urlAndVersion)));
+			cache.put(urlAndVersion, new CacheEntry<>(cacheValue, () -> fetch.apply(urlAndVersion)));
 		}
 
 		if (resource.hasIdElement() && resource.getIdElement().hasIdPart()
@@ -236,7 +241,7 @@ public class ValidationSupportWithCache implements IValidationSupport, EventHand
 			return Stream
 					.concat(codeSystems.values().stream(),
 							Stream.concat(structureDefinitions.values().stream(), valueSets.values().stream()))
-					.map(c -> (IBaseResource) c.get()).collect(Collectors.toList());
+					.map(c -> (IBaseResource) c.get()).filter(Objects::nonNull).collect(Collectors.toList());
 		}
 	}
 
@@ -262,7 +267,7 @@ public class ValidationSupportWithCache implements IValidationSupport, EventHand
 
 			@SuppressWarnings("unchecked")
 			List<T> all = (List<T>) structureDefinitions.values().stream().map(c -> (IBaseResource) c.get())
-					.collect(Collectors.toList());
+					.filter(Objects::nonNull).collect(Collectors.toList());
 			return all;
 		}
 	}
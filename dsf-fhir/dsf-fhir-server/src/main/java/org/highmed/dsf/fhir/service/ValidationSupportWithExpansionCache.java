@@ -0,0 +1,242 @@
+package org.highmed.dsf.fhir.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.highmed.dsf.fhir.event.Event;
+import org.highmed.dsf.fhir.event.EventHandler;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.CodeSystem;
+import org.hl7.fhir.r4.model.ValueSet;
+import org.hl7.fhir.r4.model.ValueSet.ConceptSetComponent;
+import org.hl7.fhir.r4.model.ValueSet.ValueSetExpansionContainsComponent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.support.ConceptValidationOptions;
+import ca.uhn.fhir.context.support.IValidationSupport;
+import ca.uhn.fhir.context.support.ValidationSupportContext;
+
+/**
+ * {@link IValidationSupport} for the {@link org.hl7.fhir.common.hapi.validation.support.ValidationSupportChain},
+ * caching ValueSet expansions for code validation. Needs to be added to the chain in front of the
+ * {@link org.hl7.fhir.common.hapi.validation.support.InMemoryTerminologyServerValidationSupport}.
+ * <p>
+ * Expansions are cached by ValueSet url and version as well as the versions of all included CodeSystems and ValueSets.
+ * Codes found in the cached expansion are validated using hash lookups, all other codes are validated by the next
+ * {@link IValidationSupport} in the chain in order to generate the usual error messages. If no system is given, the
+ * system is only inferred for codes contained in a single CodeSystem of the expansion. The cache is cleared if a
+ * CodeSystem or ValueSet is created, updated or deleted.
+ */
+public class ValidationSupportWithExpansionCache implements IValidationSupport, EventHandler
+{
+	private static final Logger logger = LoggerFactory.getLogger(ValidationSupportWithExpansionCache.class);
+
+	private static final class Concept
+	{
+		final String code;
+		final String display;
+
+		Concept(String code, String display)
+		{
+			this.code = code;
+			this.display = display;
+		}
+	}
+
+	private static final class Expansion
+	{
+		static final Expansion NOT_EXPANDABLE = new Expansion(Collections.emptyMap(), Collections.emptyMap());
+
+		final Map<String, Map<String, Concept>> conceptsBySystemAndCode;
+		final Map<String, String> systemsByCode;
+
+		Expansion(Map<String, Map<String, Concept>> conceptsBySystemAndCode, Map<String, String> systemsByCode)
+		{
+			this.conceptsBySystemAndCode = conceptsBySystemAndCode;
+			this.systemsByCode = systemsByCode;
+		}
+	}
+
+	private final FhirContext context;
+	private final Map<String, Expansion> expansions;
+
+	/**
+	 * @param context
+	 *            not <code>null</code>
+	 * @param cacheSize
+	 *            maximum number of ValueSet expansions to cache, <code>0</code> to disable caching
+	 */
+	public ValidationSupportWithExpansionCache(FhirContext context, int cacheSize)
+	{
+		this.context = Objects.requireNonNull(context, "context");
+		this.expansions = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Expansion> eldest)
+			{
+				return size() > cacheSize;
+			}
+		});
+	}
+
+	@Override
+	public FhirContext getFhirContext()
+	{
+		return context;
+	}
+
+	@Override
+	public void handleEvent(Event event)
+	{
+		if (event == null)
+			return;
+
+		if (CodeSystem.class.equals(event.getResourceType()) || ValueSet.class.equals(event.getResourceType()))
+		{
+			logger.trace("handling event {}, clearing ValueSet expansion cache", event.getClass().getSimpleName());
+			invalidateCaches();
+		}
+	}
+
+	@Override
+	public boolean isValueSetSupported(ValidationSupportContext theRootValidationSupport, String theValueSetUrl)
+	{
+		return theValueSetUrl != null
+				&& theRootValidationSupport.getRootValidationSupport().fetchValueSet(theValueSetUrl) != null;
+	}
+
+	@Override
+	public CodeValidationResult validateCode(ValidationSupportContext theRootValidationSupport,
+			ConceptValidationOptions theOptions, String theCodeSystem, String theCode, String theDisplay,
+			String theValueSetUrl)
+	{
+		if (theValueSetUrl == null)
+			return null;
+
+		IBaseResource valueSet = theRootValidationSupport.getRootValidationSupport().fetchValueSet(theValueSetUrl);
+		return validateCodeInValueSet(theRootValidationSupport, theOptions, theCodeSystem, theCode, theDisplay,
+				valueSet);
+	}
+
+	@Override
+	public CodeValidationResult validateCodeInValueSet(ValidationSupportContext theRootValidationSupport,
+			ConceptValidationOptions theOptions, String theCodeSystem, String theCode, String theDisplay,
+			IBaseResource theValueSet)
+	{
+		if (theCode == null || !(theValueSet instanceof ValueSet) || !((ValueSet) theValueSet).hasUrl())
+			return null;
+
+		IValidationSupport rootSupport = theRootValidationSupport.getRootValidationSupport();
+		ValueSet valueSet = (ValueSet) theValueSet;
+
+		String key = toCacheKey(rootSupport, valueSet);
+		Expansion expansion = expansions.get(key);
+		if (expansion == null)
+		{
+			expansion = expand(theRootValidationSupport, valueSet);
+			expansions.put(key, expansion);
+		}
+
+		String system = theCodeSystem;
+		if (system == null && theOptions.isInferSystem())
+			system = expansion.systemsByCode.get(theCode);
+
+		Concept concept = system == null ? null
+				: expansion.conceptsBySystemAndCode.getOrDefault(system, Collections.emptyMap()).get(theCode);
+
+		// not found or display mismatch, next validation support generates error message
+		if (concept == null || (theOptions.isValidateDisplay() && theDisplay != null && !theDisplay.isBlank()
+				&& concept.display != null && !concept.display.isBlank() && !theDisplay.equals(concept.display)))
+			return null;
+
+		CodeSystem codeSystem = (CodeSystem) rootSupport.fetchCodeSystem(system);
+		return new CodeValidationResult().setCode(concept.code).setDisplay(concept.display)
+				.setCodeSystemName(codeSystem == null ? null : codeSystem.getName())
+				.setCodeSystemVersion(codeSystem == null ? null : codeSystem.getVersion());
+	}
+
+	private String toCacheKey(IValidationSupport rootSupport, ValueSet valueSet)
+	{
+		TreeSet<String> dependencies = Stream
+				.concat(valueSet.getCompose().getInclude().stream(), valueSet.getCompose().getExclude().stream())
+				.flatMap(c -> toDependencies(rootSupport, c)).collect(Collectors.toCollection(TreeSet::new));
+
+		return valueSet.getUrl() + "|" + valueSet.getVersion() + dependencies.toString();
+	}
+
+	private Stream<String> toDependencies(IValidationSupport rootSupport, ConceptSetComponent component)
+	{
+		Stream<String> codeSystem = component.hasSystem() ? Stream.of(component.getSystem() + "|"
+				+ (component.hasVersion() ? component.getVersion()
+						: Optional.ofNullable((CodeSystem) rootSupport.fetchCodeSystem(component.getSystem()))
+								.map(CodeSystem::getVersion).orElse(null)))
+				: Stream.empty();
+
+		Stream<String> valueSets = component.getValueSet().stream().map(c -> c.getValue() + "|" + Optional
+				.ofNullable((ValueSet) rootSupport.fetchValueSet(c.getValue())).map(ValueSet::getVersion).orElse(null));
+
+		return Stream.concat(codeSystem, valueSets);
+	}
+
+	private Expansion expand(ValidationSupportContext theRootValidationSupport, ValueSet valueSet)
+	{
+		logger.debug("Generating expansion for ValueSet with url {}, version {}", valueSet.getUrl(),
+				valueSet.getVersion());
+
+		ValueSetExpansionOutcome outcome = theRootValidationSupport.getRootValidationSupport()
+				.expandValueSet(theRootValidationSupport, null, valueSet);
+
+		if (outcome == null || outcome.getError() != null || !(outcome.getValueSet() instanceof ValueSet))
+		{
+			logger.debug("Unable to expand ValueSet with url {}, version {}: {}", valueSet.getUrl(),
+					valueSet.getVersion(), outcome == null ? "no expansion" : outcome.getError());
+			return Expansion.NOT_EXPANDABLE;
+		}
+
+		Map<String, Map<String, Concept>> conceptsBySystemAndCode = new HashMap<>();
+		Map<String, String> systemsByCode = new HashMap<>();
+		addConcepts(((ValueSet) outcome.getValueSet()).getExpansion().getContains(), conceptsBySystemAndCode,
+				systemsByCode);
+
+		return new Expansion(conceptsBySystemAndCode, systemsByCode);
+	}
+
+	private void addConcepts(List<ValueSetExpansionContainsComponent> contains,
+			Map<String, Map<String, Concept>> conceptsBySystemAndCode, Map<String, String> systemsByCode)
+	{
+		for (ValueSetExpansionContainsComponent c : contains)
+		{
+			if (c.hasSystem() && c.hasCode())
+			{
+				conceptsBySystemAndCode.computeIfAbsent(c.getSystem(), s -> new HashMap<>()).putIfAbsent(c.getCode(),
+						new Concept(c.getCode(), c.getDisplay()));
+
+				// system only inferred if the code is unique within the expansion
+				if (!systemsByCode.containsKey(c.getCode()))
+					systemsByCode.put(c.getCode(), c.getSystem());
+				else if (!c.getSystem().equals(systemsByCode.get(c.getCode())))
+					systemsByCode.put(c.getCode(), null);
+			}
+
+			addConcepts(c.getContains(), conceptsBySystemAndCode, systemsByCode);
+		}
+	}
+
+	@Override
+	public void invalidateCaches()
+	{
+		expansions.clear();
+	}
+}
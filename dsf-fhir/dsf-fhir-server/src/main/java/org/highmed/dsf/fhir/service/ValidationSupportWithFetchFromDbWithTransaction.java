@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -37,11 +38,19 @@ public class ValidationSupportWithFetchFromDbWithTransaction implements IValidat
 	private final CodeSystemDao codeSystemDao;
 	private final ValueSetDao valueSetDao;
 
-	private final Connection connection;
+	private final Supplier<Connection> connection;
 
 	public ValidationSupportWithFetchFromDbWithTransaction(FhirContext context,
 			StructureDefinitionDao structureDefinitionDao, StructureDefinitionDao structureDefinitionSnapshotDao,
 			CodeSystemDao codeSystemDao, ValueSetDao valueSetDao, Connection connection)
+	{
+		this(context, structureDefinitionDao, structureDefinitionSnapshotDao, codeSystemDao, valueSetDao,
+				() -> connection);
+	}
+
+	public ValidationSupportWithFetchFromDbWithTransaction(FhirContext context,
+			StructureDefinitionDao structureDefinitionDao, StructureDefinitionDao structureDefinitionSnapshotDao,
+			CodeSystemDao codeSystemDao, ValueSetDao valueSetDao, Supplier<Connection> connection)
 	{
 		this.context = context;
 
@@ -60,6 +69,7 @@ public class ValidationSupportWithFetchFromDbWithTransaction implements IValidat
 		Objects.requireNonNull(structureDefinitionSnapshotDao, "structureDefinitionSnapshotDao");
 		Objects.requireNonNull(codeSystemDao, "codeSystemDao");
 		Objects.requireNonNull(valueSetDao, "valueSetDao");
+		Objects.requireNonNull(connection, "connection");
 	}
 
 	@Override
@@ -71,10 +81,10 @@ public class ValidationSupportWithFetchFromDbWithTransaction implements IValidat
 	@Override
 	public List<IBaseResource> fetchAllConformanceResources()
 	{
-		return Stream
-				.concat(throwRuntimeException(() -> codeSystemDao.readAllWithTransaction(connection)).stream(),
-						Stream.concat(fetchAllStructureDefinitions().stream(),
-								throwRuntimeException(() -> valueSetDao.readAllWithTransaction(connection)).stream()))
+		return Stream.concat(
+				throwRuntimeException(() -> codeSystemDao.readAllWithTransaction(connection.get())).stream(),
+				Stream.concat(fetchAllStructureDefinitions().stream(),
+						throwRuntimeException(() -> valueSetDao.readAllWithTransaction(connection.get())).stream()))
 				.collect(Collectors.toList());
 	}
 
@@ -83,9 +93,9 @@ public class ValidationSupportWithFetchFromDbWithTransaction implements IValidat
 	public List<StructureDefinition> fetchAllStructureDefinitions()
 	{
 		Map<String, StructureDefinition> byUrl = new HashMap<>();
-		throwRuntimeException(() -> structureDefinitionSnapshotDao.readAllWithTransaction(connection))
+		throwRuntimeException(() -> structureDefinitionSnapshotDao.readAllWithTransaction(connection.get()))
 				.forEach(s -> byUrl.put(s.getUrl(), s));
-		throwRuntimeException(() -> structureDefinitionDao.readAllWithTransaction(connection))
+		throwRuntimeException(() -> structureDefinitionDao.readAllWithTransaction(connection.get()))
 				.forEach(s -> byUrl.putIfAbsent(s.getUrl(), s));
 
 		return new ArrayList<>(byUrl.values());
@@ -96,12 +106,12 @@ public class ValidationSupportWithFetchFromDbWithTransaction implements IValidat
 	{
 		Optional<StructureDefinition> structureDefinition = null;
 		structureDefinition = throwRuntimeException(
-				() -> structureDefinitionSnapshotDao.readByUrlAndVersionWithTransaction(connection, url));
+				() -> structureDefinitionSnapshotDao.readByUrlAndVersionWithTransaction(connection.get(), url));
 		if (structureDefinition.isPresent())
 			return structureDefinition.get();
 
 		structureDefinition = throwRuntimeException(
-				() -> structureDefinitionDao.readByUrlAndVersionWithTransaction(connection, url));
+				() -> structureDefinitionDao.readByUrlAndVersionWithTransaction(connection.get(), url));
 		if (structureDefinition.isPresent())
 			return structureDefinition.get();
 
@@ -125,7 +135,7 @@ public class ValidationSupportWithFetchFromDbWithTransaction implements IValidat
 	public CodeSystem fetchCodeSystem(String url)
 	{
 		Optional<CodeSystem> codeSystem = throwRuntimeException(
-				() -> codeSystemDao.readByUrlAndVersionWithTransaction(connection, url));
+				() -> codeSystemDao.readByUrlAndVersionWithTransaction(connection.get(), url));
 		if (codeSystem.isPresent())
 			return codeSystem.get();
 		else
@@ -136,7 +146,7 @@ public class ValidationSupportWithFetchFromDbWithTransaction implements IValidat
 	public ValueSet fetchValueSet(String url)
 	{
 		Optional<ValueSet> valueSet = throwRuntimeException(
-				() -> valueSetDao.readByUrlAndVersionWithTransaction(connection, url));
+				() -> valueSetDao.readByUrlAndVersionWithTransaction(connection.get(), url));
 		if (valueSet.isPresent())
 			return valueSet.get();
 		else
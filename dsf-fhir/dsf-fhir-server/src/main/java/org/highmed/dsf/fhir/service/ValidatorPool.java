@@ -0,0 +1,192 @@
+package org.highmed.dsf.fhir.service;
+
+import java.sql.Connection;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.highmed.dsf.fhir.event.Event;
+import org.highmed.dsf.fhir.event.EventHandler;
+import org.highmed.dsf.fhir.validation.ResourceValidator;
+import org.highmed.dsf.fhir.validation.ResourceValidatorImpl;
+import org.highmed.dsf.fhir.validation.SnapshotGenerator;
+import org.highmed.dsf.fhir.validation.SnapshotGeneratorWithCache;
+import org.hl7.fhir.r4.model.CodeSystem;
+import org.hl7.fhir.r4.model.Resource;
+import org.hl7.fhir.r4.model.StructureDefinition;
+import org.hl7.fhir.r4.model.ValueSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.support.IValidationSupport;
+
+/**
+ * Pool of {@link ResourceValidator}s with transaction specific {@link IValidationSupport}s, reused across transactions
+ * to keep the profiles compiled by the validator and the cached conformance resources.
+ * <p>
+ * A {@link PooledValidator} is confined to the transaction it was borrowed for. Validators are only returned to the
+ * pool if no conformance resource (StructureDefinition, CodeSystem, ValueSet) was created, updated or deleted while
+ * they were borrowed, neither within the transaction nor by other transactions. Validators not returned via
+ * {@link #release(PooledValidator)}, e.g. after a rollback, are discarded.
+ */
+public class ValidatorPool implements EventHandler
+{
+	private static final Logger logger = LoggerFactory.getLogger(ValidatorPool.class);
+
+	public static final class PooledValidator
+	{
+		private final long generation;
+		private final IValidationSupport validationSupport;
+		private final ResourceValidator resourceValidator;
+		private final SnapshotGenerator snapshotGenerator;
+
+		private volatile Connection connection;
+		private volatile boolean conformanceResourceChanged;
+
+		private PooledValidator(long generation, FhirContext context,
+				Function<Supplier<Connection>, IValidationSupport> validationSupportFactory)
+		{
+			this.generation = generation;
+			this.validationSupport = validationSupportFactory.apply(this::getConnection);
+			this.resourceValidator = new ResourceValidatorImpl(context, validationSupport);
+			this.snapshotGenerator = new SnapshotGeneratorWithCache(context, validationSupport);
+		}
+
+		private Connection getConnection()
+		{
+			Connection c = connection;
+			if (c == null)
+				throw new IllegalStateException("Validator not borrowed");
+
+			return c;
+		}
+
+		public IValidationSupport getValidationSupport()
+		{
+			return validationSupport;
+		}
+
+		public ResourceValidator getResourceValidator()
+		{
+			return resourceValidator;
+		}
+
+		public SnapshotGenerator getSnapshotGenerator()
+		{
+			return snapshotGenerator;
+		}
+
+		/**
+		 * @return handler for events of the transaction, forwarded to the validation support
+		 */
+		public EventHandler getEventHandler()
+		{
+			return event ->
+			{
+				if (event != null && isConformanceResource(event.getResourceType()))
+					conformanceResourceChanged = true;
+
+				if (validationSupport instanceof EventHandler)
+					((EventHandler) validationSupport).handleEvent(event);
+			};
+		}
+	}
+
+	private final FhirContext context;
+	private final int maxIdle;
+	private final Function<Supplier<Connection>, IValidationSupport> validationSupportFactory;
+
+	private final Deque<PooledValidator> idle = new ArrayDeque<>();
+	private long generation;
+
+	/**
+	 * @param context
+	 *            not <code>null</code>
+	 * @param maxIdle
+	 *            maximum number of validators kept for reuse, <code>0</code> disables reuse
+	 * @param validationSupportFactory
+	 *            not <code>null</code>, creates validation supports reading from the supplied connection
+	 */
+	public ValidatorPool(FhirContext context, int maxIdle,
+			Function<Supplier<Connection>, IValidationSupport> validationSupportFactory)
+	{
+		this.context = Objects.requireNonNull(context, "context");
+		this.maxIdle = maxIdle;
+		this.validationSupportFactory = Objects.requireNonNull(validationSupportFactory, "validationSupportFactory");
+	}
+
+	private static boolean isConformanceResource(Class<? extends Resource> type)
+	{
+		return CodeSystem.class.equals(type) || StructureDefinition.class.equals(type) || ValueSet.class.equals(type);
+	}
+
+	/**
+	 * @param connection
+	 *            not <code>null</code>, used by the validator until released
+	 * @return idle or new validator, only to be used by the calling thread
+	 */
+	public PooledValidator borrow(Connection connection)
+	{
+		Objects.requireNonNull(connection, "connection");
+
+		PooledValidator validator;
+		long currentGeneration;
+		synchronized (idle)
+		{
+			validator = idle.pollFirst();
+			currentGeneration = generation;
+		}
+
+		if (validator == null)
+		{
+			logger.debug("Creating new validator");
+			validator = new PooledValidator(currentGeneration, context, validationSupportFactory);
+		}
+
+		validator.connection = connection;
+		return validator;
+	}
+
+	/**
+	 * Returns the validator to the pool, must only be called after the transaction was committed.
+	 *
+	 * @param validator
+	 *            not <code>null</code>
+	 */
+	public void release(PooledValidator validator)
+	{
+		Objects.requireNonNull(validator, "validator");
+
+		validator.connection = null;
+
+		if (validator.conformanceResourceChanged)
+		{
+			logger.debug("Discarding validator, conformance resources changed within transaction");
+			return;
+		}
+
+		synchronized (idle)
+		{
+			if (validator.generation == generation && idle.size() < maxIdle)
+				idle.addFirst(validator);
+		}
+	}
+
+	@Override
+	public void handleEvent(Event event)
+	{
+		if (event == null || !isConformanceResource(event.getResourceType()))
+			return;
+
+		logger.trace("Discarding idle validators, {} changed", event.getResourceType().getSimpleName());
+
+		synchronized (idle)
+		{
+			generation++;
+			idle.clear();
+		}
+	}
+}
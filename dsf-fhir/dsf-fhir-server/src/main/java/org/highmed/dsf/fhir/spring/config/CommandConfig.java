@@ -8,18 +8,13 @@ import org.highmed.dsf.fhir.dao.command.TransactionEventHandler;
 import org.highmed.dsf.fhir.dao.command.TransactionResources;
 import org.highmed.dsf.fhir.dao.command.ValidationHelper;
 import org.highmed.dsf.fhir.dao.command.ValidationHelperImpl;
-import org.highmed.dsf.fhir.event.EventHandler;
-import org.highmed.dsf.fhir.validation.ResourceValidatorImpl;
-import org.highmed.dsf.fhir.validation.SnapshotGenerator;
-import org.highmed.dsf.fhir.validation.SnapshotGeneratorImpl;
+import org.highmed.dsf.fhir.service.ValidatorPool.PooledValidator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Scope;
 
-import ca.uhn.fhir.context.support.IValidationSupport;
-
 @Configuration
 public class CommandConfig
 {
@@ -47,9 +42,6 @@ public class CommandConfig
 	@Autowired
 	private ValidationConfig validationConfig;
 
-	@Autowired
-	private FhirConfig fhirConfig;
-
 	@Bean
 	public CommandFactory commandFactory()
 	{
@@ -66,17 +58,15 @@ public class CommandConfig
 	@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 	public TransactionResources transactionResourceFactory(Connection connection)
 	{
-		IValidationSupport validationSupport = validationConfig.validationSupportWithTransaction(connection);
+		PooledValidator validator = validationConfig.validatorPool().borrow(connection);
 
-		ValidationHelper validationHelper = new ValidationHelperImpl(
-				new ResourceValidatorImpl(fhirConfig.fhirContext(), validationSupport),
+		ValidationHelper validationHelper = new ValidationHelperImpl(validator.getResourceValidator(),
 				helperConfig.responseGenerator());
 
-		SnapshotGenerator snapshotGenerator = new SnapshotGeneratorImpl(fhirConfig.fhirContext(), validationSupport);
-
 		TransactionEventHandler transactionEventHandler = new TransactionEventHandler(eventConfig.eventManager(),
-				validationSupport instanceof EventHandler ? (EventHandler) validationSupport : null);
+				validator.getEventHandler());
 
-		return new TransactionResources(validationHelper, snapshotGenerator, transactionEventHandler);
+		return new TransactionResources(validationHelper, validator.getSnapshotGenerator(), transactionEventHandler,
+				() -> validationConfig.validatorPool().release(validator));
 	}
 }
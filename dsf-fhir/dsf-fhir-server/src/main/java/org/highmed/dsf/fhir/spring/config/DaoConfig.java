@@ -1,5 +1,7 @@
 package org.highmed.dsf.fhir.spring.config;
 
+import java.time.Duration;
+
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.highmed.dsf.fhir.dao.ActivityDefinitionDao;
 import org.highmed.dsf.fhir.dao.BinaryDao;
@@ -38,6 +40,7 @@ import org.highmed.dsf.fhir.dao.jdbc.EndpointDaoJdbc;
 import org.highmed.dsf.fhir.dao.jdbc.GroupDaoJdbc;
 import org.highmed.dsf.fhir.dao.jdbc.HealthcareServiceDaoJdbc;
 import org.highmed.dsf.fhir.dao.jdbc.HistroyDaoJdbc;
+import org.highmed.dsf.fhir.dao.jdbc.InstrumentedDataSource;
 import org.highmed.dsf.fhir.dao.jdbc.LibraryDaoJdbc;
 import org.highmed.dsf.fhir.dao.jdbc.LocationDaoJdbc;
 import org.highmed.dsf.fhir.dao.jdbc.MeasureDaoJdbc;
@@ -52,6 +55,7 @@ import org.highmed.dsf.fhir.dao.jdbc.ProvenanceDaoJdbc;
 import org.highmed.dsf.fhir.dao.jdbc.QuestionnaireDaoJdbc;
 import org.highmed.dsf.fhir.dao.jdbc.QuestionnaireResponseDaoJdbc;
 import org.highmed.dsf.fhir.dao.jdbc.ReadAccessDaoJdbc;
+import org.highmed.dsf.fhir.dao.jdbc.ReadReplicaDataSource;
 import org.highmed.dsf.fhir.dao.jdbc.ResearchStudyDaoJdbc;
 import org.highmed.dsf.fhir.dao.jdbc.StructureDefinitionDaoJdbc;
 import org.highmed.dsf.fhir.dao.jdbc.StructureDefinitionSnapshotDaoJdbc;
@@ -60,6 +64,7 @@ import org.highmed.dsf.fhir.dao.jdbc.TaskDaoJdbc;
 import org.highmed.dsf.fhir.dao.jdbc.ValueSetDaoJdbc;
 import org.highmed.dsf.fhir.dao.provider.DaoProvider;
 import org.highmed.dsf.fhir.dao.provider.DaoProviderImpl;
+import org.highmed.dsf.fhir.replica.LastWriteLsnCache;
 import org.postgresql.Driver;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -77,33 +82,87 @@ public class DaoConfig
 	@Bean
 	public BasicDataSource dataSource()
 	{
-		BasicDataSource dataSource = new BasicDataSource();
+		InstrumentedDataSource dataSource = new InstrumentedDataSource("dataSource",
+				propertiesConfig.getDbPoolWaitWarnThreshold());
 		dataSource.setDriverClassName(Driver.class.getName());
 		dataSource.setUrl(propertiesConfig.getDbUrl());
 		dataSource.setUsername(propertiesConfig.getDbUsername());
 		dataSource.setPassword(toString(propertiesConfig.getDbPassword()));
 		dataSource.setDefaultReadOnly(true);
 
-		dataSource.setTestOnBorrow(true);
-		dataSource.setValidationQuery("SELECT 1");
+		configurePool(dataSource);
 		return dataSource;
 	}
 
 	@Bean
 	public BasicDataSource permanentDeleteDataSource()
 	{
-		BasicDataSource dataSource = new BasicDataSource();
+		InstrumentedDataSource dataSource = new InstrumentedDataSource("permanentDeleteDataSource",
+				propertiesConfig.getDbPoolWaitWarnThreshold());
 		dataSource.setDriverClassName(Driver.class.getName());
 		dataSource.setUrl(propertiesConfig.getDbUrl());
 		dataSource.setUsername(propertiesConfig.getDbPermanentDeleteUsername());
 		dataSource.setPassword(toString(propertiesConfig.getDbPermanentDeletePassword()));
 		dataSource.setDefaultReadOnly(true);
 
-		dataSource.setTestOnBorrow(true);
-		dataSource.setValidationQuery("SELECT 1");
+		configurePool(dataSource);
 		return dataSource;
 	}
 
+	@Bean
+	public ReadReplicaDataSource readReplicaDataSource()
+	{
+		if (propertiesConfig.getDbReplicaUrl() == null || propertiesConfig.getDbReplicaUrl().isBlank())
+			return new ReadReplicaDataSource(dataSource(), null);
+
+		InstrumentedDataSource replica = new InstrumentedDataSource("replicaDataSource",
+				propertiesConfig.getDbPoolWaitWarnThreshold());
+		replica.setDriverClassName(Driver.class.getName());
+		replica.setUrl(propertiesConfig.getDbReplicaUrl());
+		replica.setUsername(propertiesConfig.getDbUsername());
+		replica.setPassword(toString(propertiesConfig.getDbPassword()));
+		replica.setDefaultReadOnly(true);
+
+		configurePool(replica);
+		return new ReadReplicaDataSource(dataSource(), replica);
+	}
+
+	@Bean
+	public LastWriteLsnCache lastWriteLsnCache()
+	{
+		return new LastWriteLsnCache(propertiesConfig.getDbReplicaLsnCacheSize(),
+				Duration.ofSeconds(propertiesConfig.getDbReplicaLsnCacheTimeout()));
+	}
+
+	private void configurePool(InstrumentedDataSource dataSource)
+	{
+		dataSource.setMinIdle(propertiesConfig.getDbPoolMinIdle());
+		dataSource.setMaxIdle(propertiesConfig.getDbPoolMaxIdle());
+		dataSource.setMaxTotal(propertiesConfig.getDbPoolMaxTotal());
+		dataSource.setMaxWaitMillis(propertiesConfig.getDbPoolMaxWait());
+
+		// idle connections above min-idle are closed after the idle timeout, the pool shrinks after load peaks
+		if (propertiesConfig.getDbPoolIdleValidationInterval() > 0)
+		{
+			dataSource.setTimeBetweenEvictionRunsMillis(propertiesConfig.getDbPoolIdleValidationInterval());
+			dataSource.setSoftMinEvictableIdleTimeMillis(propertiesConfig.getDbPoolIdleTimeout());
+			dataSource.setTestWhileIdle(true);
+		}
+
+		dataSource.setTestOnBorrow(propertiesConfig.getDbPoolTestOnBorrow());
+		dataSource.setValidationQuery("SELECT 1");
+
+		if (propertiesConfig.getDbPoolAbandonedTimeout() > 0)
+		{
+			dataSource.setRemoveAbandonedTimeout(propertiesConfig.getDbPoolAbandonedTimeout());
+			dataSource.setRemoveAbandonedOnBorrow(true);
+			dataSource.setRemoveAbandonedOnMaintenance(true);
+			dataSource.setLogAbandoned(true);
+		}
+
+		dataSource.registerMBean();
+	}
+
 	private String toString(char[] password)
 	{
 		return password == null ? null : String.valueOf(password);
@@ -112,164 +171,171 @@ public class DaoConfig
 	@Bean
 	public ActivityDefinitionDao activityDefinitionDao()
 	{
-		return new ActivityDefinitionDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new ActivityDefinitionDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(),
+				fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public BinaryDao binaryDao()
 	{
-		return new BinaryDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new BinaryDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public BundleDao bundleDao()
 	{
-		return new BundleDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new BundleDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public CodeSystemDao codeSystemDao()
 	{
-		return new CodeSystemDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new CodeSystemDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public DocumentReferenceDao documentReferenceDao()
 	{
-		return new DocumentReferenceDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new DocumentReferenceDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(),
+				fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public EndpointDao endpointDao()
 	{
-		return new EndpointDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new EndpointDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public GroupDao groupDao()
 	{
-		return new GroupDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new GroupDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public HealthcareServiceDao healthcareServiceDao()
 	{
-		return new HealthcareServiceDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new HealthcareServiceDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(),
+				fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public LibraryDao libraryDao()
 	{
-		return new LibraryDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new LibraryDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public LocationDao locationDao()
 	{
-		return new LocationDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new LocationDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public MeasureDao measureDao()
 	{
-		return new MeasureDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new MeasureDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public MeasureReportDao measureReportDao()
 	{
-		return new MeasureReportDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new MeasureReportDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public NamingSystemDao namingSystemDao()
 	{
-		return new NamingSystemDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new NamingSystemDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public OrganizationDao organizationDao()
 	{
-		return new OrganizationDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new OrganizationDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public OrganizationAffiliationDao organizationAffiliationDao()
 	{
-		return new OrganizationAffiliationDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new OrganizationAffiliationDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(),
+				fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public PatientDao patientDao()
 	{
-		return new PatientDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new PatientDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public PractitionerDao practitionerDao()
 	{
-		return new PractitionerDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new PractitionerDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public PractitionerRoleDao practitionerRoleDao()
 	{
-		return new PractitionerRoleDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new PractitionerRoleDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(),
+				fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public ProvenanceDao provenanceDao()
 	{
-		return new ProvenanceDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new ProvenanceDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public QuestionnaireDao questionnaireDao()
 	{
-		return new QuestionnaireDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new QuestionnaireDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public QuestionnaireResponseDao questionnaireResponseDao()
 	{
-		return new QuestionnaireResponseDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new QuestionnaireResponseDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(),
+				fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public ResearchStudyDao researchStudyDao()
 	{
-		return new ResearchStudyDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new ResearchStudyDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public StructureDefinitionDao structureDefinitionDao()
 	{
-		return new StructureDefinitionDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new StructureDefinitionDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(),
+				fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public StructureDefinitionDao structureDefinitionSnapshotDao()
 	{
-		return new StructureDefinitionSnapshotDaoJdbc(dataSource(), permanentDeleteDataSource(),
+		return new StructureDefinitionSnapshotDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(),
 				fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public SubscriptionDao subscriptionDao()
 	{
-		return new SubscriptionDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new SubscriptionDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public TaskDao taskDao()
 	{
-		return new TaskDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new TaskDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
 	}
 
 	@Bean
 	public ValueSetDao valueSetDao()
 	{
-		return new ValueSetDaoJdbc(dataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
+		return new ValueSetDaoJdbc(readReplicaDataSource(), permanentDeleteDataSource(), fhirConfig.fhirContext());
 	}
 
 	@Bean
@@ -286,7 +352,7 @@ public class DaoConfig
 	@Bean
 	public HistoryDao historyDao()
 	{
-		return new HistroyDaoJdbc(dataSource(), fhirConfig.fhirContext(), (BinaryDaoJdbc) binaryDao());
+		return new HistroyDaoJdbc(readReplicaDataSource(), fhirConfig.fhirContext(), (BinaryDaoJdbc) binaryDao());
 	}
 
 	@Bean
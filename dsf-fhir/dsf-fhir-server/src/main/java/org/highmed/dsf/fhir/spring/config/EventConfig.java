@@ -6,7 +6,10 @@ import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import javax.sql.DataSource;
+
 import org.highmed.dsf.fhir.dao.ResourceDao;
+import org.highmed.dsf.fhir.event.ClusterEventManager;
 import org.highmed.dsf.fhir.event.EventGenerator;
 import org.highmed.dsf.fhir.event.EventHandler;
 import org.highmed.dsf.fhir.event.EventManager;
@@ -15,6 +18,7 @@ import org.highmed.dsf.fhir.subscription.MatcherFactory;
 import org.highmed.dsf.fhir.subscription.WebSocketSubscriptionManager;
 import org.highmed.dsf.fhir.subscription.WebSocketSubscriptionManagerImpl;
 import org.hl7.fhir.r4.model.Resource;
+import org.postgresql.ds.PGSimpleDataSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -22,6 +26,9 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class EventConfig
 {
+	@Autowired
+	private PropertiesConfig propertiesConfig;
+
 	@Autowired
 	private DaoConfig daoConfig;
 
@@ -37,6 +44,9 @@ public class EventConfig
 	@Autowired
 	private ValidationConfig validationConfig;
 
+	@Autowired
+	private WebserviceConfig webserviceConfig;
+
 	@Bean
 	public MatcherFactory matcherFactory()
 	{
@@ -81,10 +91,28 @@ public class EventConfig
 	public EventManager eventManager()
 	{
 		List<EventHandler> eventHandlers = Stream
-				.of(validationConfig.validationSupport(), webSocketSubscriptionManager())
+				.of(validationConfig.validationSupport(), validationConfig.validationSupportWithExpansionCache(),
+						validationConfig.validatorPool(), webSocketSubscriptionManager(),
+						webserviceConfig.conformanceServiceImpl())
 				.filter(o -> o instanceof EventHandler).map(o -> (EventHandler) o).collect(Collectors.toList());
 
-		return new EventManagerImpl(eventHandlers);
+		EventManager eventManager = new EventManagerImpl(eventHandlers);
+
+		if (propertiesConfig.getDbClusterEvents())
+			return new ClusterEventManager(eventManager, daoConfig.dataSource(), clusterEventListenerDataSource(),
+					daoConfig.daoProvider());
+		else
+			return eventManager;
+	}
+
+	private DataSource clusterEventListenerDataSource()
+	{
+		PGSimpleDataSource dataSource = new PGSimpleDataSource();
+		dataSource.setUrl(propertiesConfig.getDbUrl());
+		dataSource.setUser(propertiesConfig.getDbUsername());
+		dataSource.setPassword(
+				propertiesConfig.getDbPassword() == null ? null : String.valueOf(propertiesConfig.getDbPassword()));
+		return dataSource;
 	}
 
 	@Bean
@@ -0,0 +1,60 @@
+package org.highmed.dsf.fhir.spring.config;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.highmed.dsf.fhir.dao.ResourceDao;
+import org.highmed.dsf.fhir.export.ExportService;
+import org.highmed.dsf.fhir.export.ExportServiceImpl;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ExportConfig
+{
+	@Autowired
+	private PropertiesConfig propertiesConfig;
+
+	@Autowired
+	private HelperConfig helperConfig;
+
+	@Autowired
+	private DaoConfig daoConfig;
+
+	@Autowired
+	private JsonConfig jsonConfig;
+
+	@Bean
+	public ExportService exportService()
+	{
+		List<ResourceDao<?>> daos = Arrays.asList(daoConfig.binaryDao(), daoConfig.bundleDao(),
+				daoConfig.codeSystemDao(), daoConfig.documentReferenceDao(), daoConfig.endpointDao(),
+				daoConfig.groupDao(), daoConfig.healthcareServiceDao(), daoConfig.libraryDao(), daoConfig.locationDao(),
+				daoConfig.measureDao(), daoConfig.measureReportDao(), daoConfig.namingSystemDao(),
+				daoConfig.organizationAffiliationDao(), daoConfig.organizationDao(), daoConfig.patientDao(),
+				daoConfig.practitionerDao(), daoConfig.practitionerRoleDao(), daoConfig.provenanceDao(),
+				daoConfig.questionnaireDao(), daoConfig.questionnaireResponseDao(), daoConfig.researchStudyDao(),
+				daoConfig.structureDefinitionDao(), daoConfig.subscriptionDao(), daoConfig.taskDao(),
+				daoConfig.valueSetDao());
+
+		return new ExportServiceImpl(propertiesConfig.getServerBaseUrl(),
+				Paths.get(propertiesConfig.getExportDirectory()), propertiesConfig.getExportThreads(),
+				propertiesConfig.getExportRetentionHours(), daos, helperConfig.responseGenerator(),
+				jsonConfig.objectMapper(), exportLockDataSource());
+	}
+
+	private DataSource exportLockDataSource()
+	{
+		PGSimpleDataSource dataSource = new PGSimpleDataSource();
+		dataSource.setUrl(propertiesConfig.getDbUrl());
+		dataSource.setUser(propertiesConfig.getDbUsername());
+		dataSource.setPassword(
+				propertiesConfig.getDbPassword() == null ? null : String.valueOf(propertiesConfig.getDbPassword()));
+		return dataSource;
+	}
+}
@@ -13,6 +13,9 @@ public class HelperConfig
 	@Autowired
 	private PropertiesConfig propertiesConfig;
 
+	@Autowired
+	private FhirConfig fhirConfig;
+
 	@Bean
 	public ExceptionHandler exceptionHandler()
 	{
@@ -22,7 +25,7 @@ public class HelperConfig
 	@Bean
 	public ResponseGenerator responseGenerator()
 	{
-		return new ResponseGenerator(propertiesConfig.getServerBaseUrl());
+		return new ResponseGenerator(propertiesConfig.getServerBaseUrl(), fhirConfig.fhirContext());
 	}
 
 	@Bean
@@ -23,6 +23,12 @@ public class HistoryConfig
 	@Autowired
 	private DaoConfig daoConfig;
 
+	@Autowired
+	private FhirConfig fhirConfig;
+
+	@Autowired
+	private JsonConfig jsonConfig;
+
 	@Bean
 	public HistoryUserFilterFactory historyUserFilterFactory()
 	{
@@ -34,6 +40,7 @@ public class HistoryConfig
 	{
 		return new HistoryServiceImpl(propertiesConfig.getServerBaseUrl(), propertiesConfig.getDefaultPageCount(),
 				helperConfig.parameterConverter(), helperConfig.exceptionHandler(), helperConfig.responseGenerator(),
-				referenceConfig.referenceCleaner(), daoConfig.historyDao(), historyUserFilterFactory());
+				referenceConfig.referenceCleaner(), daoConfig.historyDao(), historyUserFilterFactory(),
+				fhirConfig.fhirContext(), jsonConfig.objectMapper());
 	}
 }
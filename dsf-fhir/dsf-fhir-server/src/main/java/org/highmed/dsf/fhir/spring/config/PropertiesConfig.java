@@ -36,6 +36,58 @@ public class PropertiesConfig
 	@Value("${org.highmed.dsf.fhir.db.user.permanent.delete.password}")
 	private char[] dbPermanentDeletePassword;
 
+	@Documentation(description = "Minimum number of idle connections in the database connection pools used by the DSF FHIR server")
+	@Value("${org.highmed.dsf.fhir.db.pool.idle.min:0}")
+	private int dbPoolMinIdle;
+
+	@Documentation(description = "Maximum number of idle connections in the database connection pools used by the DSF FHIR server", recommendation = "For high throughput, set to the maximum number of connections")
+	@Value("${org.highmed.dsf.fhir.db.pool.idle.max:8}")
+	private int dbPoolMaxIdle;
+
+	@Documentation(description = "Maximum number of connections in the database connection pools used by the DSF FHIR server", recommendation = "Check the maximum number of connections allowed by the database, including connections of other database users")
+	@Value("${org.highmed.dsf.fhir.db.pool.total.max:8}")
+	private int dbPoolMaxTotal;
+
+	@Documentation(description = "Milliseconds a connection needs to be idle in the database connection pools used by the DSF FHIR server, before it is closed by the idle validation run if more than the minimum number of idle connections are available; the pools grow up to the maximum number of connections under load and shrink after this time")
+	@Value("${org.highmed.dsf.fhir.db.pool.idle.timeout:600000}")
+	private long dbPoolIdleTimeout;
+
+	@Documentation(description = "Milliseconds between two validation runs for idle connections in the database connection pools used by the DSF FHIR server, idle connections are validated and evicted if broken or idle longer than the idle timeout; `-1` to disable idle validation runs", recommendation = "Set to e.g. `30000` to shrink the pools after load peaks and detect broken idle connections")
+	@Value("${org.highmed.dsf.fhir.db.pool.idle.validation.interval:-1}")
+	private long dbPoolIdleValidationInterval;
+
+	@Documentation(description = "To validate connections from the database connection pools used by the DSF FHIR server on every borrow, set to `true`", recommendation = "Validation on borrow adds a database roundtrip to every borrow; disable if broken connections are detected by idle validation in your environment")
+	@Value("${org.highmed.dsf.fhir.db.pool.validation.onBorrow:true}")
+	private boolean dbPoolTestOnBorrow;
+
+	@Documentation(description = "Maximum milliseconds to wait for a connection from the database connection pools used by the DSF FHIR server, before the request fails; `-1` to wait indefinitely")
+	@Value("${org.highmed.dsf.fhir.db.pool.wait.max:-1}")
+	private long dbPoolMaxWait;
+
+	@Documentation(description = "Milliseconds to wait for a connection from the database connection pools used by the DSF FHIR server, before a warning is logged; `-1` to disable", recommendation = "Warnings indicate a too small maximum number of connections or connections used for a long time")
+	@Value("${org.highmed.dsf.fhir.db.pool.wait.warn:1000}")
+	private long dbPoolWaitWarnThreshold;
+
+	@Documentation(description = "Seconds after which connections borrowed from the database connection pools used by the DSF FHIR server are considered leaked, logged with the stack trace of the borrowing code and closed; `-1` to disable", recommendation = "Must be larger than the duration of the longest request, e.g. large searches")
+	@Value("${org.highmed.dsf.fhir.db.pool.abandoned.timeout:-1}")
+	private int dbPoolAbandonedTimeout;
+
+	@Documentation(description = "To forward resource created, updated and deleted events to other DSF FHIR server nodes connected to the same database via Postgres NOTIFY, set to `true`", recommendation = "Enable if more than one DSF FHIR server node is used, to notify websocket subscribers and update validation caches on all nodes")
+	@Value("${org.highmed.dsf.fhir.db.events.cluster:false}")
+	private boolean dbClusterEvents;
+
+	@Documentation(description = "The address of a read-only replica of the database used for the DSF FHIR server; if set, searches, history and read requests are executed on the replica, if the replica replayed all writes of the requesting client", example = "jdbc:postgresql://db-replica/fhir")
+	@Value("${org.highmed.dsf.fhir.db.replica.url:#{null}}")
+	private String dbReplicaUrl;
+
+	@Documentation(description = "Maximum number of clients for which the database position of the last write is kept, used to execute reads of a client on the read replica only if the replica replayed the client's writes")
+	@Value("${org.highmed.dsf.fhir.db.replica.lsn.cache.size:10000}")
+	private int dbReplicaLsnCacheSize;
+
+	@Documentation(description = "Seconds the database position of the last write of a client is kept, afterwards reads of the client are executed on the read replica without checking the replayed position", recommendation = "Must be larger than the expected replication lag of the read replica")
+	@Value("${org.highmed.dsf.fhir.db.replica.lsn.cache.timeout:300}")
+	private int dbReplicaLsnCacheTimeout;
+
 	@Documentation(required = true, description = "The base address of this DSF FHIR server to read/store fhir resources", example = "https://foo.bar/fhir")
 	@Value("${org.highmed.dsf.fhir.server.base.url}")
 	private String serverBaseUrl;
@@ -44,6 +96,50 @@ public class PropertiesConfig
 	@Value("${org.highmed.dsf.fhir.server.page.count:20}")
 	private int defaultPageCount;
 
+	@Documentation(description = "Directory for files generated by asynchronous bulk `$export` operations, files of exports from previous runs are deleted; if multiple DSF FHIR server nodes are used, exports are only executed by one node at a time, other nodes answer `$export` kick-off requests with status 503", recommendation = "Use a volume with enough space for gzip compressed exports of all resources; with multiple nodes, route all `$export` requests to the same node")
+	@Value("${org.highmed.dsf.fhir.server.export.directory:export}")
+	private String exportDirectory;
+
+	@Documentation(description = "Number of asynchronous bulk `$export` operations generated in parallel")
+	@Value("${org.highmed.dsf.fhir.server.export.threads:1}")
+	private int exportThreads;
+
+	@Documentation(description = "Hours after which finished bulk `$export` operations and their files are deleted")
+	@Value("${org.highmed.dsf.fhir.server.export.retention:24}")
+	private int exportRetentionHours;
+
+	@Documentation(description = "Days after which resources marked as deleted are deleted permanently by the retention job, including all versions; negative values or `0` disable permanent deletes")
+	@Value("${org.highmed.dsf.fhir.server.retention.deleted.days:-1}")
+	private int retentionDeletedDays;
+
+	@Documentation(description = "Number of versions kept per resource by the retention job for resource types configured via *ORG_HIGHMED_DSF_FHIR_SERVER_RETENTION_VERSIONS_TYPES*, older versions are deleted; negative values or `0` disable the deletion of old versions")
+	@Value("${org.highmed.dsf.fhir.server.retention.versions.keep:-1}")
+	private int retentionVersionsKeep;
+
+	@Documentation(description = "Resource types for which old versions are deleted by the retention job; comma or space separated list, YAML block scalars supported")
+	@Value("#{'${org.highmed.dsf.fhir.server.retention.versions.types:Task,Bundle}'.trim().split('(,[ ]?)|(\\n)')}")
+	private List<String> retentionVersionsTypes;
+
+	@Documentation(description = "Max number of resources deleted permanently, or resources with old versions deleted, by the retention job in one transaction")
+	@Value("${org.highmed.dsf.fhir.server.retention.batch.size:100}")
+	private int retentionBatchSize;
+
+	@Documentation(description = "Pause in milliseconds between two batches of the retention job, limits the database load while the server takes traffic")
+	@Value("${org.highmed.dsf.fhir.server.retention.batch.delay:500}")
+	private long retentionBatchDelay;
+
+	@Documentation(description = "Interval in minutes between two runs of the retention job")
+	@Value("${org.highmed.dsf.fhir.server.retention.interval:60}")
+	private long retentionInterval;
+
+	@Documentation(description = "Maximum number of ValueSet expansions cached for terminology validation, `0` disables the cache")
+	@Value("${org.highmed.dsf.fhir.server.validation.expansion.cache.size:1000}")
+	private int validationExpansionCacheSize;
+
+	@Documentation(description = "Maximum number of idle validator instances kept for reuse by transactions, `0` disables reuse", recommendation = "Set to the maximum number of connections in the database connection pools")
+	@Value("${org.highmed.dsf.fhir.server.validation.pool.size:8}")
+	private int validationPoolSize;
+
 	@Documentation(required = true, description = "List of SHA512 thumbprints as hex from local client certificates that can be used to access the DSF FHIR server; comma or space separated list, YAML block scalars supported", recommendation = "Besides the DSF BPE client certificate thumbprint, add a second thumbprint of a personal client certificate for administration purposes")
 	@Value("#{'${org.highmed.dsf.fhir.server.user.thumbprints}'.trim().split('(,[ ]?)|(\\n)')}")
 	private List<String> userThumbprints;
@@ -118,6 +214,71 @@ public class PropertiesConfig
 		return dbUrl;
 	}
 
+	public int getDbPoolMinIdle()
+	{
+		return dbPoolMinIdle;
+	}
+
+	public int getDbPoolMaxIdle()
+	{
+		return dbPoolMaxIdle;
+	}
+
+	public int getDbPoolMaxTotal()
+	{
+		return dbPoolMaxTotal;
+	}
+
+	public long getDbPoolIdleTimeout()
+	{
+		return dbPoolIdleTimeout;
+	}
+
+	public long getDbPoolIdleValidationInterval()
+	{
+		return dbPoolIdleValidationInterval;
+	}
+
+	public boolean getDbPoolTestOnBorrow()
+	{
+		return dbPoolTestOnBorrow;
+	}
+
+	public long getDbPoolMaxWait()
+	{
+		return dbPoolMaxWait;
+	}
+
+	public long getDbPoolWaitWarnThreshold()
+	{
+		return dbPoolWaitWarnThreshold;
+	}
+
+	public int getDbPoolAbandonedTimeout()
+	{
+		return dbPoolAbandonedTimeout;
+	}
+
+	public boolean getDbClusterEvents()
+	{
+		return dbClusterEvents;
+	}
+
+	public String getDbReplicaUrl()
+	{
+		return dbReplicaUrl;
+	}
+
+	public int getDbReplicaLsnCacheSize()
+	{
+		return dbReplicaLsnCacheSize;
+	}
+
+	public int getDbReplicaLsnCacheTimeout()
+	{
+		return dbReplicaLsnCacheTimeout;
+	}
+
 	public String getDbUsername()
 	{
 		return dbUsername;
@@ -148,6 +309,61 @@ public class PropertiesConfig
 		return defaultPageCount;
 	}
 
+	public String getExportDirectory()
+	{
+		return exportDirectory;
+	}
+
+	public int getExportThreads()
+	{
+		return exportThreads;
+	}
+
+	public int getExportRetentionHours()
+	{
+		return exportRetentionHours;
+	}
+
+	public int getRetentionDeletedDays()
+	{
+		return retentionDeletedDays;
+	}
+
+	public int getRetentionVersionsKeep()
+	{
+		return retentionVersionsKeep;
+	}
+
+	public List<String> getRetentionVersionsTypes()
+	{
+		return Collections.unmodifiableList(retentionVersionsTypes);
+	}
+
+	public int getRetentionBatchSize()
+	{
+		return retentionBatchSize;
+	}
+
+	public long getRetentionBatchDelay()
+	{
+		return retentionBatchDelay;
+	}
+
+	public long getRetentionInterval()
+	{
+		return retentionInterval;
+	}
+
+	public int getValidationExpansionCacheSize()
+	{
+		return validationExpansionCacheSize;
+	}
+
+	public int getValidationPoolSize()
+	{
+		return validationPoolSize;
+	}
+
 	public List<String> getUserThumbprints()
 	{
 		return Collections.unmodifiableList(userThumbprints);
@@ -0,0 +1,63 @@
+package org.highmed.dsf.fhir.spring.config;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.highmed.dsf.fhir.dao.ResourceDao;
+import org.highmed.dsf.fhir.retention.RetentionJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RetentionConfig
+{
+	private static final Logger logger = LoggerFactory.getLogger(RetentionConfig.class);
+
+	@Autowired
+	private PropertiesConfig propertiesConfig;
+
+	@Autowired
+	private DaoConfig daoConfig;
+
+	@Bean
+	public RetentionJob retentionJob()
+	{
+		List<ResourceDao<?>> daos = Arrays.asList(daoConfig.activityDefinitionDao(), daoConfig.binaryDao(),
+				daoConfig.bundleDao(), daoConfig.codeSystemDao(), daoConfig.documentReferenceDao(),
+				daoConfig.endpointDao(), daoConfig.groupDao(), daoConfig.healthcareServiceDao(), daoConfig.libraryDao(),
+				daoConfig.locationDao(), daoConfig.measureDao(), daoConfig.measureReportDao(),
+				daoConfig.namingSystemDao(), daoConfig.organizationAffiliationDao(), daoConfig.organizationDao(),
+				daoConfig.patientDao(), daoConfig.practitionerDao(), daoConfig.practitionerRoleDao(),
+				daoConfig.provenanceDao(), daoConfig.questionnaireDao(), daoConfig.questionnaireResponseDao(),
+				daoConfig.researchStudyDao(), daoConfig.structureDefinitionDao(),
+				daoConfig.structureDefinitionSnapshotDao(), daoConfig.subscriptionDao(), daoConfig.taskDao(),
+				daoConfig.valueSetDao());
+
+		List<ResourceDao<?>> versionDaos = propertiesConfig.getRetentionVersionsTypes().stream()
+				.filter(t -> !t.isBlank()).flatMap(t -> getDaos(daos, t).stream()).collect(Collectors.toList());
+
+		return new RetentionJob(daos, propertiesConfig.getRetentionDeletedDays(), versionDaos,
+				propertiesConfig.getRetentionVersionsKeep(), propertiesConfig.getRetentionBatchSize(),
+				propertiesConfig.getRetentionBatchDelay(), propertiesConfig.getRetentionInterval());
+	}
+
+	/**
+	 * @return daos of the given resource type, StructureDefinition resources and their snapshots are stored in separate
+	 *         tables
+	 */
+	private List<ResourceDao<?>> getDaos(List<ResourceDao<?>> daos, String resourceTypeName)
+	{
+		List<ResourceDao<?>> typeDaos = daos.stream()
+				.filter(d -> d.getResourceTypeName().equals(resourceTypeName.trim())).collect(Collectors.toList());
+
+		if (typeDaos.isEmpty())
+			logger.warn("Unknown resource type {} configured for the deletion of old versions, ignoring",
+					resourceTypeName);
+
+		return typeDaos;
+	}
+}
@@ -1,7 +1,7 @@
 package org.highmed.dsf.fhir.spring.config;
 
 import org.highmed.dsf.fhir.validation.SnapshotGenerator;
-import org.highmed.dsf.fhir.validation.SnapshotGeneratorImpl;
+import org.highmed.dsf.fhir.validation.SnapshotGeneratorWithCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -18,6 +18,6 @@ public class SnapshotConfig
 	@Bean
 	public SnapshotGenerator snapshotGenerator()
 	{
-		return new SnapshotGeneratorImpl(fhirConfig.fhirContext(), validationConfig.validationSupport());
+		return new SnapshotGeneratorWithCache(fhirConfig.fhirContext(), validationConfig.validationSupport());
 	}
 }
\ No newline at end of file
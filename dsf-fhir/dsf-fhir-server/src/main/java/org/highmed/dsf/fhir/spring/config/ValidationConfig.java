@@ -1,22 +1,23 @@
 package org.highmed.dsf.fhir.spring.config;
 
 import java.sql.Connection;
+import java.util.function.Supplier;
 
 import org.highmed.dsf.fhir.dao.command.ValidationHelper;
 import org.highmed.dsf.fhir.dao.command.ValidationHelperImpl;
 import org.highmed.dsf.fhir.service.ValidationSupportWithCache;
+import org.highmed.dsf.fhir.service.ValidationSupportWithExpansionCache;
 import org.highmed.dsf.fhir.service.ValidationSupportWithFetchFromDb;
 import org.highmed.dsf.fhir.service.ValidationSupportWithFetchFromDbWithTransaction;
+import org.highmed.dsf.fhir.service.ValidatorPool;
 import org.highmed.dsf.fhir.validation.ResourceValidator;
 import org.highmed.dsf.fhir.validation.ResourceValidatorImpl;
 import org.hl7.fhir.common.hapi.validation.support.CommonCodeSystemsTerminologyService;
 import org.hl7.fhir.common.hapi.validation.support.InMemoryTerminologyServerValidationSupport;
 import org.hl7.fhir.common.hapi.validation.support.ValidationSupportChain;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Scope;
 
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.support.DefaultProfileValidationSupport;
@@ -25,6 +26,9 @@ import ca.uhn.fhir.context.support.IValidationSupport;
 @Configuration
 public class ValidationConfig
 {
+	@Autowired
+	private PropertiesConfig propertiesConfig;
+
 	@Autowired
 	private DaoConfig daoConfig;
 
@@ -37,20 +41,40 @@ public class ValidationConfig
 	@Bean
 	public IValidationSupport validationSupport()
 	{
-		return new ValidationSupportWithCache(fhirConfig.fhirContext(),
-				validationSupportChain(new ValidationSupportWithFetchFromDb(fhirConfig.fhirContext(),
-						daoConfig.structureDefinitionDao(), daoConfig.structureDefinitionSnapshotDao(),
-						daoConfig.codeSystemDao(), daoConfig.valueSetDao(), daoConfig.measureDao())));
+		ValidationSupportChain validationSupportChain = validationSupportChain(
+				new ValidationSupportWithFetchFromDb(fhirConfig.fhirContext(), daoConfig.structureDefinitionDao(),
+						daoConfig.structureDefinitionSnapshotDao(), daoConfig.codeSystemDao(), daoConfig.valueSetDao(),
+						daoConfig.measureDao()));
+
+		// expansions of not committed resources from transactions are not cached
+		if (propertiesConfig.getValidationExpansionCacheSize() > 0)
+			validationSupportChain.addValidationSupport(0, validationSupportWithExpansionCache());
+
+		return new ValidationSupportWithCache(fhirConfig.fhirContext(), validationSupportChain);
+	}
+
+	@Bean
+	public ValidationSupportWithExpansionCache validationSupportWithExpansionCache()
+	{
+		return new ValidationSupportWithExpansionCache(fhirConfig.fhirContext(),
+				propertiesConfig.getValidationExpansionCacheSize());
 	}
 
 	private ValidationSupportChain validationSupportChain(IValidationSupport dbSupport)
+	{
+		return new ValidationSupportChain(new InMemoryTerminologyServerValidationSupport(fhirConfig.fhirContext()),
+				dbSupport, defaultProfileValidationSupport(),
+				new CommonCodeSystemsTerminologyService(fhirConfig.fhirContext()));
+	}
+
+	@Bean
+	public DefaultProfileValidationSupport defaultProfileValidationSupport()
 	{
 		DefaultProfileValidationSupport dpvs = new DefaultProfileValidationSupport(FhirContext.forR4());
 		dpvs.fetchCodeSystem(""); // FIXME HAPI bug workaround, to initialize
 		dpvs.fetchAllStructureDefinitions(); // FIXME HAPI bug workaround, to initialize
 
-		return new ValidationSupportChain(new InMemoryTerminologyServerValidationSupport(fhirConfig.fhirContext()),
-				dbSupport, dpvs, new CommonCodeSystemsTerminologyService(fhirConfig.fhirContext()));
+		return dpvs;
 	}
 
 	@Bean
@@ -66,8 +90,13 @@ public class ValidationConfig
 	}
 
 	@Bean
-	@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
-	public IValidationSupport validationSupportWithTransaction(Connection connection)
+	public ValidatorPool validatorPool()
+	{
+		return new ValidatorPool(fhirConfig.fhirContext(), propertiesConfig.getValidationPoolSize(),
+				this::validationSupportWithTransaction);
+	}
+
+	private IValidationSupport validationSupportWithTransaction(Supplier<Connection> connection)
 	{
 		ValidationSupportWithCache validationSupport = new ValidationSupportWithCache(fhirConfig.fhirContext(),
 				validationSupportChain(new ValidationSupportWithFetchFromDbWithTransaction(fhirConfig.fhirContext(),
@@ -162,6 +162,9 @@ public class WebserviceConfig
 	@Autowired
 	private HistoryConfig historyConfig;
 
+	@Autowired
+	private ExportConfig exportConfig;
+
 	@Bean
 	public ServerBaseProvider serverBaseProvider()
 	{
@@ -197,7 +200,8 @@ public class WebserviceConfig
 				helperConfig.exceptionHandler(), eventConfig.eventGenerator(), helperConfig.responseGenerator(),
 				helperConfig.parameterConverter(), referenceConfig.referenceExtractor(),
 				referenceConfig.referenceResolver(), referenceConfig.referenceCleaner(),
-				authorizationConfig.authorizationRuleProvider(), historyConfig.historyService());
+				authorizationConfig.authorizationRuleProvider(), historyConfig.historyService(),
+				exportConfig.exportService());
 	}
 
 	@Bean
@@ -223,7 +227,7 @@ public class WebserviceConfig
 				helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -249,7 +253,7 @@ public class WebserviceConfig
 				helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -275,7 +279,7 @@ public class WebserviceConfig
 				helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -301,7 +305,7 @@ public class WebserviceConfig
 				eventConfig.eventGenerator(), helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -327,7 +331,7 @@ public class WebserviceConfig
 				helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -353,7 +357,7 @@ public class WebserviceConfig
 				helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -379,7 +383,7 @@ public class WebserviceConfig
 				eventConfig.eventGenerator(), helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -405,7 +409,7 @@ public class WebserviceConfig
 				helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -431,7 +435,7 @@ public class WebserviceConfig
 				helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -457,7 +461,7 @@ public class WebserviceConfig
 				helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -483,7 +487,7 @@ public class WebserviceConfig
 				eventConfig.eventGenerator(), helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -509,7 +513,7 @@ public class WebserviceConfig
 				eventConfig.eventGenerator(), helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -535,7 +539,7 @@ public class WebserviceConfig
 				eventConfig.eventGenerator(), helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -563,7 +567,7 @@ public class WebserviceConfig
 				helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -589,7 +593,7 @@ public class WebserviceConfig
 				helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -615,7 +619,7 @@ public class WebserviceConfig
 				eventConfig.eventGenerator(), helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -641,7 +645,7 @@ public class WebserviceConfig
 				eventConfig.eventGenerator(), helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -667,7 +671,7 @@ public class WebserviceConfig
 				helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -693,7 +697,7 @@ public class WebserviceConfig
 				eventConfig.eventGenerator(), helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -720,7 +724,8 @@ public class WebserviceConfig
 				helperConfig.exceptionHandler(), eventConfig.eventGenerator(), helperConfig.responseGenerator(),
 				helperConfig.parameterConverter(), referenceConfig.referenceExtractor(),
 				referenceConfig.referenceResolver(), referenceConfig.referenceCleaner(),
-				authorizationConfig.authorizationRuleProvider(), historyConfig.historyService());
+				authorizationConfig.authorizationRuleProvider(), historyConfig.historyService(),
+				exportConfig.exportService());
 	}
 
 	@Bean
@@ -746,7 +751,7 @@ public class WebserviceConfig
 				eventConfig.eventGenerator(), helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -774,7 +779,7 @@ public class WebserviceConfig
 				helperConfig.parameterConverter(), referenceConfig.referenceExtractor(),
 				referenceConfig.referenceResolver(), referenceConfig.referenceCleaner(),
 				authorizationConfig.authorizationRuleProvider(), daoConfig.structureDefinitionSnapshotDao(),
-				snapshotConfig.snapshotGenerator(), historyConfig.historyService());
+				snapshotConfig.snapshotGenerator(), historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -800,7 +805,7 @@ public class WebserviceConfig
 				eventConfig.eventGenerator(), helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -826,7 +831,7 @@ public class WebserviceConfig
 				helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -852,7 +857,7 @@ public class WebserviceConfig
 				helperConfig.responseGenerator(), helperConfig.parameterConverter(),
 				referenceConfig.referenceExtractor(), referenceConfig.referenceResolver(),
 				referenceConfig.referenceCleaner(), authorizationConfig.authorizationRuleProvider(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -872,7 +877,7 @@ public class WebserviceConfig
 	{
 		return new RootServiceImpl(commandConfig.commandFactory(), helperConfig.responseGenerator(),
 				helperConfig.parameterConverter(), helperConfig.exceptionHandler(), referenceConfig.referenceCleaner(),
-				historyConfig.historyService());
+				historyConfig.historyService(), exportConfig.exportService());
 	}
 
 	@Bean
@@ -887,7 +892,8 @@ public class WebserviceConfig
 				helperConfig.responseGenerator(), referenceConfig.referenceResolver());
 	}
 
-	private ConformanceServiceImpl conformanceServiceImpl()
+	@Bean
+	public ConformanceServiceImpl conformanceServiceImpl()
 	{
 		return new ConformanceServiceImpl(propertiesConfig.getServerBaseUrl(), propertiesConfig.getDefaultPageCount(),
 				buildInfoReaderConfig.buildInfoReader(), helperConfig.parameterConverter(),
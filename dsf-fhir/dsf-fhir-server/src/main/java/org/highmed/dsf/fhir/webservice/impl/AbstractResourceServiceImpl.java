@@ -1,6 +1,7 @@
 package org.highmed.dsf.fhir.webservice.impl;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
@@ -30,6 +31,7 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
@@ -39,9 +41,11 @@ import org.highmed.dsf.fhir.dao.ResourceDao;
 import org.highmed.dsf.fhir.dao.command.CheckReferencesCommand;
 import org.highmed.dsf.fhir.event.EventGenerator;
 import org.highmed.dsf.fhir.event.EventHandler;
+import org.highmed.dsf.fhir.export.ExportService;
 import org.highmed.dsf.fhir.help.ExceptionHandler;
 import org.highmed.dsf.fhir.help.ParameterConverter;
 import org.highmed.dsf.fhir.help.ResponseGenerator;
+import org.highmed.dsf.fhir.help.SearchSetWriter;
 import org.highmed.dsf.fhir.history.HistoryService;
 import org.highmed.dsf.fhir.prefer.PreferHandlingType;
 import org.highmed.dsf.fhir.search.PartialResult;
@@ -105,13 +109,14 @@ public abstract class AbstractResourceServiceImpl<D extends ResourceDao<R>, R ex
 	protected final ReferenceCleaner referenceCleaner;
 	protected final AuthorizationRuleProvider authorizationRuleProvider;
 	protected final HistoryService historyService;
+	protected final ExportService exportService;
 
 	public AbstractResourceServiceImpl(String path, Class<R> resourceType, String serverBase, int defaultPageCount,
 			D dao, ResourceValidator validator, EventHandler eventHandler, ExceptionHandler exceptionHandler,
 			EventGenerator eventGenerator, ResponseGenerator responseGenerator, ParameterConverter parameterConverter,
 			ReferenceExtractor referenceExtractor, ReferenceResolver referenceResolver,
 			ReferenceCleaner referenceCleaner, AuthorizationRuleProvider authorizationRuleProvider,
-			HistoryService historyService)
+			HistoryService historyService, ExportService exportService)
 	{
 		this.path = path;
 		this.resourceType = resourceType;
@@ -130,6 +135,7 @@ public abstract class AbstractResourceServiceImpl<D extends ResourceDao<R>, R ex
 		this.referenceCleaner = referenceCleaner;
 		this.authorizationRuleProvider = authorizationRuleProvider;
 		this.historyService = historyService;
+		this.exportService = exportService;
 	}
 
 	public void afterPropertiesSet() throws Exception
@@ -151,6 +157,7 @@ public abstract class AbstractResourceServiceImpl<D extends ResourceDao<R>, R ex
 		Objects.requireNonNull(referenceCleaner, "referenceCleaner");
 		Objects.requireNonNull(authorizationRuleProvider, "authorizationRuleProvider");
 		Objects.requireNonNull(historyService, "historyService");
+		Objects.requireNonNull(exportService, "exportService");
 	}
 
 	@Override
@@ -472,6 +479,10 @@ public abstract class AbstractResourceServiceImpl<D extends ResourceDao<R>, R ex
 	@Override
 	public Response history(UriInfo uri, HttpHeaders headers)
 	{
+		if (parameterConverter.isNdjsonRequested(uri, headers))
+			return Response.ok(historyService.getHistoryStream(getCurrentUser(), uri, headers, resourceType),
+					ParameterConverter.CT_FHIR_NDJSON).build();
+
 		Bundle history = historyService.getHistory(getCurrentUser(), uri, headers, resourceType);
 
 		return responseGenerator.response(Status.OK, referenceCleaner.cleanLiteralReferences(history),
@@ -644,23 +655,41 @@ public abstract class AbstractResourceServiceImpl<D extends ResourceDao<R>, R ex
 			return responseGenerator.response(Status.BAD_REQUEST, responseGenerator.toOperationOutcomeError(errors),
 					parameterConverter.getMediaTypeThrowIfNotSupported(uri, headers)).build();
 
-		PartialResult<R> result = exceptionHandler.handleSqlException(() -> dao.search(query));
-
-		result = filterIncludeResources(result);
-
 		UriBuilder bundleUri = query.configureBundleUri(UriBuilder.fromPath(serverBase).path(path));
 
 		String format = queryParameters.getFirst(SearchQuery.PARAMETER_FORMAT);
 		String pretty = queryParameters.getFirst(SearchQuery.PARAMETER_PRETTY);
+		MediaType mediaType = parameterConverter.getMediaTypeThrowIfNotSupported(uri, headers);
+
+		// json and xml search-set bundles are encoded while reading the search result from the database, only large
+		// bundles are written to the client before the database connection is released, see SearchSetWriter
+		if (SearchSetWriter.isSupported(mediaType))
+		{
+			StreamingOutput searchSetOutput = out ->
+			{
+				try (SearchSetWriter<R> writer = responseGenerator.createSearchSetWriter(mediaType, out, errors,
+						bundleUri, format, pretty, this::filterIncludeResource,
+						referenceCleaner::cleanLiteralReferences))
+				{
+					exceptionHandler.handleSqlException(() -> dao.search(query, writer));
+					writer.finish();
+				}
+			};
+
+			return Response.ok(searchSetOutput, mediaType.withCharset(StandardCharsets.UTF_8.displayName())).build();
+		}
+
+		PartialResult<R> result = exceptionHandler.handleSqlException(() -> dao.search(query));
+
+		result = filterIncludeResources(result);
+
 		Bundle searchSet = responseGenerator.createSearchSet(result, errors, bundleUri, format, pretty);
 
 		// clean literal references from bundle entries
 		searchSet.getEntry().stream().filter(BundleEntryComponent::hasResource).map(BundleEntryComponent::getResource)
 				.forEach(referenceCleaner::cleanLiteralReferences);
 
-		return responseGenerator
-				.response(Status.OK, searchSet, parameterConverter.getMediaTypeThrowIfNotSupported(uri, headers))
-				.build();
+		return responseGenerator.response(Status.OK, searchSet, mediaType).build();
 	}
 
 	private PartialResult<R> filterIncludeResources(PartialResult<R> result)
@@ -868,4 +897,10 @@ public abstract class AbstractResourceServiceImpl<D extends ResourceDao<R>, R ex
 		return responseGenerator.response(Status.OK, responseGenerator.resourceDeletedPermanently(resourceTypeName, id),
 				parameterConverter.getMediaTypeThrowIfNotSupported(uri, headers)).build();
 	}
+
+	@Override
+	public Response export(String exportPath, UriInfo uri, HttpHeaders headers)
+	{
+		return exportService.startExport(getCurrentUser(), uri, headers, resourceType);
+	}
 }
@@ -1,5 +1,8 @@
 package org.highmed.dsf.fhir.webservice.impl;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
@@ -8,13 +11,19 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
+import org.apache.commons.codec.binary.Hex;
+import org.highmed.dsf.fhir.event.Event;
+import org.highmed.dsf.fhir.event.EventHandler;
 import org.highmed.dsf.fhir.help.ParameterConverter;
 import org.highmed.dsf.fhir.search.IncludeParameterDefinition;
 import org.highmed.dsf.fhir.search.SearchQueryParameter.SearchParameterDefinition;
@@ -178,10 +187,36 @@ import com.google.common.collect.Streams;
 
 import ca.uhn.fhir.context.support.IValidationSupport;
 import ca.uhn.fhir.model.api.annotation.ResourceDef;
+import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.rest.api.Constants;
 
-public class ConformanceServiceImpl extends AbstractBasicService implements ConformanceService, InitializingBean
+/**
+ * The {@link CapabilityStatement} is created on first request, JSON and XML representations are encoded once and served
+ * with a weak ETag supporting <code>If-None-Match</code> requests. The cached statement is discarded if
+ * StructureDefinition resources are created, updated or deleted, as supported profiles are part of the statement.
+ */
+public class ConformanceServiceImpl extends AbstractBasicService
+		implements ConformanceService, EventHandler, InitializingBean
 {
+	private static final class CachedCapabilityStatement
+	{
+		final CapabilityStatement statement;
+		final byte[] json;
+		final byte[] xml;
+		final EntityTag jsonTag;
+		final EntityTag xmlTag;
+
+		CachedCapabilityStatement(CapabilityStatement statement, byte[] json, byte[] xml, EntityTag jsonTag,
+				EntityTag xmlTag)
+		{
+			this.statement = statement;
+			this.json = json;
+			this.xml = xml;
+			this.jsonTag = jsonTag;
+			this.xmlTag = xmlTag;
+		}
+	}
+
 	private static final class StructureDefinitionDistinctByUrl implements Comparable<StructureDefinitionDistinctByUrl>
 	{
 		final StructureDefinition structureDefinition;
@@ -240,6 +275,8 @@ public class ConformanceServiceImpl extends AbstractBasicService implements Conf
 	private final ParameterConverter parameterConverter;
 	private final IValidationSupport validationSupport;
 
+	private volatile CachedCapabilityStatement cachedCapabilityStatement;
+
 	public ConformanceServiceImpl(String serverBase, int defaultPageCount, BuildInfoReader buildInfoReader,
 			ParameterConverter parameterConverter, IValidationSupport validationSupport)
 	{
@@ -262,9 +299,92 @@ public class ConformanceServiceImpl extends AbstractBasicService implements Conf
 	@Override
 	public Response getMetadata(String mode, UriInfo uri, HttpHeaders headers)
 	{
-		return Response
-				.ok(createCapabilityStatement(), parameterConverter.getMediaTypeThrowIfNotSupported(uri, headers))
-				.build();
+		MediaType mediaType = parameterConverter.getMediaTypeThrowIfNotSupported(uri, headers);
+		CachedCapabilityStatement cached = getCachedCapabilityStatement();
+
+		// pretty printed, summary and html responses are encoded by the message body writers, no tag without the bytes
+		if (!mediaType.getParameters().isEmpty() || MediaType.TEXT_HTML_TYPE.isCompatible(mediaType))
+			return Response.ok(cached.statement, mediaType).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+
+		boolean json = mediaType.getSubtype().contains("json");
+		EntityTag tag = json ? cached.jsonTag : cached.xmlTag;
+
+		Optional<EntityTag> ifNoneMatch = Stream.of(Constants.HEADER_IF_NONE_MATCH, Constants.HEADER_IF_NONE_MATCH_LC)
+				.map(headers::getHeaderString).filter(Objects::nonNull).findFirst()
+				.flatMap(parameterConverter::toEntityTag);
+		if (ifNoneMatch.map(t -> t.equals(tag)).orElse(false))
+			return Response.notModified(tag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+
+		return Response.ok(json ? cached.json : cached.xml, mediaType).tag(tag)
+				.header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+	}
+
+	@Override
+	public void handleEvent(Event event)
+	{
+		if (event != null && StructureDefinition.class.equals(event.getResourceType()))
+			invalidateCachedCapabilityStatement();
+	}
+
+	private synchronized void invalidateCachedCapabilityStatement()
+	{
+		cachedCapabilityStatement = null;
+	}
+
+	private CachedCapabilityStatement getCachedCapabilityStatement()
+	{
+		CachedCapabilityStatement cached = cachedCapabilityStatement;
+		if (cached == null)
+		{
+			synchronized (this)
+			{
+				cached = cachedCapabilityStatement;
+				if (cached == null)
+				{
+					cached = createCachedCapabilityStatement();
+					cachedCapabilityStatement = cached;
+				}
+			}
+		}
+
+		return cached;
+	}
+
+	private CachedCapabilityStatement createCachedCapabilityStatement()
+	{
+		CapabilityStatement statement = createCapabilityStatement();
+
+		byte[] json = configureParser(validationSupport.getFhirContext().newJsonParser())
+				.encodeResourceToString(statement).getBytes(StandardCharsets.UTF_8);
+		byte[] xml = configureParser(validationSupport.getFhirContext().newXmlParser())
+				.encodeResourceToString(statement).getBytes(StandardCharsets.UTF_8);
+
+		return new CachedCapabilityStatement(statement, json, xml, toEntityTag(json), toEntityTag(xml));
+	}
+
+	private EntityTag toEntityTag(byte[] data)
+	{
+		return new EntityTag(Hex.encodeHexString(hash(data)), true);
+	}
+
+	private IParser configureParser(IParser parser)
+	{
+		parser.setStripVersionsFromReferences(false);
+		parser.setOverrideResourceIdWithBundleEntryFullUrl(false);
+		return parser;
+	}
+
+	private byte[] hash(byte[] data)
+	{
+		try
+		{
+			MessageDigest digest = MessageDigest.getInstance("MD5");
+			return digest.digest(data);
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new RuntimeException(e);
+		}
 	}
 
 	private String getVersion(BuildInfoReader buildInfoReader)
@@ -442,6 +562,7 @@ public class ConformanceServiceImpl extends AbstractBasicService implements Conf
 					.forEach(r::addSearchParam);
 
 			r.addSearchParam(createCountParameter(defaultPageCount));
+			r.addSearchParam(createElementsParameter());
 			r.addSearchParam(createFormatParameter());
 			r.addSearchParam(createIdParameter());
 
@@ -472,6 +593,7 @@ public class ConformanceServiceImpl extends AbstractBasicService implements Conf
 
 			r.addSearchParam(createSortParameter(
 					Stream.concat(standardSortableSearchParameters.stream(), resourceSearchParameters.stream())));
+			r.addSearchParam(createSummaryParameter());
 
 			operations.getOrDefault(resource, Collections.emptyList()).forEach(r::addOperation);
 			standardOperations.forEach(r::addOperation);
@@ -545,6 +667,18 @@ public class ConformanceServiceImpl extends AbstractBasicService implements Conf
 				"Specify the numer of returned resources per page, " + defaultPageCount + " if not specified");
 	}
 
+	private CapabilityStatementRestResourceSearchParamComponent createElementsParameter()
+	{
+		return createSearchParameter("_elements", "", SearchParamType.SPECIAL,
+				"Specify the top level elements of matching resources to return (comma separated string), id and meta are always returned");
+	}
+
+	private CapabilityStatementRestResourceSearchParamComponent createSummaryParameter()
+	{
+		return createSearchParameter("_summary", "", SearchParamType.SPECIAL,
+				"Ask for a predefined subset of the resource elements, allowed values: [true, text, data, count, false]");
+	}
+
 	private CapabilityStatementRestResourceSearchParamComponent createFormatParameter()
 	{
 		String formatValues = Streams
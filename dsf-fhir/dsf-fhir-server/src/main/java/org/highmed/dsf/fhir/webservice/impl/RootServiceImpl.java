@@ -9,6 +9,7 @@ import javax.ws.rs.core.UriInfo;
 
 import org.highmed.dsf.fhir.dao.command.CommandFactory;
 import org.highmed.dsf.fhir.dao.command.CommandList;
+import org.highmed.dsf.fhir.export.ExportService;
 import org.highmed.dsf.fhir.help.ExceptionHandler;
 import org.highmed.dsf.fhir.help.ParameterConverter;
 import org.highmed.dsf.fhir.help.ResponseGenerator;
@@ -30,10 +31,11 @@ public class RootServiceImpl extends AbstractBasicService implements RootService
 	private final ExceptionHandler exceptionHandler;
 	private final ReferenceCleaner referenceCleaner;
 	private final HistoryService historyService;
+	private final ExportService exportService;
 
 	public RootServiceImpl(CommandFactory commandFactory, ResponseGenerator responseGenerator,
 			ParameterConverter parameterConverter, ExceptionHandler exceptionHandler, ReferenceCleaner referenceCleaner,
-			HistoryService historyService)
+			HistoryService historyService, ExportService exportService)
 	{
 		this.commandFactory = commandFactory;
 		this.responseGenerator = responseGenerator;
@@ -41,6 +43,7 @@ public class RootServiceImpl extends AbstractBasicService implements RootService
 		this.exceptionHandler = exceptionHandler;
 		this.referenceCleaner = referenceCleaner;
 		this.historyService = historyService;
+		this.exportService = exportService;
 	}
 
 	@Override
@@ -52,6 +55,7 @@ public class RootServiceImpl extends AbstractBasicService implements RootService
 		Objects.requireNonNull(exceptionHandler, "exceptionHandler");
 		Objects.requireNonNull(referenceCleaner, "referenceCleaner");
 		Objects.requireNonNull(historyService, "historyService");
+		Objects.requireNonNull(exportService, "exportService");
 	}
 
 	@Override
@@ -82,9 +86,37 @@ public class RootServiceImpl extends AbstractBasicService implements RootService
 	@Override
 	public Response history(UriInfo uri, HttpHeaders headers)
 	{
+		if (parameterConverter.isNdjsonRequested(uri, headers))
+			return Response.ok(historyService.getHistoryStream(getCurrentUser(), uri, headers, null),
+					ParameterConverter.CT_FHIR_NDJSON).build();
+
 		Bundle history = historyService.getHistory(getCurrentUser(), uri, headers);
 
 		return responseGenerator.response(Status.OK, referenceCleaner.cleanLiteralReferences(history),
 				parameterConverter.getMediaTypeThrowIfNotSupported(uri, headers)).build();
 	}
+
+	@Override
+	public Response export(String exportPath, UriInfo uri, HttpHeaders headers)
+	{
+		return exportService.startExport(getCurrentUser(), uri, headers, null);
+	}
+
+	@Override
+	public Response exportStatus(String jobId, UriInfo uri, HttpHeaders headers)
+	{
+		return exportService.getStatus(getCurrentUser(), jobId, uri, headers);
+	}
+
+	@Override
+	public Response exportFile(String jobId, String fileName, UriInfo uri, HttpHeaders headers)
+	{
+		return exportService.getFile(getCurrentUser(), jobId, fileName, uri, headers);
+	}
+
+	@Override
+	public Response exportDelete(String jobId, UriInfo uri, HttpHeaders headers)
+	{
+		return exportService.deleteExport(getCurrentUser(), jobId, uri, headers);
+	}
 }
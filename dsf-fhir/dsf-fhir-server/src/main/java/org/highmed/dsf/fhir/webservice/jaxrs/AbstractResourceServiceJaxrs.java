@@ -14,6 +14,7 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
+import org.highmed.dsf.fhir.help.ParameterConverter;
 import org.highmed.dsf.fhir.webservice.specification.BasicResourceService;
 import org.hl7.fhir.r4.model.Parameters;
 import org.hl7.fhir.r4.model.Resource;
@@ -74,7 +75,8 @@ public abstract class AbstractResourceServiceJaxrs<R extends Resource, S extends
 	@GET
 	@Path("/_history")
 	@Produces({ MediaType.TEXT_HTML, Constants.CT_FHIR_JSON, Constants.CT_FHIR_JSON_NEW, MediaType.APPLICATION_JSON,
-			Constants.CT_FHIR_XML, Constants.CT_FHIR_XML_NEW, MediaType.APPLICATION_XML })
+			Constants.CT_FHIR_XML, Constants.CT_FHIR_XML_NEW, MediaType.APPLICATION_XML,
+			ParameterConverter.CT_FHIR_NDJSON })
 	@Override
 	public Response history(@Context UriInfo uri, @Context HttpHeaders headers)
 	{
@@ -234,4 +236,16 @@ public abstract class AbstractResourceServiceJaxrs<R extends Resource, S extends
 
 		return delegate.deletePermanently(deletePath, id, uri, headers);
 	}
+
+	@GET
+	@Path("/{export : [$]export(/)?}")
+	@Produces({ Constants.CT_FHIR_JSON, Constants.CT_FHIR_JSON_NEW, MediaType.APPLICATION_JSON, Constants.CT_FHIR_XML,
+			Constants.CT_FHIR_XML_NEW, MediaType.APPLICATION_XML })
+	@Override
+	public Response export(@PathParam("export") String exportPath, @Context UriInfo uri, @Context HttpHeaders headers)
+	{
+		logger.trace("GET {}", uri.getRequestUri().toString());
+
+		return delegate.export(exportPath, uri, headers);
+	}
 }
@@ -1,9 +1,11 @@
 package org.highmed.dsf.fhir.webservice.jaxrs;
 
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
@@ -11,6 +13,7 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
+import org.highmed.dsf.fhir.help.ParameterConverter;
 import org.highmed.dsf.fhir.webservice.specification.RootService;
 import org.hl7.fhir.r4.model.Bundle;
 import org.slf4j.Logger;
@@ -45,6 +48,9 @@ public class RootServiceJaxrs extends AbstractServiceJaxrs<RootService> implemen
 
 	@GET
 	@Path("/_history")
+	@Produces({ MediaType.TEXT_HTML, Constants.CT_FHIR_JSON, Constants.CT_FHIR_JSON_NEW, MediaType.APPLICATION_JSON,
+			Constants.CT_FHIR_XML, Constants.CT_FHIR_XML_NEW, MediaType.APPLICATION_XML,
+			ParameterConverter.CT_FHIR_NDJSON })
 	@Override
 	public Response history(@Context UriInfo uri, @Context HttpHeaders headers)
 	{
@@ -61,4 +67,47 @@ public class RootServiceJaxrs extends AbstractServiceJaxrs<RootService> implemen
 
 		return delegate.handleBundle(bundle, uri, headers);
 	}
+
+	@GET
+	@Path("/{export : [$]export(/)?}")
+	@Override
+	public Response export(@PathParam("export") String exportPath, @Context UriInfo uri, @Context HttpHeaders headers)
+	{
+		logger.trace("GET {}", uri.getRequestUri().toString());
+
+		return delegate.export(exportPath, uri, headers);
+	}
+
+	@GET
+	@Path("/{export : [$]export}/{jobId}")
+	@Override
+	public Response exportStatus(@PathParam("jobId") String jobId, @Context UriInfo uri, @Context HttpHeaders headers)
+	{
+		logger.trace("GET {}", uri.getRequestUri().toString());
+
+		return delegate.exportStatus(jobId, uri, headers);
+	}
+
+	@GET
+	@Path("/{export : [$]export}/{jobId}/{fileName}")
+	@Produces({ ParameterConverter.CT_FHIR_NDJSON, Constants.CT_FHIR_JSON, Constants.CT_FHIR_JSON_NEW,
+			MediaType.APPLICATION_JSON, Constants.CT_FHIR_XML, Constants.CT_FHIR_XML_NEW, MediaType.APPLICATION_XML })
+	@Override
+	public Response exportFile(@PathParam("jobId") String jobId, @PathParam("fileName") String fileName,
+			@Context UriInfo uri, @Context HttpHeaders headers)
+	{
+		logger.trace("GET {}", uri.getRequestUri().toString());
+
+		return delegate.exportFile(jobId, fileName, uri, headers);
+	}
+
+	@DELETE
+	@Path("/{export : [$]export}/{jobId}")
+	@Override
+	public Response exportDelete(@PathParam("jobId") String jobId, @Context UriInfo uri, @Context HttpHeaders headers)
+	{
+		logger.trace("DELETE {}", uri.getRequestUri().toString());
+
+		return delegate.exportDelete(jobId, uri, headers);
+	}
 }
@@ -732,4 +732,24 @@ public abstract class AbstractResourceServiceSecure<D extends ResourceDao<R>, R
 			return responseGenerator.notFound(id, resourceTypeName);
 		}
 	}
+
+	@Override
+	public Response export(String exportPath, UriInfo uri, HttpHeaders headers)
+	{
+		logCurrentUser();
+
+		Optional<String> reasonSearchAllowed = authorizationRule.reasonSearchAllowed(getCurrentUser());
+		if (reasonSearchAllowed.isEmpty())
+		{
+			audit.info("Export of resource {} denied for user '{}' ({})", resourceTypeName, getCurrentUser().getName(),
+					getCurrentUser().getSubjectDn());
+			return forbidden("export");
+		}
+		else
+		{
+			audit.info("Export of resource {} allowed for user '{}' ({}): {}", resourceTypeName,
+					getCurrentUser().getName(), getCurrentUser().getSubjectDn(), reasonSearchAllowed.get());
+			return delegate.export(exportPath, uri, headers);
+		}
+	}
 }
@@ -105,4 +105,55 @@ public class RootServiceSecure extends AbstractServiceSecure<RootService> implem
 			return delegate.history(uri, headers);
 		}
 	}
+
+	@Override
+	public Response export(String exportPath, UriInfo uri, HttpHeaders headers)
+	{
+		logger.debug("Current user '{}', role '{}'", userProvider.getCurrentUser().getName(),
+				userProvider.getCurrentUser().getRole());
+
+		// exported resources filtered by read access rules, see ResourceDao#export
+		audit.info("Root Export allowed for user '{}': {}", getCurrentUser().getName(), reasonExportAllowed());
+		return delegate.export(exportPath, uri, headers);
+	}
+
+	private String reasonExportAllowed()
+	{
+		logger.info("Root Export authorized for {} user '{}', will be filtered by users organization and roles",
+				getCurrentUser().getRole(), getCurrentUser().getName());
+		return "Allowed for all, filtered by users organization and roles";
+	}
+
+	@Override
+	public Response exportStatus(String jobId, UriInfo uri, HttpHeaders headers)
+	{
+		logger.debug("Current user '{}', role '{}'", userProvider.getCurrentUser().getName(),
+				userProvider.getCurrentUser().getRole());
+
+		// status only accessible for the user that started the export
+
+		return delegate.exportStatus(jobId, uri, headers);
+	}
+
+	@Override
+	public Response exportFile(String jobId, String fileName, UriInfo uri, HttpHeaders headers)
+	{
+		logger.debug("Current user '{}', role '{}'", userProvider.getCurrentUser().getName(),
+				userProvider.getCurrentUser().getRole());
+
+		// files only accessible for the user that started the export
+
+		return delegate.exportFile(jobId, fileName, uri, headers);
+	}
+
+	@Override
+	public Response exportDelete(String jobId, UriInfo uri, HttpHeaders headers)
+	{
+		logger.debug("Current user '{}', role '{}'", userProvider.getCurrentUser().getName(),
+				userProvider.getCurrentUser().getRole());
+
+		// delete only allowed for the user that started the export
+
+		return delegate.exportDelete(jobId, uri, headers);
+	}
 }
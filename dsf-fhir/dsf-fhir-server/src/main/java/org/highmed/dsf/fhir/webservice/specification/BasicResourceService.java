@@ -136,4 +136,18 @@ public interface BasicResourceService<R extends Resource> extends BasicService
 	Response getValidateExisting(String validatePath, String id, UriInfo uri, HttpHeaders headers);
 
 	Response deletePermanently(String deletePath, String id, UriInfo uri, HttpHeaders headers);
+
+	/**
+	 * type level bulk export kick-off
+	 *
+	 * @param exportPath
+	 *            not <code>null</code>
+	 * @param uri
+	 *            not <code>null</code>
+	 * @param headers
+	 *            not <code>null</code>
+	 * @return {@link Response} defined in <a href=
+	 *         "https://hl7.org/fhir/uv/bulkdata/export/index.html">https://hl7.org/fhir/uv/bulkdata/export/index.html</a>
+	 */
+	Response export(String exportPath, UriInfo uri, HttpHeaders headers);
 }
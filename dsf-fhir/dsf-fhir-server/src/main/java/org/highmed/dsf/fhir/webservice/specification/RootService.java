@@ -14,4 +14,24 @@ public interface RootService extends BasicService
 	Response history(UriInfo uri, HttpHeaders headers);
 
 	Response handleBundle(Bundle bundle, UriInfo uri, HttpHeaders headers);
+
+	/**
+	 * system level bulk export kick-off
+	 *
+	 * @param exportPath
+	 *            not <code>null</code>
+	 * @param uri
+	 *            not <code>null</code>
+	 * @param headers
+	 *            not <code>null</code>
+	 * @return {@link Response} defined in <a href=
+	 *         "https://hl7.org/fhir/uv/bulkdata/export/index.html">https://hl7.org/fhir/uv/bulkdata/export/index.html</a>
+	 */
+	Response export(String exportPath, UriInfo uri, HttpHeaders headers);
+
+	Response exportStatus(String jobId, UriInfo uri, HttpHeaders headers);
+
+	Response exportFile(String jobId, String fileName, UriInfo uri, HttpHeaders headers);
+
+	Response exportDelete(String jobId, UriInfo uri, HttpHeaders headers);
 }
@@ -6,17 +6,31 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 import javax.sql.DataSource;
+import javax.xml.parsers.DocumentBuilderFactory;
 
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.highmed.dsf.fhir.dao.exception.ResourceDeletedException;
 import org.highmed.dsf.fhir.dao.exception.ResourceNotFoundException;
 import org.highmed.dsf.fhir.dao.exception.ResourceNotMarkedDeletedException;
 import org.highmed.dsf.fhir.dao.exception.ResourceVersionNoMatchException;
+import org.highmed.dsf.fhir.search.PageAndCount;
+import org.highmed.dsf.fhir.search.PartialResult;
+import org.highmed.dsf.fhir.search.SearchQuery;
+import org.highmed.dsf.fhir.search.SearchResultHandler;
 import org.hl7.fhir.r4.model.Resource;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -26,6 +40,9 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
 
 import ca.uhn.fhir.context.FhirContext;
 import de.rwh.utils.test.LiquibaseTemplateTestClassRule;
@@ -43,6 +60,11 @@ public abstract class AbstractResourceDaoTest<D extends Resource, C extends Reso
 
 	public static final String DAO_DB_TEMPLATE_NAME = "dao_template";
 
+	private static final String SEARCH_INDEX_CHANGE_LOG_FILE = "db/db.search_index.changelog-0.9.3.xml";
+	private static final String SEARCH_INDEX_BACKFILL_CHANGE_SET_ID = "db.search_index.changelog-0.9.3.backfill";
+	private static final List<String> SEARCH_INDEX_TABLES = List.of("search_index_tokens", "search_index_strings",
+			"search_index_dates", "search_index_references", "search_index_uris");
+
 	protected static final BasicDataSource adminDataSource = createAdminBasicDataSource();
 	protected static final BasicDataSource liquibaseDataSource = createLiquibaseDataSource();
 	protected static final BasicDataSource defaultDataSource = createDefaultDataSource();
@@ -119,6 +141,65 @@ public abstract class AbstractResourceDaoTest<D extends Resource, C extends Reso
 		return logger;
 	}
 
+	protected int searchTotal(String parameter, String value) throws Exception
+	{
+		return searchTotal(Map.of(parameter, List.of(value)));
+	}
+
+	protected int searchTotal(Map<String, List<String>> parameters) throws Exception
+	{
+		SearchQuery<D> query = dao.createSearchQueryWithoutUserFilter(1, 20).configureParameters(parameters);
+		assertTrue(query.getUnsupportedQueryParameters(parameters).isEmpty());
+
+		return dao.search(query).getTotal();
+	}
+
+	/**
+	 * Empties all search_index_* tables, simulating resources stored before the search index tables existed.
+	 */
+	protected void clearSearchIndex() throws Exception
+	{
+		try (Connection connection = liquibaseDataSource.getConnection();
+				Statement statement = connection.createStatement())
+		{
+			for (String table : SEARCH_INDEX_TABLES)
+				statement.executeUpdate("DELETE FROM " + table);
+		}
+	}
+
+	/**
+	 * Executes the SQL of the <code>db.search_index.changelog-0.9.3.backfill</code> changeSet.
+	 */
+	protected void backfillSearchIndex() throws Exception
+	{
+		try (Connection connection = liquibaseDataSource.getConnection();
+				Statement statement = connection.createStatement())
+		{
+			statement.execute(readSearchIndexBackfillSql());
+		}
+	}
+
+	private static String readSearchIndexBackfillSql() throws Exception
+	{
+		try (InputStream in = AbstractResourceDaoTest.class.getResourceAsStream("/" + SEARCH_INDEX_CHANGE_LOG_FILE))
+		{
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			factory.setNamespaceAware(true);
+			Document changeLog = factory.newDocumentBuilder().parse(in);
+
+			NodeList changeSets = changeLog.getElementsByTagNameNS("*", "changeSet");
+			for (int i = 0; i < changeSets.getLength(); i++)
+			{
+				Element changeSet = (Element) changeSets.item(i);
+				if (SEARCH_INDEX_BACKFILL_CHANGE_SET_ID.equals(changeSet.getAttribute("id")))
+					return changeSet.getElementsByTagNameNS("*", "sql").item(0).getTextContent();
+			}
+
+			throw new IllegalStateException("ChangeSet " + SEARCH_INDEX_BACKFILL_CHANGE_SET_ID + " not found in "
+					+ SEARCH_INDEX_CHANGE_LOG_FILE);
+		}
+	}
+
 	@Test
 	public void testEmpty() throws Exception
 	{
@@ -356,6 +437,67 @@ public abstract class AbstractResourceDaoTest<D extends Resource, C extends Reso
 		dao.deletePermanently(UUID.randomUUID());
 	}
 
+	@Test
+	public void testDeletePermanentlyDeletedBefore() throws Exception
+	{
+		D deletedResource = dao.create(createResource());
+		UUID deletedId = UUID.fromString(deletedResource.getIdElement().getIdPart());
+		dao.delete(deletedId);
+
+		D recreatedResource = dao.create(createResource());
+		UUID recreatedId = UUID.fromString(recreatedResource.getIdElement().getIdPart());
+		dao.delete(recreatedId);
+		dao.update(updateResource(recreatedResource), (long) ResourceDao.FIRST_VERSION + 1L);
+
+		D existingResource = dao.create(createResource());
+		UUID existingId = UUID.fromString(existingResource.getIdElement().getIdPart());
+
+		assertTrue(dao.deletePermanentlyDeletedBefore(LocalDateTime.now().minusDays(1), 10).isEmpty());
+
+		List<UUID> deleted = dao.deletePermanentlyDeletedBefore(LocalDateTime.now().plusMinutes(1), 10);
+		assertEquals(Collections.singletonList(deletedId), deleted);
+
+		assertFalse(dao.readIncludingDeleted(deletedId).isPresent());
+		assertTrue(dao.read(recreatedId).isPresent());
+		assertTrue(dao.read(existingId).isPresent());
+
+		assertTrue(dao.deletePermanentlyDeletedBefore(LocalDateTime.now().plusMinutes(1), 10).isEmpty());
+	}
+
+	@Test
+	public void testDeleteOldVersions() throws Exception
+	{
+		D createdResource = dao.create(createResource());
+		UUID id = UUID.fromString(createdResource.getIdElement().getIdPart());
+		D updatedResource = dao.update(updateResource(createdResource), (long) ResourceDao.FIRST_VERSION);
+		dao.update(updateResource(updatedResource), (long) ResourceDao.FIRST_VERSION + 1L);
+
+		D otherResource = dao.create(createResource());
+		UUID otherId = UUID.fromString(otherResource.getIdElement().getIdPart());
+
+		D updatedOtherResource = dao.update(updateResource(otherResource), (long) ResourceDao.FIRST_VERSION);
+
+		List<UUID> first = dao.readIdsWithOldVersions(1, null, 1);
+		assertEquals(1, first.size());
+		List<UUID> second = dao.readIdsWithOldVersions(1, first.get(0), 1);
+		assertEquals(1, second.size());
+		assertEquals(0, dao.readIdsWithOldVersions(1, second.get(0), 1).size());
+		assertEquals(new HashSet<>(Arrays.asList(id, otherId)),
+				new HashSet<>(Arrays.asList(first.get(0), second.get(0))));
+		assertEquals(1, dao.readIdsWithOldVersions(2, null, 10).size());
+
+		assertEquals(3, dao.deleteOldVersions(1, Arrays.asList(id, otherId)));
+		assertEquals(0, dao.deleteOldVersions(1, Arrays.asList(id, otherId)));
+		assertEquals(0, dao.readIdsWithOldVersions(1, null, 10).size());
+
+		assertFalse(dao.readVersion(id, ResourceDao.FIRST_VERSION).isPresent());
+		assertFalse(dao.readVersion(id, ResourceDao.FIRST_VERSION + 1L).isPresent());
+		assertTrue(dao.readVersion(id, ResourceDao.FIRST_VERSION + 2L).isPresent());
+		assertTrue(dao.read(id).isPresent());
+		assertFalse(dao.readVersion(otherId, ResourceDao.FIRST_VERSION).isPresent());
+		assertEquals(updatedOtherResource.getMeta().getVersionId(), dao.read(otherId).get().getMeta().getVersionId());
+	}
+
 	@Test
 	public void testReadIncludingDeleted() throws Exception
 	{
@@ -552,4 +694,42 @@ public abstract class AbstractResourceDaoTest<D extends Resource, C extends Reso
 				createdResource.getIdElement().getVersionIdPart());
 		assertFalse(existsNotDeleted2);
 	}
+
+	@Test
+	public void testSearchWithHandler() throws Exception
+	{
+		for (int i = 0; i < 3; i++)
+			dao.create(createResource());
+
+		PartialResult<D> expected = dao
+				.search(dao.createSearchQueryWithoutUserFilter(1, 5).configureParameters(Collections.emptyMap()));
+
+		List<D> matches = new ArrayList<>();
+		List<Integer> totals = new ArrayList<>();
+		dao.search(dao.createSearchQueryWithoutUserFilter(1, 5).configureParameters(Collections.emptyMap()),
+				new SearchResultHandler<D>()
+				{
+					@Override
+					public void onTotal(int total, PageAndCount pageAndCount)
+					{
+						totals.add(total);
+					}
+
+					@Override
+					public void onMatch(D resource)
+					{
+						matches.add(resource);
+					}
+
+					@Override
+					public void onInclude(Resource resource)
+					{
+					}
+				});
+
+		assertEquals(List.of(expected.getTotal()), totals);
+		assertEquals(3, matches.size());
+		for (D match : matches)
+			assertTrue(expected.getPartialResult().stream().anyMatch(match::equalsDeep));
+	}
 }
@@ -0,0 +1,155 @@
+package org.highmed.dsf.fhir.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.highmed.dsf.fhir.dao.jdbc.OrganizationDaoJdbc;
+import org.highmed.dsf.fhir.dao.provider.DaoProvider;
+import org.highmed.dsf.fhir.event.ClusterEventManager;
+import org.highmed.dsf.fhir.event.Event;
+import org.highmed.dsf.fhir.event.EventGenerator;
+import org.highmed.dsf.fhir.event.EventManagerImpl;
+import org.highmed.dsf.fhir.event.ResourceCreatedEvent;
+import org.highmed.dsf.fhir.event.ResourceDeletedEvent;
+import org.hl7.fhir.r4.model.Organization;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.postgresql.ds.PGSimpleDataSource;
+
+import ca.uhn.fhir.context.FhirContext;
+import de.rwh.utils.test.LiquibaseTemplateTestClassRule;
+import de.rwh.utils.test.LiquibaseTemplateTestRule;
+
+public class ClusterEventManagerDaoTest extends AbstractDbTest
+{
+	private static final BasicDataSource adminDataSource = createAdminBasicDataSource();
+	private static final BasicDataSource liquibaseDataSource = createLiquibaseDataSource();
+	private static final BasicDataSource defaultDataSource = createDefaultDataSource();
+	private static final BasicDataSource permanentDeleteDataSource = createPermanentDeleteDataSource();
+
+	@ClassRule
+	public static final LiquibaseTemplateTestClassRule liquibaseRule = new LiquibaseTemplateTestClassRule(
+			adminDataSource, LiquibaseTemplateTestClassRule.DEFAULT_TEST_DB_NAME,
+			AbstractResourceDaoTest.DAO_DB_TEMPLATE_NAME, liquibaseDataSource, CHANGE_LOG_FILE, CHANGE_LOG_PARAMETERS,
+			true);
+
+	@BeforeClass
+	public static void beforeClass() throws Exception
+	{
+		defaultDataSource.start();
+		liquibaseDataSource.start();
+		adminDataSource.start();
+		permanentDeleteDataSource.start();
+	}
+
+	@AfterClass
+	public static void afterClass() throws Exception
+	{
+		defaultDataSource.close();
+		liquibaseDataSource.close();
+		adminDataSource.close();
+		permanentDeleteDataSource.close();
+	}
+
+	@Rule
+	public final LiquibaseTemplateTestRule templateRule = new LiquibaseTemplateTestRule(adminDataSource,
+			LiquibaseTemplateTestClassRule.DEFAULT_TEST_DB_NAME, AbstractResourceDaoTest.DAO_DB_TEMPLATE_NAME);
+
+	private final OrganizationDao organizationDao = new OrganizationDaoJdbc(defaultDataSource,
+			permanentDeleteDataSource, FhirContext.forR4());
+	private final EventGenerator eventGenerator = new EventGenerator();
+
+	private final BlockingQueue<Event> eventsNode1 = new LinkedBlockingQueue<>();
+	private final BlockingQueue<Event> eventsNode2 = new LinkedBlockingQueue<>();
+
+	private ClusterEventManager node1;
+	private ClusterEventManager node2;
+
+	@Before
+	public void before() throws Exception
+	{
+		DaoProvider daoProvider = mock(DaoProvider.class);
+		when(daoProvider.getDao("Organization")).thenReturn(Optional.of(organizationDao));
+
+		node1 = new ClusterEventManager(new EventManagerImpl(Collections.singleton(eventsNode1::add)),
+				defaultDataSource, createListenerDataSource(), daoProvider);
+		node2 = new ClusterEventManager(new EventManagerImpl(Collections.singleton(eventsNode2::add)),
+				defaultDataSource, createListenerDataSource(), daoProvider);
+
+		node1.afterPropertiesSet();
+		node2.afterPropertiesSet();
+
+		// wait for listener connections
+		Thread.sleep(1000);
+	}
+
+	private PGSimpleDataSource createListenerDataSource()
+	{
+		PGSimpleDataSource dataSource = new PGSimpleDataSource();
+		dataSource.setUrl(DATABASE_URL);
+		dataSource.setUser(DATABASE_USER);
+		dataSource.setPassword(DATABASE_USER_PASSWORD);
+		return dataSource;
+	}
+
+	@After
+	public void after() throws Exception
+	{
+		node1.destroy();
+		node2.destroy();
+	}
+
+	@Test
+	public void testCreatedEventForwarded() throws Exception
+	{
+		Organization created = organizationDao.create(new Organization().setName("Test Organization"));
+
+		node1.handleEvent(eventGenerator.newResourceCreatedEvent(created));
+
+		Event local = eventsNode1.poll(5, TimeUnit.SECONDS);
+		assertNotNull(local);
+		assertTrue(local instanceof ResourceCreatedEvent);
+
+		Event remote = eventsNode2.poll(5, TimeUnit.SECONDS);
+		assertNotNull(remote);
+		assertTrue(remote instanceof ResourceCreatedEvent);
+		assertEquals(Organization.class, remote.getResourceType());
+		assertEquals(created.getIdElement().getIdPart(), remote.getId());
+		assertEquals("Test Organization", ((Organization) remote.getResource()).getName());
+
+		// own events not handled twice
+		assertNull(eventsNode1.poll(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testDeletedEventForwarded() throws Exception
+	{
+		Organization created = organizationDao.create(new Organization().setName("Test Organization"));
+		String id = created.getIdElement().getIdPart();
+
+		node2.handleEvent(eventGenerator.newResourceDeletedEvent(Organization.class, id));
+
+		Event remote = eventsNode1.poll(5, TimeUnit.SECONDS);
+		assertNotNull(remote);
+		assertTrue(remote instanceof ResourceDeletedEvent);
+		assertEquals(Organization.class, remote.getResourceType());
+		assertEquals(id, remote.getId());
+		assertNull(remote.getResource());
+	}
+}
@@ -291,4 +291,37 @@ public class EndpointDaoTest extends AbstractResourceDaoTest<Endpoint, EndpointD
 	{
 		ReadAccessDaoTest.super.testSearchWithUserFilterAfterReadAccessTriggerLocalWithRemoteUser();
 	}
+
+	@Test
+	public void testSearchAddress() throws Exception
+	{
+		Endpoint created = dao.create(createResource().setAddress(address));
+		dao.create(createResource().setAddress("https://foo.baz/bar"));
+
+		assertEquals(1, searchTotal("address", address));
+		assertEquals(2, searchTotal("address:below", "https://foo."));
+		assertEquals(1, searchTotal("address:below", "https://foo.bar"));
+		assertEquals(0, searchTotal("address", "https://foo.bar"));
+
+		created.setAddress("https://foo.bar/qux");
+		dao.update(created, null);
+
+		assertEquals(0, searchTotal("address", address));
+		assertEquals(1, searchTotal("address", "https://foo.bar/qux"));
+	}
+
+	@Test
+	public void testSearchAddressAfterSearchIndexBackfill() throws Exception
+	{
+		dao.create(createResource().setAddress(address));
+		dao.create(createResource().setAddress("https://foo.baz/bar"));
+		clearSearchIndex();
+
+		assertEquals(0, searchTotal("address", address));
+
+		backfillSearchIndex();
+
+		assertEquals(1, searchTotal("address", address));
+		assertEquals(2, searchTotal("address:below", "https://foo."));
+	}
 }
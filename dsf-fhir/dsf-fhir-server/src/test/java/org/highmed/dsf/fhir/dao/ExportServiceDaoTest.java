@@ -0,0 +1,166 @@
+package org.highmed.dsf.fhir.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.UUID;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.UriInfo;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.highmed.dsf.fhir.authentication.User;
+import org.highmed.dsf.fhir.dao.jdbc.OrganizationDaoJdbc;
+import org.highmed.dsf.fhir.export.ExportServiceImpl;
+import org.highmed.dsf.fhir.help.ResponseGenerator;
+import org.hl7.fhir.r4.model.Organization;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.postgresql.ds.PGSimpleDataSource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ca.uhn.fhir.context.FhirContext;
+import de.rwh.utils.test.LiquibaseTemplateTestClassRule;
+import de.rwh.utils.test.LiquibaseTemplateTestRule;
+
+public class ExportServiceDaoTest extends AbstractDbTest
+{
+	private static final String SERVER_BASE = "https://localhost/fhir";
+
+	private static final BasicDataSource adminDataSource = createAdminBasicDataSource();
+	private static final BasicDataSource liquibaseDataSource = createLiquibaseDataSource();
+	private static final BasicDataSource defaultDataSource = createDefaultDataSource();
+	private static final BasicDataSource permanentDeleteDataSource = createPermanentDeleteDataSource();
+
+	@ClassRule
+	public static final LiquibaseTemplateTestClassRule liquibaseRule = new LiquibaseTemplateTestClassRule(
+			adminDataSource, LiquibaseTemplateTestClassRule.DEFAULT_TEST_DB_NAME,
+			AbstractResourceDaoTest.DAO_DB_TEMPLATE_NAME, liquibaseDataSource, CHANGE_LOG_FILE, CHANGE_LOG_PARAMETERS,
+			true);
+
+	@BeforeClass
+	public static void beforeClass() throws Exception
+	{
+		defaultDataSource.start();
+		liquibaseDataSource.start();
+		adminDataSource.start();
+		permanentDeleteDataSource.start();
+	}
+
+	@AfterClass
+	public static void afterClass() throws Exception
+	{
+		defaultDataSource.close();
+		liquibaseDataSource.close();
+		adminDataSource.close();
+		permanentDeleteDataSource.close();
+	}
+
+	@Rule
+	public final LiquibaseTemplateTestRule templateRule = new LiquibaseTemplateTestRule(adminDataSource,
+			LiquibaseTemplateTestClassRule.DEFAULT_TEST_DB_NAME, AbstractResourceDaoTest.DAO_DB_TEMPLATE_NAME);
+
+	@Rule
+	public final TemporaryFolder exportDirectories = new TemporaryFolder();
+
+	private final FhirContext fhirContext = FhirContext.forR4();
+	private final OrganizationDao organizationDao = new OrganizationDaoJdbc(defaultDataSource,
+			permanentDeleteDataSource, fhirContext);
+	private final User user = User.local(new Organization());
+
+	private ExportServiceImpl node1;
+	private ExportServiceImpl node2;
+
+	@Before
+	public void before() throws Exception
+	{
+		node1 = createNode(exportDirectories.newFolder().toPath());
+		node2 = createNode(exportDirectories.newFolder().toPath());
+	}
+
+	private ExportServiceImpl createNode(Path exportDirectory) throws Exception
+	{
+		PGSimpleDataSource lockDataSource = new PGSimpleDataSource();
+		lockDataSource.setUrl(DATABASE_URL);
+		lockDataSource.setUser(DATABASE_USER);
+		lockDataSource.setPassword(DATABASE_USER_PASSWORD);
+
+		ExportServiceImpl node = new ExportServiceImpl(SERVER_BASE, exportDirectory, 1, 1,
+				Collections.singletonList(organizationDao), new ResponseGenerator(SERVER_BASE, fhirContext),
+				new ObjectMapper(), lockDataSource);
+		node.afterPropertiesSet();
+		return node;
+	}
+
+	@After
+	public void after() throws Exception
+	{
+		node1.destroy();
+		node2.destroy();
+	}
+
+	private Response startExport(ExportServiceImpl node)
+	{
+		UriInfo uri = mock(UriInfo.class);
+		when(uri.getQueryParameters()).thenReturn(new MultivaluedHashMap<>());
+		when(uri.getRequestUri()).thenReturn(URI.create(SERVER_BASE + "/$export"));
+
+		HttpHeaders headers = mock(HttpHeaders.class);
+		when(headers.getRequestHeader("Prefer")).thenReturn(Collections.singletonList("respond-async"));
+
+		return node.startExport(user, uri, headers, null);
+	}
+
+	@Test
+	public void testExportOnlyExecutedByLockHolder() throws Exception
+	{
+		assertEquals(Status.ACCEPTED.getStatusCode(), startExport(node1).getStatus());
+		assertEquals(Status.SERVICE_UNAVAILABLE.getStatusCode(), startExport(node2).getStatus());
+		assertEquals(Status.ACCEPTED.getStatusCode(), startExport(node1).getStatus());
+
+		node1.destroy();
+
+		assertEquals(Status.ACCEPTED.getStatusCode(), startExport(node2).getStatus());
+	}
+
+	@Test
+	public void testOnlyPreviousJobDirectoriesDeleted() throws Exception
+	{
+		Path exportDirectory = exportDirectories.newFolder().toPath();
+		Path previousJob = Files.createDirectory(exportDirectory.resolve(UUID.randomUUID().toString()));
+		Files.writeString(previousJob.resolve("Organization.ndjson.gz"), "");
+		Path other = Files.createDirectory(exportDirectory.resolve("other"));
+		Files.writeString(other.resolve("file.txt"), "");
+
+		ExportServiceImpl node = createNode(exportDirectory);
+		try
+		{
+			assertTrue(Files.exists(previousJob));
+
+			assertEquals(Status.ACCEPTED.getStatusCode(), startExport(node).getStatus());
+			assertFalse(Files.exists(previousJob));
+			assertTrue(Files.exists(other.resolve("file.txt")));
+		}
+		finally
+		{
+			node.destroy();
+		}
+	}
+}
@@ -1,9 +1,14 @@
 package org.highmed.dsf.fhir.dao;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.highmed.dsf.fhir.authentication.User;
@@ -12,6 +17,8 @@ import org.highmed.dsf.fhir.dao.jdbc.HistroyDaoJdbc;
 import org.highmed.dsf.fhir.dao.jdbc.OrganizationDaoJdbc;
 import org.highmed.dsf.fhir.history.AtParameter;
 import org.highmed.dsf.fhir.history.History;
+import org.highmed.dsf.fhir.history.HistoryCursor;
+import org.highmed.dsf.fhir.history.HistoryEntry;
 import org.highmed.dsf.fhir.history.SinceParameter;
 import org.highmed.dsf.fhir.history.user.HistoryUserFilterFactory;
 import org.highmed.dsf.fhir.history.user.HistoryUserFilterFactoryImpl;
@@ -113,4 +120,59 @@ public class HistoryDaoTest extends AbstractDbTest
 		assertNotNull(history.getEntries());
 		assertEquals(1, history.getEntries().size());
 	}
+
+	private Organization createOrganizationWithVersions() throws Exception
+	{
+		Organization organization = new Organization();
+		organization.getMeta().addTag("http://highmed.org/fhir/CodeSystem/read-access-tag", "ALL", null);
+		organization.setName("Test Organization");
+		Organization createdOrganization = orgDao.create(organization);
+
+		createdOrganization.setName("Test Organization Updated");
+		Organization updatedOrganization = orgDao.update(createdOrganization);
+
+		updatedOrganization.setName("Test Organization Updated Again");
+		return orgDao.update(updatedOrganization);
+	}
+
+	private List<String> toVersions(List<HistoryEntry> entries)
+	{
+		return entries.stream().map(e -> e.getMethod() + " " + e.getVersion()).collect(Collectors.toList());
+	}
+
+	@Test
+	public void testReadHistoryCursor() throws Exception
+	{
+		Organization organization = createOrganizationWithVersions();
+
+		History first = dao.readHistory(filterFactory.getUserFilters(User.local(organization)), null, 2,
+				new AtParameter(), new SinceParameter(), null);
+		assertNotNull(first);
+		assertFalse(first.hasTotal());
+		assertEquals(List.of("POST 1", "PUT 2"), toVersions(first.getEntries()));
+		assertNotNull(first.getNext());
+
+		HistoryCursor next = HistoryCursor.decode(first.getNext().encode());
+		History second = dao.readHistory(filterFactory.getUserFilters(User.local(organization)), next, 2,
+				new AtParameter(), new SinceParameter(), Organization.class);
+		assertNotNull(second);
+		assertEquals(List.of("PUT 3"), toVersions(second.getEntries()));
+		assertNull(second.getNext());
+	}
+
+	@Test
+	public void testStreamHistory() throws Exception
+	{
+		Organization organization = createOrganizationWithVersions();
+
+		List<HistoryEntry> entries = new ArrayList<>();
+		dao.streamHistory(filterFactory.getUserFilters(User.local(organization)), null, new AtParameter(),
+				new SinceParameter(), null, entries::add);
+		assertEquals(List.of("POST 1", "PUT 2", "PUT 3"), toVersions(entries));
+
+		List<HistoryEntry> afterFirst = new ArrayList<>();
+		dao.streamHistory(filterFactory.getUserFilters(User.local(organization)), HistoryCursor.of(entries.get(0)),
+				new AtParameter(), new SinceParameter(), Organization.class, afterFirst::add);
+		assertEquals(List.of("PUT 2", "PUT 3"), toVersions(afterFirst));
+	}
 }
@@ -0,0 +1,193 @@
+package org.highmed.dsf.fhir.dao;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.highmed.dsf.fhir.dao.jdbc.TaskDaoJdbc;
+import org.highmed.dsf.fhir.search.PartialResult;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Task;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+import de.rwh.utils.test.LiquibaseTemplateTestClassRule;
+import de.rwh.utils.test.LiquibaseTemplateTestRule;
+
+/**
+ * Compares include-heavy Task searches (<code>_include=Task:requester:Organization</code>, many Tasks per requester)
+ * using the row per include search sql with the previous shape, aggregating included resources into a json array per
+ * matched resource and parsing the array with Gson before handing every element to the HAPI parser. Not executed during
+ * the build, run with <code>-Dit.test=IncludeSearchBenchmark</code>.
+ */
+public class IncludeSearchBenchmark extends AbstractDbTest
+{
+	private static final Logger logger = LoggerFactory.getLogger(IncludeSearchBenchmark.class);
+
+	private static final int ORGANIZATIONS = 50;
+	private static final int TASKS = 5_000;
+	private static final int COUNT = 1_000;
+
+	private static final int WARMUP_ITERATIONS = 20;
+	private static final int MEASUREMENT_ITERATIONS = 100;
+
+	private static final String PREVIOUS_SEARCH_SQL = "SELECT task, (SELECT jsonb_build_array(organization) "
+			+ "FROM current_organizations WHERE concat('Organization/', organization->>'id') = "
+			+ "task->'requester'->>'reference') AS organizations FROM current_tasks ORDER BY task_id LIMIT ? OFFSET ?";
+
+	private static final BasicDataSource adminDataSource = createAdminBasicDataSource();
+	private static final BasicDataSource liquibaseDataSource = createLiquibaseDataSource();
+	private static final BasicDataSource defaultDataSource = createDefaultDataSource();
+	private static final BasicDataSource permanentDeleteDataSource = createPermanentDeleteDataSource();
+
+	@ClassRule
+	public static final LiquibaseTemplateTestClassRule liquibaseRule = new LiquibaseTemplateTestClassRule(
+			adminDataSource, LiquibaseTemplateTestClassRule.DEFAULT_TEST_DB_NAME,
+			AbstractResourceDaoTest.DAO_DB_TEMPLATE_NAME, liquibaseDataSource, CHANGE_LOG_FILE, CHANGE_LOG_PARAMETERS,
+			true);
+
+	@BeforeClass
+	public static void beforeClass() throws Exception
+	{
+		defaultDataSource.start();
+		liquibaseDataSource.start();
+		adminDataSource.start();
+		permanentDeleteDataSource.start();
+	}
+
+	@AfterClass
+	public static void afterClass() throws Exception
+	{
+		defaultDataSource.close();
+		liquibaseDataSource.close();
+		adminDataSource.close();
+		permanentDeleteDataSource.close();
+	}
+
+	@Rule
+	public final LiquibaseTemplateTestRule templateRule = new LiquibaseTemplateTestRule(adminDataSource,
+			LiquibaseTemplateTestClassRule.DEFAULT_TEST_DB_NAME, AbstractResourceDaoTest.DAO_DB_TEMPLATE_NAME);
+
+	private interface Operation
+	{
+		int run() throws Exception;
+	}
+
+	private final FhirContext fhirContext = FhirContext.forR4();
+	private final TaskDao taskDao = new TaskDaoJdbc(defaultDataSource, permanentDeleteDataSource, fhirContext);
+
+	@Before
+	public void before() throws Exception
+	{
+		try (Connection connection = liquibaseDataSource.getConnection();
+				Statement statement = connection.createStatement())
+		{
+			connection.setReadOnly(false);
+
+			statement.execute("INSERT INTO organizations (organization_id, version, organization) SELECT id, 1, "
+					+ "jsonb_build_object('resourceType', 'Organization', 'id', id, 'meta', jsonb_build_object("
+					+ "'versionId', '1', 'lastUpdated', now()), 'active', true, 'name', 'Organization ' || g, "
+					+ "'identifier', jsonb_build_array(jsonb_build_object('system', "
+					+ "'http://highmed.org/sid/organization-identifier', 'value', 'org' || g || '.test'))) "
+					+ "FROM (SELECT gen_random_uuid() AS id, g FROM generate_series(1, " + ORGANIZATIONS
+					+ ") AS g) AS o");
+			statement.execute("INSERT INTO tasks (task_id, version, task) SELECT id, 1, jsonb_build_object("
+					+ "'resourceType', 'Task', 'id', id, 'meta', jsonb_build_object('versionId', '1', 'lastUpdated', "
+					+ "now()), 'status', 'requested', 'intent', 'order', 'requester', jsonb_build_object('reference', "
+					+ "'Organization/' || organization_ids[1 + g % " + ORGANIZATIONS + "])) "
+					+ "FROM (SELECT gen_random_uuid() AS id, g FROM generate_series(1, " + TASKS + ") AS g) AS t, "
+					+ "(SELECT array_agg(organization_id) AS organization_ids FROM organizations) AS o");
+
+			statement.execute("ANALYZE tasks, organizations");
+		}
+	}
+
+	@Test
+	public void benchmark() throws Exception
+	{
+		Map<String, List<String>> parameters = Map.of("_include", List.of("Task:requester:Organization"));
+
+		Operation rowPerInclude = () ->
+		{
+			PartialResult<Task> result = taskDao
+					.search(taskDao.createSearchQueryWithoutUserFilter(1, COUNT).configureParameters(parameters));
+			return result.getPartialResult().size() + result.getIncludes().size();
+		};
+
+		Operation previous = () ->
+		{
+			try (Connection connection = defaultDataSource.getConnection();
+					PreparedStatement statement = connection.prepareStatement(PREVIOUS_SEARCH_SQL))
+			{
+				IParser parser = fhirContext.newJsonParser();
+
+				statement.setInt(1, COUNT);
+				statement.setInt(2, 0);
+
+				List<IBaseResource> matches = new ArrayList<>();
+				Map<String, IBaseResource> includes = new HashMap<>();
+				try (ResultSet result = statement.executeQuery())
+				{
+					while (result.next())
+					{
+						matches.add(parser.parseResource(Task.class, result.getString(1)));
+
+						String json = result.getString(2);
+						if (json != null)
+						{
+							for (JsonElement element : (JsonArray) JsonParser.parseString(json))
+							{
+								IBaseResource include = parser.parseResource(element.toString());
+								includes.putIfAbsent(include.getIdElement().getValue(), include);
+							}
+						}
+					}
+				}
+
+				return matches.size() + includes.size();
+			}
+		};
+
+		assertEquals(COUNT + ORGANIZATIONS, rowPerInclude.run());
+		assertEquals(COUNT + ORGANIZATIONS, previous.run());
+
+		measure("aggregated includes, Gson", previous);
+		measure("row per include", rowPerInclude);
+		measure("aggregated includes, Gson", previous);
+		measure("row per include", rowPerInclude);
+	}
+
+	private void measure(String name, Operation operation) throws Exception
+	{
+		for (int i = 0; i < WARMUP_ITERATIONS; i++)
+			operation.run();
+
+		long start = System.nanoTime();
+		for (int i = 0; i < MEASUREMENT_ITERATIONS; i++)
+			operation.run();
+		long time = System.nanoTime() - start;
+
+		logger.info("{}: {} ms per search of {} Tasks with {} included Organizations", name,
+				String.format("%.2f", time / 1_000_000d / MEASUREMENT_ITERATIONS), COUNT, ORGANIZATIONS);
+	}
+}
@@ -0,0 +1,122 @@
+package org.highmed.dsf.fhir.dao;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.highmed.dsf.fhir.dao.jdbc.InstrumentedDataSource;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.postgresql.Driver;
+
+import de.rwh.utils.test.LiquibaseTemplateTestClassRule;
+
+public class InstrumentedDataSourceDaoTest extends AbstractDbTest
+{
+	private static final BasicDataSource adminDataSource = createAdminBasicDataSource();
+	private static final BasicDataSource liquibaseDataSource = createLiquibaseDataSource();
+
+	@ClassRule
+	public static final LiquibaseTemplateTestClassRule liquibaseRule = new LiquibaseTemplateTestClassRule(
+			adminDataSource, LiquibaseTemplateTestClassRule.DEFAULT_TEST_DB_NAME,
+			AbstractResourceDaoTest.DAO_DB_TEMPLATE_NAME, liquibaseDataSource, CHANGE_LOG_FILE, CHANGE_LOG_PARAMETERS,
+			true);
+
+	@BeforeClass
+	public static void beforeClass() throws Exception
+	{
+		liquibaseDataSource.start();
+		adminDataSource.start();
+	}
+
+	@AfterClass
+	public static void afterClass() throws Exception
+	{
+		liquibaseDataSource.close();
+		adminDataSource.close();
+	}
+
+	private final InstrumentedDataSource dataSource = createInstrumentedDataSource(100);
+
+	private static InstrumentedDataSource createInstrumentedDataSource(long borrowWarnThresholdMillis)
+	{
+		InstrumentedDataSource dataSource = new InstrumentedDataSource("test", borrowWarnThresholdMillis);
+		dataSource.setDriverClassName(Driver.class.getName());
+		dataSource.setUrl(DATABASE_URL);
+		dataSource.setUsername(DATABASE_USER);
+		dataSource.setPassword(DATABASE_USER_PASSWORD);
+		dataSource.setDefaultReadOnly(true);
+
+		dataSource.setMaxTotal(1);
+		dataSource.setMaxWaitMillis(500);
+
+		return dataSource;
+	}
+
+	@After
+	public void after() throws Exception
+	{
+		dataSource.close();
+	}
+
+	@Test
+	public void testBorrowCount() throws Exception
+	{
+		for (int i = 0; i < 3; i++)
+			try (Connection connection = dataSource.getConnection())
+			{
+				assertEquals(1, dataSource.getNumActive());
+			}
+
+		assertEquals(3, dataSource.getBorrowCount());
+		assertEquals(3, Arrays.stream(dataSource.getBorrowTimeHistogram()).sum());
+		assertEquals(1, dataSource.getNumIdle());
+	}
+
+	@Test
+	public void testSlowAndFailedBorrow() throws Exception
+	{
+		try (Connection connection = dataSource.getConnection())
+		{
+			try (Connection second = dataSource.getConnection())
+			{
+				fail("SQLException expected");
+			}
+			catch (SQLException e)
+			{
+				// max wait exceeded
+			}
+		}
+
+		long[] histogram = dataSource.getBorrowTimeHistogram();
+		assertEquals(2, dataSource.getBorrowCount());
+		assertEquals(1, histogram[5] + histogram[6]); // 100 < t <= 1000 ms
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName objectName = new ObjectName("org.highmed.dsf.fhir:type=DataSource,name=test");
+		dataSource.registerMBean();
+		assertTrue(server.isRegistered(objectName));
+
+		assertEquals(2L, server.getAttribute(objectName, "BorrowCount"));
+		assertEquals(1L, server.getAttribute(objectName, "SlowBorrowCount"));
+		assertEquals(1L, server.getAttribute(objectName, "FailedBorrowCount"));
+		assertEquals(1, server.getAttribute(objectName, "MaxTotal"));
+		assertArrayEquals(histogram, (long[]) server.getAttribute(objectName, "BorrowTimeHistogram"));
+
+		dataSource.close();
+		assertTrue(!server.isRegistered(objectName));
+	}
+}
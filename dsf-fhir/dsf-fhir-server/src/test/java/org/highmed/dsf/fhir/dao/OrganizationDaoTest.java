@@ -6,10 +6,15 @@ import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.apache.commons.codec.binary.Hex;
+import org.highmed.dsf.fhir.authentication.User;
 import org.highmed.dsf.fhir.authorization.read.ReadAccessHelper;
 import org.highmed.dsf.fhir.authorization.read.ReadAccessHelperImpl;
 import org.highmed.dsf.fhir.dao.jdbc.BinaryDaoJdbc;
@@ -443,4 +448,73 @@ public class OrganizationDaoTest extends AbstractResourceDaoTest<Organization, O
 
 		dao.update(cretedOrg);
 	}
+
+	@Test
+	public void testSearchNameAndAlias() throws Exception
+	{
+		Organization organization = createResource();
+		organization.addAlias("First Alias").addAlias("Second Alias");
+		dao.create(organization);
+		dao.create(new Organization().setName("Other"));
+
+		assertEquals(1, searchTotal("name", "demo"));
+		assertEquals(1, searchTotal("name", "second"));
+		assertEquals(1, searchTotal("name:contains", "ORGANIZ"));
+		assertEquals(1, searchTotal("name:contains", "alias"));
+		assertEquals(1, searchTotal("name:exact", "First Alias"));
+		assertEquals(0, searchTotal("name:exact", "first alias"));
+		assertEquals(2, searchTotal("name:contains", "o"));
+	}
+
+	@Test
+	public void testSearchNameAndAliasAfterSearchIndexBackfill() throws Exception
+	{
+		Organization organization = createResource();
+		organization.addAlias("First Alias");
+		dao.create(organization);
+		Organization updated = dao.create(new Organization().setName("Other"));
+		dao.update(updated.setName("Updated"), null);
+		clearSearchIndex();
+
+		assertEquals(0, searchTotal("name", "demo"));
+
+		backfillSearchIndex();
+
+		assertEquals(1, searchTotal("name", "demo"));
+		assertEquals(1, searchTotal("name:exact", "First Alias"));
+		assertEquals(1, searchTotal("name", "updated"));
+		assertEquals(0, searchTotal("name", "other"));
+	}
+
+	@Test
+	public void testExport() throws Exception
+	{
+		ReadAccessHelper readAccessHelper = new ReadAccessHelperImpl();
+		Organization localOrganization = dao.create(readAccessHelper.addLocal(new Organization().setName("Local")));
+		Thread.sleep(10);
+
+		OffsetDateTime since = OffsetDateTime.now();
+		Organization allOrganization = dao.create(readAccessHelper.addAll(new Organization().setName("All")));
+
+		List<String> localUserExport = new ArrayList<>();
+		assertEquals(2, dao.export(User.local(localOrganization), null, localUserExport::add));
+		assertEquals(2, localUserExport.size());
+
+		List<String> remoteUserExport = new ArrayList<>();
+		assertEquals(1, dao.export(User.remote(allOrganization), null, remoteUserExport::add));
+		Organization exported = getFhirContext().newJsonParser().parseResource(Organization.class,
+				remoteUserExport.get(0));
+		assertEquals("All", exported.getName());
+		assertEquals(allOrganization.getIdElement().getIdPart(), exported.getIdElement().getIdPart());
+
+		List<String> sinceExport = new ArrayList<>();
+		assertEquals(1, dao.export(User.local(localOrganization), since, sinceExport::add));
+		assertEquals(allOrganization.getIdElement().getIdPart(), getFhirContext().newJsonParser()
+				.parseResource(Organization.class, sinceExport.get(0)).getIdElement().getIdPart());
+
+		OffsetDateTime sinceWithinLastUpdatedMillisecond = allOrganization.getMeta().getLastUpdated().toInstant()
+				.atOffset(ZoneOffset.UTC).plusNanos(500_000);
+		assertEquals(1, dao.export(User.local(localOrganization), sinceWithinLastUpdatedMillisecond, json ->
+		{}));
+	}
 }
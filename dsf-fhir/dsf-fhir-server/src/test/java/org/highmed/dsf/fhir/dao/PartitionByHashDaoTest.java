@@ -0,0 +1,156 @@
+package org.highmed.dsf.fhir.dao;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.highmed.dsf.fhir.dao.jdbc.BundleDaoJdbc;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.BundleType;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import ca.uhn.fhir.context.FhirContext;
+import de.rwh.utils.test.LiquibaseTemplateTestClassRule;
+import de.rwh.utils.test.LiquibaseTemplateTestRule;
+
+public class PartitionByHashDaoTest extends AbstractDbTest
+{
+	private static final BasicDataSource adminDataSource = createAdminBasicDataSource();
+	private static final BasicDataSource liquibaseDataSource = createLiquibaseDataSource();
+	private static final BasicDataSource defaultDataSource = createDefaultDataSource();
+	private static final BasicDataSource permanentDeleteDataSource = createPermanentDeleteDataSource();
+
+	@ClassRule
+	public static final LiquibaseTemplateTestClassRule liquibaseRule = new LiquibaseTemplateTestClassRule(
+			adminDataSource, LiquibaseTemplateTestClassRule.DEFAULT_TEST_DB_NAME,
+			AbstractResourceDaoTest.DAO_DB_TEMPLATE_NAME, liquibaseDataSource, CHANGE_LOG_FILE, CHANGE_LOG_PARAMETERS,
+			true);
+
+	@BeforeClass
+	public static void beforeClass() throws Exception
+	{
+		defaultDataSource.start();
+		liquibaseDataSource.start();
+		adminDataSource.start();
+		permanentDeleteDataSource.start();
+	}
+
+	@AfterClass
+	public static void afterClass() throws Exception
+	{
+		defaultDataSource.close();
+		liquibaseDataSource.close();
+		adminDataSource.close();
+		permanentDeleteDataSource.close();
+	}
+
+	@Rule
+	public final LiquibaseTemplateTestRule templateRule = new LiquibaseTemplateTestRule(adminDataSource,
+			LiquibaseTemplateTestClassRule.DEFAULT_TEST_DB_NAME, AbstractResourceDaoTest.DAO_DB_TEMPLATE_NAME);
+
+	private String getRelkind(Connection connection, String table) throws SQLException
+	{
+		try (PreparedStatement statement = connection
+				.prepareStatement("SELECT relkind FROM pg_class WHERE oid = to_regclass(?)"))
+		{
+			statement.setString(1, table);
+			try (ResultSet result = statement.executeQuery())
+			{
+				return result.next() ? result.getString(1) : null;
+			}
+		}
+	}
+
+	private long getLong(Connection connection, String query) throws SQLException
+	{
+		try (Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery(query))
+		{
+			result.next();
+			return result.getLong(1);
+		}
+	}
+
+	@Test
+	public void testHighChurnTablesPartitioned() throws Exception
+	{
+		try (Connection connection = defaultDataSource.getConnection())
+		{
+			assertEquals("p", getRelkind(connection, "tasks"));
+			assertEquals("p", getRelkind(connection, "bundles"));
+			assertEquals("p", getRelkind(connection, "binaries"));
+			assertEquals("p", getRelkind(connection, "provenances"));
+			assertEquals("p", getRelkind(connection, "questionnaire_responses"));
+			assertEquals("r", getRelkind(connection, "organizations"));
+
+			assertEquals(8,
+					getLong(connection, "SELECT count(*) FROM pg_inherits WHERE inhparent = to_regclass('tasks')"));
+		}
+	}
+
+	@Test
+	public void testReadAccessTriggerOnPartitionedTable() throws Exception
+	{
+		Bundle bundle = new Bundle().setType(BundleType.SEARCHSET);
+		bundle.getMeta().addTag("http://highmed.org/fhir/CodeSystem/read-access-tag", "ALL", null);
+
+		Bundle created = new BundleDaoJdbc(defaultDataSource, permanentDeleteDataSource, FhirContext.forR4())
+				.create(bundle);
+
+		try (Connection connection = defaultDataSource.getConnection())
+		{
+			assertEquals(1, getLong(connection, "SELECT count(*) FROM read_access WHERE resource_id = '"
+					+ created.getIdElement().getIdPart() + "' AND access_type = 'ALL'"));
+			assertEquals(1, getLong(connection, "SELECT count(*) FROM current_bundles"));
+			assertEquals(1, getLong(connection, "SELECT count(*) FROM history WHERE type = 'Bundle'"));
+		}
+	}
+
+	@Test
+	public void testPartitionExistingTable() throws Exception
+	{
+		try (Connection connection = liquibaseDataSource.getConnection();
+				Statement statement = connection.createStatement())
+		{
+			statement.execute("CREATE TABLE test_resources (test_resource_id UUID NOT NULL, version BIGINT DEFAULT 1 "
+					+ "NOT NULL, deleted TIMESTAMP, test_resource JSONB NOT NULL, "
+					+ "CONSTRAINT test_resources_pkey PRIMARY KEY (test_resource_id, version))");
+			statement.execute("CREATE INDEX test_resource_index ON test_resources USING gin (test_resource)");
+			statement.execute("CREATE VIEW current_test_resources AS SELECT test_resource_id, version, test_resource "
+					+ "FROM test_resources WHERE deleted IS NULL");
+			statement.execute("GRANT SELECT ON TABLE test_resources TO " + DATABASE_USERS_GROUP);
+
+			for (int i = 0; i < 10; i++)
+				statement.execute("INSERT INTO test_resources (test_resource_id, test_resource) VALUES ('"
+						+ UUID.randomUUID() + "', '{}')");
+
+			statement.execute("SELECT partition_by_hash('test_resources', 'test_resource_id', 4)");
+
+			assertEquals("p", getRelkind(connection, "test_resources"));
+			assertEquals(4, getLong(connection,
+					"SELECT count(*) FROM pg_inherits WHERE inhparent = to_regclass('test_resources')"));
+			assertEquals(10, getLong(connection, "SELECT count(*) FROM current_test_resources"));
+			assertEquals(1, getLong(connection,
+					"SELECT count(*) FROM pg_indexes WHERE tablename = 'test_resources' AND indexname = 'test_resource_index'"));
+
+			// already partitioned tables are not modified
+			statement.execute("SELECT partition_by_hash('test_resources', 'test_resource_id', 2)");
+			assertEquals(4, getLong(connection,
+					"SELECT count(*) FROM pg_inherits WHERE inhparent = to_regclass('test_resources')"));
+		}
+
+		try (Connection connection = defaultDataSource.getConnection())
+		{
+			assertEquals(10, getLong(connection, "SELECT count(*) FROM test_resources"));
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package org.highmed.dsf.fhir.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.highmed.dsf.fhir.dao.jdbc.OrganizationDaoJdbc;
+import org.highmed.dsf.fhir.dao.jdbc.ReadReplicaDataSource;
+import org.hl7.fhir.r4.model.Organization;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import ca.uhn.fhir.context.FhirContext;
+import de.rwh.utils.test.LiquibaseTemplateTestClassRule;
+import de.rwh.utils.test.LiquibaseTemplateTestRule;
+
+public class ReadReplicaDataSourceDaoTest extends AbstractDbTest
+{
+	private static final BasicDataSource adminDataSource = createAdminBasicDataSource();
+	private static final BasicDataSource liquibaseDataSource = createLiquibaseDataSource();
+	private static final BasicDataSource defaultDataSource = createDefaultDataSource();
+	private static final BasicDataSource permanentDeleteDataSource = createPermanentDeleteDataSource();
+
+	@ClassRule
+	public static final LiquibaseTemplateTestClassRule liquibaseRule = new LiquibaseTemplateTestClassRule(
+			adminDataSource, LiquibaseTemplateTestClassRule.DEFAULT_TEST_DB_NAME,
+			AbstractResourceDaoTest.DAO_DB_TEMPLATE_NAME, liquibaseDataSource, CHANGE_LOG_FILE, CHANGE_LOG_PARAMETERS,
+			true);
+
+	@BeforeClass
+	public static void beforeClass() throws Exception
+	{
+		defaultDataSource.start();
+		liquibaseDataSource.start();
+		adminDataSource.start();
+		permanentDeleteDataSource.start();
+	}
+
+	@AfterClass
+	public static void afterClass() throws Exception
+	{
+		defaultDataSource.close();
+		liquibaseDataSource.close();
+		adminDataSource.close();
+		permanentDeleteDataSource.close();
+	}
+
+	@Rule
+	public final LiquibaseTemplateTestRule templateRule = new LiquibaseTemplateTestRule(adminDataSource,
+			LiquibaseTemplateTestClassRule.DEFAULT_TEST_DB_NAME, AbstractResourceDaoTest.DAO_DB_TEMPLATE_NAME);
+
+	private final BasicDataSource replicaDataSource = createDefaultDataSource();
+	private final ReadReplicaDataSource dataSource = new ReadReplicaDataSource(defaultDataSource, replicaDataSource);
+
+	@Before
+	public void before() throws Exception
+	{
+		replicaDataSource.start();
+	}
+
+	@After
+	public void after() throws Exception
+	{
+		ReadReplicaDataSource.clearReadContext();
+		dataSource.close();
+	}
+
+	private void assertReadConnectionFrom(BasicDataSource expected) throws Exception
+	{
+		try (Connection connection = ReadReplicaDataSource.getReadConnection(dataSource))
+		{
+			assertEquals(1, expected.getNumActive());
+			assertEquals(1, defaultDataSource.getNumActive() + replicaDataSource.getNumActive());
+		}
+	}
+
+	@Test
+	public void testGetReadConnectionWithoutReadContext() throws Exception
+	{
+		assertReadConnectionFrom(defaultDataSource);
+	}
+
+	@Test
+	public void testGetReadConnectionWithoutWrite() throws Exception
+	{
+		ReadReplicaDataSource.setReadContext(null);
+		assertReadConnectionFrom(replicaDataSource);
+	}
+
+	@Test
+	public void testGetReadConnectionWriteInProgress() throws Exception
+	{
+		ReadReplicaDataSource.setReadContext(ReadReplicaDataSource.LSN_PRIMARY);
+		assertReadConnectionFrom(defaultDataSource);
+	}
+
+	@Test
+	public void testGetReadConnectionAfterWrite() throws Exception
+	{
+		// second pool to the primary, not in recovery, always up to date
+		ReadReplicaDataSource.setReadContext(dataSource.getPrimaryLsn());
+		assertReadConnectionFrom(replicaDataSource);
+
+		ReadReplicaDataSource.setReadContext("FFFFFFFF/FFFFFFFF");
+		assertReadConnectionFrom(replicaDataSource);
+	}
+
+	@Test
+	public void testGetReadConnectionWithoutReplica() throws Exception
+	{
+		ReadReplicaDataSource withoutReplica = new ReadReplicaDataSource(defaultDataSource, null);
+		ReadReplicaDataSource.setReadContext(null);
+
+		try (Connection connection = ReadReplicaDataSource.getReadConnection(withoutReplica))
+		{
+			assertEquals(1, defaultDataSource.getNumActive());
+			assertEquals(0, replicaDataSource.getNumActive());
+		}
+	}
+
+	@Test
+	public void testReadYourWrites() throws Exception
+	{
+		OrganizationDao dao = new OrganizationDaoJdbc(dataSource, permanentDeleteDataSource, FhirContext.forR4());
+
+		Organization created = dao.create(new Organization().setName("Test Organization"));
+		String lsn = dataSource.getPrimaryLsn();
+		assertNotNull(lsn);
+
+		assertEquals(0, replicaDataSource.getNumIdle());
+
+		ReadReplicaDataSource.setReadContext(lsn);
+		Optional<Organization> read = dao.read(UUID.fromString(created.getIdElement().getIdPart()));
+		assertTrue(read.isPresent());
+		assertEquals("Test Organization", read.get().getName());
+
+		// connection used for the read returned to the replica pool
+		assertEquals(1, replicaDataSource.getNumIdle());
+	}
+}
@@ -0,0 +1,256 @@
+package org.highmed.dsf.fhir.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.highmed.dsf.fhir.authentication.User;
+import org.highmed.dsf.fhir.dao.jdbc.EndpointDaoJdbc;
+import org.highmed.dsf.fhir.dao.jdbc.OrganizationDaoJdbc;
+import org.highmed.dsf.fhir.dao.jdbc.QuestionnaireResponseDaoJdbc;
+import org.highmed.dsf.fhir.dao.jdbc.TaskDaoJdbc;
+import org.highmed.dsf.fhir.search.SearchExpressionIndex;
+import org.highmed.dsf.fhir.search.SearchQuery;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Organization;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ca.uhn.fhir.context.FhirContext;
+import de.rwh.utils.test.LiquibaseTemplateTestClassRule;
+import de.rwh.utils.test.LiquibaseTemplateTestRule;
+
+public class SearchExpressionIndexDaoTest extends AbstractDbTest
+{
+	private static final Logger logger = LoggerFactory.getLogger(SearchExpressionIndexDaoTest.class);
+
+	private static final int ROWS = 200;
+
+	// tasks and questionnaire_responses are hash partitioned, rows are split between all partitions
+	private static final int PARTITIONED_ROWS = 2000;
+
+	private static final BasicDataSource adminDataSource = createAdminBasicDataSource();
+	private static final BasicDataSource liquibaseDataSource = createLiquibaseDataSource();
+	private static final BasicDataSource defaultDataSource = createDefaultDataSource();
+	private static final BasicDataSource permanentDeleteDataSource = createPermanentDeleteDataSource();
+
+	@ClassRule
+	public static final LiquibaseTemplateTestClassRule liquibaseRule = new LiquibaseTemplateTestClassRule(
+			adminDataSource, LiquibaseTemplateTestClassRule.DEFAULT_TEST_DB_NAME,
+			AbstractResourceDaoTest.DAO_DB_TEMPLATE_NAME, liquibaseDataSource, CHANGE_LOG_FILE, CHANGE_LOG_PARAMETERS,
+			true);
+
+	@BeforeClass
+	public static void beforeClass() throws Exception
+	{
+		defaultDataSource.start();
+		liquibaseDataSource.start();
+		adminDataSource.start();
+		permanentDeleteDataSource.start();
+	}
+
+	@AfterClass
+	public static void afterClass() throws Exception
+	{
+		defaultDataSource.close();
+		liquibaseDataSource.close();
+		adminDataSource.close();
+		permanentDeleteDataSource.close();
+	}
+
+	@Rule
+	public final LiquibaseTemplateTestRule templateRule = new LiquibaseTemplateTestRule(adminDataSource,
+			LiquibaseTemplateTestClassRule.DEFAULT_TEST_DB_NAME, AbstractResourceDaoTest.DAO_DB_TEMPLATE_NAME);
+
+	private final FhirContext fhirContext = FhirContext.forR4();
+	private final TaskDao taskDao = new TaskDaoJdbc(defaultDataSource, permanentDeleteDataSource, fhirContext);
+	private final QuestionnaireResponseDao questionnaireResponseDao = new QuestionnaireResponseDaoJdbc(
+			defaultDataSource, permanentDeleteDataSource, fhirContext);
+	private final OrganizationDao organizationDao = new OrganizationDaoJdbc(defaultDataSource,
+			permanentDeleteDataSource, fhirContext);
+	private final EndpointDao endpointDao = new EndpointDaoJdbc(defaultDataSource, permanentDeleteDataSource,
+			fhirContext);
+
+	@Before
+	public void before() throws Exception
+	{
+		try (Connection connection = liquibaseDataSource.getConnection();
+				Statement statement = connection.createStatement())
+		{
+			connection.setReadOnly(false);
+
+			statement.execute("INSERT INTO tasks (task_id, version, task) SELECT id, 1, jsonb_build_object("
+					+ "'resourceType', 'Task', 'id', id, 'meta', jsonb_build_object('versionId', '1', 'lastUpdated', "
+					+ "now() - g * interval '1 minute'), 'status', 'requested', 'intent', 'order', "
+					+ "'requester', jsonb_build_object('reference', 'Organization/' || gen_random_uuid()), "
+					+ "'restriction', jsonb_build_object('recipient', jsonb_build_array(jsonb_build_object("
+					+ "'reference', 'Organization/' || gen_random_uuid())))) "
+					+ "FROM (SELECT gen_random_uuid() AS id, g FROM generate_series(1, " + PARTITIONED_ROWS
+					+ ") AS g) AS t");
+			statement.execute(
+					"INSERT INTO questionnaire_responses (questionnaire_response_id, version, questionnaire_response) "
+							+ "SELECT id, 1, jsonb_build_object('resourceType', 'QuestionnaireResponse', 'id', id, "
+							+ "'meta', jsonb_build_object('versionId', '1', 'lastUpdated', "
+							+ "now() - g * interval '1 minute'), 'status', 'in-progress') "
+							+ "FROM (SELECT gen_random_uuid() AS id, g FROM generate_series(1, " + PARTITIONED_ROWS
+							+ ") AS g) AS qr");
+			statement.execute("INSERT INTO organizations (organization_id, version, organization) SELECT id, 1, "
+					+ "jsonb_build_object('resourceType', 'Organization', 'id', id, 'meta', jsonb_build_object("
+					+ "'versionId', '1', 'lastUpdated', now()), 'active', true, 'identifier', jsonb_build_array("
+					+ "jsonb_build_object('system', 'http://highmed.org/sid/organization-identifier', 'value', "
+					+ "'org' || g || '.test'))) " + "FROM (SELECT gen_random_uuid() AS id, g FROM generate_series(1, "
+					+ ROWS + ") AS g) AS o");
+			statement.execute("INSERT INTO endpoints (endpoint_id, version, endpoint) SELECT id, 1, "
+					+ "jsonb_build_object('resourceType', 'Endpoint', 'id', id, 'meta', jsonb_build_object("
+					+ "'versionId', '1', 'lastUpdated', now()), 'status', 'active', 'identifier', jsonb_build_array("
+					+ "jsonb_build_object('system', 'http://highmed.org/sid/endpoint-identifier', 'value', "
+					+ "'endpoint' || g || '.test'))) "
+					+ "FROM (SELECT gen_random_uuid() AS id, g FROM generate_series(1, " + ROWS + ") AS g) AS e");
+
+			statement.execute("ANALYZE tasks, questionnaire_responses, organizations, endpoints");
+		}
+	}
+
+	@Test
+	public void testIndexesCreated() throws Exception
+	{
+		try (InputStream in = getClass().getResourceAsStream("/db/db.search_expression_indexes.changelog-0.9.3.xml"))
+		{
+			String changelog = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+
+			for (SearchExpressionIndex index : SearchExpressionIndex.ALL)
+				assertTrue("Changelog does not contain '" + index.getCreateSql() + "'",
+						changelog.contains(index.getCreateSql()));
+		}
+
+		try (Connection connection = defaultDataSource.getConnection();
+				PreparedStatement statement = connection.prepareStatement(
+						"SELECT indisvalid FROM pg_index JOIN pg_class ON pg_index.indexrelid = pg_class.oid WHERE relname = ?"))
+		{
+			for (SearchExpressionIndex index : SearchExpressionIndex.ALL)
+			{
+				statement.setString(1, index.getName());
+
+				try (ResultSet result = statement.executeQuery())
+				{
+					assertTrue("Index " + index + " not found", result.next());
+					assertTrue("Index " + index + " not valid", result.getBoolean(1));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSearchQueriesUseIndexes() throws Exception
+	{
+		Organization organization = new Organization();
+		organization.setIdElement(new IdType("Organization", UUID.randomUUID().toString(), "1"));
+		User remoteUser = User.remote(organization);
+
+		Map<SearchExpressionIndex, SearchQuery<?>> queries = new LinkedHashMap<>();
+		queries.put(SearchExpressionIndex.TASKS_REQUESTER_REFERENCE,
+				taskDao.createSearchQuery(remoteUser, 1, 20).configureParameters(Collections.emptyMap()));
+		queries.put(SearchExpressionIndex.TASKS_RESTRICTION_RECIPIENT,
+				taskDao.createSearchQuery(remoteUser, 1, 20).configureParameters(Collections.emptyMap()));
+		queries.put(SearchExpressionIndex.TASKS_LAST_UPDATED,
+				taskDao.createSearchQueryWithoutUserFilter(1, 20).configureParameters(Map.of("_lastUpdated",
+						List.of("gt2999-01-01T00:00:00.000+00:00"), "_sort", List.of("_lastUpdated"))));
+		queries.put(SearchExpressionIndex.QUESTIONNAIRE_RESPONSES_LAST_UPDATED,
+				questionnaireResponseDao.createSearchQueryWithoutUserFilter(1, 20).configureParameters(Map.of(
+						"_lastUpdated", List.of("gt2999-01-01T00:00:00.000+00:00"), "_sort", List.of("_lastUpdated"))));
+		queries.put(SearchExpressionIndex.ORGANIZATIONS_IDENTIFIER,
+				organizationDao.createSearchQueryWithoutUserFilter(1, 20).configureParameters(
+						Map.of("identifier", List.of("http://highmed.org/sid/organization-identifier|org42.test"))));
+		queries.put(SearchExpressionIndex.ENDPOINTS_IDENTIFIER,
+				endpointDao.createSearchQueryWithoutUserFilter(1, 20).configureParameters(
+						Map.of("identifier", List.of("http://highmed.org/sid/endpoint-identifier|endpoint42.test"))));
+
+		assertEquals("Not all catalog indexes tested", new HashSet<>(SearchExpressionIndex.ALL), queries.keySet());
+
+		for (Map.Entry<SearchExpressionIndex, SearchQuery<?>> entry : queries.entrySet())
+		{
+			String plan = explain(entry.getValue());
+			List<String> indexNames = getIndexNames(entry.getKey());
+			assertTrue("Index " + entry.getKey() + " not used by " + entry.getKey().getUsedBy() + ", plan:\n" + plan,
+					indexNames.stream().anyMatch(plan::contains));
+		}
+	}
+
+	// indexes of partitioned tables are used via the indexes of the partitions
+	private List<String> getIndexNames(SearchExpressionIndex index) throws Exception
+	{
+		try (Connection connection = defaultDataSource.getConnection();
+				PreparedStatement statement = connection.prepareStatement(
+						"SELECT partition_index.relname FROM pg_inherits JOIN pg_class AS partition_index "
+								+ "ON pg_inherits.inhrelid = partition_index.oid JOIN pg_class AS parent_index "
+								+ "ON pg_inherits.inhparent = parent_index.oid WHERE parent_index.relname = ?"))
+		{
+			statement.setString(1, index.getName());
+
+			List<String> indexNames = new ArrayList<>();
+			indexNames.add(index.getName());
+
+			try (ResultSet result = statement.executeQuery())
+			{
+				while (result.next())
+					indexNames.add(result.getString(1));
+			}
+
+			return indexNames;
+		}
+	}
+
+	private String explain(SearchQuery<?> query) throws Exception
+	{
+		try (Connection connection = defaultDataSource.getConnection())
+		{
+			try (Statement statement = connection.createStatement())
+			{
+				// test data is small, make sure the planner only uses sequential scans if no index is applicable
+				statement.execute("SET enable_seqscan = off");
+			}
+
+			try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + query.getSearchSql()))
+			{
+				query.modifySearchStatement(statement, connection::createArrayOf);
+
+				logger.debug("Executing query '{}'", statement);
+				try (ResultSet result = statement.executeQuery())
+				{
+					List<String> plan = new ArrayList<>();
+					while (result.next())
+						plan.add(result.getString(1));
+
+					return String.join("\n", plan);
+				}
+			}
+			finally
+			{
+				try (Statement statement = connection.createStatement())
+				{
+					statement.execute("RESET enable_seqscan");
+				}
+			}
+		}
+	}
+}
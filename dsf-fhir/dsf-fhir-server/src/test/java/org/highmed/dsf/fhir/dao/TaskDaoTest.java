@@ -1,10 +1,40 @@
 package org.highmed.dsf.fhir.dao;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.highmed.dsf.fhir.dao.jdbc.OrganizationDaoJdbc;
 import org.highmed.dsf.fhir.dao.jdbc.TaskDaoJdbc;
+import org.highmed.dsf.fhir.search.PageAndCount;
+import org.highmed.dsf.fhir.search.PartialResult;
+import org.highmed.dsf.fhir.search.SearchQuery;
+import org.highmed.dsf.fhir.search.SearchResultHandler;
+import org.hl7.fhir.r4.model.Narrative.NarrativeStatus;
+import org.hl7.fhir.r4.model.Organization;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.Resource;
+import org.hl7.fhir.r4.model.StringType;
 import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.TaskIntent;
 import org.hl7.fhir.r4.model.Task.TaskStatus;
+import org.junit.Test;
+
+import ca.uhn.fhir.parser.IParser;
 
 public class TaskDaoTest extends AbstractResourceDaoTest<Task, TaskDao>
 {
@@ -42,4 +72,326 @@ public class TaskDaoTest extends AbstractResourceDaoTest<Task, TaskDao>
 	{
 		assertEquals(description, resource.getDescription());
 	}
+
+	private Task createProjectionTestTask() throws Exception
+	{
+		Task task = new Task().setStatus(TaskStatus.REQUESTED).setIntent(TaskIntent.ORDER).setAuthoredOn(new Date())
+				.setInstantiatesUri("http://highmed.org/bpe/Process/test/0.1.0").setDescription(description);
+		task.getMeta().addProfile("http://highmed.org/fhir/StructureDefinition/task-test").addTag("http://test.org",
+				"test", null);
+		task.getText().setStatus(NarrativeStatus.GENERATED)
+				.setDivAsString("<div xmlns=\"http://www.w3.org/1999/xhtml\">Test</div>");
+		task.getStatusElement().addExtension("http://test.org/extension", new StringType("primitive extension"));
+		task.getRequester().setReference("Organization/" + UUID.randomUUID().toString()).setDisplay("Requester");
+		task.getRestriction().addRecipient().setReference("Organization/" + UUID.randomUUID().toString());
+		task.addInput().setValue(new StringType("value")).getType().addCoding().setSystem("http://test.org")
+				.setCode("test");
+
+		return dao.create(task);
+	}
+
+	private Task searchProjected(Task created, String parameter, String value) throws Exception
+	{
+		SearchQuery<Task> query = dao.createSearchQueryWithoutUserFilter(1, 1)
+				.configureParameters(Map.of("_id", Collections.singletonList(created.getIdElement().getIdPart()),
+						parameter, Collections.singletonList(value)));
+		assertTrue(query.getUnsupportedQueryParameters(Map.of(parameter, List.of(value))).isEmpty());
+
+		PartialResult<Task> result = dao.search(query);
+		assertEquals(1, result.getTotal());
+		assertEquals(1, result.getPartialResult().size());
+
+		return result.getPartialResult().get(0);
+	}
+
+	private IParser newParser()
+	{
+		return fhirContext.newJsonParser().setStripVersionsFromReferences(false)
+				.setOverrideResourceIdWithBundleEntryFullUrl(false);
+	}
+
+	@Test
+	public void testSearchSummaryTrue() throws Exception
+	{
+		Task created = createProjectionTestTask();
+		Task projected = searchProjected(created, "_summary", "true");
+
+		String expected = newParser().setSummaryMode(true).encodeResourceToString(created);
+		assertEquals(expected, newParser().setSummaryMode(true).encodeResourceToString(projected));
+
+		// non summary elements not loaded from the db
+		assertTrue(projected.getInput().isEmpty());
+		assertTrue(projected.getRestriction().isEmpty());
+	}
+
+	@Test
+	public void testSearchSummaryText() throws Exception
+	{
+		Task created = createProjectionTestTask();
+		Task projected = searchProjected(created, "_summary", "text");
+
+		String expected = newParser().setEncodeElements(Set.of("Task.text", "Task.status", "Task.intent"))
+				.encodeResourceToString(created);
+		assertEquals(expected, newParser().encodeResourceToString(projected));
+	}
+
+	@Test
+	public void testSearchSummaryData() throws Exception
+	{
+		Task created = createProjectionTestTask();
+		Task projected = searchProjected(created, "_summary", "data");
+
+		// HAPI does not tag resources encoded without the text element as subsetted
+		created.getMeta().addTag("http://terminology.hl7.org/CodeSystem/v3-ObservationValue", "SUBSETTED",
+				"Resource encoded in summary mode");
+		String expected = newParser().setDontEncodeElements(Set.of("Task.text")).encodeResourceToString(created);
+		assertEquals(expected, newParser().encodeResourceToString(projected));
+	}
+
+	@Test
+	public void testSearchSummaryCount() throws Exception
+	{
+		Task created = createProjectionTestTask();
+
+		SearchQuery<Task> query = dao.createSearchQueryWithoutUserFilter(1, 20)
+				.configureParameters(Map.of("_id", Collections.singletonList(created.getIdElement().getIdPart()),
+						"_summary", Collections.singletonList("count")));
+		PartialResult<Task> result = dao.search(query);
+
+		assertEquals(1, result.getTotal());
+		assertTrue(result.getPartialResult().isEmpty());
+	}
+
+	@Test
+	public void testSearchElements() throws Exception
+	{
+		Task created = createProjectionTestTask();
+		Task projected = searchProjected(created, "_elements", "status,input,requester");
+
+		String expected = newParser().setEncodeElements(Set.of("Task.status", "Task.input", "Task.requester"))
+				.encodeResourceToString(created);
+		assertEquals(expected, newParser().encodeResourceToString(projected));
+	}
+
+	@Test
+	public void testSearchElementsUnknown() throws Exception
+	{
+		SearchQuery<Task> query = dao.createSearchQueryWithoutUserFilter(1, 20)
+				.configureParameters(Map.of("_elements", Collections.singletonList("status,foo")));
+
+		assertEquals(1, query.getUnsupportedQueryParameters(Collections.emptyMap()).size());
+	}
+
+	private int countSearchIndexEntries(String table, UUID resourceId) throws Exception
+	{
+		try (Connection connection = defaultDataSource.getConnection();
+				PreparedStatement statement = connection
+						.prepareStatement("SELECT count(*) FROM " + table + " WHERE resource_id = ?"))
+		{
+			statement.setObject(1, resourceId);
+
+			try (ResultSet result = statement.executeQuery())
+			{
+				result.next();
+				return result.getInt(1);
+			}
+		}
+	}
+
+	@Test
+	public void testSearchIndexIdentifier() throws Exception
+	{
+		Task task = createResource();
+		task.addIdentifier().setSystem("http://test.org/sid/task").setValue("v1");
+		Task created = dao.create(task);
+		dao.create(createResource());
+
+		assertEquals(1, searchTotal(Map.of("identifier", List.of("http://test.org/sid/task|v1"))));
+		assertEquals(1, searchTotal(Map.of("identifier", List.of("v1"))));
+		assertEquals(1, searchTotal(Map.of("identifier", List.of("http://test.org/sid/task|"))));
+		assertEquals(0, searchTotal(Map.of("identifier", List.of("|v1"))));
+		assertEquals(0, searchTotal(Map.of("identifier:not", List.of("http://test.org/sid/task|v1"))));
+
+		created.getIdentifierFirstRep().setValue("v2");
+		dao.update(created, null);
+
+		assertEquals(0, searchTotal(Map.of("identifier", List.of("http://test.org/sid/task|v1"))));
+		assertEquals(1, searchTotal(Map.of("identifier", List.of("http://test.org/sid/task|v2"))));
+		assertEquals(1, searchTotal(Map.of("identifier:not", List.of("http://test.org/sid/task|v1"))));
+
+		assertEquals(2,
+				countSearchIndexEntries("search_index_tokens", UUID.fromString(created.getIdElement().getIdPart())));
+	}
+
+	@Test
+	public void testSearchIndexRequesterAndAuthoredOn() throws Exception
+	{
+		String organizationId = UUID.randomUUID().toString();
+		Task task = createResource();
+		task.getRequester().setReference("Organization/" + organizationId);
+		task.setAuthoredOn(new Date());
+		Task created = dao.create(task);
+		dao.create(createResource());
+
+		assertEquals(1, searchTotal(Map.of("requester", List.of("Organization/" + organizationId))));
+		assertEquals(1, searchTotal(Map.of("requester", List.of(organizationId))));
+		assertEquals(0, searchTotal(Map.of("requester", List.of("Practitioner/" + organizationId))));
+
+		String today = LocalDate.now().toString();
+		assertEquals(1, searchTotal(Map.of("authored-on", List.of(today))));
+		assertEquals(1, searchTotal(Map.of("authored-on", List.of("ge" + today, "lt" + LocalDate.now().plusDays(1)))));
+		assertEquals(0, searchTotal(Map.of("authored-on", List.of("lt" + today))));
+
+		UUID uuid = UUID.fromString(created.getIdElement().getIdPart());
+		assertEquals(1, countSearchIndexEntries("search_index_references", uuid));
+		assertEquals(1, countSearchIndexEntries("search_index_dates", uuid));
+
+		dao.delete(uuid);
+		assertEquals(0, searchTotal(Map.of("requester", List.of(organizationId))));
+
+		dao.deletePermanently(uuid);
+		assertEquals(0, countSearchIndexEntries("search_index_references", uuid));
+		assertEquals(0, countSearchIndexEntries("search_index_dates", uuid));
+	}
+
+	@Test
+	public void testSearchIndexBackfill() throws Exception
+	{
+		String organizationId = UUID.randomUUID().toString();
+		Task task = createResource();
+		task.addIdentifier().setSystem("http://test.org/sid/task").setValue("v1");
+		task.getRequester().setReference("Organization/" + organizationId);
+		task.setAuthoredOn(
+				Date.from(LocalDate.of(2020, 6, 15).atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant()));
+		Task created = dao.create(task);
+		dao.create(createResource());
+		clearSearchIndex();
+
+		UUID uuid = UUID.fromString(created.getIdElement().getIdPart());
+		assertEquals(0, countSearchIndexEntries("search_index_tokens", uuid));
+		assertEquals(0, searchTotal(Map.of("identifier", List.of("http://test.org/sid/task|v1"))));
+
+		backfillSearchIndex();
+
+		assertEquals(1, countSearchIndexEntries("search_index_tokens", uuid));
+		assertEquals(1, countSearchIndexEntries("search_index_references", uuid));
+		assertEquals(1, countSearchIndexEntries("search_index_dates", uuid));
+
+		assertEquals(1, searchTotal(Map.of("identifier", List.of("http://test.org/sid/task|v1"))));
+		assertEquals(1, searchTotal(Map.of("requester", List.of("Organization/" + organizationId))));
+		assertEquals(1, searchTotal(Map.of("authored-on", List.of("2020-06-15"))));
+		assertEquals(0, searchTotal(Map.of("authored-on", List.of("2020-06-16"))));
+	}
+
+	@Test
+	public void testSearchPagesUseEqualSql() throws Exception
+	{
+		Task task1 = dao.create(createResource());
+		Task task2 = dao.create(createResource());
+
+		SearchQuery<Task> page1 = dao.createSearchQueryWithoutUserFilter(1, 1)
+				.configureParameters(Map.of("status", List.of("requested")));
+		SearchQuery<Task> page2 = dao.createSearchQueryWithoutUserFilter(2, 1)
+				.configureParameters(Map.of("status", List.of("requested")));
+		assertEquals(page1.getSearchSql(), page2.getSearchSql());
+		assertEquals(page1.getCountSql(), page2.getCountSql());
+
+		PartialResult<Task> result1 = dao.search(page1);
+		PartialResult<Task> result2 = dao.search(page2);
+		assertEquals(2, result1.getTotal());
+		assertEquals(1, result1.getPartialResult().size());
+		assertEquals(1, result2.getPartialResult().size());
+		assertEquals(Set.of(task1.getIdElement().getIdPart(), task2.getIdElement().getIdPart()),
+				Set.of(result1.getPartialResult().get(0).getIdElement().getIdPart(),
+						result2.getPartialResult().get(0).getIdElement().getIdPart()));
+	}
+
+	@Test
+	public void testSearchIncludeRequester() throws Exception
+	{
+		OrganizationDao organizationDao = new OrganizationDaoJdbc(defaultDataSource, permanentDeleteDataSource,
+				fhirContext);
+		Organization organization1 = organizationDao.create(new Organization().setName("Test Organization 1"));
+		Organization organization2 = organizationDao.create(new Organization().setName("Test Organization 2"));
+
+		for (int i = 0; i < 3; i++)
+			dao.create(createResource()
+					.setRequester(new Reference("Organization/" + organization1.getIdElement().getIdPart())));
+		dao.create(createResource()
+				.setRequester(new Reference("Organization/" + organization2.getIdElement().getIdPart())));
+		dao.create(createResource());
+
+		Map<String, List<String>> parameters = Map.of("_include", List.of("Task:requester:Organization"));
+
+		PartialResult<Task> result = dao
+				.search(dao.createSearchQueryWithoutUserFilter(1, 10).configureParameters(parameters));
+		assertEquals(5, result.getTotal());
+		assertEquals(5, result.getPartialResult().size());
+		assertEquals(2, result.getIncludes().size());
+		assertEquals(Set.of(organization1.getIdElement().getIdPart(), organization2.getIdElement().getIdPart()),
+				result.getIncludes().stream().map(r -> r.getIdElement().getIdPart()).collect(Collectors.toSet()));
+		assertTrue(result.getIncludes().stream().allMatch(r -> r instanceof Organization));
+
+		List<Task> matches = new ArrayList<>();
+		List<Resource> includes = new ArrayList<>();
+		dao.search(dao.createSearchQueryWithoutUserFilter(1, 10).configureParameters(parameters),
+				new SearchResultHandler<Task>()
+				{
+					@Override
+					public void onTotal(int total, PageAndCount pageAndCount)
+					{
+						assertEquals(5, total);
+					}
+
+					@Override
+					public void onMatch(Task resource)
+					{
+						matches.add(resource);
+					}
+
+					@Override
+					public void onInclude(Resource resource)
+					{
+						includes.add(resource);
+					}
+				});
+		assertEquals(
+				result.getPartialResult().stream().map(r -> r.getIdElement().getIdPart()).collect(Collectors.toList()),
+				matches.stream().map(r -> r.getIdElement().getIdPart()).collect(Collectors.toList()));
+		assertEquals(2, includes.size());
+
+		PartialResult<Task> page2 = dao
+				.search(dao.createSearchQueryWithoutUserFilter(2, 2).configureParameters(parameters));
+		assertEquals(2, page2.getPartialResult().size());
+		assertEquals(
+				result.getPartialResult().subList(2, 4).stream().map(r -> r.getIdElement().getIdPart())
+						.collect(Collectors.toList()),
+				page2.getPartialResult().stream().map(r -> r.getIdElement().getIdPart()).collect(Collectors.toList()));
+	}
+
+	@Test
+	public void testSearchPlanPerValueShape() throws Exception
+	{
+		Task task = createResource();
+		task.setAuthoredOn(
+				Date.from(LocalDate.of(2020, 6, 15).atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant()));
+		dao.create(task);
+
+		// year and date precision need a different number of sql parameters
+		assertEquals(authoredOnQuery("2020").getSearchSql(), authoredOnQuery("2021").getSearchSql());
+		assertEquals(authoredOnQuery("2020-06-15").getSearchSql(), authoredOnQuery("2020-06-16").getSearchSql());
+		assertNotEquals(authoredOnQuery("2020").getSearchSql(), authoredOnQuery("2020-06-15").getSearchSql());
+
+		assertEquals(1, searchTotal(Map.of("authored-on", List.of("2020"))));
+		assertEquals(0, searchTotal(Map.of("authored-on", List.of("2021"))));
+		assertEquals(1, searchTotal(Map.of("authored-on", List.of("2020-06-15"))));
+		assertEquals(0, searchTotal(Map.of("authored-on", List.of("2020-06-16"))));
+		assertEquals(1, searchTotal(Map.of("authored-on", List.of("2020"), "status", List.of("requested"))));
+		assertEquals(0, searchTotal(Map.of("authored-on", List.of("2021"), "status", List.of("requested"))));
+	}
+
+	private SearchQuery<Task> authoredOnQuery(String value)
+	{
+		return dao.createSearchQueryWithoutUserFilter(1, 20).configureParameters(Map.of("authored-on", List.of(value)));
+	}
 }
@@ -0,0 +1,304 @@
+package org.highmed.dsf.fhir.help;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.UriBuilder;
+
+import org.glassfish.jersey.uri.internal.JerseyUriBuilder;
+import org.highmed.dsf.fhir.adapter.AbstractFhirAdapter;
+import org.highmed.dsf.fhir.search.PageAndCount;
+import org.highmed.dsf.fhir.search.PartialResult;
+import org.highmed.dsf.fhir.search.SearchQueryParameterError;
+import org.highmed.dsf.fhir.search.SearchQueryParameterError.SearchQueryParameterErrorType;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
+import org.hl7.fhir.r4.model.Endpoint;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Organization;
+import org.hl7.fhir.r4.model.Resource;
+import org.junit.Test;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+
+public class SearchSetWriterTest
+{
+	private static final String SERVER_BASE = "https://localhost/fhir";
+
+	private static final FhirContext fhirContext = FhirContext.forR4();
+	private static final ResponseGenerator responseGenerator = new ResponseGenerator(SERVER_BASE, fhirContext);
+
+	private static final MediaType JSON = new MediaType("application", "fhir+json");
+	private static final MediaType XML = new MediaType("application", "fhir+xml");
+	private static final MediaType JSON_PRETTY = new MediaType("application", "fhir+json",
+			Map.of(AbstractFhirAdapter.PRETTY, "true"));
+	private static final MediaType XML_PRETTY = new MediaType("application", "fhir+xml",
+			Map.of(AbstractFhirAdapter.PRETTY, "true"));
+
+	private static <R extends Resource> R withId(R resource)
+	{
+		resource.setIdElement(new IdType(resource.getResourceType().name(), UUID.randomUUID().toString(), "1"));
+		return resource;
+	}
+
+	private static UriBuilder bundleUri()
+	{
+		return new JerseyUriBuilder().uri(SERVER_BASE).path("Organization").queryParam("name", "Test \"ä\" <&>");
+	}
+
+	private static String write(MediaType mediaType, PartialResult<Organization> result,
+			List<SearchQueryParameterError> errors)
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (SearchSetWriter<Organization> writer = responseGenerator.createSearchSetWriter(mediaType, out, errors,
+				bundleUri(), null, null, r -> !"filtered".equals(((Endpoint) r).getName()), r ->
+				{}))
+		{
+			writer.onTotal(result.getTotal(), result.getPageAndCount());
+			for (int i = 0; i < result.getPartialResult().size(); i++)
+			{
+				writer.onMatch(result.getPartialResult().get(i));
+
+				// includes handed to the writer after the first matching resource, as if only included by this resource
+				if (i == 0)
+					result.getIncludes().forEach(writer::onInclude);
+			}
+			writer.finish();
+		}
+
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static IParser parser(MediaType mediaType)
+	{
+		IParser parser = mediaType.getSubtype().contains("json") ? fhirContext.newJsonParser()
+				: fhirContext.newXmlParser();
+		parser.setStripVersionsFromReferences(false);
+		parser.setOverrideResourceIdWithBundleEntryFullUrl(false);
+		return parser;
+	}
+
+	private static Bundle parse(MediaType mediaType, String bundle)
+	{
+		return parser(mediaType).parseResource(Bundle.class, bundle);
+	}
+
+	/**
+	 * @return bundle as encoded by HAPI for the non streaming search response, parsed again
+	 */
+	private static Bundle roundTrip(MediaType mediaType, Bundle bundle)
+	{
+		return parse(mediaType, parser(mediaType).encodeResourceToString(bundle));
+	}
+
+	private static void assertSameBundle(Bundle expected, Bundle actual)
+	{
+		assertEquals(expected.getType(), actual.getType());
+		assertEquals(expected.getTotal(), actual.getTotal());
+
+		assertEquals(expected.getLink().size(), actual.getLink().size());
+		for (int i = 0; i < expected.getLink().size(); i++)
+			assertTrue(expected.getLink().get(i).equalsDeep(actual.getLink().get(i)));
+
+		assertEquals(expected.getEntry().size(), actual.getEntry().size());
+		for (BundleEntryComponent expectedEntry : expected.getEntry())
+		{
+			BundleEntryComponent actualEntry = actual.getEntry().stream()
+					.filter(e -> e.getFullUrl().equals(expectedEntry.getFullUrl())).findFirst()
+					.orElseThrow(AssertionError::new);
+
+			assertEquals(expectedEntry.getSearch().getMode(), actualEntry.getSearch().getMode());
+			assertTrue(expectedEntry.getResource().equalsDeep(actualEntry.getResource()));
+		}
+	}
+
+	private void test(MediaType mediaType, PartialResult<Organization> result, List<SearchQueryParameterError> errors)
+	{
+		Bundle actual = parse(mediaType, write(mediaType, result, errors));
+
+		PartialResult<Organization> filtered = new PartialResult<>(result.getTotal(), result.getPageAndCount(),
+				result.getPartialResult(), result.getIncludes().stream()
+						.filter(r -> !"filtered".equals(((Endpoint) r).getName())).collect(Collectors.toList()));
+		Bundle expected = roundTrip(mediaType,
+				responseGenerator.createSearchSet(filtered, errors, bundleUri(), null, null));
+
+		assertSameBundle(expected, actual);
+
+		// matching resources first, as in non streamed search-set bundles
+		for (int i = 0; i < actual.getEntry().size(); i++)
+			assertEquals(expected.getEntry().get(i).getFullUrl(), actual.getEntry().get(i).getFullUrl());
+	}
+
+	private PartialResult<Organization> result(int total, PageAndCount pageAndCount)
+	{
+		Organization o1 = withId(new Organization().setName("Test 1 \"ä\" <&>"));
+		Organization o2 = withId(new Organization().setName("Test 2"));
+		Endpoint e1 = withId(new Endpoint().setName("allowed"));
+		Endpoint e2 = withId(new Endpoint().setName("filtered"));
+
+		return new PartialResult<>(total, pageAndCount, List.of(o1, o2), List.of(e1, e2));
+	}
+
+	private PartialResult<Organization> resultWithLargeIncludes()
+	{
+		String largeName = "x".repeat(SearchSetWriter.INCLUDE_BUFFER_MAX_CHARACTERS / 2);
+
+		Organization o1 = withId(new Organization().setName("Test 1"));
+		Organization o2 = withId(new Organization().setName("Test 2"));
+		Endpoint e1 = withId(new Endpoint().setName("allowed 1 " + largeName));
+		Endpoint e2 = withId(new Endpoint().setName("filtered"));
+		Endpoint e3 = withId(new Endpoint().setName("allowed 2 " + largeName));
+		Endpoint e4 = withId(new Endpoint().setName("allowed 3"));
+
+		return new PartialResult<>(2, new PageAndCount(1, 2), List.of(o1, o2), List.of(e1, e2, e3, e4));
+	}
+
+	@Test
+	public void testJsonIncludesBufferedInFile() throws Exception
+	{
+		test(JSON, resultWithLargeIncludes(), errors());
+	}
+
+	@Test
+	public void testXmlIncludesBufferedInFile() throws Exception
+	{
+		test(XML, resultWithLargeIncludes(), errors());
+	}
+
+	private PartialResult<Organization> resultWithLargeMatches()
+	{
+		String largeName = "x".repeat(SearchSetWriter.RESPONSE_BUFFER_MAX_CHARACTERS / 2);
+
+		Organization o1 = withId(new Organization().setName("Test 1 " + largeName));
+		Organization o2 = withId(new Organization().setName("Test 2 " + largeName));
+		Organization o3 = withId(new Organization().setName("Test 3"));
+		Endpoint e1 = withId(new Endpoint().setName("allowed"));
+
+		return new PartialResult<>(3, new PageAndCount(1, 3), List.of(o1, o2, o3), List.of(e1));
+	}
+
+	@Test
+	public void testJsonResponseBufferExceeded() throws Exception
+	{
+		test(JSON, resultWithLargeMatches(), errors());
+	}
+
+	@Test
+	public void testXmlResponseBufferExceeded() throws Exception
+	{
+		test(XML, resultWithLargeMatches(), errors());
+	}
+
+	@Test
+	public void testResponseWrittenOnFinish() throws Exception
+	{
+		assertEquals(0, bytesWrittenBeforeFinish(result(2, new PageAndCount(1, 2))));
+	}
+
+	@Test
+	public void testResponseWrittenBeforeFinishIfBufferExceeded() throws Exception
+	{
+		// first large matching resource written, last bytes may be held by the OutputStreamWriter
+		int written = bytesWrittenBeforeFinish(resultWithLargeMatches());
+		assertTrue(written > SearchSetWriter.RESPONSE_BUFFER_MAX_CHARACTERS / 2);
+	}
+
+	private int bytesWrittenBeforeFinish(PartialResult<Organization> result)
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (SearchSetWriter<Organization> writer = responseGenerator.createSearchSetWriter(JSON, out,
+				Collections.emptyList(), bundleUri(), null, null, r -> true, r ->
+				{}))
+		{
+			writer.onTotal(result.getTotal(), result.getPageAndCount());
+			result.getPartialResult().forEach(writer::onMatch);
+			int written = out.size();
+
+			writer.finish();
+			assertTrue(out.size() > written);
+
+			return written;
+		}
+	}
+
+	private List<SearchQueryParameterError> errors()
+	{
+		return Collections.singletonList(new SearchQueryParameterError(
+				SearchQueryParameterErrorType.UNSUPPORTED_PARAMETER, "foo", Collections.singletonList("bar")));
+	}
+
+	@Test
+	public void testJson() throws Exception
+	{
+		test(JSON, result(5, new PageAndCount(1, 2)), Collections.emptyList());
+	}
+
+	@Test
+	public void testXml() throws Exception
+	{
+		test(XML, result(5, new PageAndCount(1, 2)), Collections.emptyList());
+	}
+
+	@Test
+	public void testJsonPretty() throws Exception
+	{
+		test(JSON_PRETTY, result(5, new PageAndCount(2, 2)), errors());
+	}
+
+	@Test
+	public void testXmlPretty() throws Exception
+	{
+		test(XML_PRETTY, result(5, new PageAndCount(2, 2)), errors());
+	}
+
+	@Test
+	public void testJsonWithErrors() throws Exception
+	{
+		test(JSON, result(2, new PageAndCount(1, 2)), errors());
+	}
+
+	@Test
+	public void testXmlWithErrors() throws Exception
+	{
+		test(XML, result(2, new PageAndCount(1, 2)), errors());
+	}
+
+	@Test
+	public void testEmptyJson() throws Exception
+	{
+		testEmpty(JSON);
+	}
+
+	@Test
+	public void testEmptyXml() throws Exception
+	{
+		testEmpty(XML);
+	}
+
+	private void testEmpty(MediaType mediaType)
+	{
+		PartialResult<Organization> result = new PartialResult<>(0, new PageAndCount(1, 20), Collections.emptyList(),
+				Collections.emptyList());
+		String written = write(mediaType, result, Collections.emptyList());
+
+		// empty arrays not allowed in FHIR json
+		assertFalse(written.contains("\"entry\""));
+
+		Bundle actual = parse(mediaType, written);
+		Bundle expected = roundTrip(mediaType,
+				responseGenerator.createSearchSet(result, Collections.emptyList(), bundleUri(), null, null));
+
+		assertSameBundle(expected, actual);
+	}
+}
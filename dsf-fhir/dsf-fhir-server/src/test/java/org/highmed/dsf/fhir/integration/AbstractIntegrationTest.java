@@ -53,6 +53,7 @@ import org.highmed.dsf.fhir.authentication.AuthenticationFilter;
 import org.highmed.dsf.fhir.authorization.read.ReadAccessHelper;
 import org.highmed.dsf.fhir.authorization.read.ReadAccessHelperImpl;
 import org.highmed.dsf.fhir.dao.AbstractDbTest;
+import org.highmed.dsf.fhir.replica.ReadReplicaFilter;
 import org.highmed.dsf.fhir.service.ReferenceCleaner;
 import org.highmed.dsf.fhir.service.ReferenceCleanerImpl;
 import org.highmed.dsf.fhir.service.ReferenceExtractorImpl;
@@ -113,6 +114,7 @@ public abstract class AbstractIntegrationTest extends AbstractDbTest
 	protected static final String WEBSOCKET_URL = "wss://localhost:8001/fhir/ws";
 
 	private static final Path FHIR_BUNDLE_FILE = Paths.get("target", UUID.randomUUID().toString() + ".xml");
+	private static final Path EXPORT_DIRECTORY = Paths.get("target", "export");
 	private static final List<Path> FILES_TO_DELETE = Arrays.asList(FHIR_BUNDLE_FILE);
 
 	protected static final FhirContext fhirContext = FhirContext.forR4();
@@ -192,7 +194,7 @@ public abstract class AbstractIntegrationTest extends AbstractDbTest
 		ErrorHandler errorHandler = statusCodeOnlyErrorHandler();
 
 		JettyServer server = new JettyServer(connector, errorHandler, "/fhir", initializers, initParameter,
-				webInfClassesDirs, webInfJars, AuthenticationFilter.class);
+				webInfClassesDirs, webInfJars, AuthenticationFilter.class, ReadReplicaFilter.class);
 
 		WebSocketServerContainerInitializer.initialize(server.getWebAppContext());
 
@@ -210,6 +212,9 @@ public abstract class AbstractIntegrationTest extends AbstractDbTest
 	private static void overrideConfigPropertiesForTesting(Properties properties)
 	{
 		properties.put("org.highmed.dsf.fhir.db.url", DATABASE_URL);
+		// single database instance, second connection pool used as read replica
+		properties.put("org.highmed.dsf.fhir.db.replica.url", DATABASE_URL);
+		properties.put("org.highmed.dsf.fhir.db.events.cluster", "true");
 		properties.put("org.highmed.dsf.fhir.db.user.username", DATABASE_USER);
 		properties.put("org.highmed.dsf.fhir.db.user.password", DATABASE_USER_PASSWORD);
 		properties.put("org.highmed.dsf.fhir.db.user.permanent.delete.username", DATABASE_DELETE_USER);
@@ -221,6 +226,7 @@ public abstract class AbstractIntegrationTest extends AbstractDbTest
 		properties.put("org.highmed.dsf.fhir.server.user.thumbprints.permanent.delete", clientCertHashHex);
 
 		properties.put("org.highmed.dsf.fhir.server.init.bundle", FHIR_BUNDLE_FILE.toString());
+		properties.put("org.highmed.dsf.fhir.server.export.directory", EXPORT_DIRECTORY.toString());
 
 		properties.put("org.highmed.dsf.fhir.client.trust.certificates",
 				certificates.getCaCertificateFile().toString());
@@ -0,0 +1,96 @@
+package org.highmed.dsf.fhir.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collections;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.commons.codec.binary.Hex;
+import org.highmed.fhir.client.AbstractJerseyClient;
+import org.hl7.fhir.r4.model.CapabilityStatement;
+import org.junit.Test;
+
+import ca.uhn.fhir.rest.api.Constants;
+
+public class ConformanceIntegrationTest extends AbstractIntegrationTest
+{
+	private static final class MetadataClient extends AbstractJerseyClient
+	{
+		MetadataClient()
+		{
+			super(BASE_URL, certificates.getClientCertificate().getTrustStore(),
+					certificates.getClientCertificate().getKeyStore(),
+					certificates.getClientCertificate().getKeyStorePassword(), null, Collections.emptyList());
+		}
+
+		Response getMetadata(String accept, String ifNoneMatch)
+		{
+			return getResource().path("metadata").request().accept(accept)
+					.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch).get();
+		}
+	}
+
+	private final MetadataClient client = new MetadataClient();
+
+	private static String md5(byte[] data) throws Exception
+	{
+		return Hex.encodeHexString(MessageDigest.getInstance("MD5").digest(data));
+	}
+
+	@Test
+	public void testGetMetadataNotModified() throws Exception
+	{
+		Response json = client.getMetadata(Constants.CT_FHIR_JSON_NEW, null);
+		assertEquals(Status.OK.getStatusCode(), json.getStatus());
+		EntityTag tag = json.getEntityTag();
+		assertNotNull(tag);
+		assertTrue(tag.isWeak());
+
+		assertEquals(HttpHeaders.ACCEPT, json.getHeaderString(HttpHeaders.VARY));
+
+		byte[] jsonBytes = json.readEntity(byte[].class);
+		assertEquals(md5(jsonBytes), tag.getValue());
+		CapabilityStatement statement = fhirContext.newJsonParser().parseResource(CapabilityStatement.class,
+				new String(jsonBytes, StandardCharsets.UTF_8));
+		assertTrue(statement.hasRest());
+
+		Response notModified = client.getMetadata(Constants.CT_FHIR_JSON_NEW, tag.toString());
+		assertEquals(Status.NOT_MODIFIED.getStatusCode(), notModified.getStatus());
+		assertFalse(notModified.hasEntity());
+		assertEquals(tag, notModified.getEntityTag());
+		assertEquals(HttpHeaders.ACCEPT, notModified.getHeaderString(HttpHeaders.VARY));
+
+		Response xml = client.getMetadata(Constants.CT_FHIR_XML_NEW, tag.toString());
+		assertEquals(Status.OK.getStatusCode(), xml.getStatus());
+		assertTrue(xml.getMediaType().toString().startsWith(Constants.CT_FHIR_XML_NEW));
+		assertEquals(HttpHeaders.ACCEPT, xml.getHeaderString(HttpHeaders.VARY));
+
+		EntityTag xmlTag = xml.getEntityTag();
+		assertNotNull(xmlTag);
+		assertNotEquals(tag, xmlTag);
+
+		byte[] xmlBytes = xml.readEntity(byte[].class);
+		assertEquals(md5(xmlBytes), xmlTag.getValue());
+		CapabilityStatement statementXml = fhirContext.newXmlParser().parseResource(CapabilityStatement.class,
+				new String(xmlBytes, StandardCharsets.UTF_8));
+		assertTrue(statementXml.equalsDeep(statement));
+
+		Response xmlNotModified = client.getMetadata(Constants.CT_FHIR_XML_NEW, xmlTag.toString());
+		assertEquals(Status.NOT_MODIFIED.getStatusCode(), xmlNotModified.getStatus());
+		assertEquals(xmlTag, xmlNotModified.getEntityTag());
+
+		Response modified = client.getMetadata(Constants.CT_FHIR_JSON_NEW, "W/\"other\"");
+		assertEquals(Status.OK.getStatusCode(), modified.getStatus());
+		modified.close();
+	}
+}
@@ -0,0 +1,143 @@
+package org.highmed.dsf.fhir.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.highmed.fhir.client.AbstractJerseyClient;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Organization;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ExportIntegrationTest extends AbstractIntegrationTest
+{
+	private static final class ExportClient extends AbstractJerseyClient
+	{
+		ExportClient()
+		{
+			super(BASE_URL, certificates.getClientCertificate().getTrustStore(),
+					certificates.getClientCertificate().getKeyStore(),
+					certificates.getClientCertificate().getKeyStorePassword(), null, Collections.emptyList());
+		}
+
+		Response kickOff(String path, String types)
+		{
+			WebTarget target = target(path);
+			if (types != null)
+				target = target.queryParam("_type", types);
+
+			return target.request().header("Prefer", "respond-async").get();
+		}
+
+		WebTarget target(String url)
+		{
+			return url.startsWith(BASE_URL) ? getResource().path(url.substring(BASE_URL.length()))
+					: getResource().path(url);
+		}
+	}
+
+	private final ExportClient client = new ExportClient();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private JsonNode waitForManifest(String statusUrl) throws Exception
+	{
+		for (int i = 0; i < 100; i++)
+		{
+			Response response = client.target(statusUrl).request().get();
+			if (Status.OK.getStatusCode() == response.getStatus())
+				return objectMapper.readTree(response.readEntity(String.class));
+
+			assertEquals(Status.ACCEPTED.getStatusCode(), response.getStatus());
+			response.close();
+			Thread.sleep(100);
+		}
+
+		fail("Export not completed");
+		return null;
+	}
+
+	private List<String> readFile(String url)
+	{
+		String content = client.target(url).request().get(String.class);
+		return Arrays.stream(content.split("\n")).filter(l -> !l.isBlank()).collect(Collectors.toList());
+	}
+
+	@Test
+	public void testSystemExport() throws Exception
+	{
+		Response response = client.kickOff("$export", "Organization,Endpoint");
+		assertEquals(Status.ACCEPTED.getStatusCode(), response.getStatus());
+
+		String statusUrl = response.getHeaderString(HttpHeaders.CONTENT_LOCATION);
+		assertNotNull(statusUrl);
+		assertTrue(statusUrl.startsWith(BASE_URL + "/$export/"));
+
+		JsonNode manifest = waitForManifest(statusUrl);
+		assertTrue(manifest.get("requiresAccessToken").asBoolean());
+		assertEquals(2, manifest.get("output").size());
+
+		Bundle organizations = getWebserviceClient().search(Organization.class, Collections.emptyMap());
+
+		JsonNode organizationOutput = manifest.get("output").get(0);
+		assertEquals("Organization", organizationOutput.get("type").asText());
+		assertEquals(organizations.getTotal(), organizationOutput.get("count").asInt());
+
+		List<String> lines = readFile(organizationOutput.get("url").asText());
+		assertEquals(organizations.getTotal(), lines.size());
+		for (String line : lines)
+			assertTrue(newJsonParser().parseResource(line) instanceof Organization);
+	}
+
+	@Test
+	public void testTypeExport() throws Exception
+	{
+		Response response = client.kickOff("Organization/$export", null);
+		assertEquals(Status.ACCEPTED.getStatusCode(), response.getStatus());
+
+		JsonNode manifest = waitForManifest(response.getHeaderString(HttpHeaders.CONTENT_LOCATION));
+		assertEquals(1, manifest.get("output").size());
+		assertEquals("Organization", manifest.get("output").get(0).get("type").asText());
+	}
+
+	@Test
+	public void testExportWithoutPreferRespondAsync() throws Exception
+	{
+		Response response = client.target("$export").request().get();
+		assertEquals(Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+	}
+
+	@Test
+	public void testExportUnknownType() throws Exception
+	{
+		Response response = client.kickOff("$export", "Foo");
+		assertEquals(Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+	}
+
+	@Test
+	public void testDeleteExport() throws Exception
+	{
+		Response response = client.kickOff("$export", "Organization");
+		assertEquals(Status.ACCEPTED.getStatusCode(), response.getStatus());
+		String statusUrl = response.getHeaderString(HttpHeaders.CONTENT_LOCATION);
+
+		Response deleteResponse = client.target(statusUrl).request().delete();
+		assertEquals(Status.ACCEPTED.getStatusCode(), deleteResponse.getStatus());
+
+		Response statusResponse = client.target(statusUrl).request().get();
+		assertEquals(Status.NOT_FOUND.getStatusCode(), statusResponse.getStatus());
+	}
+}
@@ -3,6 +3,7 @@ package org.highmed.dsf.fhir.integration;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -637,6 +638,53 @@ public class TaskIntegrationTest extends AbstractIntegrationTest
 		assertEquals(taskId, resultBundle.getEntryFirstRep().getResource().getIdElement().getIdPart());
 	}
 
+	@Test
+	public void testSearchTaskSummaryAndElements() throws Exception
+	{
+		OrganizationProvider organizationProvider = getSpringWebApplicationContext()
+				.getBean(OrganizationProvider.class);
+		assertNotNull(organizationProvider);
+
+		Task t = new Task();
+		t.setStatus(TaskStatus.REQUESTED);
+		t.setIntent(TaskIntent.ORDER);
+		t.getRestriction().getRecipientFirstRep().setReference(
+				"Organization/" + organizationProvider.getLocalOrganization().get().getIdElement().getIdPart());
+		t.getRequester().setReference(
+				"Organization/" + organizationProvider.getLocalOrganization().get().getIdElement().getIdPart());
+		t.addInput().setValue(new StringType("value")).getType().addCoding().setSystem("http://test.org")
+				.setCode("test");
+
+		TaskDao taskDao = getSpringWebApplicationContext().getBean(TaskDao.class);
+		String taskId = taskDao.create(t).getIdElement().getIdPart();
+
+		Bundle summary = getWebserviceClient().searchWithStrictHandling(Task.class,
+				Map.of("_id", Collections.singletonList(taskId), "_summary", Collections.singletonList("true")));
+		assertNotNull(summary);
+		assertEquals(1, summary.getTotal());
+		Task summaryTask = (Task) summary.getEntryFirstRep().getResource();
+		assertEquals(taskId, summaryTask.getIdElement().getIdPart());
+		assertEquals(TaskStatus.REQUESTED, summaryTask.getStatus());
+		assertTrue(summaryTask.getInput().isEmpty());
+		assertTrue(summaryTask.getMeta().getTag().stream().anyMatch(c -> "SUBSETTED".equals(c.getCode())));
+
+		Bundle elements = getWebserviceClient().searchWithStrictHandling(Task.class,
+				Map.of("_id", Collections.singletonList(taskId), "_elements", Collections.singletonList("input")));
+		assertNotNull(elements);
+		assertEquals(1, elements.getTotal());
+		Task elementsTask = (Task) elements.getEntryFirstRep().getResource();
+		assertEquals(taskId, elementsTask.getIdElement().getIdPart());
+		assertNull(elementsTask.getStatus());
+		assertEquals(1, elementsTask.getInput().size());
+		assertTrue(elementsTask.getMeta().getTag().stream().anyMatch(c -> "SUBSETTED".equals(c.getCode())));
+
+		Bundle count = getWebserviceClient().searchWithStrictHandling(Task.class,
+				Map.of("_id", Collections.singletonList(taskId), "_summary", Collections.singletonList("count")));
+		assertNotNull(count);
+		assertEquals(1, count.getTotal());
+		assertTrue(count.getEntry().isEmpty());
+	}
+
 	private ActivityDefinition readActivityDefinition(String fileName) throws IOException
 	{
 		try (InputStream in = Files.newInputStream(Paths.get("src/test/resources/integration/task", fileName)))
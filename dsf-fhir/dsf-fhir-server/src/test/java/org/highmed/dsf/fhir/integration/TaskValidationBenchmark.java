@@ -0,0 +1,102 @@
+package org.highmed.dsf.fhir.integration;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.UUID;
+
+import org.hl7.fhir.r4.model.ActivityDefinition;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
+import org.hl7.fhir.r4.model.Bundle.BundleType;
+import org.hl7.fhir.r4.model.Bundle.HTTPVerb;
+import org.hl7.fhir.r4.model.StructureDefinition;
+import org.hl7.fhir.r4.model.Task;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the latency of Task creates via transaction bundles, including validation against a Task profile. Not
+ * executed during the build, run with <code>-Dit.test=TaskValidationBenchmark</code>; add
+ * <code>-Dorg.highmed.dsf.fhir.server.validation.pool.size=0</code> to measure without reused validators.
+ */
+public class TaskValidationBenchmark extends AbstractIntegrationTest
+{
+	private static final Logger logger = LoggerFactory.getLogger(TaskValidationBenchmark.class);
+
+	private static final int WARMUP_ITERATIONS = 50;
+	private static final int MEASUREMENT_ITERATIONS = 500;
+
+	private <R> R read(Class<R> type, String fileName) throws IOException
+	{
+		try (InputStream in = Files.newInputStream(Paths.get("src/test/resources/integration/task", fileName)))
+		{
+			return type.cast(fhirContext.newXmlParser().parseResource(in));
+		}
+	}
+
+	private Bundle createTaskBundle() throws IOException
+	{
+		Task task = read(Task.class, "highmed-test-task-0.5.0.xml");
+		task.setAuthoredOn(new Date());
+		task.getRequester().setType("Organization").getIdentifier()
+				.setSystem("http://highmed.org/sid/organization-identifier").setValue("Test_Organization");
+		task.getRestriction().getRecipientFirstRep().setType("Organization").getIdentifier()
+				.setSystem("http://highmed.org/sid/organization-identifier").setValue("Test_Organization");
+
+		Bundle bundle = new Bundle().setType(BundleType.TRANSACTION);
+		BundleEntryComponent entry = bundle.addEntry();
+		entry.setFullUrl("urn:uuid:" + UUID.randomUUID().toString());
+		entry.setResource(task);
+		entry.getRequest().setMethod(HTTPVerb.POST).setUrl("Task");
+		return bundle;
+	}
+
+	private long createTask() throws IOException
+	{
+		Bundle bundle = createTaskBundle();
+
+		long start = System.nanoTime();
+		Bundle response = getWebserviceClient().postBundle(bundle);
+		long time = System.nanoTime() - start;
+
+		assertEquals(1, response.getEntry().size());
+		return time;
+	}
+
+	@Test
+	public void testCreateTaskLatency() throws Exception
+	{
+		getWebserviceClient().create(read(ActivityDefinition.class, "highmed-test-activity-definition1-0.5.0.xml"));
+		getWebserviceClient().create(read(StructureDefinition.class, "highmed-test-task-profile-0.5.0.xml"));
+
+		for (int i = 0; i < WARMUP_ITERATIONS; i++)
+			createTask();
+
+		long[] times = new long[MEASUREMENT_ITERATIONS];
+		for (int i = 0; i < MEASUREMENT_ITERATIONS; i++)
+			times[i] = createTask();
+
+		Arrays.sort(times);
+		logger.info("Task create via transaction, {} iterations: p50 {} ms, p99 {} ms, max {} ms",
+				MEASUREMENT_ITERATIONS, toMillis(percentile(times, 50)), toMillis(percentile(times, 99)),
+				toMillis(times[times.length - 1]));
+	}
+
+	private static long percentile(long[] sortedTimes, int percentile)
+	{
+		int index = (int) Math.ceil(percentile / 100.0 * sortedTimes.length) - 1;
+		return sortedTimes[Math.max(0, index)];
+	}
+
+	private static String toMillis(long nanos)
+	{
+		return String.format("%.2f", nanos / 1_000_000.0);
+	}
+}
@@ -0,0 +1,94 @@
+package org.highmed.dsf.fhir.replica;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.highmed.dsf.fhir.dao.jdbc.ReadReplicaDataSource;
+import org.junit.Test;
+
+public class LastWriteLsnCacheTest
+{
+	private static final class TestClock extends Clock
+	{
+		private Instant instant = Instant.EPOCH;
+
+		@Override
+		public ZoneId getZone()
+		{
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone)
+		{
+			return this;
+		}
+
+		@Override
+		public Instant instant()
+		{
+			return instant;
+		}
+
+		void advance(Duration duration)
+		{
+			instant = instant.plus(duration);
+		}
+	}
+
+	private final TestClock clock = new TestClock();
+
+	@Test
+	public void testWriteInProgressAndFinished() throws Exception
+	{
+		LastWriteLsnCache cache = new LastWriteLsnCache(10, Duration.ofSeconds(10), clock);
+		assertNull(cache.getLsn("a"));
+
+		cache.writeStarted("a");
+		assertEquals(ReadReplicaDataSource.LSN_PRIMARY, cache.getLsn("a"));
+
+		cache.writeStarted("a");
+		cache.writeFinished("a", "0/1");
+		assertEquals(ReadReplicaDataSource.LSN_PRIMARY, cache.getLsn("a"));
+
+		cache.writeFinished("a", "0/2");
+		assertEquals("0/2", cache.getLsn("a"));
+		assertNull(cache.getLsn("b"));
+	}
+
+	@Test
+	public void testExpired() throws Exception
+	{
+		LastWriteLsnCache cache = new LastWriteLsnCache(10, Duration.ofSeconds(10), clock);
+		cache.writeStarted("a");
+		cache.writeFinished("a", "0/1");
+
+		clock.advance(Duration.ofSeconds(10));
+		assertEquals("0/1", cache.getLsn("a"));
+
+		clock.advance(Duration.ofSeconds(1));
+		assertNull(cache.getLsn("a"));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testLeastRecentlyWritingClientEvicted() throws Exception
+	{
+		LastWriteLsnCache cache = new LastWriteLsnCache(2, Duration.ofSeconds(10), clock);
+		cache.writeFinished("a", "0/1");
+		cache.writeFinished("b", "0/2");
+		cache.writeFinished("a", "0/3");
+		cache.writeFinished("c", "0/4");
+
+		assertEquals(2, cache.size());
+		assertEquals("0/3", cache.getLsn("a"));
+		assertNull(cache.getLsn("b"));
+		assertEquals("0/4", cache.getLsn("c"));
+	}
+}
@@ -0,0 +1,154 @@
+package org.highmed.dsf.fhir.replica;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.security.cert.X509Certificate;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.sql.DataSource;
+
+import org.highmed.dsf.fhir.dao.jdbc.ReadReplicaDataSource;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReadReplicaFilterTest
+{
+	private static final String PRIMARY_LSN = "0/3000";
+
+	private final Connection primaryConnection = mock(Connection.class);
+	private final Connection replicaConnection = mock(Connection.class);
+	private final PreparedStatement replayedStatement = mock(PreparedStatement.class);
+	private final ResultSet replayedResult = mock(ResultSet.class);
+
+	private final List<Connection> readConnections = new ArrayList<>();
+
+	private ReadReplicaDataSource dataSource;
+	private ReadReplicaFilter filter;
+
+	@Before
+	public void before() throws Exception
+	{
+		DataSource primary = mock(DataSource.class);
+		when(primary.getConnection()).thenReturn(primaryConnection);
+		Statement lsnStatement = mock(Statement.class);
+		ResultSet lsnResult = mock(ResultSet.class);
+		when(primaryConnection.createStatement()).thenReturn(lsnStatement);
+		when(lsnStatement.executeQuery(anyString())).thenReturn(lsnResult);
+		when(lsnResult.next()).thenReturn(true);
+		when(lsnResult.getString(1)).thenReturn(PRIMARY_LSN);
+
+		DataSource replica = mock(DataSource.class);
+		when(replica.getConnection()).thenReturn(replicaConnection);
+		when(replicaConnection.prepareStatement(anyString())).thenReturn(replayedStatement);
+		when(replayedStatement.executeQuery()).thenReturn(replayedResult);
+		when(replayedResult.next()).thenReturn(true);
+
+		dataSource = new ReadReplicaDataSource(primary, replica);
+		filter = new ReadReplicaFilter(dataSource, new LastWriteLsnCache(10, Duration.ofMinutes(5)));
+	}
+
+	private static HttpServletRequest request(String method, byte[] certificate) throws Exception
+	{
+		HttpServletRequest request = mock(HttpServletRequest.class);
+		when(request.getMethod()).thenReturn(method);
+
+		if (certificate != null)
+		{
+			X509Certificate x509Certificate = mock(X509Certificate.class);
+			when(x509Certificate.getEncoded()).thenReturn(certificate);
+			when(request.getAttribute("javax.servlet.request.X509Certificate"))
+					.thenReturn(new X509Certificate[] { x509Certificate });
+		}
+
+		return request;
+	}
+
+	private final FilterChain readChain = (request, response) ->
+	{
+		try
+		{
+			readConnections.add(ReadReplicaDataSource.getReadConnection(dataSource));
+		}
+		catch (SQLException e)
+		{
+			throw new RuntimeException(e);
+		}
+	};
+
+	private final FilterChain writeChain = (request, response) ->
+	{};
+
+	private Connection get(byte[] certificate) throws Exception
+	{
+		filter.doFilter(request("GET", certificate), mock(ServletResponse.class), readChain);
+		return readConnections.get(readConnections.size() - 1);
+	}
+
+	private void post(byte[] certificate, FilterChain chain) throws Exception
+	{
+		filter.doFilter(request("POST", certificate), mock(ServletResponse.class), chain);
+	}
+
+	@Test
+	public void testGetAfterPostReadsFromPrimaryUntilReplicaReplayed() throws Exception
+	{
+		byte[] client = { 1 };
+		post(client, writeChain);
+
+		when(replayedResult.getBoolean(1)).thenReturn(false);
+		assertSame(primaryConnection, get(client));
+		verify(replayedStatement).setString(1, PRIMARY_LSN);
+
+		when(replayedResult.getBoolean(1)).thenReturn(true);
+		assertSame(replicaConnection, get(client));
+	}
+
+	@Test
+	public void testGetOfOtherClientReadsFromReplica() throws Exception
+	{
+		post(new byte[] { 1 }, writeChain);
+
+		assertSame(replicaConnection, get(new byte[] { 2 }));
+		verify(replicaConnection, never()).prepareStatement(anyString());
+	}
+
+	@Test
+	public void testGetWhilePostInProgressReadsFromPrimary() throws Exception
+	{
+		byte[] client = { 1 };
+		post(client, (request, response) ->
+		{
+			try
+			{
+				assertSame(primaryConnection, get(client));
+			}
+			catch (Exception e)
+			{
+				throw new RuntimeException(e);
+			}
+		});
+
+		verify(replicaConnection, never()).prepareStatement(anyString());
+	}
+
+	@Test
+	public void testGetWithoutCertificateReadsFromPrimary() throws Exception
+	{
+		assertSame(primaryConnection, get(null));
+	}
+}
@@ -0,0 +1,91 @@
+package org.highmed.dsf.fhir.retention;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.highmed.dsf.fhir.dao.BundleDao;
+import org.highmed.dsf.fhir.dao.TaskDao;
+import org.junit.Test;
+
+public class RetentionJobTest
+{
+	@Test
+	public void testRunDeletesInBatchesUntilLastBatchNotFull() throws Exception
+	{
+		TaskDao taskDao = mock(TaskDao.class);
+		BundleDao bundleDao = mock(BundleDao.class);
+
+		when(taskDao.deletePermanentlyDeletedBefore(any(LocalDateTime.class), eq(2)))
+				.thenReturn(Arrays.asList(UUID.randomUUID(), UUID.randomUUID()))
+				.thenReturn(Collections.singletonList(UUID.randomUUID()));
+		when(bundleDao.deletePermanentlyDeletedBefore(any(LocalDateTime.class), eq(2)))
+				.thenReturn(Collections.emptyList());
+		List<UUID> firstIds = Arrays.asList(UUID.randomUUID(), UUID.randomUUID());
+		List<UUID> secondIds = Collections.singletonList(UUID.randomUUID());
+		when(taskDao.readIdsWithOldVersions(5, null, 2)).thenReturn(firstIds);
+		when(taskDao.readIdsWithOldVersions(5, firstIds.get(1), 2)).thenReturn(secondIds);
+		when(taskDao.deleteOldVersions(5, firstIds)).thenReturn(3);
+		when(taskDao.deleteOldVersions(5, secondIds)).thenReturn(1);
+
+		RetentionJob job = new RetentionJob(Arrays.asList(taskDao, bundleDao), 30, Collections.singletonList(taskDao),
+				5, 2, 0, 60);
+		job.run();
+
+		verify(taskDao, times(2)).deletePermanentlyDeletedBefore(any(LocalDateTime.class), eq(2));
+		verify(bundleDao).deletePermanentlyDeletedBefore(any(LocalDateTime.class), eq(2));
+		verify(taskDao).readIdsWithOldVersions(5, null, 2);
+		verify(taskDao).readIdsWithOldVersions(5, firstIds.get(1), 2);
+		verify(taskDao).deleteOldVersions(5, firstIds);
+		verify(taskDao).deleteOldVersions(5, secondIds);
+
+		assertEquals(1, job.getRunCount());
+		assertEquals(0, job.getFailedRunCount());
+		assertEquals(5, job.getBatchCount());
+		assertEquals(3, job.getPermanentlyDeletedResourceCount());
+		assertEquals(4, job.getDeletedVersionCount());
+		assertFalse(job.isRunning());
+	}
+
+	@Test
+	public void testRunDisabled() throws Exception
+	{
+		TaskDao taskDao = mock(TaskDao.class);
+
+		RetentionJob job = new RetentionJob(Collections.singletonList(taskDao), -1, Collections.singletonList(taskDao),
+				-1, 100, 0, 60);
+		job.run();
+
+		verifyNoMoreInteractions(taskDao);
+		assertEquals(1, job.getRunCount());
+	}
+
+	@Test
+	public void testRunFailed() throws Exception
+	{
+		TaskDao taskDao = mock(TaskDao.class);
+		when(taskDao.deletePermanentlyDeletedBefore(any(LocalDateTime.class), eq(100)))
+				.thenThrow(new SQLException("test"));
+
+		RetentionJob job = new RetentionJob(Collections.singletonList(taskDao), 30, Collections.emptyList(), -1, 100, 0,
+				60);
+		job.run();
+
+		assertEquals(0, job.getRunCount());
+		assertEquals(1, job.getFailedRunCount());
+		assertFalse(job.isRunning());
+	}
+}
@@ -0,0 +1,96 @@
+package org.highmed.dsf.fhir.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.highmed.dsf.fhir.search.SearchQueryPlanCache.SearchQueryPlan;
+import org.junit.Test;
+
+public class SearchQueryPlanCacheTest
+{
+	private static SearchQueryPlan plan()
+	{
+		return new SearchQueryPlan("SELECT 1 LIMIT ? OFFSET ?", "SELECT count(*)", 1, new int[] { 2, 1 });
+	}
+
+	@Test
+	public void testGetOrCreate() throws Exception
+	{
+		SearchQueryPlanCache cache = new SearchQueryPlanCache();
+		AtomicInteger created = new AtomicInteger();
+
+		SearchQueryPlan plan1 = cache.getOrCreate("a", () ->
+		{
+			created.incrementAndGet();
+			return plan();
+		});
+		SearchQueryPlan plan2 = cache.getOrCreate("a", () ->
+		{
+			created.incrementAndGet();
+			return plan();
+		});
+		SearchQueryPlan plan3 = cache.getOrCreate("b", () ->
+		{
+			created.incrementAndGet();
+			return plan();
+		});
+
+		assertSame(plan1, plan2);
+		assertNotSame(plan1, plan3);
+		assertEquals(2, created.get());
+		assertEquals(4, plan1.getFilterParameterCount());
+
+		assertEquals(1, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+		assertEquals(1d / 3d, cache.getHitRate(), 0.0001);
+		assertEquals(2, cache.getSize());
+
+		cache.clear();
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	public void testGetOrCreateMaxSize() throws Exception
+	{
+		SearchQueryPlanCache cache = new SearchQueryPlanCache(0);
+
+		SearchQueryPlan plan1 = cache.getOrCreate("a", SearchQueryPlanCacheTest::plan);
+		SearchQueryPlan plan2 = cache.getOrCreate("a", SearchQueryPlanCacheTest::plan);
+
+		assertNotSame(plan1, plan2);
+		assertEquals(0, cache.getSize());
+		assertEquals(0, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+	}
+
+	@Test
+	public void testRegisterMBean() throws Exception
+	{
+		SearchQueryPlanCache cache1 = new SearchQueryPlanCache();
+		cache1.registerMBean("test_resources");
+
+		SearchQueryPlanCache cache2 = new SearchQueryPlanCache();
+		cache2.getOrCreate("a", SearchQueryPlanCacheTest::plan);
+		cache2.getOrCreate("a", SearchQueryPlanCacheTest::plan);
+		cache2.registerMBean("test_resources");
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName("org.highmed.dsf.fhir:type=SearchQueryPlanCache,table=test_resources");
+		try
+		{
+			assertEquals(1L, server.getAttribute(name, "HitCount"));
+			assertEquals(0.5d, server.getAttribute(name, "HitRate"));
+		}
+		finally
+		{
+			server.unregisterMBean(name);
+		}
+	}
+}
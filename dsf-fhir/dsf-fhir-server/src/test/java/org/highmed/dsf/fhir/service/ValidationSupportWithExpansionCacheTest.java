@@ -0,0 +1,191 @@
+package org.highmed.dsf.fhir.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.highmed.dsf.fhir.event.ResourceUpdatedEvent;
+import org.highmed.dsf.fhir.validation.ValidationSupportWithCustomResources;
+import org.hl7.fhir.common.hapi.validation.support.InMemoryTerminologyServerValidationSupport;
+import org.hl7.fhir.common.hapi.validation.support.ValidationSupportChain;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.CodeSystem;
+import org.hl7.fhir.r4.model.CodeSystem.CodeSystemContentMode;
+import org.hl7.fhir.r4.model.Enumerations.PublicationStatus;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.ValueSet;
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.support.ConceptValidationOptions;
+import ca.uhn.fhir.context.support.DefaultProfileValidationSupport;
+import ca.uhn.fhir.context.support.IValidationSupport.CodeValidationResult;
+import ca.uhn.fhir.context.support.ValidationSupportContext;
+import ca.uhn.fhir.context.support.ValueSetExpansionOptions;
+
+public class ValidationSupportWithExpansionCacheTest
+{
+	private static final String CODE_SYSTEM_URL = "http://highmed.org/fhir/CodeSystem/test";
+	private static final String VALUE_SET_URL = "http://highmed.org/fhir/ValueSet/test";
+
+	private final FhirContext fhirContext = FhirContext.forR4();
+	private final AtomicInteger expansions = new AtomicInteger();
+
+	private ValidationSupportWithCustomResources customResources;
+	private ValidationSupportWithExpansionCache expansionCache;
+	private ValidationSupportContext context;
+	private ValueSet valueSet;
+
+	@Before
+	public void before() throws Exception
+	{
+		CodeSystem codeSystem = new CodeSystem();
+		codeSystem.setUrl(CODE_SYSTEM_URL);
+		codeSystem.setVersion("1.0.0");
+		codeSystem.setName("Test");
+		codeSystem.setStatus(PublicationStatus.ACTIVE);
+		codeSystem.setContent(CodeSystemContentMode.COMPLETE);
+		codeSystem.setCaseSensitive(true);
+		codeSystem.addConcept().setCode("foo").setDisplay("Foo");
+		codeSystem.addConcept().setCode("bar").setDisplay("Bar");
+
+		valueSet = new ValueSet();
+		valueSet.setUrl(VALUE_SET_URL);
+		valueSet.setVersion("1.0.0");
+		valueSet.setStatus(PublicationStatus.ACTIVE);
+		valueSet.getCompose().addInclude().setSystem(CODE_SYSTEM_URL).setVersion("1.0.0");
+
+		customResources = new ValidationSupportWithCustomResources(fhirContext);
+		customResources.addOrReplace(codeSystem);
+		customResources.addOrReplace(valueSet);
+
+		expansionCache = new ValidationSupportWithExpansionCache(fhirContext, 10);
+		InMemoryTerminologyServerValidationSupport inMemory = new InMemoryTerminologyServerValidationSupport(
+				fhirContext)
+		{
+			@Override
+			public ValueSetExpansionOutcome expandValueSet(ValidationSupportContext theValidationSupportContext,
+					ValueSetExpansionOptions theExpansionOptions, IBaseResource theValueSetToExpand)
+			{
+				expansions.incrementAndGet();
+				return super.expandValueSet(theValidationSupportContext, theExpansionOptions, theValueSetToExpand);
+			}
+		};
+
+		context = new ValidationSupportContext(new ValidationSupportChain(expansionCache, inMemory, customResources,
+				new DefaultProfileValidationSupport(fhirContext)));
+	}
+
+	private CodeValidationResult validate(String code, String display)
+	{
+		return context.getRootValidationSupport().validateCodeInValueSet(context,
+				new ConceptValidationOptions().setValidateDisplay(true), CODE_SYSTEM_URL, code, display, valueSet);
+	}
+
+	@Test
+	public void testValidateCodeCached() throws Exception
+	{
+		CodeValidationResult result1 = validate("foo", "Foo");
+		assertNotNull(result1);
+		assertTrue(result1.isOk());
+		assertEquals("Foo", result1.getDisplay());
+		assertEquals("1.0.0", result1.getCodeSystemVersion());
+
+		CodeValidationResult result2 = validate("bar", null);
+		assertNotNull(result2);
+		assertTrue(result2.isOk());
+
+		assertEquals(1, expansions.get());
+	}
+
+	@Test
+	public void testValidateCodeNotInValueSet() throws Exception
+	{
+		assertTrue(validate("foo", "Foo").isOk());
+
+		CodeValidationResult result = expansionCache.validateCodeInValueSet(context, new ConceptValidationOptions(),
+				CODE_SYSTEM_URL, "baz", null, valueSet);
+		assertNull(result);
+
+		CodeValidationResult chainResult = validate("baz", null);
+		assertTrue(chainResult == null || !chainResult.isOk());
+	}
+
+	@Test
+	public void testValidateCodeDisplayMismatchNotFromCache() throws Exception
+	{
+		assertTrue(validate("foo", "Foo").isOk());
+
+		assertNull(expansionCache.validateCodeInValueSet(context,
+				new ConceptValidationOptions().setValidateDisplay(true), CODE_SYSTEM_URL, "foo", "Bar", valueSet));
+	}
+
+	@Test
+	public void testInvalidateOnEvent() throws Exception
+	{
+		assertTrue(validate("foo", "Foo").isOk());
+		assertEquals(1, expansions.get());
+
+		CodeSystem updated = new CodeSystem();
+		updated.setIdElement(new IdType("CodeSystem", UUID.randomUUID().toString(), "2"));
+		expansionCache.handleEvent(new ResourceUpdatedEvent(CodeSystem.class, updated));
+
+		assertTrue(validate("foo", "Foo").isOk());
+		assertEquals(2, expansions.get());
+	}
+
+	@Test
+	public void testCacheDisabled() throws Exception
+	{
+		expansionCache = new ValidationSupportWithExpansionCache(fhirContext, 0);
+		assertTrue(expansionCache
+				.validateCodeInValueSet(context, new ConceptValidationOptions(), CODE_SYSTEM_URL, "foo", null, valueSet)
+				.isOk());
+		expansionCache.validateCodeInValueSet(context, new ConceptValidationOptions(), CODE_SYSTEM_URL, "foo", null,
+				valueSet);
+
+		assertEquals(2, expansions.get());
+	}
+
+	@Test
+	public void testInferSystemOnlyIfUnique() throws Exception
+	{
+		CodeSystem other = new CodeSystem();
+		other.setUrl("http://highmed.org/fhir/CodeSystem/other");
+		other.setVersion("1.0.0");
+		other.setName("Other");
+		other.setStatus(PublicationStatus.ACTIVE);
+		other.setContent(CodeSystemContentMode.COMPLETE);
+		other.setCaseSensitive(true);
+		other.addConcept().setCode("foo").setDisplay("Other Foo");
+		customResources.addOrReplace(other);
+
+		ValueSet both = new ValueSet();
+		both.setUrl("http://highmed.org/fhir/ValueSet/both");
+		both.setVersion("1.0.0");
+		both.setStatus(PublicationStatus.ACTIVE);
+		both.getCompose().addInclude().setSystem(CODE_SYSTEM_URL).setVersion("1.0.0");
+		both.getCompose().addInclude().setSystem(other.getUrl()).setVersion("1.0.0");
+		customResources.addOrReplace(both);
+
+		ConceptValidationOptions inferSystem = new ConceptValidationOptions().setInferSystem(true);
+
+		CodeValidationResult unique = expansionCache.validateCodeInValueSet(context, inferSystem, null, "bar", null,
+				both);
+		assertNotNull(unique);
+		assertTrue(unique.isOk());
+		assertEquals("Bar", unique.getDisplay());
+
+		assertNull(expansionCache.validateCodeInValueSet(context, inferSystem, null, "foo", null, both));
+
+		CodeValidationResult withSystem = expansionCache.validateCodeInValueSet(context, inferSystem, other.getUrl(),
+				"foo", null, both);
+		assertNotNull(withSystem);
+		assertEquals("Other Foo", withSystem.getDisplay());
+	}
+}
@@ -0,0 +1,127 @@
+package org.highmed.dsf.fhir.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.highmed.dsf.fhir.event.ResourceCreatedEvent;
+import org.highmed.dsf.fhir.service.ValidatorPool.PooledValidator;
+import org.highmed.dsf.fhir.validation.ValidationSupportWithCustomResources;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Resource;
+import org.hl7.fhir.r4.model.StructureDefinition;
+import org.hl7.fhir.r4.model.Task;
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.uhn.fhir.context.FhirContext;
+
+public class ValidatorPoolTest
+{
+	private final FhirContext fhirContext = FhirContext.forR4();
+	private final List<Supplier<Connection>> connectionSuppliers = new ArrayList<>();
+
+	private ValidatorPool pool;
+
+	@Before
+	public void before() throws Exception
+	{
+		pool = createPool(2);
+	}
+
+	private ValidatorPool createPool(int maxIdle)
+	{
+		return new ValidatorPool(fhirContext, maxIdle, connection ->
+		{
+			connectionSuppliers.add(connection);
+			return new ValidationSupportWithCustomResources(fhirContext);
+		});
+	}
+
+	private static <R extends Resource> R withId(R resource)
+	{
+		resource.setIdElement(new IdType(resource.getResourceType().name(), UUID.randomUUID().toString(), "1"));
+		return resource;
+	}
+
+	@Test
+	public void testBorrowReleaseReused() throws Exception
+	{
+		Connection connection1 = mock(Connection.class);
+		PooledValidator validator1 = pool.borrow(connection1);
+		assertSame(connection1, connectionSuppliers.get(0).get());
+		pool.release(validator1);
+
+		Connection connection2 = mock(Connection.class);
+		PooledValidator validator2 = pool.borrow(connection2);
+		assertSame(validator1, validator2);
+		assertSame(connection2, connectionSuppliers.get(0).get());
+		assertEquals(1, connectionSuppliers.size());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testConnectionNotAvailableAfterRelease() throws Exception
+	{
+		pool.release(pool.borrow(mock(Connection.class)));
+		connectionSuppliers.get(0).get();
+	}
+
+	@Test
+	public void testNotReleasedDiscarded() throws Exception
+	{
+		PooledValidator validator1 = pool.borrow(mock(Connection.class));
+		PooledValidator validator2 = pool.borrow(mock(Connection.class));
+		assertNotSame(validator1, validator2);
+		assertEquals(2, connectionSuppliers.size());
+	}
+
+	@Test
+	public void testDiscardedOnConformanceResourceChangeWithinTransaction() throws Exception
+	{
+		PooledValidator validator1 = pool.borrow(mock(Connection.class));
+		validator1.getEventHandler().handleEvent(new ResourceCreatedEvent(Task.class, withId(new Task())));
+		pool.release(validator1);
+
+		PooledValidator validator2 = pool.borrow(mock(Connection.class));
+		assertSame(validator1, validator2);
+		validator2.getEventHandler()
+				.handleEvent(new ResourceCreatedEvent(StructureDefinition.class, withId(new StructureDefinition())));
+		pool.release(validator2);
+
+		assertNotSame(validator2, pool.borrow(mock(Connection.class)));
+	}
+
+	@Test
+	public void testDiscardedOnConformanceResourceChange() throws Exception
+	{
+		PooledValidator borrowed = pool.borrow(mock(Connection.class));
+		PooledValidator idle = pool.borrow(mock(Connection.class));
+		pool.release(idle);
+
+		pool.handleEvent(new ResourceCreatedEvent(StructureDefinition.class, withId(new StructureDefinition())));
+		pool.release(borrowed);
+
+		PooledValidator validator = pool.borrow(mock(Connection.class));
+		assertNotSame(borrowed, validator);
+		assertNotSame(idle, validator);
+		assertEquals(3, connectionSuppliers.size());
+	}
+
+	@Test
+	public void testPoolDisabled() throws Exception
+	{
+		pool = createPool(0);
+
+		PooledValidator validator = pool.borrow(mock(Connection.class));
+		pool.release(validator);
+
+		assertNotSame(validator, pool.borrow(mock(Connection.class)));
+	}
+}
@@ -0,0 +1,181 @@
+package org.highmed.dsf.fhir.validation;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.commons.codec.binary.Hex;
+import org.hl7.fhir.r4.model.Extension;
+import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.StructureDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.support.IValidationSupport;
+import ca.uhn.fhir.parser.IParser;
+
+/**
+ * {@link SnapshotGenerator} reusing existing snapshots, if the differential and the snapshots of all base profiles are
+ * unchanged.
+ * <p>
+ * Generated snapshots are marked with a SHA-256 content hash, calculated from the differential and the hashes of all
+ * base profiles, as extension {@value #EXTENSION_SNAPSHOT_HASH} of the snapshot element (defined by
+ * <i>highmed-extension-snapshot-hash</i>). A snapshot is reused if the StructureDefinition with the same url and
+ * version returned by the {@link IValidationSupport} has a snapshot with the same hash. Base profiles without a hash
+ * are hashed by differential, base profiles from hl7.org by url and version.
+ */
+public class SnapshotGeneratorWithCache implements SnapshotGenerator
+{
+	private static final Logger logger = LoggerFactory.getLogger(SnapshotGeneratorWithCache.class);
+
+	public static final String EXTENSION_SNAPSHOT_HASH = "http://highmed.org/fhir/StructureDefinition/extension-snapshot-hash";
+
+	private static final String HL7_STRUCTURE_DEFINITION_URL_PREFIX = "http://hl7.org/fhir/StructureDefinition/";
+
+	private final FhirContext fhirContext;
+	private final IValidationSupport validationSupport;
+	private final SnapshotGenerator delegate;
+
+	public SnapshotGeneratorWithCache(FhirContext fhirContext, IValidationSupport validationSupport)
+	{
+		this(fhirContext, validationSupport, new SnapshotGeneratorImpl(fhirContext, validationSupport));
+	}
+
+	public SnapshotGeneratorWithCache(FhirContext fhirContext, IValidationSupport validationSupport,
+			SnapshotGenerator delegate)
+	{
+		this.fhirContext = Objects.requireNonNull(fhirContext, "fhirContext");
+		this.validationSupport = Objects.requireNonNull(validationSupport, "validationSupport");
+		this.delegate = Objects.requireNonNull(delegate, "delegate");
+	}
+
+	@Override
+	public SnapshotWithValidationMessages generateSnapshot(StructureDefinition differential)
+	{
+		return generateSnapshot(differential, "");
+	}
+
+	@Override
+	public SnapshotWithValidationMessages generateSnapshot(StructureDefinition differential,
+			String baseAbsoluteUrlPrefix)
+	{
+		Objects.requireNonNull(differential, "differential");
+
+		String hash = calculateHash(differential, baseAbsoluteUrlPrefix);
+
+		Optional<StructureDefinition> existing = findSnapshot(differential, hash);
+		if (existing.isPresent())
+		{
+			logger.debug("Using existing snapshot for StructureDefinition with url {}, version {}, hash {}",
+					differential.getUrl(), differential.getVersion(), hash);
+
+			// snapshot generation adds missing element ids to the differential
+			differential.setDifferential(existing.get().getDifferential().copy());
+			differential.setSnapshot(existing.get().getSnapshot().copy());
+			return new SnapshotWithValidationMessages(differential, Collections.emptyList());
+		}
+
+		SnapshotWithValidationMessages generated = delegate.generateSnapshot(differential, baseAbsoluteUrlPrefix);
+
+		if (generated.getMessages().isEmpty() && generated.getSnapshot().hasSnapshot())
+		{
+			generated.getSnapshot().getSnapshot().removeExtension(EXTENSION_SNAPSHOT_HASH);
+			generated.getSnapshot().getSnapshot().addExtension(EXTENSION_SNAPSHOT_HASH, new StringType(hash));
+		}
+
+		return generated;
+	}
+
+	private Optional<StructureDefinition> findSnapshot(StructureDefinition differential, String hash)
+	{
+		if (!differential.hasUrl())
+			return Optional.empty();
+
+		String url = differential.hasVersion() ? differential.getUrl() + "|" + differential.getVersion()
+				: differential.getUrl();
+		StructureDefinition existing = (StructureDefinition) validationSupport.fetchStructureDefinition(url);
+
+		return Optional.ofNullable(existing).filter(StructureDefinition::hasSnapshot)
+				.filter(s -> hash.equals(getHash(s).orElse(null)));
+	}
+
+	/**
+	 * @param structureDefinition
+	 *            may be <code>null</code>
+	 * @return the content hash of the structure definitions snapshot, empty if the snapshot was not generated by this
+	 *         class
+	 */
+	public static Optional<String> getHash(StructureDefinition structureDefinition)
+	{
+		if (structureDefinition == null || !structureDefinition.hasSnapshot())
+			return Optional.empty();
+
+		Extension extension = structureDefinition.getSnapshot().getExtensionByUrl(EXTENSION_SNAPSHOT_HASH);
+		if (extension != null && extension.getValue() instanceof StringType)
+			return Optional.ofNullable(((StringType) extension.getValue()).getValue());
+		else
+			return Optional.empty();
+	}
+
+	private String calculateHash(StructureDefinition differential, String baseAbsoluteUrlPrefix)
+	{
+		MessageDigest digest = createDigest();
+		digest.update(String.valueOf(baseAbsoluteUrlPrefix).getBytes(StandardCharsets.UTF_8));
+		update(digest, differential, new HashSet<>());
+
+		return Hex.encodeHexString(digest.digest());
+	}
+
+	private void update(MessageDigest digest, StructureDefinition differential, Set<String> visitedUrls)
+	{
+		StructureDefinition copy = differential.copy();
+		copy.setSnapshot(null);
+		copy.setId((String) null);
+		copy.setMeta(null);
+		copy.setText(null);
+
+		digest.update(newParser().encodeResourceToString(copy).getBytes(StandardCharsets.UTF_8));
+
+		String baseUrl = differential.getBaseDefinition();
+		if (baseUrl == null || !visitedUrls.add(baseUrl))
+			return;
+
+		StructureDefinition base = (StructureDefinition) validationSupport.fetchStructureDefinition(baseUrl);
+		Optional<String> baseHash = getHash(base);
+
+		if (base == null)
+			digest.update(("missing:" + baseUrl).getBytes(StandardCharsets.UTF_8));
+		else if (baseHash.isPresent())
+			digest.update(baseHash.get().getBytes(StandardCharsets.UTF_8));
+		else if (baseUrl.startsWith(HL7_STRUCTURE_DEFINITION_URL_PREFIX))
+			digest.update((base.getUrl() + "|" + base.getVersion()).getBytes(StandardCharsets.UTF_8));
+		else
+			update(digest, base, visitedUrls);
+	}
+
+	private IParser newParser()
+	{
+		IParser parser = fhirContext.newJsonParser();
+		parser.setStripVersionsFromReferences(false);
+		parser.setOverrideResourceIdWithBundleEntryFullUrl(false);
+		return parser;
+	}
+
+	private MessageDigest createDigest()
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+}
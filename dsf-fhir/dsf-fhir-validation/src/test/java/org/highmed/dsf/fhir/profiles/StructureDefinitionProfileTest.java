@@ -0,0 +1,73 @@
+package org.highmed.dsf.fhir.profiles;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.highmed.dsf.fhir.validation.ResourceValidator;
+import org.highmed.dsf.fhir.validation.ResourceValidatorImpl;
+import org.highmed.dsf.fhir.validation.SnapshotGenerator.SnapshotWithValidationMessages;
+import org.highmed.dsf.fhir.validation.SnapshotGeneratorWithCache;
+import org.highmed.dsf.fhir.validation.ValidationSupportRule;
+import org.hl7.fhir.r4.model.ElementDefinition;
+import org.hl7.fhir.r4.model.Enumerations.FHIRVersion;
+import org.hl7.fhir.r4.model.Enumerations.PublicationStatus;
+import org.hl7.fhir.r4.model.StructureDefinition;
+import org.hl7.fhir.r4.model.StructureDefinition.StructureDefinitionKind;
+import org.hl7.fhir.r4.model.StructureDefinition.TypeDerivationRule;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ca.uhn.fhir.validation.ResultSeverityEnum;
+import ca.uhn.fhir.validation.ValidationResult;
+
+public class StructureDefinitionProfileTest
+{
+	private static final Logger logger = LoggerFactory.getLogger(StructureDefinitionProfileTest.class);
+
+	@ClassRule
+	public static final ValidationSupportRule validationRule = new ValidationSupportRule(
+			Arrays.asList("highmed-extension-snapshot-hash-0.5.0.xml"), Collections.emptyList(),
+			Collections.emptyList());
+
+	private ResourceValidator resourceValidator = new ResourceValidatorImpl(validationRule.getFhirContext(),
+			validationRule.getValidationSupport());
+
+	@Test
+	public void testGeneratedSnapshotWithHashValid() throws Exception
+	{
+		StructureDefinition differential = new StructureDefinition();
+		differential.setUrl("http://highmed.org/fhir/StructureDefinition/task-test");
+		differential.setVersion("1.0.0");
+		differential.setName("TaskTest");
+		differential.setStatus(PublicationStatus.ACTIVE);
+		differential.setFhirVersion(FHIRVersion._4_0_1);
+		differential.setKind(StructureDefinitionKind.RESOURCE);
+		differential.setAbstract(false);
+		differential.setType("Task");
+		differential.setBaseDefinition("http://hl7.org/fhir/StructureDefinition/Task");
+		differential.setDerivation(TypeDerivationRule.CONSTRAINT);
+		ElementDefinition element = differential.getDifferential().addElement();
+		element.setId("Task.for");
+		element.setPath("Task.for");
+		element.setMin(1);
+
+		SnapshotWithValidationMessages s = new SnapshotGeneratorWithCache(validationRule.getFhirContext(),
+				validationRule.getValidationSupport()).generateSnapshot(differential);
+		assertTrue(s.getMessages().isEmpty());
+		assertTrue(SnapshotGeneratorWithCache.getHash(s.getSnapshot()).isPresent());
+
+		ValidationResult result = resourceValidator.validate(s.getSnapshot());
+		result.getMessages().stream().map(m -> m.getLocationString() + " " + m.getLocationLine() + ":"
+				+ m.getLocationCol() + " - " + m.getSeverity() + ": " + m.getMessage()).forEach(logger::info);
+
+		assertEquals(0, result.getMessages().stream().filter(m -> ResultSeverityEnum.ERROR.equals(m.getSeverity())
+				|| ResultSeverityEnum.FATAL.equals(m.getSeverity())).count());
+		assertEquals(0, result.getMessages().stream()
+				.filter(m -> m.getMessage().contains(SnapshotGeneratorWithCache.EXTENSION_SNAPSHOT_HASH)).count());
+	}
+}
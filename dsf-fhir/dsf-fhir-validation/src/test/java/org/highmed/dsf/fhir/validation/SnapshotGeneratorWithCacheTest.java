@@ -0,0 +1,159 @@
+package org.highmed.dsf.fhir.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.highmed.dsf.fhir.validation.SnapshotGenerator.SnapshotWithValidationMessages;
+import org.hl7.fhir.common.hapi.validation.support.InMemoryTerminologyServerValidationSupport;
+import org.hl7.fhir.common.hapi.validation.support.ValidationSupportChain;
+import org.hl7.fhir.r4.model.ElementDefinition;
+import org.hl7.fhir.r4.model.Enumerations.FHIRVersion;
+import org.hl7.fhir.r4.model.Enumerations.PublicationStatus;
+import org.hl7.fhir.r4.model.StructureDefinition;
+import org.hl7.fhir.r4.model.StructureDefinition.StructureDefinitionKind;
+import org.hl7.fhir.r4.model.StructureDefinition.TypeDerivationRule;
+import org.hl7.fhir.r4.model.UriType;
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.support.DefaultProfileValidationSupport;
+import ca.uhn.fhir.i18n.HapiLocalizer;
+
+public class SnapshotGeneratorWithCacheTest
+{
+	private static final String BASE_URL = "http://highmed.org/fhir/StructureDefinition/task-test-base";
+	private static final String PROFILE_URL = "http://highmed.org/fhir/StructureDefinition/task-test";
+
+	// same differential and hash as in SnapshotGeneratorTest of dsf-tools-bundle-generator
+	private static final String TEST_VECTOR_HASH = "196c90db97fd524d5b3837d1e2619283d18a7ef56b100af560b729bdaecbe9df";
+
+	private final AtomicInteger generated = new AtomicInteger();
+
+	private FhirContext fhirContext;
+	private ValidationSupportWithCustomResources customResources;
+	private SnapshotGenerator snapshotGenerator;
+
+	@Before
+	public void before() throws Exception
+	{
+		fhirContext = FhirContext.forR4();
+		fhirContext.setLocalizer(new HapiLocalizer()
+		{
+			@Override
+			public Locale getLocale()
+			{
+				return Locale.ROOT;
+			}
+		});
+
+		customResources = new ValidationSupportWithCustomResources(fhirContext);
+		var validationSupport = new ValidationSupportChain(new InMemoryTerminologyServerValidationSupport(fhirContext),
+				customResources, new DefaultProfileValidationSupport(fhirContext));
+
+		SnapshotGenerator delegate = new SnapshotGeneratorImpl(fhirContext, validationSupport)
+		{
+			@Override
+			public SnapshotWithValidationMessages generateSnapshot(StructureDefinition differential,
+					String baseAbsoluteUrlPrefix)
+			{
+				generated.incrementAndGet();
+				return super.generateSnapshot(differential, baseAbsoluteUrlPrefix);
+			}
+		};
+
+		snapshotGenerator = new SnapshotGeneratorWithCache(fhirContext, validationSupport, delegate);
+	}
+
+	private StructureDefinition createStructureDefinition(String url, String baseDefinition, String elementPath)
+	{
+		StructureDefinition s = new StructureDefinition();
+		s.setUrl(url);
+		s.setVersion("1.0.0");
+		s.setName("TaskTest");
+		s.setStatus(PublicationStatus.ACTIVE);
+		s.setFhirVersion(FHIRVersion._4_0_1);
+		s.setKind(StructureDefinitionKind.RESOURCE);
+		s.setAbstract(false);
+		s.setType("Task");
+		s.setBaseDefinition(baseDefinition);
+		s.setDerivation(TypeDerivationRule.CONSTRAINT);
+
+		ElementDefinition element = s.getDifferential().addElement();
+		element.setId(elementPath);
+		element.setPath(elementPath);
+		element.setMin(1);
+
+		return s;
+	}
+
+	private StructureDefinition generate(StructureDefinition differential)
+	{
+		SnapshotWithValidationMessages s = snapshotGenerator.generateSnapshot(differential);
+		assertTrue(s.getMessages().isEmpty());
+		assertTrue(s.getSnapshot().hasSnapshot());
+		assertTrue(SnapshotGeneratorWithCache.getHash(s.getSnapshot()).isPresent());
+
+		customResources.addOrReplace(s.getSnapshot());
+		return s.getSnapshot();
+	}
+
+	private StructureDefinition createProfile()
+	{
+		StructureDefinition profile = createStructureDefinition(PROFILE_URL, BASE_URL, "Task.instantiatesUri");
+		profile.getDifferential().getElementFirstRep().setFixed(new UriType("http://highmed.org/bpe/Process/test"));
+		return profile;
+	}
+
+	@Test
+	public void testGenerateSnapshotReusesUnchanged() throws Exception
+	{
+		generate(createStructureDefinition(BASE_URL, "http://hl7.org/fhir/StructureDefinition/Task", "Task.owner"));
+		StructureDefinition profile = generate(createProfile());
+		assertEquals(2, generated.get());
+
+		StructureDefinition reused = generate(createProfile());
+		assertEquals(2, generated.get());
+		assertTrue(reused.getSnapshot().equalsDeep(profile.getSnapshot()));
+	}
+
+	@Test
+	public void testGenerateSnapshotBaseChanged() throws Exception
+	{
+		generate(createStructureDefinition(BASE_URL, "http://hl7.org/fhir/StructureDefinition/Task", "Task.owner"));
+		StructureDefinition profile = generate(createProfile());
+		assertEquals(2, generated.get());
+
+		generate(createStructureDefinition(BASE_URL, "http://hl7.org/fhir/StructureDefinition/Task", "Task.focus"));
+		StructureDefinition regenerated = generate(createProfile());
+		assertEquals(4, generated.get());
+		assertNotEquals(SnapshotGeneratorWithCache.getHash(profile).get(),
+				SnapshotGeneratorWithCache.getHash(regenerated).get());
+	}
+
+	@Test
+	public void testGenerateSnapshotDifferentialChanged() throws Exception
+	{
+		generate(createStructureDefinition(BASE_URL, "http://hl7.org/fhir/StructureDefinition/Task", "Task.owner"));
+		generate(createProfile());
+		assertEquals(2, generated.get());
+
+		StructureDefinition changed = createProfile();
+		changed.getDifferential().getElementFirstRep().setFixed(new UriType("http://highmed.org/bpe/Process/other"));
+		generate(changed);
+		assertEquals(3, generated.get());
+	}
+
+	@Test
+	public void testGenerateSnapshotHashTestVector() throws Exception
+	{
+		StructureDefinition snapshot = generate(
+				createStructureDefinition(BASE_URL, "http://hl7.org/fhir/StructureDefinition/Task", "Task.owner"));
+
+		assertEquals(TEST_VECTOR_HASH, SnapshotGeneratorWithCache.getHash(snapshot).get());
+	}
+}
@@ -11,6 +11,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -273,9 +274,31 @@ public class BundleGenerator
 		}
 	}
 
+	private Map<String, StructureDefinition> readExistingSnapshots()
+	{
+		Path bundleFile = getBundleFilename();
+		if (!Files.isReadable(bundleFile))
+			return Collections.emptyMap();
+
+		try (InputStream in = Files.newInputStream(bundleFile))
+		{
+			Bundle existing = newXmlParser().parseResource(Bundle.class, in);
+
+			return existing.getEntry().stream().map(e -> e.getResource()).filter(r -> r instanceof StructureDefinition)
+					.map(r -> (StructureDefinition) r).filter(StructureDefinition::hasSnapshot).collect(Collectors
+							.toMap(s -> s.getUrl() + "|" + s.getVersion(), Function.identity(), (s1, s2) -> s1));
+		}
+		catch (Exception e)
+		{
+			logger.warn("Unable to read existing snapshots from {}, generating all snapshots: {} - {}",
+					bundleFile.toString(), e.getClass().getName(), e.getMessage());
+			return Collections.emptyMap();
+		}
+	}
+
 	private void generateStructureDefinitionSnapshots(Bundle bundle, IValidationSupport validationSupport)
 	{
-		SnapshotGenerator generator = new SnapshotGenerator(fhirContext, validationSupport);
+		SnapshotGenerator generator = new SnapshotGenerator(fhirContext, validationSupport, readExistingSnapshots());
 
 		bundle.getEntry().stream().map(e -> e.getResource()).filter(r -> r instanceof StructureDefinition)
 				.map(r -> (StructureDefinition) r).sorted(Comparator.comparing(StructureDefinition::getUrl).reversed())
@@ -1,12 +1,24 @@
 package org.highmed.dsf.tools.generator;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 
+import org.apache.commons.codec.binary.Hex;
 import org.hl7.fhir.r4.conformance.ProfileUtilities;
 import org.hl7.fhir.r4.context.IWorkerContext;
 import org.hl7.fhir.r4.hapi.ctx.HapiWorkerContext;
+import org.hl7.fhir.r4.model.Extension;
+import org.hl7.fhir.r4.model.StringType;
 import org.hl7.fhir.r4.model.StructureDefinition;
 import org.hl7.fhir.utilities.validation.ValidationMessage;
 import org.slf4j.Logger;
@@ -14,16 +26,46 @@ import org.slf4j.LoggerFactory;
 
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.support.IValidationSupport;
+import ca.uhn.fhir.parser.IParser;
 
+/**
+ * Snapshots are marked with a content hash of the differential and all base profiles, using the same extension and hash
+ * as <code>org.highmed.dsf.fhir.validation.SnapshotGeneratorWithCache</code>. Existing snapshots, e.g. from a
+ * previously generated bundle, are reused if the hash is unchanged.
+ */
 public class SnapshotGenerator
 {
 	private static final Logger logger = LoggerFactory.getLogger(SnapshotGenerator.class);
 
+	public static final String EXTENSION_SNAPSHOT_HASH = "http://highmed.org/fhir/StructureDefinition/extension-snapshot-hash";
+
+	private static final String HL7_STRUCTURE_DEFINITION_URL_PREFIX = "http://hl7.org/fhir/StructureDefinition/";
+
+	private final FhirContext fhirContext;
 	private final IWorkerContext worker;
+	private final Map<String, StructureDefinition> existingSnapshotsByUrlAndVersion = new HashMap<>();
 
 	public SnapshotGenerator(FhirContext fhirContext, IValidationSupport validationSupport)
 	{
+		this(fhirContext, validationSupport, Collections.emptyMap());
+	}
+
+	/**
+	 * @param fhirContext
+	 *            not <code>null</code>
+	 * @param validationSupport
+	 *            not <code>null</code>
+	 * @param existingSnapshotsByUrlAndVersion
+	 *            may be <code>null</code>, StructureDefinitions with snapshot by <code>url|version</code>
+	 */
+	public SnapshotGenerator(FhirContext fhirContext, IValidationSupport validationSupport,
+			Map<String, StructureDefinition> existingSnapshotsByUrlAndVersion)
+	{
+		this.fhirContext = fhirContext;
 		worker = createWorker(fhirContext, validationSupport);
+
+		if (existingSnapshotsByUrlAndVersion != null)
+			this.existingSnapshotsByUrlAndVersion.putAll(existingSnapshotsByUrlAndVersion);
 	}
 
 	protected HapiWorkerContext createWorker(FhirContext context, IValidationSupport validationSupport)
@@ -44,6 +86,20 @@ public class SnapshotGenerator
 		else if (!base.hasSnapshot())
 			generateSnapshot(base);
 
+		String hash = calculateHash(differential);
+		StructureDefinition existing = existingSnapshotsByUrlAndVersion
+				.get(differential.getUrl() + "|" + differential.getVersion());
+		if (existing != null && hash.equals(getHash(existing).orElse(null)))
+		{
+			logger.info("Reusing snapshot for StructureDefinition with url {}, version {}, hash {}",
+					differential.getUrl(), differential.getVersion(), hash);
+
+			// snapshot generation adds missing element ids to the differential
+			differential.setDifferential(existing.getDifferential().copy());
+			differential.setSnapshot(existing.getSnapshot().copy());
+			return differential;
+		}
+
 		logger.info("Generating snapshot for StructureDefinition with url {}, version {}, base {}",
 				differential.getUrl(), differential.getVersion(), differential.getBaseDefinition());
 
@@ -66,6 +122,75 @@ public class SnapshotGenerator
 					+ differential.getUrl() + ", version " + differential.getVersion() + ": " + messages.toString());
 		}
 
+		differential.getSnapshot().addExtension(EXTENSION_SNAPSHOT_HASH, new StringType(hash));
+
 		return differential;
 	}
+
+	private static Optional<String> getHash(StructureDefinition structureDefinition)
+	{
+		if (structureDefinition == null || !structureDefinition.hasSnapshot())
+			return Optional.empty();
+
+		Extension extension = structureDefinition.getSnapshot().getExtensionByUrl(EXTENSION_SNAPSHOT_HASH);
+		if (extension != null && extension.getValue() instanceof StringType)
+			return Optional.ofNullable(((StringType) extension.getValue()).getValue());
+		else
+			return Optional.empty();
+	}
+
+	private String calculateHash(StructureDefinition differential)
+	{
+		MessageDigest digest = createDigest();
+		update(digest, differential, new HashSet<>());
+
+		return Hex.encodeHexString(digest.digest());
+	}
+
+	private void update(MessageDigest digest, StructureDefinition differential, Set<String> visitedUrls)
+	{
+		StructureDefinition copy = differential.copy();
+		copy.setSnapshot(null);
+		copy.setId((String) null);
+		copy.setMeta(null);
+		copy.setText(null);
+
+		digest.update(newParser().encodeResourceToString(copy).getBytes(StandardCharsets.UTF_8));
+
+		String baseUrl = differential.getBaseDefinition();
+		if (baseUrl == null || !visitedUrls.add(baseUrl))
+			return;
+
+		StructureDefinition base = worker.fetchResource(StructureDefinition.class, baseUrl);
+		Optional<String> baseHash = getHash(base);
+
+		if (base == null)
+			digest.update(("missing:" + baseUrl).getBytes(StandardCharsets.UTF_8));
+		else if (baseHash.isPresent())
+			digest.update(baseHash.get().getBytes(StandardCharsets.UTF_8));
+		else if (baseUrl.startsWith(HL7_STRUCTURE_DEFINITION_URL_PREFIX))
+			digest.update((base.getUrl() + "|" + base.getVersion()).getBytes(StandardCharsets.UTF_8));
+		else
+			update(digest, base, visitedUrls);
+	}
+
+	private IParser newParser()
+	{
+		IParser parser = fhirContext.newJsonParser();
+		parser.setStripVersionsFromReferences(false);
+		parser.setOverrideResourceIdWithBundleEntryFullUrl(false);
+		return parser;
+	}
+
+	private MessageDigest createDigest()
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
 }
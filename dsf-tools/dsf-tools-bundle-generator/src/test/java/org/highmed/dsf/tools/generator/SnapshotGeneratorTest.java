@@ -0,0 +1,77 @@
+package org.highmed.dsf.tools.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Locale;
+
+import org.hl7.fhir.common.hapi.validation.support.InMemoryTerminologyServerValidationSupport;
+import org.hl7.fhir.common.hapi.validation.support.ValidationSupportChain;
+import org.hl7.fhir.r4.model.ElementDefinition;
+import org.hl7.fhir.r4.model.Enumerations.FHIRVersion;
+import org.hl7.fhir.r4.model.Enumerations.PublicationStatus;
+import org.hl7.fhir.r4.model.Extension;
+import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.StructureDefinition;
+import org.hl7.fhir.r4.model.StructureDefinition.StructureDefinitionKind;
+import org.hl7.fhir.r4.model.StructureDefinition.TypeDerivationRule;
+import org.junit.Test;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.support.DefaultProfileValidationSupport;
+import ca.uhn.fhir.i18n.HapiLocalizer;
+
+public class SnapshotGeneratorTest
+{
+	// same differential and hash as in SnapshotGeneratorWithCacheTest of dsf-fhir-validation
+	private static final String TEST_VECTOR_HASH = "196c90db97fd524d5b3837d1e2619283d18a7ef56b100af560b729bdaecbe9df";
+
+	private StructureDefinition createStructureDefinition()
+	{
+		StructureDefinition s = new StructureDefinition();
+		s.setUrl("http://highmed.org/fhir/StructureDefinition/task-test-base");
+		s.setVersion("1.0.0");
+		s.setName("TaskTest");
+		s.setStatus(PublicationStatus.ACTIVE);
+		s.setFhirVersion(FHIRVersion._4_0_1);
+		s.setKind(StructureDefinitionKind.RESOURCE);
+		s.setAbstract(false);
+		s.setType("Task");
+		s.setBaseDefinition("http://hl7.org/fhir/StructureDefinition/Task");
+		s.setDerivation(TypeDerivationRule.CONSTRAINT);
+
+		ElementDefinition element = s.getDifferential().addElement();
+		element.setId("Task.owner");
+		element.setPath("Task.owner");
+		element.setMin(1);
+
+		return s;
+	}
+
+	@Test
+	public void testGenerateSnapshotHashTestVector() throws Exception
+	{
+		FhirContext fhirContext = FhirContext.forR4();
+		fhirContext.setLocalizer(new HapiLocalizer()
+		{
+			@Override
+			public Locale getLocale()
+			{
+				return Locale.ROOT;
+			}
+		});
+
+		ValidationSupportChain validationSupport = new ValidationSupportChain(
+				new InMemoryTerminologyServerValidationSupport(fhirContext),
+				new DefaultProfileValidationSupport(fhirContext));
+
+		StructureDefinition snapshot = new SnapshotGenerator(fhirContext, validationSupport)
+				.generateSnapshot(createStructureDefinition());
+		assertTrue(snapshot.hasSnapshot());
+
+		Extension hash = snapshot.getSnapshot().getExtensionByUrl(SnapshotGenerator.EXTENSION_SNAPSHOT_HASH);
+		assertNotNull(hash);
+		assertEquals(TEST_VECTOR_HASH, ((StringType) hash.getValue()).getValue());
+	}
+}
@@ -0,0 +1,59 @@
+package org.highmed.dsf.tools.jetty;
+
+import java.util.Objects;
+import java.util.Properties;
+
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
+import org.eclipse.jetty.webapp.WebAppContext;
+
+/**
+ * Optional gzip response compression for the FHIR and BPE servers, configured via <code>jetty.properties</code>:
+ * <ul>
+ * <li>{@value #PROPERTY_ENABLE}: <code>true</code> to enable compression, default <code>false</code></li>
+ * <li>{@value #PROPERTY_MIN_SIZE}: minimum response size in bytes, default {@value #DEFAULT_MIN_SIZE}</li>
+ * <li>{@value #PROPERTY_MIME_TYPES}: comma or space separated list of compressed mime types, default
+ * {@value #DEFAULT_MIME_TYPES}</li>
+ * </ul>
+ */
+public final class JettyCompression
+{
+	public static final String PROPERTY_ENABLE = "jetty.compression.enable";
+	public static final String PROPERTY_MIN_SIZE = "jetty.compression.min.size";
+	public static final String PROPERTY_MIME_TYPES = "jetty.compression.mime.types";
+
+	public static final String DEFAULT_MIN_SIZE = "1024";
+	public static final String DEFAULT_MIME_TYPES = "application/fhir+json,application/fhir+xml,application/json,application/xml,text/html,text/css,text/javascript,text/plain";
+
+	private JettyCompression()
+	{
+	}
+
+	/**
+	 * Sets a {@link GzipHandler} for GET and POST responses on the given <b>webAppContext</b>, if enabled via
+	 * {@value #PROPERTY_ENABLE}.
+	 *
+	 * @param webAppContext
+	 *            not <code>null</code>
+	 * @param properties
+	 *            not <code>null</code>
+	 */
+	public static void configure(WebAppContext webAppContext, Properties properties)
+	{
+		Objects.requireNonNull(webAppContext, "webAppContext");
+		Objects.requireNonNull(properties, "properties");
+
+		if (Boolean.parseBoolean(properties.getProperty(PROPERTY_ENABLE)))
+			webAppContext.setGzipHandler(gzipHandler(properties));
+	}
+
+	private static GzipHandler gzipHandler(Properties properties)
+	{
+		GzipHandler gzipHandler = new GzipHandler();
+		gzipHandler
+				.setMinGzipSize(Integer.parseInt(properties.getProperty(PROPERTY_MIN_SIZE, DEFAULT_MIN_SIZE).trim()));
+		gzipHandler.setIncludedMimeTypes(
+				properties.getProperty(PROPERTY_MIME_TYPES, DEFAULT_MIME_TYPES).trim().split("[,\\s]+"));
+		gzipHandler.setIncludedMethods("GET", "POST");
+		return gzipHandler;
+	}
+}